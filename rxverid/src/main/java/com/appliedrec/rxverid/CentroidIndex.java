@@ -0,0 +1,300 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+
+import org.javatuples.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Index holding one representative template per user
+ * <p>The user's centroid is the medoid of the user's faces, i.e., the face with the highest combined similarity to the user's other faces.</p>
+ * <p>The index is used to shortlist identification candidates before comparing the face to all faces of the shortlisted users. It holds the centroids of one user store at a time and reloads when it's used with another user store.</p>
+ * @since 1.11.0
+ * @see TemplateSelection
+ */
+class CentroidIndex {
+
+    private final int shortlistSize;
+    private Centroids current;
+
+    /**
+     * Immutable copy of the centroids read by {@link #shortlist(IUserManagement, IRecognizable, IFaceRecognition, String) shortlist} without holding the index lock
+     */
+    private static class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new String[0], new IRecognizable[0]);
+
+        private final String[] users;
+        private final IRecognizable[] centroids;
+
+        Snapshot(String[] users, IRecognizable[] centroids) {
+            this.users = users;
+            this.centroids = centroids;
+        }
+    }
+
+    /**
+     * Centroids of the users in one user store
+     */
+    private static class Centroids {
+
+        private final IUserManagement userManagement;
+        private final HashMap<String,IRecognizable> byUser = new HashMap<>();
+        // Changes made while the centroids are loading, applied over the loaded centroids; a null value marks a removed user
+        private final HashMap<String,IRecognizable> pendingChanges = new HashMap<>();
+        private boolean ready = false;
+        // Replaced after every change so that readers never copy the centroids
+        private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+        Centroids(IUserManagement userManagement) {
+            this.userManagement = userManagement;
+        }
+
+        void put(String user, @Nullable IRecognizable centroid) {
+            if (!ready) {
+                pendingChanges.put(user, centroid);
+                return;
+            }
+            if (centroid != null) {
+                byUser.put(user, centroid);
+            } else if (byUser.remove(user) == null) {
+                return;
+            }
+            publishSnapshot();
+        }
+
+        void publishSnapshot() {
+            String[] users = new String[byUser.size()];
+            IRecognizable[] centroids = new IRecognizable[users.length];
+            int i = 0;
+            for (Map.Entry<String,IRecognizable> entry : byUser.entrySet()) {
+                users[i] = entry.getKey();
+                centroids[i++] = entry.getValue();
+            }
+            snapshot = new Snapshot(users, centroids);
+        }
+    }
+
+    /**
+     * Constructor
+     * @param shortlistSize Number of users returned by {@link #shortlist(IUserManagement, IRecognizable, IFaceRecognition)}
+     * @since 1.11.0
+     */
+    CentroidIndex(int shortlistSize) {
+        this.shortlistSize = shortlistSize;
+    }
+
+    int getShortlistSize() {
+        return shortlistSize;
+    }
+
+    synchronized boolean isLoaded() {
+        return current != null && current.ready;
+    }
+
+    synchronized int size() {
+        return current != null ? current.byUser.size() : 0;
+    }
+
+    @Nullable
+    synchronized IRecognizable getCentroidOfUser(String user) {
+        return current != null ? current.byUser.get(user) : null;
+    }
+
+    /**
+     * Load centroids of all users in the user store unless the index has already been loaded from the same user store
+     * <p>The centroids are computed without holding the index lock so that identifications using a loaded index aren't blocked. Callers that need the same user store wait for the load in progress instead of loading it again.</p>
+     * @param userManagement User management from which to read the users and their faces
+     * @param faceRecognition Face recognition used to compute the centroids
+     * @throws Exception If the faces cannot be read or compared
+     * @since 1.11.0
+     */
+    void loadIfNeeded(IUserManagement userManagement, IFaceRecognition faceRecognition) throws Exception {
+        load(userManagement, faceRecognition);
+    }
+
+    private Centroids load(IUserManagement userManagement, IFaceRecognition faceRecognition) throws Exception {
+        Centroids centroids;
+        synchronized (this) {
+            while (current != null && current.userManagement == userManagement && !current.ready) {
+                wait();
+            }
+            if (current != null && current.userManagement == userManagement) {
+                return current;
+            }
+            centroids = new Centroids(userManagement);
+            current = centroids;
+        }
+        HashMap<String,IRecognizable> loaded = new HashMap<>();
+        try {
+            for (String user : userManagement.getUsers()) {
+                IRecognizable centroid = computeCentroid(userManagement.getFacesOfUser(user), faceRecognition);
+                if (centroid != null) {
+                    loaded.put(user, centroid);
+                }
+            }
+        } catch (Exception e) {
+            synchronized (this) {
+                if (current == centroids) {
+                    current = null;
+                }
+                notifyAll();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            centroids.byUser.putAll(loaded);
+            centroids.ready = true;
+            for (Map.Entry<String,IRecognizable> change : centroids.pendingChanges.entrySet()) {
+                centroids.put(change.getKey(), change.getValue());
+            }
+            centroids.pendingChanges.clear();
+            centroids.publishSnapshot();
+            notifyAll();
+        }
+        // The index may have been invalidated or loaded from another user store in the meantime; the caller still gets the centroids of its user store
+        return centroids;
+    }
+
+    /**
+     * Recompute the centroid of a user whose faces changed
+     * <p>Ignored if the index hasn't been loaded from the user store – the user will be picked up when the index loads.
+     * The centroid is computed without holding the index lock so that identifications aren't blocked by it. Callers serialize the updates of a user, RxVerID does so by holding the user's {@link UserWriteLocks write lock}.</p>
+     * @param userManagement User management whose user changed
+     * @param user User whose faces changed
+     * @param faces All faces of the user
+     * @param faceRecognition Face recognition used to compute the centroid
+     * @throws Exception If the faces cannot be compared
+     * @since 1.11.0
+     */
+    void updateUser(IUserManagement userManagement, String user, IRecognizable[] faces, IFaceRecognition faceRecognition) throws Exception {
+        synchronized (this) {
+            if (current == null || current.userManagement != userManagement) {
+                return;
+            }
+        }
+        IRecognizable centroid = computeCentroid(faces, faceRecognition);
+        synchronized (this) {
+            // The index may have been invalidated or reloaded from another user store while the centroid was computed
+            if (current != null && current.userManagement == userManagement) {
+                current.put(user, centroid);
+            }
+        }
+    }
+
+    /**
+     * Remove a deleted user from the index
+     * @param user Deleted user
+     * @since 1.11.0
+     */
+    synchronized void removeUser(String user) {
+        if (current != null) {
+            current.put(user, null);
+        }
+    }
+
+    /**
+     * Discard the index so that it's reloaded on next use
+     * @since 1.11.0
+     */
+    synchronized void invalidate() {
+        current = null;
+        notifyAll();
+    }
+
+    /**
+     * Find the users whose centroids are most similar to the face
+     * <p>Loads the index from the user store if needed.</p>
+     * @param userManagement User management whose users to shortlist
+     * @param face Face to compare to the centroids
+     * @param faceRecognition Face recognition used to compare the face
+     * @return Up to {@link #getShortlistSize()} users sorted by the score of their centroids, best match first
+     * @throws Exception If the face comparison fails
+     * @since 1.11.0
+     */
+    @NonNull
+    List<String> shortlist(IUserManagement userManagement, IRecognizable face, IFaceRecognition faceRecognition) throws Exception {
+        return shortlist(userManagement, face, faceRecognition, null);
+    }
+
+    /**
+     * Find the users other than the excluded user whose centroids are most similar to the face
+     * <p>The excluded user isn't compared and doesn't take a place in the shortlist. Loads the index from the user store if needed.</p>
+     * @param userManagement User management whose users to shortlist
+     * @param face Face to compare to the centroids
+     * @param faceRecognition Face recognition used to compare the face
+     * @param excludedUser User to leave out of the shortlist or {@literal null} to shortlist from all users
+     * @return Up to {@link #getShortlistSize()} users sorted by the score of their centroids, best match first
+     * @throws Exception If the face comparison fails
+     * @since 1.11.0
+     */
+    @NonNull
+    List<String> shortlist(IUserManagement userManagement, IRecognizable face, IFaceRecognition faceRecognition, @Nullable String excludedUser) throws Exception {
+        Snapshot snapshot = load(userManagement, faceRecognition).snapshot;
+        PriorityQueue<Pair<String,Float>> best = new PriorityQueue<>(Math.max(1, shortlistSize), (pair1, pair2) -> Float.compare(pair1.getValue1(), pair2.getValue1()));
+        IRecognizable[] subject = new IRecognizable[]{face};
+        for (int i = 0; i < snapshot.users.length; i++) {
+            String user = snapshot.users[i];
+            if (user.equals(excludedUser)) {
+                continue;
+            }
+            float score = faceRecognition.compareSubjectFacesToFaces(new IRecognizable[]{snapshot.centroids[i]}, subject);
+            if (best.size() < shortlistSize) {
+                best.add(new Pair<>(user, score));
+            } else if (!best.isEmpty() && best.peek().getValue1() < score) {
+                best.poll();
+                best.add(new Pair<>(user, score));
+            }
+        }
+        ArrayList<String> users = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            users.add(best.poll().getValue0());
+        }
+        Collections.reverse(users);
+        return users;
+    }
+
+    /**
+     * Find the medoid of faces
+     * @param faces Faces
+     * @param faceRecognition Face recognition used to compare the faces
+     * @return Face with the highest combined similarity to the other faces or {@literal null} if there are no faces
+     * @throws Exception If the face comparison fails
+     * @since 1.11.0
+     */
+    @Nullable
+    static IRecognizable computeCentroid(@Nullable IRecognizable[] faces, IFaceRecognition faceRecognition) throws Exception {
+        if (faces == null || faces.length == 0) {
+            return null;
+        }
+        if (faces.length < 3) {
+            return faces[0];
+        }
+        float[] totals = new float[faces.length];
+        for (int i = 0; i < faces.length; i++) {
+            for (int j = i + 1; j < faces.length; j++) {
+                float score = faceRecognition.compareSubjectFacesToFaces(new IRecognizable[]{faces[i]}, new IRecognizable[]{faces[j]});
+                totals[i] += score;
+                totals[j] += score;
+            }
+        }
+        int best = 0;
+        for (int i = 1; i < totals.length; i++) {
+            if (totals[i] > totals[best]) {
+                best = i;
+            }
+        }
+        return faces[best];
+    }
+}
@@ -0,0 +1,53 @@
+package com.appliedrec.rxverid;
+
+/**
+ * Exception thrown when faces being enrolled already belong to another user
+ * @since 1.11.0
+ */
+public class DuplicateEnrollmentException extends Exception {
+
+    private final String user;
+    private final String existingUser;
+    private final float score;
+
+    /**
+     * Constructor
+     * @param user User whose enrollment was rejected
+     * @param existingUser User to whom the faces already belong
+     * @param score Score of the enrolled faces compared to the existing user's faces
+     * @since 1.11.0
+     */
+    public DuplicateEnrollmentException(String user, String existingUser, float score) {
+        super("Faces enrolled as "+user+" match existing user "+existingUser);
+        this.user = user;
+        this.existingUser = existingUser;
+        this.score = score;
+    }
+
+    /**
+     * Get the user whose enrollment was rejected
+     * @return User identifier
+     * @since 1.11.0
+     */
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * Get the user to whom the faces already belong
+     * @return User identifier
+     * @since 1.11.0
+     */
+    public String getExistingUser() {
+        return existingUser;
+    }
+
+    /**
+     * Get the score of the enrolled faces compared to the existing user's faces
+     * @return Score
+     * @since 1.11.0
+     */
+    public float getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,167 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IFaceDetection;
+import com.appliedrec.verid.core.IFaceDetectionFactory;
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IFaceRecognitionFactory;
+import com.appliedrec.verid.core.VerID;
+
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Pools of face detection and face recognition instances leased for one call at a time
+ * <p>A Ver-ID instance has one face detection and one face recognition. If they serialize their work internally, running more calls in parallel doesn't increase throughput.
+ * The pool gives each call exclusive use of an instance. The members are made by the factories when all members are in use, up to the pool size. Calls wait for a free member once the pool is full.</p>
+ * <p>The Ver-ID instance's own components are never pool members. Calls that don't lease a member, e.g., face comparisons, keep using them directly, so a leased member is never used by another call at the same time.</p>
+ * <p>Pools are kept per Ver-ID instance and are discarded with it or when RxVerID {@link RxVerID#releaseVerID() releases} the instance.</p>
+ * @since 1.11.0
+ */
+class EnginePool {
+
+    interface Call<T,R> {
+        R call(T component) throws Exception;
+    }
+
+    static class ComponentPool<T> {
+
+        private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<>();
+        private final Semaphore permits;
+        private final Callable<T> creator;
+        private int createdCount = 0;
+
+        ComponentPool(int size, Callable<T> creator) {
+            this.permits = new Semaphore(size, true);
+            this.creator = creator;
+        }
+
+        <R> R use(Call<T,R> call) throws Exception {
+            permits.acquire();
+            T component = idle.poll();
+            if (component == null) {
+                try {
+                    component = create();
+                } catch (Exception e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+            try {
+                return call.call(component);
+            } finally {
+                // The component must be idle before the permit is released so that the next lease finds it
+                idle.offer(component);
+                permits.release();
+            }
+        }
+
+        private synchronized T create() throws Exception {
+            T component = creator.call();
+            createdCount++;
+            return component;
+        }
+
+        synchronized int getCreatedCount() {
+            return createdCount;
+        }
+    }
+
+    private static class Pools {
+        private ComponentPool<IFaceDetection> faceDetection;
+        private ComponentPool<IFaceRecognition> faceRecognition;
+    }
+
+    private final int size;
+    private volatile IFaceDetectionFactory faceDetectionFactory;
+    private volatile IFaceRecognitionFactory faceRecognitionFactory;
+    private final WeakHashMap<VerID,Pools> pools = new WeakHashMap<>();
+
+    /**
+     * Constructor
+     * @param size Maximum number of pool members of each component per Ver-ID instance
+     * @param faceDetectionFactory Factory of additional face detection instances or {@literal null} to use the factory of the Ver-ID instance created by RxVerID
+     * @param faceRecognitionFactory Factory of additional face recognition instances or {@literal null} to use the factory of the Ver-ID instance created by RxVerID
+     */
+    EnginePool(int size, IFaceDetectionFactory faceDetectionFactory, IFaceRecognitionFactory faceRecognitionFactory) {
+        this.size = size;
+        this.faceDetectionFactory = faceDetectionFactory;
+        this.faceRecognitionFactory = faceRecognitionFactory;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Use the factories of the Ver-ID factory if no factories were configured
+     * @param faceDetectionFactory Face detection factory of the Ver-ID factory
+     * @param faceRecognitionFactory Face recognition factory of the Ver-ID factory
+     */
+    synchronized void setDefaultFactories(IFaceDetectionFactory faceDetectionFactory, IFaceRecognitionFactory faceRecognitionFactory) {
+        if (this.faceDetectionFactory == null) {
+            this.faceDetectionFactory = faceDetectionFactory;
+        }
+        if (this.faceRecognitionFactory == null) {
+            this.faceRecognitionFactory = faceRecognitionFactory;
+        }
+    }
+
+    /**
+     * Run a call with exclusive use of a face detection instance
+     * <p>Without a factory the call uses the Ver-ID instance's face detection directly, as it would without a pool.</p>
+     */
+    <R> R withFaceDetection(VerID verID, Call<IFaceDetection,R> call) throws Exception {
+        IFaceDetectionFactory factory = faceDetectionFactory;
+        if (factory == null) {
+            return call.call(verID.getFaceDetection());
+        }
+        ComponentPool<IFaceDetection> pool;
+        synchronized (this) {
+            Pools verIDPools = getPools(verID);
+            if (verIDPools.faceDetection == null) {
+                verIDPools.faceDetection = new ComponentPool<>(size, factory::makeFaceDetection);
+            }
+            pool = verIDPools.faceDetection;
+        }
+        return pool.use(call);
+    }
+
+    /**
+     * Run a call with exclusive use of a face recognition instance
+     * <p>Without a factory the call uses the Ver-ID instance's face recognition directly, as it would without a pool.</p>
+     */
+    <R> R withFaceRecognition(VerID verID, Call<IFaceRecognition,R> call) throws Exception {
+        IFaceRecognitionFactory factory = faceRecognitionFactory;
+        if (factory == null) {
+            return call.call(verID.getFaceRecognition());
+        }
+        ComponentPool<IFaceRecognition> pool;
+        synchronized (this) {
+            Pools verIDPools = getPools(verID);
+            if (verIDPools.faceRecognition == null) {
+                verIDPools.faceRecognition = new ComponentPool<>(size, factory::makeFaceRecognition);
+            }
+            pool = verIDPools.faceRecognition;
+        }
+        return pool.use(call);
+    }
+
+    /**
+     * Discard the pools of all Ver-ID instances
+     * <p>Calls in progress finish with the members they leased. The members are freed when the calls finish.</p>
+     */
+    synchronized void clear() {
+        pools.clear();
+    }
+
+    private Pools getPools(VerID verID) {
+        Pools verIDPools = pools.get(verID);
+        if (verIDPools == null) {
+            verIDPools = new Pools();
+            pools.put(verID, verIDPools);
+        }
+        return verIDPools;
+    }
+}
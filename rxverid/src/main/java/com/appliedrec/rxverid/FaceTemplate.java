@@ -0,0 +1,52 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+import com.appliedrec.verid.core.IRecognizable;
+
+import java.util.Arrays;
+
+/**
+ * Face template restored from its recognition data
+ * <p>Used when faces are read back from a gallery exported by {@link RxVerID#exportGallery(java.io.OutputStream)}.</p>
+ * @since 1.11.0
+ */
+public class FaceTemplate implements IRecognizable {
+
+    private final byte[] recognitionData;
+    private final int version;
+
+    /**
+     * Constructor
+     * @param recognitionData Recognition data of the face
+     * @param version Version of the face template
+     * @since 1.11.0
+     */
+    public FaceTemplate(@NonNull byte[] recognitionData, int version) {
+        this.recognitionData = recognitionData;
+        this.version = version;
+    }
+
+    @Override
+    public byte[] getRecognitionData() {
+        return recognitionData;
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FaceTemplate that = (FaceTemplate) o;
+        return version == that.version && Arrays.equals(recognitionData, that.recognitionData);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * version + Arrays.hashCode(recognitionData);
+    }
+}
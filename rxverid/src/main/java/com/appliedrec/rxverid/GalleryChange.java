@@ -0,0 +1,94 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.appliedrec.verid.core.IRecognizable;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Change to the user gallery published by {@link RxVerID#galleryChanges()}
+ * @since 1.11.0
+ */
+public class GalleryChange {
+
+    /**
+     * Faces were added to a user
+     * @since 1.11.0
+     */
+    public static final int TYPE_FACES_ADDED = 1;
+    /**
+     * User and all the user's faces were deleted
+     * @since 1.11.0
+     */
+    public static final int TYPE_USER_DELETED = 2;
+    /**
+     * Gallery changed in a way that isn't described by individual changes, e.g., after a gallery import – re-read the gallery
+     * @since 1.11.0
+     */
+    public static final int TYPE_GALLERY_RELOADED = 3;
+    /**
+     * Some of the user's faces were removed, e.g., by template compaction
+     * @since 1.11.0
+     */
+    public static final int TYPE_FACES_REMOVED = 4;
+
+    @IntDef({TYPE_FACES_ADDED, TYPE_USER_DELETED, TYPE_GALLERY_RELOADED, TYPE_FACES_REMOVED})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Type{};
+
+    private final long sequence;
+    private final int type;
+    private final String user;
+    private final IRecognizable[] faces;
+
+    GalleryChange(long sequence, @Type int type, @Nullable String user, @NonNull IRecognizable[] faces) {
+        this.sequence = sequence;
+        this.type = type;
+        this.user = user;
+        this.faces = faces;
+    }
+
+    /**
+     * Sequence number of the change
+     * <p>Sequence numbers start at {@literal 1} and increase by one with every change published by the {@link RxVerID} instance.</p>
+     * @return Sequence number
+     * @since 1.11.0
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Type of the change
+     * @return One of {@link #TYPE_FACES_ADDED}, {@link #TYPE_FACES_REMOVED}, {@link #TYPE_USER_DELETED} or {@link #TYPE_GALLERY_RELOADED}
+     * @since 1.11.0
+     */
+    @Type
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * User affected by the change
+     * @return User identifier or {@literal null} if the change is {@link #TYPE_GALLERY_RELOADED}
+     * @since 1.11.0
+     */
+    @Nullable
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * Faces affected by the change
+     * @return Faces added to or removed from the user or an empty array if the change doesn't carry faces
+     * @since 1.11.0
+     */
+    @NonNull
+    public IRecognizable[] getFaces() {
+        return faces;
+    }
+}
@@ -0,0 +1,136 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.appliedrec.verid.core.IRecognizable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.UnicastSubject;
+
+/**
+ * Hot feed of gallery changes that keeps a bounded history so that subscribers can resume from a sequence number
+ * <p>Publishing a change only records it under the feed's lock. The changes are emitted to subscribers in sequence order on the feed's scheduler, so a slow subscriber doesn't hold up the writer and a subscriber may call back into the feed.</p>
+ * @since 1.11.0
+ */
+class GalleryChangeFeed {
+
+    private final int historySize;
+    private final ArrayDeque<GalleryChange> history;
+    private final PublishSubject<GalleryChange> subject = PublishSubject.create();
+    private final Scheduler scheduler;
+    // Changes recorded but not yet emitted, in sequence order
+    private final ConcurrentLinkedQueue<GalleryChange> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger emissionsRequested = new AtomicInteger();
+    private long lastSequence = 0;
+
+    /**
+     * Constructor
+     * @param historySize Number of most recent changes kept for subscribers that resume from a sequence number
+     * @param scheduler Scheduler on which the changes are emitted
+     * @since 1.11.0
+     */
+    GalleryChangeFeed(int historySize, Scheduler scheduler) {
+        this.historySize = historySize;
+        this.history = new ArrayDeque<>(historySize);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Publish a change
+     * <p>The change gets its sequence number and is added to the history under the feed's lock. It's emitted later on the feed's scheduler.
+     * Callers that need the changes of a user to be numbered in the order of the user store writes publish while holding the user's {@link UserWriteLocks write lock}.</p>
+     * @param type Type of the change
+     * @param user User affected by the change
+     * @param faces Faces affected by the change
+     * @return Published change
+     * @since 1.11.0
+     */
+    GalleryChange publish(@GalleryChange.Type int type, @Nullable String user, @NonNull IRecognizable[] faces) {
+        GalleryChange change;
+        synchronized (this) {
+            change = new GalleryChange(++lastSequence, type, user, faces);
+            if (historySize > 0) {
+                if (history.size() == historySize) {
+                    history.removeFirst();
+                }
+                history.addLast(change);
+            }
+            // Queued under the lock so that the queue is in sequence order
+            pending.offer(change);
+        }
+        if (emissionsRequested.getAndIncrement() == 0) {
+            scheduler.scheduleDirect(this::emitPending);
+        }
+        return change;
+    }
+
+    private void emitPending() {
+        // Only one emission loop runs at a time so subscribers receive the changes one by one and in order
+        int requested = 1;
+        do {
+            GalleryChange change;
+            while ((change = pending.poll()) != null) {
+                subject.onNext(change);
+            }
+            requested = emissionsRequested.addAndGet(-requested);
+        } while (requested != 0);
+    }
+
+    synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Changes published after subscription
+     * <p>Changes recorded shortly before subscription may still be emitted to the new subscriber if they were waiting to be emitted.</p>
+     * @return Hot observable of changes
+     * @since 1.11.0
+     */
+    Observable<GalleryChange> changes() {
+        return subject;
+    }
+
+    /**
+     * Changes following a sequence number followed by changes published after subscription
+     * @param afterSequence Sequence number of the last change the subscriber has seen
+     * @return Observable that emits the missed changes from the history and then the live changes without gaps or duplicates
+     * or fails with {@link NoSuchElementException} if some of the missed changes are no longer in the history
+     * @since 1.11.0
+     */
+    Observable<GalleryChange> changes(long afterSequence) {
+        return Observable.defer(() -> {
+            ArrayList<GalleryChange> missed = new ArrayList<>();
+            UnicastSubject<GalleryChange> live = UnicastSubject.create();
+            Disposable liveSubscription;
+            long lastMissedSequence;
+            synchronized (GalleryChangeFeed.this) {
+                long oldestAvailable = history.isEmpty() ? lastSequence + 1 : history.getFirst().getSequence();
+                if (afterSequence + 1 < oldestAvailable) {
+                    return Observable.error(new NoSuchElementException("Gallery changes following sequence "+afterSequence+" are no longer available"));
+                }
+                for (GalleryChange change : history) {
+                    if (change.getSequence() > afterSequence) {
+                        missed.add(change);
+                    }
+                }
+                lastMissedSequence = missed.isEmpty() ? afterSequence : missed.get(missed.size() - 1).getSequence();
+                // Subscribing while holding the lock guarantees that every change recorded after the history was read reaches the live subscription
+                liveSubscription = subject.subscribe(live::onNext, live::onError, live::onComplete);
+            }
+            // The live subscription buffers until the missed changes have been replayed; changes that were replayed and are still waiting to be emitted are skipped
+            return Observable.fromIterable(missed)
+                    .concatWith(live.filter(change -> change.getSequence() > lastMissedSequence))
+                    .doFinally(liveSubscription::dispose);
+        });
+    }
+}
@@ -0,0 +1,223 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+import com.appliedrec.verid.core.IRecognizable;
+
+import org.javatuples.Pair;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * Binary gallery format used by {@link RxVerID#exportGallery(java.io.OutputStream)} and {@link RxVerID#importGallery(java.io.InputStream)}
+ * <p>All values are big-endian. The gallery starts with a header:</p>
+ * <ul>
+ *     <li>{@literal int} magic number {@literal 0x56494447} ("VIDG")</li>
+ *     <li>{@literal int} format version</li>
+ *     <li>{@literal int} number of users</li>
+ * </ul>
+ * <p>The header is followed by one record per user:</p>
+ * <ul>
+ *     <li>modified UTF-8 user identifier</li>
+ *     <li>{@literal int} number of faces</li>
+ *     <li>for each face: {@literal int} template version, {@literal int} length of the recognition data and the recognition data</li>
+ * </ul>
+ * @since 1.11.0
+ */
+class GalleryFormat {
+
+    static final int MAGIC = 0x56494447;
+    static final int FORMAT_VERSION = 1;
+    /**
+     * Largest recognition data length accepted when reading a gallery
+     * @since 1.11.0
+     */
+    static final int MAX_TEMPLATE_LENGTH = 1024 * 1024;
+    /**
+     * Length of a face record without its recognition data, i.e., the template version and data length
+     */
+    private static final int MIN_FACE_RECORD_LENGTH = 8;
+    private static final int INITIAL_FACE_CAPACITY = 64;
+
+    private GalleryFormat() {
+    }
+
+    /**
+     * Write gallery header
+     * @param output Output
+     * @param userCount Number of user records that will follow the header
+     * @throws IOException If the header cannot be written
+     * @since 1.11.0
+     */
+    static void writeHeader(DataOutput output, int userCount) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(userCount);
+    }
+
+    /**
+     * Write user record
+     * @param output Output
+     * @param user User identifier
+     * @param faces Faces of the user
+     * @throws IOException If the record cannot be written
+     * @since 1.11.0
+     */
+    static void writeUser(DataOutput output, String user, IRecognizable[] faces) throws IOException {
+        output.writeUTF(user);
+        output.writeInt(faces.length);
+        for (IRecognizable face : faces) {
+            byte[] data = face.getRecognitionData();
+            output.writeInt(face.getVersion());
+            output.writeInt(data.length);
+            output.write(data);
+        }
+    }
+
+    /**
+     * Read gallery header
+     * @param input Input
+     * @return Number of user records that follow the header
+     * @throws IOException If the input isn't a gallery or if its format version isn't supported
+     * @since 1.11.0
+     */
+    static int readHeader(DataInput input) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Input is not a Ver-ID gallery");
+        }
+        int version = input.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported gallery format version "+version);
+        }
+        int userCount = input.readInt();
+        if (userCount < 0) {
+            throw new IOException("Invalid user count in gallery header");
+        }
+        return userCount;
+    }
+
+    /**
+     * Read user record from input of unknown size
+     * @param input Input
+     * @return Pair of user identifier and the user's faces
+     * @throws IOException If the record cannot be read or if it's malformed
+     * @see #readUser(DataInput, long)
+     * @since 1.11.0
+     */
+    @NonNull
+    static Pair<String,IRecognizable[]> readUser(DataInput input) throws IOException {
+        return readUser(input, Long.MAX_VALUE);
+    }
+
+    /**
+     * Read user record
+     * <p>The face count and template lengths come from the input so they're checked before anything is allocated: each face takes at least {@value #MIN_FACE_RECORD_LENGTH} bytes and its data can be at most {@value #MAX_TEMPLATE_LENGTH} bytes and no longer than what's left of the input.
+     * When the size of the input isn't known the faces are collected as they're read instead of being allocated up front.</p>
+     * @param input Input
+     * @param remaining Number of bytes left in the input before the record, or {@link Long#MAX_VALUE} if unknown
+     * @return Pair of user identifier and the user's faces
+     * @throws IOException If the record cannot be read or if it's malformed
+     * @since 1.11.0
+     */
+    @NonNull
+    static Pair<String,IRecognizable[]> readUser(DataInput input, long remaining) throws IOException {
+        String user = input.readUTF();
+        int faceCount = input.readInt();
+        if (faceCount < 0 || faceCount > remaining / MIN_FACE_RECORD_LENGTH) {
+            throw new IOException("Invalid face count for user "+user);
+        }
+        ArrayList<IRecognizable> faces = new ArrayList<>(Math.min(faceCount, INITIAL_FACE_CAPACITY));
+        for (int i = 0; i < faceCount; i++) {
+            int version = input.readInt();
+            int length = input.readInt();
+            remaining -= MIN_FACE_RECORD_LENGTH;
+            if (length < 0 || length > MAX_TEMPLATE_LENGTH || length > remaining) {
+                throw new IOException("Invalid template length for user "+user);
+            }
+            remaining -= length;
+            byte[] data = new byte[length];
+            input.readFully(data);
+            faces.add(new FaceTemplate(data, version));
+        }
+        return new Pair<>(user, faces.toArray(new IRecognizable[0]));
+    }
+
+    /**
+     * Input stream reading a file through a window that's memory-mapped a region at a time
+     * <p>A single mapping cannot exceed 2 GB so the file is mapped in windows of at most {@code windowSize} bytes. The next window is mapped when the reader reaches the end of the current one.
+     * The channel is not closed by the stream.</p>
+     * @since 1.11.0
+     */
+    static class MappedFileInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long size;
+        private final int windowSize;
+        private long windowStart = 0;
+        private ByteBuffer window;
+
+        MappedFileInputStream(FileChannel channel, int windowSize) throws IOException {
+            if (windowSize < 1) {
+                throw new IllegalArgumentException("Window size must be positive");
+            }
+            this.channel = channel;
+            this.size = channel.size();
+            this.windowSize = windowSize;
+            this.window = map(0);
+        }
+
+        private ByteBuffer map(long start) throws IOException {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+        }
+
+        private boolean ensureRemaining() throws IOException {
+            if (window.hasRemaining()) {
+                return true;
+            }
+            long nextStart = windowStart + window.limit();
+            if (nextStart >= size) {
+                return false;
+            }
+            windowStart = nextStart;
+            window = map(nextStart);
+            return window.hasRemaining();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return ensureRemaining() ? window.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(@NonNull byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!ensureRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, window.remaining());
+            window.get(bytes, offset, count);
+            return count;
+        }
+
+        /**
+         * @return Number of bytes left to read
+         * @since 1.11.0
+         */
+        long remaining() {
+            return size - windowStart - window.position();
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, remaining());
+        }
+    }
+}
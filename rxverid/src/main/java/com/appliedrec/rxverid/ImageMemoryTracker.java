@@ -0,0 +1,264 @@
+package com.appliedrec.rxverid;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Accounting of the memory allocated for images by RxVerID
+ * <p>Register a tracker using {@link RxVerID.Builder#setImageMemoryTracker(ImageMemoryTracker)}. The tracker records the pixel bytes of bitmaps decoded, rotated and cropped by RxVerID and the bytes of image data buffered when reading images from URIs.
+ * It keeps totals per operation, the number of bytes that are still reachable (live) and the highest number of live bytes seen.
+ * Share one tracker between RxVerID instances to get a process-wide high-water mark.</p>
+ * <p>An allocation stops counting as live when its bitmap is recycled or when it's garbage collected. Live bytes are therefore an upper bound: an image the app no longer uses counts until the garbage collector reclaims it.</p>
+ * @since 1.11.0
+ */
+public class ImageMemoryTracker {
+
+    /**
+     * Bitmaps decoded from image data
+     * @since 1.11.0
+     */
+    public static final String OPERATION_DECODE_BITMAP = "getBitmapFromStream";
+    /**
+     * Bitmaps rotated upright according to their EXIF orientation
+     * @since 1.11.0
+     */
+    public static final String OPERATION_CORRECT_ORIENTATION = "correctBitmapOrientation";
+    /**
+     * Bitmaps cropped to a face
+     * @since 1.11.0
+     */
+    public static final String OPERATION_CROP_TO_FACE = "cropImageToFace";
+    /**
+     * Image data read from a URI into memory
+     * @since 1.11.0
+     */
+    public static final String OPERATION_BUFFER_STREAM = "byteArrayInputStreamFromInputStream";
+
+    /**
+     * Listener notified when the live image memory exceeds the budget
+     * @since 1.11.0
+     */
+    public interface BudgetListener {
+
+        /**
+         * Called on the thread that made the allocation when the live bytes go over the budget
+         * <p>The listener is called again only after the live bytes have dropped to or below the budget and exceeded it again.</p>
+         * @param operation Operation whose allocation exceeded the budget
+         * @param liveBytes Live bytes including the allocation
+         * @param budgetBytes Budget
+         * @since 1.11.0
+         */
+        void onImageMemoryBudgetExceeded(@NonNull String operation, long liveBytes, long budgetBytes);
+    }
+
+    /**
+     * Allocation totals of an operation
+     * @since 1.11.0
+     */
+    public static class OperationStatistics {
+
+        private final long allocationCount;
+        private final long allocatedBytes;
+        private final long largestAllocationBytes;
+
+        OperationStatistics(long allocationCount, long allocatedBytes, long largestAllocationBytes) {
+            this.allocationCount = allocationCount;
+            this.allocatedBytes = allocatedBytes;
+            this.largestAllocationBytes = largestAllocationBytes;
+        }
+
+        /**
+         * Number of allocations
+         * @return Allocation count
+         * @since 1.11.0
+         */
+        public long getAllocationCount() {
+            return allocationCount;
+        }
+
+        /**
+         * Total bytes allocated
+         * @return Bytes
+         * @since 1.11.0
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * Size of the largest allocation
+         * @return Bytes
+         * @since 1.11.0
+         */
+        public long getLargestAllocationBytes() {
+            return largestAllocationBytes;
+        }
+    }
+
+    private static class Allocation extends WeakReference<Object> {
+
+        private final long bytes;
+
+        Allocation(Object referent, long bytes, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.bytes = bytes;
+        }
+    }
+
+    private final long budgetBytes;
+    private final BudgetListener budgetListener;
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final LinkedHashSet<Allocation> liveAllocations = new LinkedHashSet<>();
+    private final HashMap<String,long[]> operations = new HashMap<>();
+    private long liveBytes = 0;
+    private long highWaterMarkBytes = 0;
+    private boolean overBudget = false;
+
+    /**
+     * Constructor for a tracker without a budget
+     * @since 1.11.0
+     */
+    public ImageMemoryTracker() {
+        this(Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Constructor
+     * @param budgetBytes Live bytes above which the listener is notified
+     * @param budgetListener Listener notified when the live bytes exceed the budget or {@literal null}
+     * @since 1.11.0
+     */
+    public ImageMemoryTracker(long budgetBytes, @Nullable BudgetListener budgetListener) {
+        this.budgetBytes = budgetBytes;
+        this.budgetListener = budgetListener;
+    }
+
+    /**
+     * Budget of live bytes
+     * @return Bytes
+     * @since 1.11.0
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    void trackBitmap(String operation, Bitmap bitmap) {
+        track(operation, bitmap, bitmap.getAllocationByteCount());
+    }
+
+    void trackBuffer(String operation, byte[] buffer) {
+        track(operation, buffer, buffer.length);
+    }
+
+    /**
+     * Record an allocation
+     * @param operation Operation that made the allocation
+     * @param referent Object holding the allocated memory
+     * @param bytes Allocated bytes
+     * @since 1.11.0
+     */
+    void track(String operation, Object referent, long bytes) {
+        boolean notify;
+        long live;
+        synchronized (this) {
+            releaseUnreachable();
+            long[] totals = operations.get(operation);
+            if (totals == null) {
+                totals = new long[3];
+                operations.put(operation, totals);
+            }
+            totals[0]++;
+            totals[1] += bytes;
+            totals[2] = Math.max(totals[2], bytes);
+            liveAllocations.add(new Allocation(referent, bytes, collected));
+            liveBytes += bytes;
+            highWaterMarkBytes = Math.max(highWaterMarkBytes, liveBytes);
+            live = liveBytes;
+            notify = !overBudget && liveBytes > budgetBytes;
+            overBudget = liveBytes > budgetBytes;
+        }
+        // The listener is called outside the lock so it can read the tracker
+        if (notify && budgetListener != null) {
+            budgetListener.onImageMemoryBudgetExceeded(operation, live, budgetBytes);
+        }
+    }
+
+    private void releaseUnreachable() {
+        Allocation allocation;
+        while ((allocation = (Allocation) collected.poll()) != null) {
+            if (liveAllocations.remove(allocation)) {
+                liveBytes -= allocation.bytes;
+            }
+        }
+        Iterator<Allocation> iterator = liveAllocations.iterator();
+        while (iterator.hasNext()) {
+            allocation = iterator.next();
+            Object referent = allocation.get();
+            if (referent instanceof Bitmap && ((Bitmap) referent).isRecycled()) {
+                iterator.remove();
+                liveBytes -= allocation.bytes;
+            }
+        }
+        if (liveBytes <= budgetBytes) {
+            overBudget = false;
+        }
+    }
+
+    /**
+     * Bytes of tracked images that haven't been recycled or garbage collected
+     * @return Live bytes
+     * @since 1.11.0
+     */
+    public synchronized long getLiveBytes() {
+        releaseUnreachable();
+        return liveBytes;
+    }
+
+    /**
+     * Highest number of live bytes since the tracker was created
+     * @return High-water mark in bytes
+     * @since 1.11.0
+     */
+    public synchronized long getHighWaterMarkBytes() {
+        return highWaterMarkBytes;
+    }
+
+    /**
+     * Allocation totals of an operation
+     * @param operation One of the {@code OPERATION_} constants
+     * @return Totals of the operation, all zero if the operation hasn't allocated any memory
+     * @since 1.11.0
+     */
+    @NonNull
+    public synchronized OperationStatistics getOperationStatistics(@NonNull String operation) {
+        long[] totals = operations.get(operation);
+        if (totals == null) {
+            return new OperationStatistics(0, 0, 0);
+        }
+        return new OperationStatistics(totals[0], totals[1], totals[2]);
+    }
+
+    /**
+     * Allocation totals of all operations that allocated memory
+     * @return Map of operation names to their totals
+     * @since 1.11.0
+     */
+    @NonNull
+    public synchronized Map<String,OperationStatistics> getOperationStatistics() {
+        HashMap<String,OperationStatistics> statistics = new HashMap<>();
+        for (Map.Entry<String,long[]> entry : operations.entrySet()) {
+            long[] totals = entry.getValue();
+            statistics.put(entry.getKey(), new OperationStatistics(totals[0], totals[1], totals[2]));
+        }
+        return statistics;
+    }
+}
@@ -0,0 +1,148 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IFaceDetection;
+import com.appliedrec.verid.core.IFaceDetectionFactory;
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IFaceRecognitionFactory;
+import com.appliedrec.verid.core.IUserManagement;
+import com.appliedrec.verid.core.IUserManagementFactory;
+import com.appliedrec.verid.core.VerIDFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Component factories that defer creating the Ver-ID components until they're first used
+ * <p>The factories return proxies of the component interfaces. A proxy creates its component using the wrapped factory the first time one of the component's methods is called, so an app that only detects faces never loads the face recognition models or opens the user store.</p>
+ * @since 1.11.0
+ */
+class LazyComponentFactory {
+
+    /**
+     * Listener notified when a component is loaded
+     */
+    interface Listener {
+
+        /**
+         * Called on the thread that first used the component
+         * @param stage {@link RxVerIDMetrics#STAGE_FACE_DETECTION_LOAD}, {@link RxVerIDMetrics#STAGE_FACE_RECOGNITION_LOAD} or {@link RxVerIDMetrics#STAGE_USER_STORE_OPEN}
+         * @param success {@literal true} if the component was created
+         * @param durationNanos Time it took to create the component
+         */
+        void onComponentLoaded(String stage, boolean success, long durationNanos);
+    }
+
+    private interface Loader<T> {
+        T load() throws Exception;
+    }
+
+    private LazyComponentFactory() {
+    }
+
+    /**
+     * Replace the component factories of a Ver-ID factory with lazy ones
+     * @param verIDFactory Configured Ver-ID factory
+     * @param listener Listener notified when the components are loaded or {@literal null}
+     */
+    static void apply(VerIDFactory verIDFactory, Listener listener) {
+        IFaceDetectionFactory faceDetectionFactory = verIDFactory.getFaceDetectionFactory();
+        if (faceDetectionFactory != null) {
+            verIDFactory.setFaceDetectionFactory(faceDetection(faceDetectionFactory, listener));
+        }
+        IFaceRecognitionFactory faceRecognitionFactory = verIDFactory.getFaceRecognitionFactory();
+        if (faceRecognitionFactory != null) {
+            verIDFactory.setFaceRecognitionFactory(faceRecognition(faceRecognitionFactory, listener));
+        }
+        IUserManagementFactory userManagementFactory = verIDFactory.getUserManagementFactory();
+        if (userManagementFactory != null) {
+            verIDFactory.setUserManagementFactory(userManagement(userManagementFactory, listener));
+        }
+    }
+
+    static IFaceDetectionFactory faceDetection(IFaceDetectionFactory factory, Listener listener) {
+        return () -> proxy(IFaceDetection.class, factory::makeFaceDetection, RxVerIDMetrics.STAGE_FACE_DETECTION_LOAD, listener);
+    }
+
+    static IFaceRecognitionFactory faceRecognition(IFaceRecognitionFactory factory, Listener listener) {
+        return () -> proxy(IFaceRecognition.class, factory::makeFaceRecognition, RxVerIDMetrics.STAGE_FACE_RECOGNITION_LOAD, listener);
+    }
+
+    static IUserManagementFactory userManagement(IUserManagementFactory factory, Listener listener) {
+        return () -> proxy(IUserManagement.class, factory::makeUserManagement, RxVerIDMetrics.STAGE_USER_STORE_OPEN, listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Loader<T> loader, String stage, Listener listener) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, new LazyInvocationHandler<>(loader, stage, listener));
+    }
+
+    private static class LazyInvocationHandler<T> implements InvocationHandler {
+
+        private final Loader<T> loader;
+        private final String stage;
+        private final Listener listener;
+        private volatile T component;
+
+        LazyInvocationHandler(Loader<T> loader, String stage, Listener listener) {
+            this.loader = loader;
+            this.stage = stage;
+            this.listener = listener;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "Lazy "+stage+" component";
+                }
+            }
+            T loaded = component;
+            if (loaded == null) {
+                // Closing a component that was never used doesn't need to create it first
+                if ("close".equals(method.getName())) {
+                    return null;
+                }
+                if ("isClosed".equals(method.getName())) {
+                    return false;
+                }
+                loaded = load(method);
+            }
+            try {
+                return method.invoke(loaded, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private synchronized T load(Method method) throws Exception {
+            if (component != null) {
+                return component;
+            }
+            long startTime = System.nanoTime();
+            try {
+                component = loader.load();
+                if (listener != null) {
+                    listener.onComponentLoaded(stage, true, System.nanoTime() - startTime);
+                }
+                return component;
+            } catch (Exception e) {
+                if (listener != null) {
+                    listener.onComponentLoaded(stage, false, System.nanoTime() - startTime);
+                }
+                for (Class<?> exceptionType : method.getExceptionTypes()) {
+                    if (exceptionType.isInstance(e)) {
+                        throw e;
+                    }
+                }
+                throw new IllegalStateException("Failed to load Ver-ID component", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IRecognizable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Face template backed by a region of a memory-mapped user store file
+ * <p>The template doesn't hold a copy of its recognition data. The data is copied from the mapped file each time {@link #getRecognitionData()} is called.</p>
+ * @since 1.11.0
+ */
+class MappedFaceTemplate implements IRecognizable {
+
+    private final MappedUserManagement store;
+    private final long generation;
+    private final long recordOffset;
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+    private final int version;
+
+    /**
+     * Constructor
+     * @param store User store the template was read from
+     * @param generation Generation of the store's log the template was read from
+     * @param recordOffset Offset of the template's record in the log, which identifies the face within the log generation
+     * @param buffer Mapped buffer of the user store file
+     * @param offset Offset of the recognition data in the buffer
+     * @param length Length of the recognition data
+     * @param version Version of the face template
+     * @since 1.11.0
+     */
+    MappedFaceTemplate(MappedUserManagement store, long generation, long recordOffset, ByteBuffer buffer, int offset, int length, int version) {
+        this.store = store;
+        this.generation = generation;
+        this.recordOffset = recordOffset;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.version = version;
+    }
+
+    @Override
+    public byte[] getRecognitionData() {
+        byte[] data = new byte[length];
+        // Work on a duplicate so that concurrent reads don't share the buffer position
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(data);
+        return data;
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    MappedUserManagement getStore() {
+        return store;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    long getRecordOffset() {
+        return recordOffset;
+    }
+}
@@ -0,0 +1,674 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * User store that keeps face templates in an append-only, memory-mapped log file
+ * <p>Every change is appended to the log as a checksummed record and the log is forced to storage before the call returns. Faces are read as {@link MappedFaceTemplate} views of the mapped log.</p>
+ * <p>The in-memory index of the log is checkpointed to a small index file every few records and when the store is closed.
+ * On open the store loads the checkpoint and replays only the records appended after it. A torn record at the end of the log, e.g., after a crash, is truncated.</p>
+ * <p>The log file is mapped with headroom for further records so appends don't map it again until it outgrows the mapping.
+ * When enough of the log is taken up by deleted faces, the live records are copied to a new log which replaces the old one.</p>
+ * @since 1.11.0
+ */
+class MappedUserManagement implements IUserManagement {
+
+    static final String LOG_FILE_NAME = "templates.log";
+    static final String INDEX_FILE_NAME = "templates.idx";
+    private static final int LOG_MAGIC = 0x56494455;
+    private static final int INDEX_MAGIC = 0x56494449;
+    private static final int FORMAT_VERSION = 1;
+    private static final int LOG_HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte RECORD_FACE = 1;
+    private static final byte RECORD_USER_DELETED = 2;
+    private static final byte RECORD_FACE_DELETED = 3;
+    private static final int MIN_MAPPED_LENGTH = 1024 * 1024;
+
+    private static class Entry {
+
+        final String user;
+        final long recordOffset;
+        final int recordSize;
+        final long dataOffset;
+        final int dataLength;
+        final int version;
+
+        Entry(String user, long recordOffset, int recordSize, long dataOffset, int dataLength, int version) {
+            this.user = user;
+            this.recordOffset = recordOffset;
+            this.recordSize = recordSize;
+            this.dataOffset = dataOffset;
+            this.dataLength = dataLength;
+            this.version = version;
+        }
+    }
+
+    private final File directory;
+    private final int checkpointInterval;
+    private final long compactionThreshold;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private HashMap<String,ArrayList<Entry>> users = new HashMap<>();
+    private HashMap<Long,Entry> entriesByOffset = new HashMap<>();
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long generation;
+    private long logLength;
+    private long deadBytes;
+    private int recordsSinceCheckpoint;
+    private boolean closed = false;
+
+    /**
+     * Open the user store in a directory creating it if it doesn't exist
+     * @param directory Directory containing the log and the index files
+     * @param checkpointInterval Number of records appended between index checkpoints
+     * @param compactionThreshold Number of bytes taken by deleted records before the log is compacted
+     * @throws IOException If the store cannot be opened
+     * @since 1.11.0
+     */
+    MappedUserManagement(@NonNull File directory, int checkpointInterval, long compactionThreshold) throws IOException {
+        this.directory = directory;
+        this.checkpointInterval = checkpointInterval;
+        this.compactionThreshold = compactionThreshold;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create user store directory "+directory.getPath());
+        }
+        // Left behind by a compaction that didn't finish
+        //noinspection ResultOfMethodCallIgnored
+        new File(directory, LOG_FILE_NAME+".tmp").delete();
+        openLog();
+        if (!readCheckpoint()) {
+            users = new HashMap<>();
+            entriesByOffset = new HashMap<>();
+            deadBytes = 0;
+            logLength = LOG_HEADER_SIZE;
+        }
+        replay();
+        ensureMapped();
+    }
+
+    // region IUserManagement
+
+    @Override
+    public void assignFacesToUser(IRecognizable[] faces, String user) throws Exception {
+        ArrayList<byte[]> records = new ArrayList<>(faces.length);
+        for (IRecognizable face : faces) {
+            byte[] data = face.getRecognitionData();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length + user.length() + 16);
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeByte(RECORD_FACE);
+            output.writeUTF(user);
+            output.writeInt(face.getVersion());
+            output.writeInt(data.length);
+            output.write(data);
+            records.add(bytes.toByteArray());
+        }
+        lock.writeLock().lock();
+        try {
+            append(records);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteFaces(IRecognizable[] faces) throws Exception {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            ArrayList<byte[]> records = new ArrayList<>();
+            HashSet<Entry> deleted = new HashSet<>();
+            for (IRecognizable face : faces) {
+                Entry entry = findEntry(face, deleted);
+                if (entry == null) {
+                    continue;
+                }
+                deleted.add(entry);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream output = new DataOutputStream(bytes);
+                output.writeByte(RECORD_FACE_DELETED);
+                output.writeUTF(entry.user);
+                output.writeLong(entry.recordOffset);
+                records.add(bytes.toByteArray());
+            }
+            append(records);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteUsers(String[] userIds) throws Exception {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            ArrayList<byte[]> records = new ArrayList<>(userIds.length);
+            for (String user : userIds) {
+                if (users.containsKey(user)) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    DataOutputStream output = new DataOutputStream(bytes);
+                    output.writeByte(RECORD_USER_DELETED);
+                    output.writeUTF(user);
+                    records.add(bytes.toByteArray());
+                }
+            }
+            append(records);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String[] getUsers() throws Exception {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            return users.keySet().toArray(new String[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public IRecognizable[] getFacesOfUser(String user) throws Exception {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            ArrayList<Entry> entries = users.get(user);
+            if (entries == null) {
+                return new IRecognizable[0];
+            }
+            IRecognizable[] faces = new IRecognizable[entries.size()];
+            for (int i = 0; i < faces.length; i++) {
+                faces[i] = createTemplate(entries.get(i));
+            }
+            return faces;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public IRecognizable[] getFaces() throws Exception {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            ArrayList<IRecognizable> faces = new ArrayList<>();
+            for (ArrayList<Entry> entries : users.values()) {
+                for (Entry entry : entries) {
+                    faces.add(createTemplate(entry));
+                }
+            }
+            return faces.toArray(new IRecognizable[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeCheckpoint();
+            } catch (IOException ignore) {
+                // The records appended since the last checkpoint will be replayed on next open
+            }
+            try {
+                channel.close();
+                file.close();
+            } catch (IOException ignore) {
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // endregion
+
+    boolean isClosed() {
+        lock.readLock().lock();
+        try {
+            return closed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long getLogLength() {
+        lock.readLock().lock();
+        try {
+            return logLength;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long getMappedLength() {
+        lock.readLock().lock();
+        try {
+            return mapped.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long getDeadBytes() {
+        lock.readLock().lock();
+        try {
+            return deadBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy the live records to a new log that replaces the current one
+     * @throws IOException If the log cannot be compacted
+     * @since 1.11.0
+     */
+    void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            File compactedFile = new File(directory, LOG_FILE_NAME+".tmp");
+            long compactedGeneration = new Random().nextLong();
+            HashMap<String,ArrayList<Entry>> compactedUsers = new HashMap<>(users.size());
+            HashMap<Long,Entry> compactedEntriesByOffset = new HashMap<>(entriesByOffset.size());
+            long position = LOG_HEADER_SIZE;
+            try (FileOutputStream fileOutputStream = new FileOutputStream(compactedFile)) {
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutputStream, 64 * 1024));
+                writeLogHeader(output, compactedGeneration);
+                for (Map.Entry<String,ArrayList<Entry>> user : users.entrySet()) {
+                    ArrayList<Entry> entries = new ArrayList<>(user.getValue().size());
+                    for (Entry entry : user.getValue()) {
+                        ByteBuffer record = mapped.duplicate();
+                        record.position((int) entry.recordOffset);
+                        record.limit((int) entry.recordOffset + entry.recordSize);
+                        byte[] bytes = new byte[entry.recordSize];
+                        record.get(bytes);
+                        output.write(bytes);
+                        Entry compactedEntry = new Entry(user.getKey(), position, entry.recordSize, position + (entry.dataOffset - entry.recordOffset), entry.dataLength, entry.version);
+                        entries.add(compactedEntry);
+                        compactedEntriesByOffset.put(position, compactedEntry);
+                        position += entry.recordSize;
+                    }
+                    compactedUsers.put(user.getKey(), entries);
+                }
+                output.flush();
+                fileOutputStream.getFD().sync();
+            }
+            channel.close();
+            file.close();
+            if (!compactedFile.renameTo(new File(directory, LOG_FILE_NAME))) {
+                openLog();
+                throw new IOException("Failed to replace user store log with compacted log");
+            }
+            openLog();
+            users = compactedUsers;
+            entriesByOffset = compactedEntriesByOffset;
+            logLength = position;
+            deadBytes = 0;
+            // The old mapping is of the replaced file
+            mapped = null;
+            ensureMapped();
+            writeCheckpoint();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // region Log
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("User store is closed");
+        }
+    }
+
+    private static void writeLogHeader(DataOutputStream output, long generation) throws IOException {
+        output.writeInt(LOG_MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeLong(generation);
+    }
+
+    private void openLog() throws IOException {
+        file = new RandomAccessFile(new File(directory, LOG_FILE_NAME), "rw");
+        channel = file.getChannel();
+        if (channel.size() < LOG_HEADER_SIZE) {
+            // New log or a log whose header was never completely written
+            generation = new Random().nextLong();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(LOG_HEADER_SIZE);
+            writeLogHeader(new DataOutputStream(bytes), generation);
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(bytes.toByteArray()), 0);
+            channel.force(true);
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // Read until the header is filled
+        }
+        header.flip();
+        if (header.getInt() != LOG_MAGIC) {
+            channel.close();
+            throw new IOException("File is not a Ver-ID user store log");
+        }
+        int version = header.getInt();
+        if (version != FORMAT_VERSION) {
+            channel.close();
+            throw new IOException("Unsupported user store format version "+version);
+        }
+        generation = header.getLong();
+    }
+
+    /**
+     * Map the log file if the log outgrew the current mapping
+     * <p>The file is extended to twice the length of the log, but at least {@value #MIN_MAPPED_LENGTH} bytes, and mapped in full so that appended records are read through the existing mapping.
+     * Templates keep the buffer they were read from until they're collected. Because the mapping grows geometrically, the superseded mappings they may pin are together smaller than the current one.
+     * The zero-filled tail past the log reads as the end of the log and is truncated when the log is replayed.</p>
+     */
+    private void ensureMapped() throws IOException {
+        if (mapped != null && logLength <= mapped.capacity()) {
+            return;
+        }
+        long mappedLength = Math.min(Integer.MAX_VALUE, Math.max(MIN_MAPPED_LENGTH, logLength * 2));
+        if (channel.size() < mappedLength) {
+            file.setLength(mappedLength);
+        }
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, mappedLength);
+    }
+
+    /**
+     * Apply records following {@link #logLength} and truncate the log at the first incomplete or corrupt record
+     */
+    private void replay() throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("User store log is too large");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        long position = logLength;
+        while (position + RECORD_HEADER_SIZE <= size) {
+            int bodyLength = buffer.getInt((int) position);
+            int checksum = buffer.getInt((int) position + 4);
+            if (bodyLength <= 0 || position + RECORD_HEADER_SIZE + bodyLength > size) {
+                break;
+            }
+            byte[] body = new byte[bodyLength];
+            ByteBuffer bodyBuffer = buffer.duplicate();
+            bodyBuffer.position((int) position + RECORD_HEADER_SIZE);
+            bodyBuffer.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            apply(body, position);
+            position += RECORD_HEADER_SIZE + bodyLength;
+            recordsSinceCheckpoint++;
+        }
+        if (position < size) {
+            channel.truncate(position);
+            channel.force(true);
+        }
+        logLength = position;
+    }
+
+    private void append(List<byte[]> records) throws IOException {
+        ensureOpen();
+        if (records.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        for (byte[] record : records) {
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            output.writeInt(record.length);
+            output.writeInt((int) crc.getValue());
+            output.write(record);
+        }
+        if (logLength + bytes.size() > Integer.MAX_VALUE) {
+            compact();
+            if (logLength + bytes.size() > Integer.MAX_VALUE) {
+                throw new IOException("User store log is full");
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        long position = logLength;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+        // Apply the records only after they're durable so that the index never runs ahead of the log
+        long recordOffset = logLength;
+        for (byte[] record : records) {
+            apply(record, recordOffset);
+            recordOffset += RECORD_HEADER_SIZE + record.length;
+        }
+        logLength = position;
+        recordsSinceCheckpoint += records.size();
+        ensureMapped();
+        if (deadBytes >= compactionThreshold && deadBytes * 2 > logLength - LOG_HEADER_SIZE) {
+            compact();
+        } else if (recordsSinceCheckpoint >= checkpointInterval) {
+            writeCheckpoint();
+        }
+    }
+
+    private void apply(byte[] body, long recordOffset) throws IOException {
+        int recordSize = RECORD_HEADER_SIZE + body.length;
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = input.readByte();
+        String user = input.readUTF();
+        switch (type) {
+            case RECORD_FACE:
+                int version = input.readInt();
+                int dataLength = input.readInt();
+                ArrayList<Entry> entries = users.get(user);
+                if (entries == null) {
+                    entries = new ArrayList<>();
+                    users.put(user, entries);
+                }
+                Entry entry = new Entry(user, recordOffset, recordSize, recordOffset + recordSize - dataLength, dataLength, version);
+                entries.add(entry);
+                entriesByOffset.put(recordOffset, entry);
+                break;
+            case RECORD_USER_DELETED:
+                ArrayList<Entry> deletedEntries = users.remove(user);
+                if (deletedEntries != null) {
+                    for (Entry userEntry : deletedEntries) {
+                        entriesByOffset.remove(userEntry.recordOffset);
+                        deadBytes += userEntry.recordSize;
+                    }
+                }
+                deadBytes += recordSize;
+                break;
+            case RECORD_FACE_DELETED:
+                long faceRecordOffset = input.readLong();
+                Entry deletedEntry = entriesByOffset.get(faceRecordOffset);
+                if (deletedEntry != null && deletedEntry.user.equals(user)) {
+                    entriesByOffset.remove(faceRecordOffset);
+                    ArrayList<Entry> userEntries = users.get(user);
+                    userEntries.remove(deletedEntry);
+                    if (userEntries.isEmpty()) {
+                        users.remove(user);
+                    }
+                    deadBytes += deletedEntry.recordSize;
+                }
+                deadBytes += recordSize;
+                break;
+            default:
+                throw new IOException("Unknown user store record type "+type);
+        }
+    }
+
+    /**
+     * Find the entry of a face to delete
+     * <p>Templates read from the current log of this store are looked up by their record offset. Other faces, including templates read before the log was compacted, are matched by content and each one deletes at most one entry, so byte-identical copies of a face are kept.
+     * Templates read from another store's log are never matched.</p>
+     * @param face Face to delete
+     * @param deleted Entries already deleted by the call, which won't be returned
+     * @return Entry or {@literal null} if the store has no entry of the face
+     */
+    private Entry findEntry(IRecognizable face, Set<Entry> deleted) {
+        if (face instanceof MappedFaceTemplate) {
+            MappedFaceTemplate template = (MappedFaceTemplate) face;
+            if (!template.getStore().directory.equals(directory)) {
+                return null;
+            }
+            if (template.getGeneration() == generation) {
+                Entry entry = entriesByOffset.get(template.getRecordOffset());
+                return entry == null || deleted.contains(entry) ? null : entry;
+            }
+        }
+        byte[] data = face.getRecognitionData();
+        for (ArrayList<Entry> entries : users.values()) {
+            for (Entry entry : entries) {
+                if (entry.version == face.getVersion() && entry.dataLength == data.length && !deleted.contains(entry) && hasData(entry, data)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean hasData(Entry entry, byte[] data) {
+        int offset = (int) entry.dataOffset;
+        for (int i = 0; i < data.length; i++) {
+            if (mapped.get(offset + i) != data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MappedFaceTemplate createTemplate(Entry entry) {
+        return new MappedFaceTemplate(this, generation, entry.recordOffset, mapped, (int) entry.dataOffset, entry.dataLength, entry.version);
+    }
+
+    // endregion
+
+    // region Checkpoint
+
+    private void writeCheckpoint() throws IOException {
+        File indexFile = new File(directory, INDEX_FILE_NAME);
+        File temporaryFile = new File(directory, INDEX_FILE_NAME+".tmp");
+        try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile)) {
+            CheckedOutputStream checkedOutputStream = new CheckedOutputStream(new BufferedOutputStream(fileOutputStream), new CRC32());
+            DataOutputStream output = new DataOutputStream(checkedOutputStream);
+            output.writeInt(INDEX_MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(generation);
+            output.writeLong(logLength);
+            output.writeLong(deadBytes);
+            output.writeInt(users.size());
+            for (Map.Entry<String,ArrayList<Entry>> user : users.entrySet()) {
+                output.writeUTF(user.getKey());
+                output.writeInt(user.getValue().size());
+                for (Entry entry : user.getValue()) {
+                    output.writeLong(entry.recordOffset);
+                    output.writeInt(entry.recordSize);
+                    output.writeInt(entry.dataLength);
+                    output.writeInt(entry.version);
+                }
+            }
+            output.writeInt((int) checkedOutputStream.getChecksum().getValue());
+            output.flush();
+            fileOutputStream.getFD().sync();
+        }
+        if (!temporaryFile.renameTo(indexFile)) {
+            throw new IOException("Failed to write user store index");
+        }
+        recordsSinceCheckpoint = 0;
+    }
+
+    /**
+     * Load the index checkpoint if it exists and matches the log
+     * @return {@literal true} if the checkpoint was loaded
+     */
+    private boolean readCheckpoint() {
+        File indexFile = new File(directory, INDEX_FILE_NAME);
+        if (!indexFile.isFile()) {
+            return false;
+        }
+        try (FileInputStream fileInputStream = new FileInputStream(indexFile)) {
+            CheckedInputStream checkedInputStream = new CheckedInputStream(new BufferedInputStream(fileInputStream), new CRC32());
+            DataInputStream input = new DataInputStream(checkedInputStream);
+            if (input.readInt() != INDEX_MAGIC || input.readInt() != FORMAT_VERSION || input.readLong() != generation) {
+                return false;
+            }
+            long checkpointLogLength = input.readLong();
+            long checkpointDeadBytes = input.readLong();
+            if (checkpointLogLength < LOG_HEADER_SIZE || checkpointLogLength > channel.size()) {
+                return false;
+            }
+            int userCount = input.readInt();
+            HashMap<String,ArrayList<Entry>> checkpointUsers = new HashMap<>(userCount);
+            HashMap<Long,Entry> checkpointEntriesByOffset = new HashMap<>();
+            for (int i = 0; i < userCount; i++) {
+                String user = input.readUTF();
+                int entryCount = input.readInt();
+                ArrayList<Entry> entries = new ArrayList<>(entryCount);
+                for (int j = 0; j < entryCount; j++) {
+                    long recordOffset = input.readLong();
+                    int recordSize = input.readInt();
+                    int dataLength = input.readInt();
+                    int version = input.readInt();
+                    Entry entry = new Entry(user, recordOffset, recordSize, recordOffset + recordSize - dataLength, dataLength, version);
+                    entries.add(entry);
+                    checkpointEntriesByOffset.put(recordOffset, entry);
+                }
+                checkpointUsers.put(user, entries);
+            }
+            int expectedChecksum = (int) checkedInputStream.getChecksum().getValue();
+            if (input.readInt() != expectedChecksum) {
+                return false;
+            }
+            users = checkpointUsers;
+            entriesByOffset = checkpointEntriesByOffset;
+            logLength = checkpointLogLength;
+            deadBytes = checkpointDeadBytes;
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,73 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+import com.appliedrec.verid.core.IUserManagement;
+import com.appliedrec.verid.core.IUserManagementFactory;
+
+import java.io.File;
+
+/**
+ * Factory of a user store that keeps face templates in a memory-mapped file
+ * <p>Changes are appended to a log file and forced to storage before the user management call returns. Faces read from the store are views of the mapped file and their recognition data is only copied when it's requested.
+ * The log is compacted when enough of it is taken up by deleted faces and a small index file lets the store open without replaying the whole log.</p>
+ * <p>Pass the factory to {@link RxVerID.Builder#setUserManagementFactory(IUserManagementFactory)}. All user management instances made by the factory share the same open store until it's closed.</p>
+ * @since 1.11.0
+ */
+public class MappedUserManagementFactory implements IUserManagementFactory {
+
+    /**
+     * Default number of records appended between index checkpoints
+     * @since 1.11.0
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1024;
+    /**
+     * Default number of bytes taken by deleted records before the log is compacted
+     * @since 1.11.0
+     */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 4 * 1024 * 1024;
+
+    private final File directory;
+    private final int checkpointInterval;
+    private final long compactionThreshold;
+    private MappedUserManagement userManagement;
+
+    /**
+     * Constructor
+     * @param directory Directory in which to keep the user store files
+     * @since 1.11.0
+     */
+    public MappedUserManagementFactory(@NonNull File directory) {
+        this(directory, DEFAULT_CHECKPOINT_INTERVAL, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Constructor
+     * @param directory Directory in which to keep the user store files
+     * @param checkpointInterval Number of records appended between index checkpoints
+     * @param compactionThreshold Number of bytes taken by deleted records before the log is compacted (compaction also requires the deleted records to take up more than half of the log)
+     * @since 1.11.0
+     */
+    public MappedUserManagementFactory(@NonNull File directory, int checkpointInterval, long compactionThreshold) {
+        this.directory = directory;
+        this.checkpointInterval = checkpointInterval;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Directory containing the user store files
+     * @return Directory
+     * @since 1.11.0
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized IUserManagement makeUserManagement() throws Exception {
+        if (userManagement == null || userManagement.isClosed()) {
+            userManagement = new MappedUserManagement(directory, checkpointInterval, compactionThreshold);
+        }
+        return userManagement;
+    }
+}
@@ -0,0 +1,182 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IRecognizable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Groups users into blocks of likely matches using pivot templates
+ * <p>A set of pivots is picked from the users' representative templates, each spread as far as possible from the pivots picked before it.
+ * Every user is placed in the blocks of the pivots its representative template matches best. Users that match each other closely match the same pivots, so only pairs of users sharing a block need to be compared.</p>
+ * <p>With a number of pivots equal to the square root of the number of users {@literal N}, the blocking takes about {@literal N^1.5} comparisons and the blocks hold about {@literal 2·sqrt(N)} users each with two probes per user.</p>
+ * @since 1.11.0
+ * @see TemplateSelection
+ */
+class PivotBlocking {
+
+    /**
+     * Blocks of users together with the pivots each user was placed under
+     * @since 1.11.0
+     */
+    static class Blocks {
+
+        private final List<int[]> members;
+        private final int[] pivotOfBlock;
+        private final int[][] pivotsOfUser;
+
+        private Blocks(List<int[]> members, int[] pivotOfBlock, int[][] pivotsOfUser) {
+            this.members = members;
+            this.pivotOfBlock = pivotOfBlock;
+            this.pivotsOfUser = pivotsOfUser;
+        }
+
+        /**
+         * @return Blocks of indices into the templates, blocks with fewer than two users are omitted
+         */
+        @NonNull
+        List<int[]> getMembers() {
+            return members;
+        }
+
+        /**
+         * Whether a pair of users sharing a block is compared in that block
+         * <p>Users who share more than one block are compared only in the block of the lowest pivot they share, so every pair is compared once without keeping track of the compared pairs.</p>
+         * @param block Index of the block in {@link #getMembers()}
+         * @param user1 Index of a user in the block
+         * @param user2 Index of another user in the block
+         * @return {@literal true} if the pair is compared in the block
+         * @since 1.11.0
+         */
+        boolean ownsPair(int block, int user1, int user2) {
+            // The pivots of each user are in ascending order
+            for (int pivot1 : pivotsOfUser[user1]) {
+                for (int pivot2 : pivotsOfUser[user2]) {
+                    if (pivot1 == pivot2) {
+                        return pivot1 == pivotOfBlock[block];
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private PivotBlocking() {
+    }
+
+    /**
+     * Number of pivots used for a number of users
+     * @param userCount Number of users
+     * @return Number of pivots
+     * @since 1.11.0
+     */
+    static int pivotCountForUserCount(int userCount) {
+        return Math.max(1, (int) Math.ceil(Math.sqrt(userCount)));
+    }
+
+    /**
+     * Group users into blocks
+     * @param templates Representative template of each user
+     * @param pivotCount Number of pivots, i.e., blocks
+     * @param probeCount Number of best matching pivots in whose blocks each user is placed
+     * @param faceRecognition Face recognition used to compare the templates
+     * @return Blocks of indices into {@literal templates}
+     * @throws Exception If the templates cannot be compared
+     * @since 1.11.0
+     */
+    @NonNull
+    static Blocks blocks(IRecognizable[] templates, int pivotCount, int probeCount, IFaceRecognition faceRecognition) throws Exception {
+        int userCount = templates.length;
+        pivotCount = Math.min(pivotCount, userCount);
+        probeCount = Math.min(probeCount, pivotCount);
+        if (pivotCount <= 1) {
+            ArrayList<int[]> single = new ArrayList<>();
+            int[][] pivotsOfUser = new int[userCount][];
+            Arrays.fill(pivotsOfUser, new int[]{0});
+            if (userCount > 1) {
+                int[] all = new int[userCount];
+                for (int i = 0; i < userCount; i++) {
+                    all[i] = i;
+                }
+                single.add(all);
+            }
+            return new Blocks(single, new int[]{0}, pivotsOfUser);
+        }
+        // scores[p][u] = score of user u compared to pivot p
+        float[][] scores = new float[pivotCount][];
+        float[] bestPivotScore = new float[userCount];
+        Arrays.fill(bestPivotScore, Float.NEGATIVE_INFINITY);
+        boolean[] isPivot = new boolean[userCount];
+        int pivot = 0;
+        for (int p = 0; p < pivotCount; p++) {
+            isPivot[pivot] = true;
+            scores[p] = new float[userCount];
+            IRecognizable[] pivotTemplate = new IRecognizable[]{templates[pivot]};
+            for (int u = 0; u < userCount; u++) {
+                scores[p][u] = u == pivot ? Float.POSITIVE_INFINITY : faceRecognition.compareSubjectFacesToFaces(pivotTemplate, new IRecognizable[]{templates[u]});
+                bestPivotScore[u] = Math.max(bestPivotScore[u], scores[p][u]);
+            }
+            // Next pivot is the user least similar to all the pivots picked so far
+            int next = -1;
+            for (int u = 0; u < userCount; u++) {
+                if (!isPivot[u] && (next == -1 || bestPivotScore[u] < bestPivotScore[next])) {
+                    next = u;
+                }
+            }
+            if (next == -1) {
+                pivotCount = p + 1;
+                break;
+            }
+            pivot = next;
+        }
+        ArrayList<ArrayList<Integer>> members = new ArrayList<>(pivotCount);
+        for (int p = 0; p < pivotCount; p++) {
+            members.add(new ArrayList<>());
+        }
+        int[] probes = new int[probeCount];
+        int[][] pivotsOfUser = new int[userCount][];
+        for (int u = 0; u < userCount; u++) {
+            Arrays.fill(probes, -1);
+            for (int p = 0; p < pivotCount; p++) {
+                // Insert pivot p into the user's best probes sorted by score
+                int slot = probeCount;
+                while (slot > 0 && (probes[slot - 1] == -1 || scores[probes[slot - 1]][u] < scores[p][u])) {
+                    slot--;
+                }
+                if (slot < probeCount) {
+                    System.arraycopy(probes, slot, probes, slot + 1, probeCount - slot - 1);
+                    probes[slot] = p;
+                }
+            }
+            int probeIndex = 0;
+            int[] userPivots = new int[probeCount];
+            for (int probe : probes) {
+                if (probe != -1) {
+                    members.get(probe).add(u);
+                    userPivots[probeIndex++] = probe;
+                }
+            }
+            userPivots = Arrays.copyOf(userPivots, probeIndex);
+            Arrays.sort(userPivots);
+            pivotsOfUser[u] = userPivots;
+        }
+        ArrayList<int[]> blocks = new ArrayList<>();
+        int[] pivotOfBlock = new int[pivotCount];
+        for (int p = 0; p < pivotCount; p++) {
+            ArrayList<Integer> block = members.get(p);
+            if (block.size() > 1) {
+                int[] indices = new int[block.size()];
+                for (int i = 0; i < indices.length; i++) {
+                    indices[i] = block.get(i);
+                }
+                pivotOfBlock[blocks.size()] = p;
+                blocks.add(indices);
+            }
+        }
+        return new Blocks(blocks, Arrays.copyOf(pivotOfBlock, blocks.size()), pivotsOfUser);
+    }
+}
@@ -0,0 +1,205 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Metrics that aggregate the RxVerID stages in memory and write them to a file in the Prometheus text exposition format
+ * <p>For each stage the file contains a histogram of the stage durations, counters of finished calls by outcome and of emitted values, and a gauge of calls in progress.
+ * The file is replaced atomically so a collector reading it, e.g., the node exporter's textfile collector, never sees a partly written snapshot.</p>
+ * <pre>
+ * {@code PrometheusTextFileMetrics metrics = new PrometheusTextFileMetrics(new File(context.getFilesDir(), "rxverid.prom"));
+ * metrics.startExporting(60, TimeUnit.SECONDS);
+ * RxVerID rxVerID = new RxVerID.Builder(context).setMetrics(metrics).build();}
+ * </pre>
+ * @since 1.11.0
+ */
+public class PrometheusTextFileMetrics implements RxVerIDMetrics {
+
+    private static final double[] DURATION_BUCKET_SECONDS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final String[] DURATION_BUCKET_LABELS = {"0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10"};
+
+    private static class StageStatistics {
+
+        private final AtomicLong inFlight = new AtomicLong();
+        private final AtomicLong successCount = new AtomicLong();
+        private final AtomicLong errorCount = new AtomicLong();
+        private final AtomicLong cancelledCount = new AtomicLong();
+        private final AtomicLong itemCount = new AtomicLong();
+        private final AtomicLong durationNanosSum = new AtomicLong();
+        private final AtomicLongArray bucketCounts = new AtomicLongArray(DURATION_BUCKET_SECONDS.length);
+
+        long getCount() {
+            return successCount.get() + errorCount.get() + cancelledCount.get();
+        }
+    }
+
+    private final File file;
+    private final ConcurrentHashMap<String,StageStatistics> stages = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     * @param file File to which {@link #writeSnapshot()} writes the metrics
+     * @since 1.11.0
+     */
+    public PrometheusTextFileMetrics(@NonNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * File to which the metrics are written
+     * @return File
+     * @since 1.11.0
+     */
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void onStageStarted(@NonNull String stage) {
+        statistics(stage).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void onStageFinished(@NonNull String stage, @Outcome int outcome, long durationNanos, long itemCount) {
+        StageStatistics statistics = statistics(stage);
+        statistics.inFlight.decrementAndGet();
+        switch (outcome) {
+            case OUTCOME_SUCCESS:
+                statistics.successCount.incrementAndGet();
+                break;
+            case OUTCOME_ERROR:
+                statistics.errorCount.incrementAndGet();
+                break;
+            default:
+                statistics.cancelledCount.incrementAndGet();
+        }
+        statistics.itemCount.addAndGet(itemCount);
+        statistics.durationNanosSum.addAndGet(durationNanos);
+        double seconds = durationNanos / 1e9;
+        for (int i = 0; i < DURATION_BUCKET_SECONDS.length; i++) {
+            if (seconds <= DURATION_BUCKET_SECONDS[i]) {
+                statistics.bucketCounts.incrementAndGet(i);
+                break;
+            }
+        }
+    }
+
+    private StageStatistics statistics(String stage) {
+        StageStatistics statistics = stages.get(stage);
+        if (statistics == null) {
+            StageStatistics newStatistics = new StageStatistics();
+            statistics = stages.putIfAbsent(stage, newStatistics);
+            if (statistics == null) {
+                statistics = newStatistics;
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Get the current metrics in the Prometheus text exposition format
+     * @return Metrics text
+     * @since 1.11.0
+     */
+    @NonNull
+    public String getSnapshot() {
+        // Stages are sorted so that consecutive snapshots are easy to compare
+        TreeMap<String,StageStatistics> sortedStages = new TreeMap<>(stages);
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP rxverid_stage_duration_seconds Duration of RxVerID stages\n");
+        text.append("# TYPE rxverid_stage_duration_seconds histogram\n");
+        for (Map.Entry<String,StageStatistics> entry : sortedStages.entrySet()) {
+            String stage = escapeLabelValue(entry.getKey());
+            StageStatistics statistics = entry.getValue();
+            long count = statistics.getCount();
+            long cumulativeCount = 0;
+            for (int i = 0; i < DURATION_BUCKET_LABELS.length; i++) {
+                cumulativeCount += statistics.bucketCounts.get(i);
+                text.append("rxverid_stage_duration_seconds_bucket{stage=\"").append(stage).append("\",le=\"").append(DURATION_BUCKET_LABELS[i]).append("\"} ").append(cumulativeCount).append('\n');
+            }
+            // Counters are read one by one so a stage finishing mid-snapshot can make the last bucket lag behind the count
+            text.append("rxverid_stage_duration_seconds_bucket{stage=\"").append(stage).append("\",le=\"+Inf\"} ").append(Math.max(count, cumulativeCount)).append('\n');
+            text.append("rxverid_stage_duration_seconds_sum{stage=\"").append(stage).append("\"} ").append(statistics.durationNanosSum.get() / 1e9).append('\n');
+            text.append("rxverid_stage_duration_seconds_count{stage=\"").append(stage).append("\"} ").append(Math.max(count, cumulativeCount)).append('\n');
+        }
+        text.append("# HELP rxverid_stage_calls_total Finished calls of RxVerID stages by outcome\n");
+        text.append("# TYPE rxverid_stage_calls_total counter\n");
+        for (Map.Entry<String,StageStatistics> entry : sortedStages.entrySet()) {
+            String stage = escapeLabelValue(entry.getKey());
+            StageStatistics statistics = entry.getValue();
+            text.append("rxverid_stage_calls_total{stage=\"").append(stage).append("\",outcome=\"success\"} ").append(statistics.successCount.get()).append('\n');
+            text.append("rxverid_stage_calls_total{stage=\"").append(stage).append("\",outcome=\"error\"} ").append(statistics.errorCount.get()).append('\n');
+            text.append("rxverid_stage_calls_total{stage=\"").append(stage).append("\",outcome=\"cancelled\"} ").append(statistics.cancelledCount.get()).append('\n');
+        }
+        text.append("# HELP rxverid_stage_items_total Values emitted by RxVerID stages\n");
+        text.append("# TYPE rxverid_stage_items_total counter\n");
+        for (Map.Entry<String,StageStatistics> entry : sortedStages.entrySet()) {
+            text.append("rxverid_stage_items_total{stage=\"").append(escapeLabelValue(entry.getKey())).append("\"} ").append(entry.getValue().itemCount.get()).append('\n');
+        }
+        text.append("# HELP rxverid_stage_in_flight Calls of RxVerID stages in progress\n");
+        text.append("# TYPE rxverid_stage_in_flight gauge\n");
+        for (Map.Entry<String,StageStatistics> entry : sortedStages.entrySet()) {
+            text.append("rxverid_stage_in_flight{stage=\"").append(escapeLabelValue(entry.getKey())).append("\"} ").append(entry.getValue().inFlight.get()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Write the current metrics to the file
+     * <p>The metrics are written to a temporary file next to the target file which then replaces the target file.</p>
+     * @throws IOException If the file cannot be written
+     * @since 1.11.0
+     */
+    public void writeSnapshot() throws IOException {
+        File temporaryFile = new File(file.getPath()+".tmp");
+        try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile)) {
+            Writer writer = new OutputStreamWriter(fileOutputStream, Charset.forName("UTF-8"));
+            writer.write(getSnapshot());
+            writer.flush();
+            fileOutputStream.getFD().sync();
+        }
+        if (!temporaryFile.renameTo(file)) {
+            temporaryFile.delete();
+            throw new IOException("Failed to write metrics file");
+        }
+    }
+
+    /**
+     * Write the metrics to the file periodically on the IO scheduler
+     * <p>Failed writes are skipped and retried at the next interval.</p>
+     * @param interval Time between writes
+     * @param unit Unit of the interval
+     * @return Disposable that stops the export
+     * @since 1.11.0
+     */
+    @NonNull
+    public Disposable startExporting(long interval, @NonNull TimeUnit unit) {
+        return Schedulers.io().schedulePeriodicallyDirect(() -> {
+            try {
+                writeSnapshot();
+            } catch (IOException ignore) {
+            }
+        }, 0, interval, unit);
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
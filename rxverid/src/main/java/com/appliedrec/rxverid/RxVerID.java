@@ -20,6 +20,7 @@ import com.appliedrec.verid.core.IFaceDetectionFactory;
 import com.appliedrec.verid.core.IFaceRecognition;
 import com.appliedrec.verid.core.IFaceRecognitionFactory;
 import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
 import com.appliedrec.verid.core.IUserManagementFactory;
 import com.appliedrec.verid.core.ImageUtils;
 import com.appliedrec.verid.core.RecognizableFace;
@@ -35,22 +36,38 @@ import org.javatuples.Pair;
 import org.javatuples.Triplet;
 
 import java.io.ByteArrayInputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.net.ConnectException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.Single;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
 import io.reactivex.schedulers.Schedulers;
 
 /**
@@ -84,6 +101,17 @@ public class RxVerID {
             private IUserManagementFactory userManagementFactory;
             private String veridPassword;
             private VerIDIdentity identity;
+            private int identificationShortlistSize;
+            private int userTemplateCacheSize;
+            private boolean parallelFaceAuthentication;
+            private long userManagementWriteWindow;
+            private RxVerIDMetrics metrics;
+            private TraceSink traceSink;
+            private ImageMemoryTracker imageMemoryTracker;
+            private boolean lazyComponentLoading;
+            private int memoryTrimLevel;
+            private int enginePoolSize;
+            private boolean sharedModels;
 
             Context getContext() {
                 return context;
@@ -129,6 +157,94 @@ public class RxVerID {
                 this.identity = identity;
             }
 
+            int getIdentificationShortlistSize() {
+                return identificationShortlistSize;
+            }
+
+            void setIdentificationShortlistSize(int identificationShortlistSize) {
+                this.identificationShortlistSize = identificationShortlistSize;
+            }
+
+            int getUserTemplateCacheSize() {
+                return userTemplateCacheSize;
+            }
+
+            void setUserTemplateCacheSize(int userTemplateCacheSize) {
+                this.userTemplateCacheSize = userTemplateCacheSize;
+            }
+
+            boolean isParallelFaceAuthentication() {
+                return parallelFaceAuthentication;
+            }
+
+            void setParallelFaceAuthentication(boolean parallelFaceAuthentication) {
+                this.parallelFaceAuthentication = parallelFaceAuthentication;
+            }
+
+            long getUserManagementWriteWindow() {
+                return userManagementWriteWindow;
+            }
+
+            void setUserManagementWriteWindow(long userManagementWriteWindow) {
+                this.userManagementWriteWindow = userManagementWriteWindow;
+            }
+
+            RxVerIDMetrics getMetrics() {
+                return metrics;
+            }
+
+            void setMetrics(RxVerIDMetrics metrics) {
+                this.metrics = metrics;
+            }
+
+            TraceSink getTraceSink() {
+                return traceSink;
+            }
+
+            void setTraceSink(TraceSink traceSink) {
+                this.traceSink = traceSink;
+            }
+
+            ImageMemoryTracker getImageMemoryTracker() {
+                return imageMemoryTracker;
+            }
+
+            void setImageMemoryTracker(ImageMemoryTracker imageMemoryTracker) {
+                this.imageMemoryTracker = imageMemoryTracker;
+            }
+
+            boolean isLazyComponentLoading() {
+                return lazyComponentLoading;
+            }
+
+            void setLazyComponentLoading(boolean lazyComponentLoading) {
+                this.lazyComponentLoading = lazyComponentLoading;
+            }
+
+            int getMemoryTrimLevel() {
+                return memoryTrimLevel;
+            }
+
+            void setMemoryTrimLevel(int memoryTrimLevel) {
+                this.memoryTrimLevel = memoryTrimLevel;
+            }
+
+            int getEnginePoolSize() {
+                return enginePoolSize;
+            }
+
+            void setEnginePoolSize(int enginePoolSize) {
+                this.enginePoolSize = enginePoolSize;
+            }
+
+            boolean isSharedModels() {
+                return sharedModels;
+            }
+
+            void setSharedModels(boolean sharedModels) {
+                this.sharedModels = sharedModels;
+            }
+
             @Override
             public boolean equals(@Nullable Object obj) {
                 if (!(obj instanceof Configuration)) {
@@ -152,7 +268,40 @@ public class RxVerID {
                 if ((getIdentity() == null) != (other.getIdentity() == null)) {
                     return false;
                 }
-                return other.getContext() == getContext() && other.getFaceDetectionFactory() == getFaceRecognitionFactory() && other.getFaceRecognitionFactory() == getFaceRecognitionFactory() && other.getUserManagementFactory() == getUserManagementFactory();
+                if (other.getIdentificationShortlistSize() != getIdentificationShortlistSize()) {
+                    return false;
+                }
+                if (other.getUserTemplateCacheSize() != getUserTemplateCacheSize()) {
+                    return false;
+                }
+                if (other.isParallelFaceAuthentication() != isParallelFaceAuthentication()) {
+                    return false;
+                }
+                if (other.getUserManagementWriteWindow() != getUserManagementWriteWindow()) {
+                    return false;
+                }
+                if (other.getMetrics() != getMetrics()) {
+                    return false;
+                }
+                if (other.getTraceSink() != getTraceSink()) {
+                    return false;
+                }
+                if (other.getImageMemoryTracker() != getImageMemoryTracker()) {
+                    return false;
+                }
+                if (other.isLazyComponentLoading() != isLazyComponentLoading()) {
+                    return false;
+                }
+                if (other.getMemoryTrimLevel() != getMemoryTrimLevel()) {
+                    return false;
+                }
+                if (other.getEnginePoolSize() != getEnginePoolSize()) {
+                    return false;
+                }
+                if (other.isSharedModels() != isSharedModels()) {
+                    return false;
+                }
+                return other.getContext() == getContext() && other.getFaceDetectionFactory() == getFaceDetectionFactory() && other.getFaceRecognitionFactory() == getFaceRecognitionFactory() && other.getUserManagementFactory() == getUserManagementFactory();
             }
 
             void setContext(Context context) {
@@ -258,6 +407,159 @@ public class RxVerID {
             return this;
         }
 
+        /**
+         * Set the number of candidates shortlisted in the first stage of user identification
+         * <p>When set to a value greater than {@literal 0} RxVerID keeps one representative template per user and compares the face being identified to those templates first.
+         * Only the users with the best scoring representative templates are then compared using all their faces.</p>
+         * @param identificationShortlistSize Number of users to shortlist or {@literal 0} to compare the face to all faces of all users
+         * @return {@link Builder}
+         * @since 1.11.0
+         */
+        public Builder setIdentificationShortlistSize(int identificationShortlistSize) {
+            getConfiguration().setIdentificationShortlistSize(identificationShortlistSize);
+            return this;
+        }
+
+        /**
+         * Set the number of users whose face templates are cached in memory
+         * <p>The cache saves reading the user's faces from the user store every time the user is authenticated.
+         * Cached faces are invalidated when faces are assigned to the user or when the user is deleted through RxVerID.</p>
+         * @param userTemplateCacheSize Number of users to cache or {@literal 0} to read the faces from the user store on every authentication
+         * @return {@link Builder}
+         * @since 1.11.0
+         * @see RxVerID#getUserTemplateCache()
+         */
+        public Builder setUserTemplateCacheSize(int userTemplateCacheSize) {
+            getConfiguration().setUserTemplateCacheSize(userTemplateCacheSize);
+            return this;
+        }
+
+        /**
+         * Set whether faces detected in an image should be authenticated in parallel
+         * <p>By default the faces detected by {@link RxVerID#authenticateUserInImage(String, VerIDImage) authenticateUserInImage} are authenticated one at a time, largest face first.
+         * When enabled, all the faces are authenticated at once and the remaining authentications are cancelled as soon as one of the faces passes the authentication threshold.</p>
+         * @param parallelFaceAuthentication {@literal true} to authenticate the detected faces in parallel
+         * @return {@link Builder}
+         * @since 1.11.0
+         */
+        public Builder setParallelFaceAuthentication(boolean parallelFaceAuthentication) {
+            getConfiguration().setParallelFaceAuthentication(parallelFaceAuthentication);
+            return this;
+        }
+
+        /**
+         * Coalesce user management writes issued within a time window into batched user store calls
+         * <p>When enabled, {@link RxVerID#assignFacesToUser(IRecognizable[], String) assignFacesToUser}, {@link RxVerID#assignFaceToUser(IRecognizable, String) assignFaceToUser} and {@link RxVerID#deleteUser(String) deleteUser} queue their writes and complete when the batch containing the write has been written to the user store.
+         * Writes to the same user are applied in the order in which they were queued. Reads issued before the batch is written don't reflect the queued writes.</p>
+         * @param milliseconds Time window in milliseconds or {@literal 0} to write every change immediately
+         * @return {@link Builder}
+         * @since 1.11.0
+         * @see RxVerID#flushUserManagementWrites()
+         */
+        public Builder setUserManagementWriteWindow(long milliseconds) {
+            getConfiguration().setUserManagementWriteWindow(milliseconds);
+            return this;
+        }
+
+        /**
+         * Set metrics to which RxVerID reports the duration, outcome and number of emitted values of every stage of its operations
+         * <p>The stages include image conversion, face detection, template extraction, face comparison, user identification and authentication, user management and session result parsing.
+         * See {@link RxVerIDMetrics} for the list of stages.</p>
+         * @param metrics Metrics, e.g., {@link PrometheusTextFileMetrics}, or {@literal null} to disable the instrumentation
+         * @return {@link Builder}
+         * @since 1.11.0
+         */
+        public Builder setMetrics(@Nullable RxVerIDMetrics metrics) {
+            getConfiguration().setMetrics(metrics);
+            return this;
+        }
+
+        /**
+         * Set a sink to which RxVerID reports tracing spans of its calls
+         * <p>Every public call opens a {@link TraceSpan span} and every stage of the call opens a child span. The spans of a call share a trace identifier, also when the stages run on other threads.
+         * To carry the trace across threads RxVerID installs an RxJava {@link io.reactivex.plugins.RxJavaPlugins#setScheduleHandler(io.reactivex.functions.Function) schedule handler} that wraps the handler that was installed before it.</p>
+         * @param traceSink Sink or {@literal null} to disable tracing
+         * @return {@link Builder}
+         * @since 1.11.0
+         * @see TraceSpan#current()
+         */
+        public Builder setTraceSink(@Nullable TraceSink traceSink) {
+            getConfiguration().setTraceSink(traceSink);
+            return this;
+        }
+
+        /**
+         * Set a tracker that accounts for the memory RxVerID allocates for images
+         * <p>The tracker records the pixel bytes of bitmaps allocated by decoding, {@link RxVerID#correctBitmapOrientation(Bitmap, int) rotating} and {@link RxVerID#cropImageToFace(Bitmap, int, Face) cropping} images and the bytes of image data read from URIs into memory.
+         * Pass the same tracker to several builders to track the memory of all RxVerID instances in the process.</p>
+         * @param imageMemoryTracker Tracker or {@literal null} to disable the tracking
+         * @return {@link Builder}
+         * @since 1.11.0
+         */
+        public Builder setImageMemoryTracker(@Nullable ImageMemoryTracker imageMemoryTracker) {
+            getConfiguration().setImageMemoryTracker(imageMemoryTracker);
+            return this;
+        }
+
+        /**
+         * Set whether the Ver-ID components should be loaded when they're first used
+         * <p>By default creating the Ver-ID instance loads the face detection and face recognition models and opens the user store. With lazy loading each of these components is created the first time it's used, so an app that only detects faces or crops images doesn't load the face recognition models or open the user store.
+         * The first call that uses a component takes longer by the time it takes to load the component. Components that share native resources, e.g., the face detection and recognition made by the default Ver-ID factory, may load each other.</p>
+         * <p>Compare the {@link RxVerID#getStartupReport() startup reports} with and without lazy loading to see the startup time saved. With {@link #setMetrics(RxVerIDMetrics) metrics} set, the lazy loads are reported as the {@link RxVerIDMetrics#STAGE_FACE_DETECTION_LOAD}, {@link RxVerIDMetrics#STAGE_FACE_RECOGNITION_LOAD} and {@link RxVerIDMetrics#STAGE_USER_STORE_OPEN} stages when they happen.</p>
+         * @param lazyComponentLoading {@literal true} to load the components on first use
+         * @return {@link Builder}
+         * @since 1.11.0
+         */
+        public Builder setLazyComponentLoading(boolean lazyComponentLoading) {
+            getConfiguration().setLazyComponentLoading(lazyComponentLoading);
+            return this;
+        }
+
+        /**
+         * Set the memory trim level at which RxVerID releases its Ver-ID instance
+         * <p>When the system calls {@link android.content.ComponentCallbacks2#onTrimMemory(int) onTrimMemory} with this level or higher, or calls {@link android.content.ComponentCallbacks2#onLowMemory() onLowMemory}, RxVerID drops its Ver-ID instance so that the models and user store it holds can be freed.
+         * The next call that needs Ver-ID creates a new instance. Calls in progress finish using the released instance.</p>
+         * <p>For example, {@link android.content.ComponentCallbacks2#TRIM_MEMORY_BACKGROUND TRIM_MEMORY_BACKGROUND} releases Ver-ID once the app is in the background and the system is running low on memory. The number of releases and the time spent creating Ver-ID again are available from {@link RxVerID#getVerIDReleaseCount()} and {@link RxVerID#getVerIDRecreationNanos()} and, with {@link #setMetrics(RxVerIDMetrics) metrics} set, as the {@link RxVerIDMetrics#STAGE_VERID_RELEASE} and {@link RxVerIDMetrics#STAGE_VERID_RECREATION} stages.</p>
+         * @param memoryTrimLevel One of the {@code TRIM_MEMORY_} constants of {@link android.content.ComponentCallbacks2} or {@literal 0} to keep the Ver-ID instance for the life of the process
+         * @return {@link Builder}
+         * @since 1.11.0
+         */
+        public Builder setMemoryTrimLevel(int memoryTrimLevel) {
+            getConfiguration().setMemoryTrimLevel(memoryTrimLevel);
+            return this;
+        }
+
+        /**
+         * Set the number of face detection and face recognition instances that may run calls in parallel
+         * <p>A Ver-ID instance has one face detection and one face recognition. If the engine serializes work on an instance, parallel calls to {@link RxVerID#detectFacesInImage(VerID, VerIDImage, int) detectFacesInImage} and {@link RxVerID#convertFaceToRecognizableFace(VerID, VerIDImage, Face) convertFaceToRecognizableFace} run one at a time.
+         * With a pool, every face detection and template extraction call leases an instance for its exclusive use. The instances are created by the face detection and face recognition factories when all instances are busy, up to the pool size, and are kept until the Ver-ID instance is discarded.
+         * The Ver-ID instance's own components aren't leased; face comparisons, identification and authentication keep using them.</p>
+         * <p>Each instance holds its own copy of the models and the pool's instances come in addition to the Ver-ID instance's own components, so choose a pool size no larger than the number of CPU cores available for face processing.</p>
+         * @param enginePoolSize Maximum number of leased instances of each component per Ver-ID instance or {@literal 1} to share the Ver-ID instance's components between all calls
+         * @return {@link Builder}
+         * @since 1.11.0
+         */
+        public Builder setEnginePoolSize(int enginePoolSize) {
+            getConfiguration().setEnginePoolSize(enginePoolSize);
+            return this;
+        }
+
+        /**
+         * Set whether the face detection and face recognition should be shared with other RxVerID instances
+         * <p>Every configuration gets its own RxVerID and Ver-ID instance. With shared models, Ver-ID instances whose face detection or face recognition comes from the same factory, or from the default factory, share one instance of the component and load its models once.
+         * This suits apps that keep several configurations which differ only in their user store or settings, e.g., one per tenant.
+         * Enable it in every configuration that should share the models.</p>
+         * <p>Shared components are reference-counted and dropped when the last Ver-ID instance using them is {@link RxVerID#releaseVerID() released}.
+         * The {@link #setEnginePoolSize(int) engine pool} makes its members with the configured, unshared factories and never leases the shared components, so a leased member is never used by another configuration.</p>
+         * @param sharedModels {@literal true} to share the face detection and face recognition
+         * @return {@link Builder}
+         * @since 1.11.0
+         */
+        public Builder setSharedModels(boolean sharedModels) {
+            getConfiguration().setSharedModels(sharedModels);
+            return this;
+        }
+
         /**
          * Build an instance of {@link RxVerID}
          * @return Instance of {@link RxVerID}
@@ -272,6 +574,47 @@ public class RxVerID {
                 rxVerID.userManagementFactory = getConfiguration().getUserManagementFactory();
                 rxVerID.veridPassword = getConfiguration().getVerIDPassword();
                 rxVerID.identity = getConfiguration().getIdentity();
+                rxVerID.parallelFaceAuthentication = getConfiguration().isParallelFaceAuthentication();
+                rxVerID.metrics = getConfiguration().getMetrics();
+                rxVerID.traceSink = getConfiguration().getTraceSink();
+                if (rxVerID.traceSink != null) {
+                    TraceContext.install();
+                }
+                rxVerID.imageMemoryTracker = getConfiguration().getImageMemoryTracker();
+                rxVerID.lazyComponentLoading = getConfiguration().isLazyComponentLoading();
+                rxVerID.sharedModels = getConfiguration().isSharedModels();
+                if (getConfiguration().getEnginePoolSize() > 1) {
+                    rxVerID.enginePool = new EnginePool(getConfiguration().getEnginePoolSize(), getConfiguration().getFaceDetectionFactory(), getConfiguration().getFaceRecognitionFactory());
+                }
+                rxVerID.memoryTrimLevel = getConfiguration().getMemoryTrimLevel();
+                rxVerID.userIndex = new SortedUserIndex();
+                rxVerID.galleryChangeFeed = new GalleryChangeFeed(GALLERY_CHANGE_HISTORY_SIZE, Schedulers.io());
+                rxVerID.userWriteLocks = new UserWriteLocks(USER_WRITE_LOCK_STRIPE_COUNT);
+                if (getConfiguration().getUserManagementWriteWindow() > 0) {
+                    RxVerID instance = rxVerID;
+                    rxVerID.userManagementWriteQueue = new UserManagementWriteQueue(getConfiguration().getUserManagementWriteWindow(), Schedulers.io(), new UserManagementWriteQueue.Listener() {
+                        @Override
+                        public void onFacesAssignedToUser(VerID verID, String user, IRecognizable[] faces) {
+                            instance.onFacesAssignedToUser(verID, user, faces);
+                        }
+
+                        @Override
+                        public void onUserDeleted(String user) {
+                            instance.onUserDeleted(user);
+                        }
+
+                        @Override
+                        public void onBatchFailed() {
+                            instance.onGalleryReloaded();
+                        }
+                    }, rxVerID.userWriteLocks);
+                }
+                if (getConfiguration().getIdentificationShortlistSize() > 0) {
+                    rxVerID.centroidIndex = new CentroidIndex(getConfiguration().getIdentificationShortlistSize());
+                }
+                if (getConfiguration().getUserTemplateCacheSize() > 0) {
+                    rxVerID.userTemplateCache = new UserTemplateCache(getConfiguration().getUserTemplateCacheSize());
+                }
                 instances.put(getConfiguration(), rxVerID);
             }
             return rxVerID;
@@ -300,7 +643,43 @@ public class RxVerID {
     private IUserManagementFactory userManagementFactory;
     private VerIDIdentity identity;
     private String veridPassword;
+    private CentroidIndex centroidIndex;
+    private UserTemplateCache userTemplateCache;
+    private boolean parallelFaceAuthentication;
+    private UserManagementWriteQueue userManagementWriteQueue;
+    private SortedUserIndex userIndex;
+    private GalleryChangeFeed galleryChangeFeed;
+    private UserWriteLocks userWriteLocks;
+    private RxVerIDMetrics metrics;
+    private TraceSink traceSink;
+    private ImageMemoryTracker imageMemoryTracker;
+    private volatile VerIDStartupReport startupReport;
+    private boolean lazyComponentLoading;
+    private boolean verIDReleased;
+    private EnginePool enginePool;
+    private boolean sharedModels;
+    private SharedModelRegistry.Leases sharedModelLeases;
+    private int memoryTrimLevel;
+    private VerIDMemoryTrimmer memoryTrimmer;
+    private final AtomicLong verIDReleaseCount = new AtomicLong();
+    private final AtomicLong verIDRecreationCount = new AtomicLong();
+    private final AtomicLong verIDRecreationNanos = new AtomicLong();
+    private static final int MATRIX_TILE_ROW_COUNT = 16;
+    private static final int AUTHENTICATION_FACE_LIMIT = 4;
+    private static final int AUTHENTICATION_BATCH_CHUNK_SIZE = 64;
+    private static final int AUTHENTICATION_BATCH_USER_CACHE_SIZE = 1024;
+    private static final int GALLERY_BUFFER_SIZE = 64 * 1024;
+    private static final int GALLERY_MAP_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int GALLERY_CHANGE_HISTORY_SIZE = 1024;
+    private static final int USER_WRITE_LOCK_STRIPE_COUNT = 64;
+    private static final int AUDIT_PIVOT_PROBE_COUNT = 2;
+    private static final int SESSION_FUSION_MAX_TEMPLATES = 3;
+    private static final float TEMPLATE_OUTLIER_MAD_MULTIPLIER = 3f;
+    private static final int COMPACTION_TIMING_REPETITIONS = 10;
+    private static final StageTransformer<?> UNINSTRUMENTED_STAGE = new StageTransformer<>(null, null, null);
+    private static final TracingTransformer<?> UNTRACED_CALL = new TracingTransformer<>(null, null);
     private final Object veridLock = new Object();
+    private final Object enrollmentLock = new Object();
 
     // endregion
 
@@ -337,10 +716,84 @@ public class RxVerID {
 
     // endregion
 
+    /**
+     * Cache of face templates used for user authentication
+     * @return Cache or {@literal null} if the cache wasn't enabled using {@link Builder#setUserTemplateCacheSize(int)}
+     * @since 1.11.0
+     */
+    @Nullable
+    public UserTemplateCache getUserTemplateCache() {
+        return userTemplateCache;
+    }
+
+    /**
+     * Breakdown of the time it took to create the Ver-ID instance
+     * @return Report of the last Ver-ID instance created by {@link #getVerID()} or {@literal null} if no instance has been created yet
+     * @since 1.11.0
+     */
+    @Nullable
+    public VerIDStartupReport getStartupReport() {
+        return startupReport;
+    }
+
+    /**
+     * Report a Ver-ID component loaded on first use to the metrics
+     * @param stage Stage of the component
+     * @param success {@literal true} if the component was loaded
+     * @param durationNanos Time it took to load the component
+     */
+    private void onComponentLoaded(String stage, boolean success, long durationNanos) {
+        if (metrics != null) {
+            metrics.onStageStarted(stage);
+            metrics.onStageFinished(stage, success ? RxVerIDMetrics.OUTCOME_SUCCESS : RxVerIDMetrics.OUTCOME_ERROR, durationNanos, success ? 1 : 0);
+        }
+    }
+
     VerIDFactory createVerIDFactory() {
         return new VerIDFactory(getContext());
     }
 
+    /**
+     * Transformer that reports a stage to the metrics set using {@link Builder#setMetrics(RxVerIDMetrics)} and traces it as a child span of the current call
+     * @param stage One of the {@code STAGE_} constants of {@link RxVerIDMetrics}
+     * @param <T> Type
+     * @return Transformer that leaves the upstream unchanged if neither metrics nor a trace sink are set
+     * @since 1.11.0
+     */
+    @SuppressWarnings("unchecked")
+    private <T> StageTransformer<T> instrumentStage(String stage) {
+        if (metrics == null && traceSink == null) {
+            return (StageTransformer<T>) UNINSTRUMENTED_STAGE;
+        }
+        return new StageTransformer<>(metrics, traceSink, stage);
+    }
+
+    /**
+     * Transformer that traces a public call using the sink set by {@link Builder#setTraceSink(TraceSink)}
+     * @param method Name of the public method
+     * @param <T> Type
+     * @return Transformer that leaves the upstream unchanged if no trace sink is set
+     * @since 1.11.0
+     */
+    @SuppressWarnings("unchecked")
+    private <T> TracingTransformer<T> traceCall(String method) {
+        if (traceSink == null) {
+            return (TracingTransformer<T>) UNTRACED_CALL;
+        }
+        return new TracingTransformer<>(traceSink, method);
+    }
+
+    /**
+     * Record a bitmap allocation with the tracker set by {@link Builder#setImageMemoryTracker(ImageMemoryTracker)}
+     * @param operation Operation that allocated the bitmap
+     * @param bitmap Allocated bitmap
+     */
+    private void trackImageMemory(String operation, Bitmap bitmap) {
+        if (imageMemoryTracker != null) {
+            imageMemoryTracker.trackBitmap(operation, bitmap);
+        }
+    }
+
     // region Ver-ID
 
     /**
@@ -355,7 +808,9 @@ public class RxVerID {
             }
         }
         return Single.<VerID>create(emitter -> {
+            SharedModelRegistry.Leases modelLeases = sharedModels ? new SharedModelRegistry.Leases() : null;
             try {
+                VerIDStartupProfiler startupProfiler = new VerIDStartupProfiler();
                 VerIDFactory verIDFactory = createVerIDFactory();
                 if (getFaceDetectionFactory() != null) {
                     verIDFactory.setFaceDetectionFactory(getFaceDetectionFactory());
@@ -372,19 +827,130 @@ public class RxVerID {
                 if (veridPassword != null) {
                     verIDFactory.setVeridPassword(veridPassword);
                 }
+                if (enginePool != null) {
+                    // Taken before the shared model factories are applied so that pool members are never shared with other Ver-ID instances
+                    enginePool.setDefaultFactories(verIDFactory.getFaceDetectionFactory(), verIDFactory.getFaceRecognitionFactory());
+                }
+                if (modelLeases != null) {
+                    SharedModelRegistry.apply(verIDFactory,
+                            getFaceDetectionFactory() != null ? getFaceDetectionFactory() : SharedModelRegistry.DEFAULT_FACTORY,
+                            getFaceRecognitionFactory() != null ? getFaceRecognitionFactory() : SharedModelRegistry.DEFAULT_FACTORY,
+                            modelLeases);
+                }
+                startupProfiler.instrument(verIDFactory);
+                if (lazyComponentLoading) {
+                    LazyComponentFactory.apply(verIDFactory, this::onComponentLoaded);
+                }
                 VerID verID = verIDFactory.createVerIDSync();
+                VerIDStartupReport report = startupProfiler.createReport();
+                boolean recreated;
+                SharedModelRegistry.Leases replacedModelLeases;
                 synchronized (veridLock) {
                     RxVerID.this.verID = verID;
+                    recreated = verIDReleased;
+                    verIDReleased = false;
+                    // Another subscriber may have created an instance at the same time
+                    replacedModelLeases = sharedModelLeases;
+                    sharedModelLeases = modelLeases;
+                    if (memoryTrimLevel > 0 && memoryTrimmer == null) {
+                        memoryTrimmer = new VerIDMemoryTrimmer(RxVerID.this, memoryTrimLevel);
+                        getMemoryTrimContext().registerComponentCallbacks(memoryTrimmer);
+                    }
+                }
+                if (replacedModelLeases != null) {
+                    replacedModelLeases.releaseAll();
+                }
+                startupReport = report;
+                if (recreated) {
+                    verIDRecreationCount.incrementAndGet();
+                    verIDRecreationNanos.addAndGet(report.getTotalNanos());
+                }
+                if (metrics != null) {
+                    VerIDStartupProfiler.reportToMetrics(report, metrics);
+                    if (recreated) {
+                        metrics.onStageStarted(RxVerIDMetrics.STAGE_VERID_RECREATION);
+                        metrics.onStageFinished(RxVerIDMetrics.STAGE_VERID_RECREATION, RxVerIDMetrics.OUTCOME_SUCCESS, report.getTotalNanos(), 1);
+                    }
                 }
                 if (!emitter.isDisposed()) {
                     emitter.onSuccess(verID);
                 }
             } catch (Exception e) {
+                if (modelLeases != null) {
+                    modelLeases.releaseAll();
+                }
                 if (!emitter.isDisposed()) {
                     emitter.onError(e);
                 }
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_VERID_LOAD));
+    }
+
+    /**
+     * Drop the Ver-ID instance so that the memory it holds can be freed
+     * <p>The next call that needs Ver-ID creates a new instance. Calls in progress finish using the released instance.
+     * With {@link Builder#setSharedModels(boolean) shared models} the instance's references to the shared face detection and face recognition are released; the models are freed once no other Ver-ID instance uses them.</p>
+     * <p>The derived indices, the user template cache and the {@link Builder#setEnginePoolSize(int) engine pool} members are discarded with the instance. They're rebuilt on next use.</p>
+     * <p>RxVerID calls this when the system asks to trim memory if a level is set using {@link Builder#setMemoryTrimLevel(int)}. The memory trim callbacks are registered while a Ver-ID instance is loaded and unregistered when it's released.</p>
+     * @since 1.11.0
+     */
+    public void releaseVerID() {
+        SharedModelRegistry.Leases modelLeases;
+        synchronized (veridLock) {
+            if (verID == null) {
+                return;
+            }
+            verID = null;
+            verIDReleased = true;
+            modelLeases = sharedModelLeases;
+            sharedModelLeases = null;
+            if (memoryTrimmer != null) {
+                getMemoryTrimContext().unregisterComponentCallbacks(memoryTrimmer);
+                memoryTrimmer = null;
+            }
+        }
+        if (modelLeases != null) {
+            modelLeases.releaseAll();
+        }
+        invalidateDerivedIndices();
+        if (enginePool != null) {
+            enginePool.clear();
+        }
+        verIDReleaseCount.incrementAndGet();
+        if (metrics != null) {
+            metrics.onStageStarted(RxVerIDMetrics.STAGE_VERID_RELEASE);
+            metrics.onStageFinished(RxVerIDMetrics.STAGE_VERID_RELEASE, RxVerIDMetrics.OUTCOME_SUCCESS, 0, 1);
+        }
+    }
+
+    /**
+     * Number of times the Ver-ID instance was released
+     * @return Release count
+     * @since 1.11.0
+     * @see Builder#setMemoryTrimLevel(int)
+     */
+    public long getVerIDReleaseCount() {
+        return verIDReleaseCount.get();
+    }
+
+    /**
+     * Number of times the Ver-ID instance was created again after it was released
+     * @return Recreation count
+     * @since 1.11.0
+     * @see Builder#setMemoryTrimLevel(int)
+     */
+    public long getVerIDRecreationCount() {
+        return verIDRecreationCount.get();
+    }
+
+    /**
+     * Total time spent creating the Ver-ID instance again after it was released
+     * @return Nanoseconds
+     * @since 1.11.0
+     * @see Builder#setMemoryTrimLevel(int)
+     */
+    public long getVerIDRecreationNanos() {
+        return verIDRecreationNanos.get();
     }
 
     // endregion
@@ -406,14 +972,14 @@ public class RxVerID {
     }
 
     Single<ExifInterface> getExifFromStream(ByteArrayInputStream inputStream) {
-        return Single.create(emitter -> {
+        return Single.<ExifInterface>create(emitter -> {
             try {
                 inputStream.reset();
                 emitter.onSuccess(new ExifInterface(inputStream));
             } catch (Exception e) {
                 emitter.onError(e);
             }
-        });
+        }).compose(instrumentStage(RxVerIDMetrics.STAGE_IMAGE_EXIF));
     }
 
     /**
@@ -457,6 +1023,9 @@ public class RxVerID {
             }
             byteArrayOutputStream.flush();
             byte[] image = byteArrayOutputStream.toByteArray();
+            if (imageMemoryTracker != null) {
+                imageMemoryTracker.trackBuffer(ImageMemoryTracker.OPERATION_BUFFER_STREAM, image);
+            }
             try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(image)) {
                 return byteArrayInputStream;
             }
@@ -491,7 +1060,7 @@ public class RxVerID {
             } catch (Exception e) {
                 emitter.onError(e);
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_IMAGE_FETCH));
     }
 
     /**
@@ -508,11 +1077,12 @@ public class RxVerID {
                 if (bitmap == null) {
                     throw new Exception("Failed to read bitmap");
                 }
+                trackImageMemory(ImageMemoryTracker.OPERATION_DECODE_BITMAP, bitmap);
                 emitter.onSuccess(bitmap);
             } catch (Exception e) {
                 emitter.onError(e);
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_IMAGE_DECODE));
     }
 
     /**
@@ -536,7 +1106,8 @@ public class RxVerID {
      */
     public Single<Integer> getExifOrientationOfImage(Uri imageUri) {
         return getExifFromUri(imageUri)
-                .map(exifInterface -> exifInterface.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL));
+                .map(exifInterface -> exifInterface.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL))
+                .compose(traceCall("getExifOrientationOfImage"));
     }
 
     /**
@@ -546,7 +1117,7 @@ public class RxVerID {
      * @since 1.0.0
      */
     public Single<Bitmap> convertUriToBitmap(Uri imageUri) {
-        return getInputStreamFromUri(imageUri).flatMap(this::getBitmapFromStream);
+        return getInputStreamFromUri(imageUri).flatMap(this::getBitmapFromStream).compose(traceCall("convertUriToBitmap"));
     }
 
     /**
@@ -556,7 +1127,7 @@ public class RxVerID {
      * @since 1.0.0
      */
     public Single<VerIDImage> convertUriToVerIDImage(Uri imageUri) {
-        return getInputStreamFromUri(imageUri).flatMap(this::getBitmapAndOrientationFromInputStream).map(pair -> new VerIDImage(pair.getValue0(), pair.getValue1()));
+        return getInputStreamFromUri(imageUri).flatMap(this::getBitmapAndOrientationFromInputStream).map(pair -> new VerIDImage(pair.getValue0(), pair.getValue1())).compose(traceCall("convertUriToVerIDImage"));
     }
 
     /**
@@ -567,7 +1138,7 @@ public class RxVerID {
      * @since 1.0.0
      */
     public Single<VerIDImage> convertBitmapToVerIDImage(Bitmap bitmap, @ExifOrientation int exifOrientation) {
-        return Single.just(new VerIDImage(bitmap, exifOrientation));
+        return Single.just(new VerIDImage(bitmap, exifOrientation)).compose(traceCall("convertBitmapToVerIDImage"));
     }
 
     // endregion
@@ -583,7 +1154,8 @@ public class RxVerID {
      */
     public Observable<RecognizableFace> detectRecognizableFacesInImage(Uri imageUri, int limit) {
         return convertUriToVerIDImage(imageUri)
-                .flatMapObservable(image -> detectRecognizableFacesInImage(image, limit));
+                .flatMapObservable(image -> detectRecognizableFacesInImage(image, limit))
+                .compose(traceCall("detectRecognizableFacesInImage"));
     }
 
     /**
@@ -595,7 +1167,8 @@ public class RxVerID {
      */
     public Observable<RecognizableFace> detectRecognizableFacesInImage(VerIDImage image, int limit) {
         return detectFacesInImage(image, limit)
-                .flatMap(face -> convertFaceToRecognizableFace(image, face));
+                .flatMap(face -> convertFaceToRecognizableFace(image, face))
+                .compose(traceCall("detectRecognizableFacesInImage"));
     }
 
     /**
@@ -608,7 +1181,8 @@ public class RxVerID {
      */
     public Observable<RecognizableFace> detectRecognizableFacesInImage(Bitmap bitmap, @ExifOrientation int exifOrientation, int limit) {
         return convertBitmapToVerIDImage(bitmap, exifOrientation)
-                .flatMapObservable(image -> detectRecognizableFacesInImage(image, limit));
+                .flatMapObservable(image -> detectRecognizableFacesInImage(image, limit))
+                .compose(traceCall("detectRecognizableFacesInImage"));
     }
 
     /**
@@ -620,7 +1194,8 @@ public class RxVerID {
      */
     public Observable<RecognizableFace> detectRecognizableFacesInImage(Bitmap bitmap, int limit) {
         return convertBitmapToVerIDImage(bitmap, ExifInterface.ORIENTATION_NORMAL)
-                .flatMapObservable(image -> detectRecognizableFacesInImage(image, limit));
+                .flatMapObservable(image -> detectRecognizableFacesInImage(image, limit))
+                .compose(traceCall("detectRecognizableFacesInImage"));
     }
 
     /**
@@ -633,7 +1208,8 @@ public class RxVerID {
      */
     public Observable<RecognizableFace> detectRecognizableFacesInImage(VerID verID, Uri imageUri, int limit) {
         return convertUriToVerIDImage(imageUri)
-                .flatMapObservable(image -> detectRecognizableFacesInImage(verID, image, limit));
+                .flatMapObservable(image -> detectRecognizableFacesInImage(verID, image, limit))
+                .compose(traceCall("detectRecognizableFacesInImage"));
     }
 
     /**
@@ -646,7 +1222,8 @@ public class RxVerID {
      */
     public Observable<RecognizableFace> detectRecognizableFacesInImage(VerID verID, VerIDImage image, int limit) {
         return detectFacesInImage(verID, image, limit)
-                .flatMap(face -> convertFaceToRecognizableFace(verID, image, face));
+                .flatMap(face -> convertFaceToRecognizableFace(verID, image, face))
+                .compose(traceCall("detectRecognizableFacesInImage"));
     }
 
     /**
@@ -660,7 +1237,8 @@ public class RxVerID {
      */
     public Observable<RecognizableFace> detectRecognizableFacesInImage(VerID verID, Bitmap bitmap, @ExifOrientation int exifOrientation, int limit) {
         return convertBitmapToVerIDImage(bitmap, exifOrientation)
-                .flatMapObservable(image -> detectRecognizableFacesInImage(verID, image, limit));
+                .flatMapObservable(image -> detectRecognizableFacesInImage(verID, image, limit))
+                .compose(traceCall("detectRecognizableFacesInImage"));
     }
 
     /**
@@ -673,7 +1251,8 @@ public class RxVerID {
      */
     public Observable<RecognizableFace> detectRecognizableFacesInImage(VerID verID, Bitmap bitmap, int limit) {
         return convertBitmapToVerIDImage(bitmap, ExifInterface.ORIENTATION_NORMAL)
-                .flatMapObservable(image -> detectRecognizableFacesInImage(verID, image, limit));
+                .flatMapObservable(image -> detectRecognizableFacesInImage(verID, image, limit))
+                .compose(traceCall("detectRecognizableFacesInImage"));
     }
 
     // endregion
@@ -689,7 +1268,8 @@ public class RxVerID {
      */
     public Observable<Face> detectFacesInImage(Uri imageUri, int limit) {
         return convertUriToVerIDImage(imageUri)
-                .flatMapObservable(image -> detectFacesInImage(image, limit));
+                .flatMapObservable(image -> detectFacesInImage(image, limit))
+                .compose(traceCall("detectFacesInImage"));
     }
 
     /**
@@ -701,7 +1281,8 @@ public class RxVerID {
      */
     public Observable<Face> detectFacesInImage(VerIDImage image, int limit) {
         return getVerID()
-                .flatMapObservable(verID -> detectFacesInImage(verID, image, limit));
+                .flatMapObservable(verID -> detectFacesInImage(verID, image, limit))
+                .compose(traceCall("detectFacesInImage"));
     }
 
     /**
@@ -712,7 +1293,7 @@ public class RxVerID {
      * @since 1.0.0
      */
     public Observable<Face> detectFacesInImage(Bitmap bitmap, int limit) {
-        return detectFacesInImage(bitmap, ExifInterface.ORIENTATION_NORMAL, limit);
+        return detectFacesInImage(bitmap, ExifInterface.ORIENTATION_NORMAL, limit).compose(traceCall("detectFacesInImage"));
     }
 
     /**
@@ -725,7 +1306,8 @@ public class RxVerID {
      */
     public Observable<Face> detectFacesInImage(Bitmap bitmap, @ExifOrientation int exifOrientation, int limit) {
         return convertBitmapToVerIDImage(bitmap, exifOrientation)
-                .flatMapObservable(image -> detectFacesInImage(image, limit));
+                .flatMapObservable(image -> detectFacesInImage(image, limit))
+                .compose(traceCall("detectFacesInImage"));
     }
 
     /**
@@ -738,7 +1320,8 @@ public class RxVerID {
      */
     public Observable<Face> detectFacesInImage(VerID verID, Uri imageUri, int limit) {
         return convertUriToVerIDImage(imageUri)
-                .flatMapObservable(image -> detectFacesInImage(verID, image, limit));
+                .flatMapObservable(image -> detectFacesInImage(verID, image, limit))
+                .compose(traceCall("detectFacesInImage"));
     }
 
     /**
@@ -752,7 +1335,12 @@ public class RxVerID {
     public Observable<Face> detectFacesInImage(VerID verID, VerIDImage image, int limit) {
         return Observable.<Face>create(observer -> {
             try {
-                Face[] faces = verID.getFaceDetection().detectFacesInImage(image, limit, 0);
+                Face[] faces;
+                if (enginePool != null) {
+                    faces = enginePool.withFaceDetection(verID, faceDetection -> faceDetection.detectFacesInImage(image, limit, 0));
+                } else {
+                    faces = verID.getFaceDetection().detectFacesInImage(image, limit, 0);
+                }
                 if (faces != null) {
                     for (Face face : faces) {
                         observer.onNext(face);
@@ -762,7 +1350,7 @@ public class RxVerID {
             } catch (Exception e) {
                 observer.onError(e);
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_FACE_DETECTION)).compose(traceCall("detectFacesInImage"));
     }
 
     /**
@@ -774,7 +1362,7 @@ public class RxVerID {
      * @since 1.1.0
      */
     public Observable<Face> detectFacesInImage(VerID verID, Bitmap bitmap, int limit) {
-        return detectFacesInImage(verID, bitmap, ExifInterface.ORIENTATION_NORMAL, limit);
+        return detectFacesInImage(verID, bitmap, ExifInterface.ORIENTATION_NORMAL, limit).compose(traceCall("detectFacesInImage"));
     }
 
     /**
@@ -788,7 +1376,8 @@ public class RxVerID {
      */
     public Observable<Face> detectFacesInImage(VerID verID, Bitmap bitmap, @ExifOrientation int exifOrientation, int limit) {
         return convertBitmapToVerIDImage(bitmap, exifOrientation)
-                .flatMapObservable(image -> detectFacesInImage(verID, image, limit));
+                .flatMapObservable(image -> detectFacesInImage(verID, image, limit))
+                .compose(traceCall("detectFacesInImage"));
     }
 
     // endregion
@@ -801,7 +1390,7 @@ public class RxVerID {
      * @since 1.0.0
      */
     public Single<UserIdentification> getUserIdentification() {
-        return getVerID().map(UserIdentification::new);
+        return getVerID().map(UserIdentification::new).compose(traceCall("getUserIdentification"));
     }
 
     /**
@@ -812,7 +1401,8 @@ public class RxVerID {
      */
     public Observable<Pair<String,Float>> identifyUsersInImage(Uri imageUri) {
         return convertUriToVerIDImage(imageUri)
-                .flatMapObservable(this::identifyUsersInImage);
+                .flatMapObservable(this::identifyUsersInImage)
+                .compose(traceCall("identifyUsersInImage"));
     }
 
     /**
@@ -822,7 +1412,7 @@ public class RxVerID {
      * @since 1.0.0
      */
     public Observable<Pair<String,Float>> identifyUsersInImage(Bitmap bitmap) {
-        return identifyUsersInImage(bitmap, ExifInterface.ORIENTATION_NORMAL);
+        return identifyUsersInImage(bitmap, ExifInterface.ORIENTATION_NORMAL).compose(traceCall("identifyUsersInImage"));
     }
 
     /**
@@ -834,7 +1424,8 @@ public class RxVerID {
      */
     public Observable<Pair<String,Float>> identifyUsersInImage(Bitmap bitmap, @ExifOrientation int exifOrientation) {
         return convertBitmapToVerIDImage(bitmap, exifOrientation)
-                .flatMapObservable(this::identifyUsersInImage);
+                .flatMapObservable(this::identifyUsersInImage)
+                .compose(traceCall("identifyUsersInImage"));
     }
 
     /**
@@ -845,7 +1436,8 @@ public class RxVerID {
      */
     public Observable<Pair<String,Float>> identifyUsersInImage(VerIDImage image) {
         return getVerID()
-                .flatMapObservable(verID -> identifyUsersInImage(verID, image));
+                .flatMapObservable(verID -> identifyUsersInImage(verID, image))
+                .compose(traceCall("identifyUsersInImage"));
     }
 
     /**
@@ -855,7 +1447,7 @@ public class RxVerID {
      * @since 1.1.0
      */
     public Single<UserIdentification> getUserIdentification(VerID verID) {
-        return Single.just(new UserIdentification(verID));
+        return Single.just(new UserIdentification(verID)).compose(traceCall("getUserIdentification"));
     }
 
     /**
@@ -867,7 +1459,8 @@ public class RxVerID {
      */
     public Observable<Pair<String,Float>> identifyUsersInImage(VerID verID, Uri imageUri) {
         return convertUriToVerIDImage(imageUri)
-                .flatMapObservable(image -> identifyUsersInImage(verID, image));
+                .flatMapObservable(image -> identifyUsersInImage(verID, image))
+                .compose(traceCall("identifyUsersInImage"));
     }
 
     /**
@@ -878,7 +1471,7 @@ public class RxVerID {
      * @since 1.1.0
      */
     public Observable<Pair<String,Float>> identifyUsersInImage(VerID verID, Bitmap bitmap) {
-        return identifyUsersInImage(verID, bitmap, ExifInterface.ORIENTATION_NORMAL);
+        return identifyUsersInImage(verID, bitmap, ExifInterface.ORIENTATION_NORMAL).compose(traceCall("identifyUsersInImage"));
     }
 
     /**
@@ -891,7 +1484,8 @@ public class RxVerID {
      */
     public Observable<Pair<String,Float>> identifyUsersInImage(VerID verID, Bitmap bitmap, @ExifOrientation int exifOrientation) {
         return convertBitmapToVerIDImage(bitmap, exifOrientation)
-                .flatMapObservable(image -> identifyUsersInImage(verID, image));
+                .flatMapObservable(image -> identifyUsersInImage(verID, image))
+                .compose(traceCall("identifyUsersInImage"));
     }
 
     /**
@@ -903,7 +1497,8 @@ public class RxVerID {
      */
     public Observable<Pair<String,Float>> identifyUsersInImage(VerID verID, VerIDImage image) {
         return detectRecognizableFacesInImage(verID, image, 1)
-                .flatMap(face -> identifyUsersInFace(verID, face));
+                .flatMap(face -> identifyUsersInFace(verID, face))
+                .compose(traceCall("identifyUsersInImage"));
     }
 
     /**
@@ -914,7 +1509,8 @@ public class RxVerID {
      */
     public Observable<Pair<String,Float>> identifyUsersInFace(RecognizableFace face) {
         return getVerID()
-                .flatMapObservable(verID -> identifyUsersInFace(verID, face));
+                .flatMapObservable(verID -> identifyUsersInFace(verID, face))
+                .compose(traceCall("identifyUsersInFace"));
     }
 
     /**
@@ -925,26 +1521,157 @@ public class RxVerID {
      * @since 1.6.0
      */
     public Observable<Pair<String,Float>> identifyUsersInFace(VerID verID, RecognizableFace face) {
-        Observable<Pair<String,Float>> observable = getUserIdentification(verID)
-                .flatMapObservable(userIdentification -> observer -> {
-                    try {
-                        Map<String,Float> userMap = userIdentification.identifyUsersInFace(face);
-                        Iterator<Map.Entry<String,Float>> iterator = userMap.entrySet().iterator();
-                        while (iterator.hasNext()) {
-                            Map.Entry<String,Float> entry = iterator.next();
-                            observer.onNext(new Pair<>(entry.getKey(), entry.getValue()));
+        Observable<Pair<String,Float>> observable;
+        if (centroidIndex != null) {
+            observable = identifyUsersInFaceUsingCentroids(verID, face, centroidIndex);
+        } else {
+            observable = getUserIdentification(verID)
+                    .flatMapObservable(userIdentification -> observer -> {
+                        try {
+                            Map<String,Float> userMap = userIdentification.identifyUsersInFace(face);
+                            Iterator<Map.Entry<String,Float>> iterator = userMap.entrySet().iterator();
+                            while (iterator.hasNext()) {
+                                Map.Entry<String,Float> entry = iterator.next();
+                                observer.onNext(new Pair<>(entry.getKey(), entry.getValue()));
+                            }
+                            observer.onComplete();
+                        } catch (Exception e) {
+                            observer.onError(e);
                         }
-                        observer.onComplete();
-                    } catch (Exception e) {
-                        observer.onError(e);
-                    }
-                });
+                    });
+        }
         return observable.sorted((pair1, pair2) -> {
             if (pair1.getValue1() == pair2.getValue1()) {
                 return pair1.getValue0().compareTo(pair2.getValue0());
             }
             return pair2.getValue1().compareTo(pair1.getValue1());
-        });
+        }).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_IDENTIFICATION)).compose(traceCall("identifyUsersInFace"));
+    }
+
+    /**
+     * Identify users in a face by first comparing the face to a representative template of each user
+     * <p>Only the users shortlisted by the centroid index are compared using all their faces.</p>
+     * @param verID Ver-ID instance
+     * @param face Face in which to identify users
+     * @param centroidIndex Index of the users' representative templates
+     * @return Observable whose values are pairs of user ID and score of users who pass the authentication threshold
+     * @since 1.11.0
+     */
+    private Observable<Pair<String,Float>> identifyUsersInFaceUsingCentroids(VerID verID, RecognizableFace face, CentroidIndex centroidIndex) {
+        return Observable.<Pair<String,Float>>create(emitter -> {
+            try {
+                IUserManagement userManagement = verID.getUserManagement();
+                IFaceRecognition faceRecognition = verID.getFaceRecognition();
+                float threshold = faceRecognition.getAuthenticationThreshold();
+                IRecognizable[] subject = new IRecognizable[]{face};
+                for (String user : centroidIndex.shortlist(userManagement, face, faceRecognition)) {
+                    IRecognizable[] userFaces = facesOfUser(userManagement, user);
+                    float score = faceRecognition.compareSubjectFacesToFaces(userFaces, subject);
+                    if (score >= threshold) {
+                        emitter.onNext(new Pair<>(user, score));
+                    }
+                }
+                emitter.onComplete();
+            } catch (Exception e) {
+                emitter.onError(e);
+            }
+        }).subscribeOn(Schedulers.io());
+    }
+
+    /**
+     * Find users who may have been enrolled more than once under different identifiers
+     * @param threshold Score at or above which two users are reported as possible duplicates
+     * @return Flowable whose values are triplets of the two user identifiers (in ascending order) and their score
+     * @since 1.11.0
+     * @see #auditDuplicates(VerID, float, Consumer)
+     */
+    public Flowable<Triplet<String,String,Float>> auditDuplicates(float threshold) {
+        return auditDuplicates(threshold, null).compose(traceCall("auditDuplicates"));
+    }
+
+    /**
+     * Find users who may have been enrolled more than once under different identifiers
+     * @param threshold Score at or above which two users are reported as possible duplicates
+     * @param progress Consumer called with the fraction of candidate pairs scored so far or {@literal null}
+     * @return Flowable whose values are triplets of the two user identifiers (in ascending order) and their score
+     * @since 1.11.0
+     * @see #auditDuplicates(VerID, float, Consumer)
+     */
+    public Flowable<Triplet<String,String,Float>> auditDuplicates(float threshold, @Nullable Consumer<Float> progress) {
+        return getVerID()
+                .flatMapPublisher(verID -> auditDuplicates(verID, threshold, progress))
+                .compose(traceCall("auditDuplicates"));
+    }
+
+    /**
+     * Find users who may have been enrolled more than once under different identifiers
+     * <p>Instead of comparing every pair of users, the users are first grouped into blocks of likely matches by comparing each user's representative template to a set of pivot templates.
+     * Only pairs of users who share a block are compared using all their faces. The blocks are scored in parallel and suspicious pairs are emitted as soon as their block has been scored.</p>
+     * <p>The blocking is a heuristic: a pair of duplicates whose representative templates match different pivots is not reported.</p>
+     * @param verID Ver-ID instance
+     * @param threshold Score at or above which two users are reported as possible duplicates
+     * @param progress Consumer called with the fraction of candidate pairs scored so far or {@literal null}
+     * @return Flowable whose values are triplets of the two user identifiers (in ascending order) and their score
+     * @since 1.11.0
+     */
+    public Flowable<Triplet<String,String,Float>> auditDuplicates(VerID verID, float threshold, @Nullable Consumer<Float> progress) {
+        return Flowable.defer(() -> {
+            IUserManagement userManagement = verID.getUserManagement();
+            IFaceRecognition faceRecognition = verID.getFaceRecognition();
+            String[] allUsers = userManagement.getUsers();
+            Arrays.sort(allUsers);
+            ArrayList<String> usersWithFaces = new ArrayList<>(allUsers.length);
+            ArrayList<IRecognizable[]> facesOfUsers = new ArrayList<>(allUsers.length);
+            for (String user : allUsers) {
+                IRecognizable[] userFaces = facesOfUser(userManagement, user);
+                if (userFaces != null && userFaces.length > 0) {
+                    usersWithFaces.add(user);
+                    facesOfUsers.add(userFaces);
+                }
+            }
+            String[] users = usersWithFaces.toArray(new String[0]);
+            IRecognizable[][] faces = facesOfUsers.toArray(new IRecognizable[0][]);
+            IRecognizable[] templates = new IRecognizable[users.length];
+            for (int i = 0; i < users.length; i++) {
+                templates[i] = CentroidIndex.computeCentroid(faces[i], faceRecognition);
+            }
+            PivotBlocking.Blocks blocking = PivotBlocking.blocks(templates, PivotBlocking.pivotCountForUserCount(users.length), AUDIT_PIVOT_PROBE_COUNT, faceRecognition);
+            List<int[]> blocks = blocking.getMembers();
+            long pairCount = 0;
+            for (int[] block : blocks) {
+                pairCount += (long) block.length * (block.length - 1) / 2;
+            }
+            long totalPairCount = Math.max(1, pairCount);
+            AtomicLong scoredPairCount = new AtomicLong();
+            return Flowable.range(0, blocks.size())
+                    .parallel()
+                    .runOn(Schedulers.computation())
+                    .map(blockIndex -> {
+                        int[] block = blocks.get(blockIndex);
+                        ArrayList<Triplet<String,String,Float>> duplicates = new ArrayList<>();
+                        for (int i = 0; i < block.length; i++) {
+                            for (int j = i + 1; j < block.length; j++) {
+                                // A pair of users who share more than one block is scored in only one of them
+                                if (!blocking.ownsPair(blockIndex, block[i], block[j])) {
+                                    continue;
+                                }
+                                int user1 = Math.min(block[i], block[j]);
+                                int user2 = Math.max(block[i], block[j]);
+                                float score = faceRecognition.compareSubjectFacesToFaces(faces[user1], faces[user2]);
+                                if (score >= threshold) {
+                                    duplicates.add(new Triplet<>(users[user1], users[user2], score));
+                                }
+                            }
+                        }
+                        long scored = scoredPairCount.addAndGet((long) block.length * (block.length - 1) / 2);
+                        if (progress != null) {
+                            progress.accept(Math.min(1f, (float) scored / totalPairCount));
+                        }
+                        return duplicates;
+                    })
+                    .sequential()
+                    .flatMapIterable(duplicates -> duplicates);
+        }).subscribeOn(Schedulers.io()).compose(traceCall("auditDuplicates"));
     }
 
     // endregion
@@ -960,7 +1687,8 @@ public class RxVerID {
      */
     public Observable<RecognizableFace> convertFaceToRecognizableFace(VerIDImage image, Face face) {
         return getVerID()
-                .flatMapObservable(verID -> convertFaceToRecognizableFace(verID, image, face));
+                .flatMapObservable(verID -> convertFaceToRecognizableFace(verID, image, face))
+                .compose(traceCall("convertFaceToRecognizableFace"));
     }
 
     /**
@@ -974,7 +1702,12 @@ public class RxVerID {
     public Observable<RecognizableFace> convertFaceToRecognizableFace(VerID verID, VerIDImage image, Face face) {
         return Observable.<RecognizableFace>create(observer -> {
             try {
-                RecognizableFace[] recognizableFaces = verID.getFaceRecognition().createRecognizableFacesFromFaces(new Face[]{face}, image);
+                RecognizableFace[] recognizableFaces;
+                if (enginePool != null) {
+                    recognizableFaces = enginePool.withFaceRecognition(verID, faceRecognition -> faceRecognition.createRecognizableFacesFromFaces(new Face[]{face}, image));
+                } else {
+                    recognizableFaces = verID.getFaceRecognition().createRecognizableFacesFromFaces(new Face[]{face}, image);
+                }
                 if (recognizableFaces.length == 0) {
                     throw new Exception("Failed to create recognizable face");
                 }
@@ -985,7 +1718,7 @@ public class RxVerID {
             } catch (Exception e) {
                 observer.onError(e);
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_TEMPLATE_EXTRACTION)).compose(traceCall("convertFaceToRecognizableFace"));
     }
 
     // endregion
@@ -1010,7 +1743,7 @@ public class RxVerID {
      * @since 1.0.0
      */
     public Single<Bitmap> cropImageToFace(@NonNull Bitmap bitmap, @NonNull Face face) {
-        return cropImageToFace(bitmap, ExifInterface.ORIENTATION_NORMAL, face);
+        return cropImageToFace(bitmap, ExifInterface.ORIENTATION_NORMAL, face).compose(traceCall("cropImageToFace"));
     }
 
     /**
@@ -1031,8 +1764,14 @@ public class RxVerID {
                     cropRect.top = Math.max(0, cropRect.top);
                     cropRect.left = Math.max(0, cropRect.left);
                     Bitmap cropped = Bitmap.createBitmap(rightedBitmap, cropRect.left, cropRect.top, cropRect.width(), cropRect.height());
+                    if (cropped != rightedBitmap) {
+                        // createBitmap returns the source bitmap when the crop covers all of it
+                        trackImageMemory(ImageMemoryTracker.OPERATION_CROP_TO_FACE, cropped);
+                    }
                     return cropped;
-                });
+                })
+                .compose(instrumentStage(RxVerIDMetrics.STAGE_IMAGE_TRANSFORM))
+                .compose(traceCall("cropImageToFace"));
     }
 
     /**
@@ -1051,11 +1790,12 @@ public class RxVerID {
                             emitter.onError(new Exception("Unable to correct the bitmap orientation"));
                             return;
                         }
+                        trackImageMemory(ImageMemoryTracker.OPERATION_CORRECT_ORIENTATION, rightedBitmap);
                         emitter.onSuccess(rightedBitmap);
                     } else {
                         emitter.onSuccess(bitmap);
                     }
-                }).cast(Bitmap.class);
+                }).cast(Bitmap.class).compose(traceCall("correctBitmapOrientation"));
     }
 
     /**
@@ -1066,7 +1806,7 @@ public class RxVerID {
      * @since 1.0.0
      */
     public Single<Bitmap> cropImageToFace(@NonNull Uri imageUri, @NonNull Face face) {
-        return getInputStreamFromUri(imageUri).flatMap(this::getBitmapAndOrientationFromInputStream).flatMap(pair -> cropImageToFace(pair.getValue0(), pair.getValue1(), face));
+        return getInputStreamFromUri(imageUri).flatMap(this::getBitmapAndOrientationFromInputStream).flatMap(pair -> cropImageToFace(pair.getValue0(), pair.getValue1(), face)).compose(traceCall("cropImageToFace"));
     }
 
     // endregion
@@ -1083,7 +1823,8 @@ public class RxVerID {
      */
     public Single<Float> compareFaceToFaces(IRecognizable face, RecognizableFace[] faces) {
         return getVerID()
-                .flatMap(verID -> compareFaceToFaces(verID, face, faces));
+                .flatMap(verID -> compareFaceToFaces(verID, face, faces))
+                .compose(traceCall("compareFaceToFaces"));
     }
 
     /**
@@ -1103,11 +1844,91 @@ public class RxVerID {
             } catch (Exception e) {
                 emitter.onError(e);
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_FACE_COMPARISON)).compose(traceCall("compareFaceToFaces"));
     }
 
-    // endregion
-
+    /**
+     * Compare every subject face to every target face
+     * @param subjects Subject faces
+     * @param targets Target faces
+     * @return Single whose value is a matrix with a row of scores for each subject
+     * @since 1.11.0
+     * @see #compareFacesMatrixRows(IRecognizable[], IRecognizable[])
+     */
+    public Single<ScoreMatrix> compareFacesMatrix(IRecognizable[] subjects, IRecognizable[] targets) {
+        return getVerID()
+                .flatMap(verID -> compareFacesMatrix(verID, subjects, targets))
+                .compose(traceCall("compareFacesMatrix"));
+    }
+
+    /**
+     * Compare every subject face to every target face
+     * @param verID Ver-ID instance
+     * @param subjects Subject faces
+     * @param targets Target faces
+     * @return Single whose value is a matrix with a row of scores for each subject. The single fails with {@link IllegalArgumentException} if the matrix would hold more than {@link Integer#MAX_VALUE} scores.
+     * @since 1.11.0
+     * @see #compareFacesMatrixRows(VerID, IRecognizable[], IRecognizable[])
+     */
+    public Single<ScoreMatrix> compareFacesMatrix(VerID verID, IRecognizable[] subjects, IRecognizable[] targets) {
+        return compareFacesMatrixRows(verID, subjects, targets)
+                .collect(() -> new ScoreMatrix(subjects.length, targets.length), (matrix, row) -> matrix.setRow(row.getValue0(), row.getValue1()))
+                .compose(traceCall("compareFacesMatrix"));
+    }
+
+    /**
+     * Compare every subject face to every target face and stream the rows of the score matrix
+     * <p>Use this method instead of {@link #compareFacesMatrix(IRecognizable[], IRecognizable[])} when the matrix is too large to keep in memory.</p>
+     * @param subjects Subject faces
+     * @param targets Target faces
+     * @return Flowable whose values are pairs of subject index and scores of the subject compared to every target. The rows are emitted in the order in which they are computed.
+     * @since 1.11.0
+     */
+    public Flowable<Pair<Integer,float[]>> compareFacesMatrixRows(IRecognizable[] subjects, IRecognizable[] targets) {
+        return getVerID()
+                .flatMapPublisher(verID -> compareFacesMatrixRows(verID, subjects, targets))
+                .compose(traceCall("compareFacesMatrixRows"));
+    }
+
+    /**
+     * Compare every subject face to every target face and stream the rows of the score matrix
+     * <p>The rows are computed in parallel tiles of rows on the computation scheduler.</p>
+     * @param verID Ver-ID instance
+     * @param subjects Subject faces
+     * @param targets Target faces
+     * @return Flowable whose values are pairs of subject index and scores of the subject compared to every target. The rows are emitted in the order in which they are computed.
+     * @since 1.11.0
+     */
+    public Flowable<Pair<Integer,float[]>> compareFacesMatrixRows(VerID verID, IRecognizable[] subjects, IRecognizable[] targets) {
+        int tileCount = (subjects.length + MATRIX_TILE_ROW_COUNT - 1) / MATRIX_TILE_ROW_COUNT;
+        return Flowable.range(0, tileCount)
+                .parallel()
+                .runOn(Schedulers.computation())
+                .map(tile -> compareFacesMatrixTile(verID.getFaceRecognition(), subjects, targets, tile * MATRIX_TILE_ROW_COUNT, Math.min(subjects.length, (tile + 1) * MATRIX_TILE_ROW_COUNT)))
+                .sequential()
+                .flatMapIterable(rows -> rows)
+                .compose(instrumentStage(RxVerIDMetrics.STAGE_FACE_COMPARISON))
+                .compose(traceCall("compareFacesMatrixRows"));
+    }
+
+    private static List<Pair<Integer,float[]>> compareFacesMatrixTile(IFaceRecognition faceRecognition, IRecognizable[] subjects, IRecognizable[] targets, int fromRow, int toRow) throws Exception {
+        ArrayList<Pair<Integer,float[]>> rows = new ArrayList<>(toRow - fromRow);
+        IRecognizable[] subject = new IRecognizable[1];
+        IRecognizable[] target = new IRecognizable[1];
+        for (int row = fromRow; row < toRow; row++) {
+            float[] scores = new float[targets.length];
+            subject[0] = subjects[row];
+            for (int column = 0; column < targets.length; column++) {
+                target[0] = targets[column];
+                scores[column] = faceRecognition.compareSubjectFacesToFaces(subject, target);
+            }
+            rows.add(new Pair<>(row, scores));
+        }
+        return rows;
+    }
+
+    // endregion
+
     // region User management
 
     /**
@@ -1119,7 +1940,8 @@ public class RxVerID {
      */
     public Completable assignFacesToUser(IRecognizable[] faces, String user) {
         return getVerID()
-                .flatMapCompletable(verID -> assignFacesToUser(verID, faces, user));
+                .flatMapCompletable(verID -> assignFacesToUser(verID, faces, user))
+                .compose(traceCall("assignFacesToUser"));
     }
 
     /**
@@ -1131,14 +1953,20 @@ public class RxVerID {
      * @since 1.1.0
      */
     public Completable assignFacesToUser(VerID verID, IRecognizable[] faces, String user) {
+        if (userManagementWriteQueue != null) {
+            return userManagementWriteQueue.assignFacesToUser(verID, faces, user).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE)).compose(traceCall("assignFacesToUser"));
+        }
         return Completable.create(emitter -> {
             try {
-                verID.getUserManagement().assignFacesToUser(faces, user);
+                writeUser(user, () -> {
+                    verID.getUserManagement().assignFacesToUser(faces, user);
+                    onFacesAssignedToUser(verID, user, faces);
+                });
                 emitter.onComplete();
             } catch (Exception e) {
                 emitter.onError(e);
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE)).compose(traceCall("assignFacesToUser"));
     }
 
     /**
@@ -1150,7 +1978,8 @@ public class RxVerID {
      */
     public Completable assignFaceToUser(IRecognizable face, String user) {
         return getVerID()
-                .flatMapCompletable(verID -> assignFaceToUser(verID, face, user));
+                .flatMapCompletable(verID -> assignFaceToUser(verID, face, user))
+                .compose(traceCall("assignFaceToUser"));
     }
 
     /**
@@ -1162,14 +1991,21 @@ public class RxVerID {
      * @since 1.3.0
      */
     public Completable assignFaceToUser(VerID verID, IRecognizable face, String user) {
+        if (userManagementWriteQueue != null) {
+            return userManagementWriteQueue.assignFacesToUser(verID, new IRecognizable[]{face}, user).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE)).compose(traceCall("assignFaceToUser"));
+        }
         return Completable.create(emitter -> {
             try {
-                verID.getUserManagement().assignFacesToUser(new IRecognizable[]{face}, user);
+                IRecognizable[] faces = new IRecognizable[]{face};
+                writeUser(user, () -> {
+                    verID.getUserManagement().assignFacesToUser(faces, user);
+                    onFacesAssignedToUser(verID, user, faces);
+                });
                 emitter.onComplete();
             } catch (Exception e) {
                 emitter.onError(e);
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE)).compose(traceCall("assignFaceToUser"));
     }
 
     /**
@@ -1180,7 +2016,8 @@ public class RxVerID {
      */
     public Completable deleteUser(String user) {
         return getVerID()
-                .flatMapCompletable(verID -> deleteUser(verID, user));
+                .flatMapCompletable(verID -> deleteUser(verID, user))
+                .compose(traceCall("deleteUser"));
     }
 
     /**
@@ -1191,14 +2028,264 @@ public class RxVerID {
      * @since 1.1.0
      */
     public Completable deleteUser(VerID verID, String user) {
+        if (userManagementWriteQueue != null) {
+            return userManagementWriteQueue.deleteUser(verID, user).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE)).compose(traceCall("deleteUser"));
+        }
         return Completable.create(emitter -> {
             try {
-                verID.getUserManagement().deleteUsers(new String[]{user});
+                writeUser(user, () -> {
+                    verID.getUserManagement().deleteUsers(new String[]{user});
+                    onUserDeleted(user);
+                });
                 emitter.onComplete();
             } catch (Exception e) {
                 emitter.onError(e);
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE)).compose(traceCall("deleteUser"));
+    }
+
+    /**
+     * Assign faces to user unless the faces already belong to another user
+     * <p>The duplicate check and the assignment are done in one step: concurrent {@code enrollIfUnique} calls are serialized so two users cannot be enrolled with the same face.
+     * The guarantee only holds between {@code enrollIfUnique} calls. Faces assigned by {@link #assignFacesToUser(VerID, IRecognizable[], String) assignFacesToUser} or {@link #assignFaceToUser(VerID, IRecognizable, String) assignFaceToUser}, including writes waiting in the write queue, aren't checked and may be written while the check is in progress, so enroll through {@code enrollIfUnique} only when every enrollment must be unique.
+     * When the identification shortlist is enabled using {@link Builder#setIdentificationShortlistSize(int)} only the shortlisted users other than {@literal user} are compared to the faces, otherwise the faces are compared to every user.</p>
+     * @param faces Faces to assign to the user
+     * @param user User to whom the faces should be assigned
+     * @param threshold Score at or above which the faces are considered to belong to an existing user
+     * @return Completable that fails with {@link DuplicateEnrollmentException} if the faces belong to another user
+     * @since 1.11.0
+     */
+    public Completable enrollIfUnique(IRecognizable[] faces, String user, float threshold) {
+        return getVerID()
+                .flatMapCompletable(verID -> enrollIfUnique(verID, faces, user, threshold))
+                .compose(traceCall("enrollIfUnique"));
+    }
+
+    /**
+     * Assign faces to user unless the faces already belong to another user
+     * <p>The duplicate check and the assignment are done in one step: concurrent {@code enrollIfUnique} calls are serialized so two users cannot be enrolled with the same face.
+     * The guarantee only holds between {@code enrollIfUnique} calls. Faces assigned by {@link #assignFacesToUser(VerID, IRecognizable[], String) assignFacesToUser} or {@link #assignFaceToUser(VerID, IRecognizable, String) assignFaceToUser}, including writes waiting in the write queue, aren't checked and may be written while the check is in progress, so enroll through {@code enrollIfUnique} only when every enrollment must be unique.
+     * When the identification shortlist is enabled using {@link Builder#setIdentificationShortlistSize(int)} only the shortlisted users other than {@literal user} are compared to the faces, otherwise the faces are compared to every user.</p>
+     * @param verID Ver-ID instance
+     * @param faces Faces to assign to the user
+     * @param user User to whom the faces should be assigned
+     * @param threshold Score at or above which the faces are considered to belong to an existing user
+     * @return Completable that fails with {@link DuplicateEnrollmentException} if the faces belong to another user
+     * @since 1.11.0
+     */
+    public Completable enrollIfUnique(VerID verID, IRecognizable[] faces, String user, float threshold) {
+        // Queued writes are flushed first so that the check sees the users enrolled before this call
+        return flushUserManagementWrites().andThen(Completable.fromAction(() -> {
+            synchronized (enrollmentLock) {
+                IUserManagement userManagement = verID.getUserManagement();
+                IFaceRecognition faceRecognition = verID.getFaceRecognition();
+                Pair<String,Float> duplicate = findBestMatchingUser(userManagement, faceRecognition, faces, user);
+                if (duplicate != null && duplicate.getValue1() >= threshold) {
+                    throw new DuplicateEnrollmentException(user, duplicate.getValue0(), duplicate.getValue1());
+                }
+                writeUser(user, () -> {
+                    userManagement.assignFacesToUser(faces, user);
+                    onFacesAssignedToUser(verID, user, faces);
+                });
+            }
+        })).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE)).compose(traceCall("enrollIfUnique"));
+    }
+
+    /**
+     * Find the user other than the excluded user whose faces best match the given faces
+     * @param userManagement User management
+     * @param faceRecognition Face recognition
+     * @param faces Faces to compare
+     * @param excludedUser User to skip
+     * @return Pair of the best matching user and score or {@literal null} if there are no other users
+     * @throws Exception If the faces cannot be read or compared
+     * @since 1.11.0
+     */
+    @Nullable
+    private Pair<String,Float> findBestMatchingUser(IUserManagement userManagement, IFaceRecognition faceRecognition, IRecognizable[] faces, String excludedUser) throws Exception {
+        Iterable<String> candidates;
+        if (centroidIndex != null) {
+            LinkedHashSet<String> shortlist = new LinkedHashSet<>();
+            for (IRecognizable face : faces) {
+                // The enrolling user is left out of the query so that every shortlist place goes to another user
+                shortlist.addAll(centroidIndex.shortlist(userManagement, face, faceRecognition, excludedUser));
+            }
+            candidates = shortlist;
+        } else {
+            candidates = Arrays.asList(userManagement.getUsers());
+        }
+        Pair<String,Float> best = null;
+        for (String candidate : candidates) {
+            if (candidate.equals(excludedUser)) {
+                continue;
+            }
+            IRecognizable[] candidateFaces = facesOfUser(userManagement, candidate);
+            if (candidateFaces == null || candidateFaces.length == 0) {
+                continue;
+            }
+            float score = faceRecognition.compareSubjectFacesToFaces(candidateFaces, faces);
+            if (best == null || score > best.getValue1()) {
+                best = new Pair<>(candidate, score);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Reduce the faces of a user to a small, diverse subset
+     * @param user User whose faces to compact
+     * @param maxTemplates Maximum number of faces to keep
+     * @return Single whose value describes the reduction in faces and in comparison time
+     * @since 1.11.0
+     * @see #compactUserTemplates(VerID, String, int)
+     */
+    public Single<TemplateCompactionResult> compactUserTemplates(String user, int maxTemplates) {
+        return getVerID()
+                .flatMap(verID -> compactUserTemplates(verID, user, maxTemplates))
+                .compose(traceCall("compactUserTemplates"));
+    }
+
+    /**
+     * Reduce the faces of a user to a small, diverse subset
+     * <p>Users enrolled from many sessions accumulate near-identical faces that slow down every comparison. The user's faces are compared to each other and faces whose mean similarity to the other faces is an outlier are dropped like in {@link #fuseSessionTemplates(VerID, VerIDSessionResult, Bearing, int) fuseSessionTemplates}.
+     * From the remaining faces the compaction keeps the face most similar to the others and then repeatedly the face least similar to the faces already kept. The faces that aren't kept are deleted from the user store, except exact copies of kept faces because user stores may delete faces by content.
+     * Writes to the user wait while the faces are compared, writes to other users don't.</p>
+     * <p>The result reports the number of faces read back from the user store after the compaction and the mean time of repeated comparisons of the user's most representative face to the user's faces before and after the compaction.</p>
+     * @param verID Ver-ID instance
+     * @param user User whose faces to compact
+     * @param maxTemplates Maximum number of faces to keep, at least {@literal 1}
+     * @return Single whose value describes the reduction in faces and in comparison time. The single fails with {@link IllegalArgumentException} if {@literal maxTemplates} is less than {@literal 1}.
+     * @since 1.11.0
+     */
+    public Single<TemplateCompactionResult> compactUserTemplates(VerID verID, String user, int maxTemplates) {
+        if (maxTemplates < 1) {
+            return Single.error(new IllegalArgumentException("At least one template must be kept"));
+        }
+        return flushUserManagementWrites().andThen(Single.fromCallable(() -> {
+            IUserManagement userManagement = verID.getUserManagement();
+            IFaceRecognition faceRecognition = verID.getFaceRecognition();
+            IRecognizable[][] originalFaces = new IRecognizable[1][];
+            IRecognizable[][] keptFaces = new IRecognizable[1][];
+            IRecognizable[][] compactedFaces = new IRecognizable[1][];
+            // Only the user's write lock is held so that other users can be written while the faces are compared
+            writeUser(user, () -> {
+                IRecognizable[] faces = userManagement.getFacesOfUser(user);
+                originalFaces[0] = faces;
+                if (faces.length == 0) {
+                    return;
+                }
+                float[][] similarities = TemplateSelection.similarityMatrix(faces, faceRecognition);
+                int[] inliers = TemplateSelection.rejectOutliers(similarities, TEMPLATE_OUTLIER_MAD_MULTIPLIER);
+                int[] selected = TemplateSelection.selectDiverse(similarities, inliers, maxTemplates);
+                IRecognizable[] kept = new IRecognizable[selected.length];
+                boolean[] isKept = new boolean[faces.length];
+                for (int i = 0; i < selected.length; i++) {
+                    kept[i] = faces[selected[i]];
+                    isKept[selected[i]] = true;
+                }
+                keptFaces[0] = kept;
+                ArrayList<IRecognizable> removed = new ArrayList<>(faces.length - kept.length);
+                for (int i = 0; i < faces.length; i++) {
+                    // User stores that delete faces by content would also delete the kept copy of an exact duplicate
+                    if (!isKept[i] && !containsTemplate(kept, faces[i])) {
+                        removed.add(faces[i]);
+                    }
+                }
+                if (!removed.isEmpty()) {
+                    IRecognizable[] removedFaces = removed.toArray(new IRecognizable[0]);
+                    userManagement.deleteFaces(removedFaces);
+                    onFacesRemovedFromUser(verID, user, removedFaces);
+                }
+                compactedFaces[0] = userManagement.getFacesOfUser(user);
+            });
+            if (originalFaces[0].length == 0) {
+                return new TemplateCompactionResult(user, 0, 0, 0, 0);
+            }
+            IRecognizable[] probe = new IRecognizable[]{keptFaces[0][0]};
+            long compareNanosBefore = timeComparison(faceRecognition, originalFaces[0], probe);
+            long compareNanosAfter = compactedFaces[0].length > 0 ? timeComparison(faceRecognition, compactedFaces[0], probe) : 0;
+            return new TemplateCompactionResult(user, originalFaces[0].length, compactedFaces[0].length, compareNanosBefore, compareNanosAfter);
+        })).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE)).compose(traceCall("compactUserTemplates"));
+    }
+
+    /**
+     * Check whether faces contain a template with the same version and recognition data as a face
+     * @param faces Faces to search
+     * @param face Face to look for
+     * @return {@literal true} if one of the faces is an exact copy of {@literal face}
+     * @since 1.11.0
+     */
+    private static boolean containsTemplate(IRecognizable[] faces, IRecognizable face) {
+        byte[] data = face.getRecognitionData();
+        for (IRecognizable candidate : faces) {
+            if (candidate.getVersion() == face.getVersion() && Arrays.equals(candidate.getRecognitionData(), data)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Measure the mean time of comparing a probe to faces
+     * <p>The first comparison warms up the face recognition and isn't counted.</p>
+     * @param faceRecognition Face recognition
+     * @param faces Faces to compare the probe to
+     * @param probe Probe
+     * @return Mean time of a comparison in nanoseconds
+     * @throws Exception If the faces cannot be compared
+     * @since 1.11.0
+     */
+    private static long timeComparison(IFaceRecognition faceRecognition, IRecognizable[] faces, IRecognizable[] probe) throws Exception {
+        faceRecognition.compareSubjectFacesToFaces(faces, probe);
+        long start = System.nanoTime();
+        for (int i = 0; i < COMPACTION_TIMING_REPETITIONS; i++) {
+            faceRecognition.compareSubjectFacesToFaces(faces, probe);
+        }
+        return (System.nanoTime() - start) / COMPACTION_TIMING_REPETITIONS;
+    }
+
+    /**
+     * Reduce the faces of every user to a small, diverse subset
+     * @param maxTemplates Maximum number of faces to keep per user
+     * @return Flowable whose values describe the compaction of each user
+     * @since 1.11.0
+     * @see #compactUserTemplates(VerID, String, int)
+     */
+    public Flowable<TemplateCompactionResult> compactGallery(int maxTemplates) {
+        return getVerID()
+                .flatMapPublisher(verID -> compactGallery(verID, maxTemplates))
+                .compose(traceCall("compactGallery"));
+    }
+
+    /**
+     * Reduce the faces of every user to a small, diverse subset
+     * <p>Users are compacted one at a time on the I/O scheduler so the compaction can run in the background while the gallery is in use.</p>
+     * @param verID Ver-ID instance
+     * @param maxTemplates Maximum number of faces to keep per user, at least {@literal 1}
+     * @return Flowable whose values describe the compaction of each user. The flowable fails with {@link IllegalArgumentException} if {@literal maxTemplates} is less than {@literal 1}.
+     * @since 1.11.0
+     * @see #compactUserTemplates(VerID, String, int)
+     */
+    public Flowable<TemplateCompactionResult> compactGallery(VerID verID, int maxTemplates) {
+        if (maxTemplates < 1) {
+            return Flowable.error(new IllegalArgumentException("At least one template must be kept"));
+        }
+        return Flowable.defer(() -> Flowable.fromArray(verID.getUserManagement().getUsers()))
+                .concatMapSingle(user -> compactUserTemplates(verID, user, maxTemplates))
+                .subscribeOn(Schedulers.io())
+                .compose(traceCall("compactGallery"));
+    }
+
+    /**
+     * Write user management changes queued by {@link Builder#setUserManagementWriteWindow(long)} without waiting for the window to elapse
+     * @return Completable that completes when all the changes queued before the subscription have been written
+     * @since 1.11.0
+     */
+    public Completable flushUserManagementWrites() {
+        if (userManagementWriteQueue == null) {
+            return Completable.complete();
+        }
+        return userManagementWriteQueue.flush().compose(traceCall("flushUserManagementWrites"));
     }
 
     /**
@@ -1208,7 +2295,8 @@ public class RxVerID {
      */
     public Observable<String> getUsers() {
         return getVerID()
-                .flatMapObservable(RxVerID.this::getUsers);
+                .flatMapObservable(RxVerID.this::getUsers)
+                .compose(traceCall("getUsers"));
     }
 
     /**
@@ -1229,7 +2317,75 @@ public class RxVerID {
             } catch (Exception e) {
                 emitter.onError(e);
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_READ)).compose(traceCall("getUsers"));
+    }
+
+    /**
+     * Get a page of users
+     * <p>The users are listed in ascending order from an index that's loaded from the user store on first use and kept up to date as users are added and deleted through this instance.
+     * Users are read from the index as they're requested so the subscriber only pays for the users it pulls.
+     * The skipped users are stepped over one by one so deep pages get slower as the offset grows; use {@link #getUsersAfter(String, int, String)} to page through large user stores.</p>
+     * @param offset Number of matching users to skip
+     * @param limit Maximum number of users to emit
+     * @param prefix Prefix the user identifiers must start with or {@literal null} to list all users
+     * @return Flowable whose values are identifiers of users who have at least one face registered
+     * @since 1.11.0
+     */
+    public Flowable<String> getUsers(int offset, int limit, @Nullable String prefix) {
+        return getVerID()
+                .flatMapPublisher(verID -> getUsers(verID, offset, limit, prefix))
+                .compose(traceCall("getUsers"));
+    }
+
+    /**
+     * Get a page of users
+     * <p>The users are listed in ascending order from an index that's loaded from the user store on first use and kept up to date as users are added and deleted through this instance.
+     * Users are read from the index as they're requested so the subscriber only pays for the users it pulls.
+     * The skipped users are stepped over one by one so deep pages get slower as the offset grows; use {@link #getUsersAfter(VerID, String, int, String)} to page through large user stores.</p>
+     * @param verID Ver-ID instance
+     * @param offset Number of matching users to skip
+     * @param limit Maximum number of users to emit
+     * @param prefix Prefix the user identifiers must start with or {@literal null} to list all users
+     * @return Flowable whose values are identifiers of users who have at least one face registered
+     * @since 1.11.0
+     */
+    public Flowable<String> getUsers(VerID verID, int offset, int limit, @Nullable String prefix) {
+        return Flowable.defer(() -> {
+            userIndex.loadIfNeeded(verID.getUserManagement());
+            return Flowable.fromIterable(userIndex.page(offset, limit, prefix));
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_READ)).compose(traceCall("getUsers"));
+    }
+
+    /**
+     * Get a page of users that follow a given user
+     * <p>Pass the last user of a page to get the next page. Unlike {@link #getUsers(int, int, String)} the page is found by looking up the given user in the index, so deep pages are as fast as the first one.</p>
+     * @param afterUser Last user of the previous page or {@literal null} to get the first page
+     * @param limit Maximum number of users to emit
+     * @param prefix Prefix the user identifiers must start with or {@literal null} to list all users
+     * @return Flowable whose values are identifiers of users who have at least one face registered
+     * @since 1.11.0
+     */
+    public Flowable<String> getUsersAfter(@Nullable String afterUser, int limit, @Nullable String prefix) {
+        return getVerID()
+                .flatMapPublisher(verID -> getUsersAfter(verID, afterUser, limit, prefix))
+                .compose(traceCall("getUsersAfter"));
+    }
+
+    /**
+     * Get a page of users that follow a given user
+     * <p>Pass the last user of a page to get the next page. Unlike {@link #getUsers(VerID, int, int, String)} the page is found by looking up the given user in the index, so deep pages are as fast as the first one.</p>
+     * @param verID Ver-ID instance
+     * @param afterUser Last user of the previous page or {@literal null} to get the first page
+     * @param limit Maximum number of users to emit
+     * @param prefix Prefix the user identifiers must start with or {@literal null} to list all users
+     * @return Flowable whose values are identifiers of users who have at least one face registered
+     * @since 1.11.0
+     */
+    public Flowable<String> getUsersAfter(VerID verID, @Nullable String afterUser, int limit, @Nullable String prefix) {
+        return Flowable.defer(() -> {
+            userIndex.loadIfNeeded(verID.getUserManagement());
+            return Flowable.fromIterable(userIndex.pageAfter(afterUser, limit, prefix));
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_READ)).compose(traceCall("getUsersAfter"));
     }
 
     /**
@@ -1240,7 +2396,8 @@ public class RxVerID {
      */
     public Observable<IRecognizable> getFacesOfUser(String user) {
         return getVerID()
-                .flatMapObservable(verID -> getFacesOfUser(verID, user));
+                .flatMapObservable(verID -> getFacesOfUser(verID, user))
+                .compose(traceCall("getFacesOfUser"));
     }
 
     /**
@@ -1261,7 +2418,304 @@ public class RxVerID {
             } catch (Exception e) {
                 emitter.onError(e);
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_READ)).compose(traceCall("getFacesOfUser"));
+    }
+
+    /**
+     * Export faces of all users to a gallery
+     * <p>The gallery is written in a compact, versioned binary format that can be loaded on another device using {@link #importGallery(InputStream)} or {@link #importGallery(File)}.
+     * User management writes queued by {@link Builder#setUserManagementWriteWindow(long)} are flushed before the export. The output stream is flushed but not closed.</p>
+     * @param outputStream Stream to which to write the gallery
+     * @return Single whose value is the number of exported faces
+     * @since 1.11.0
+     */
+    public Single<Integer> exportGallery(OutputStream outputStream) {
+        return getVerID()
+                .flatMap(verID -> exportGallery(verID, outputStream))
+                .compose(traceCall("exportGallery"));
+    }
+
+    /**
+     * Export faces of all users to a gallery
+     * <p>The gallery is written in a compact, versioned binary format that can be loaded on another device using {@link #importGallery(VerID, InputStream)} or {@link #importGallery(VerID, File)}.
+     * User management writes queued by {@link Builder#setUserManagementWriteWindow(long)} are flushed before the export. The output stream is flushed but not closed.</p>
+     * @param verID Ver-ID instance
+     * @param outputStream Stream to which to write the gallery
+     * @return Single whose value is the number of exported faces
+     * @since 1.11.0
+     */
+    public Single<Integer> exportGallery(VerID verID, OutputStream outputStream) {
+        return flushUserManagementWrites().andThen(Single.fromCallable(() -> {
+            IUserManagement userManagement = verID.getUserManagement();
+            String[] users = userManagement.getUsers();
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream, GALLERY_BUFFER_SIZE));
+            GalleryFormat.writeHeader(output, users.length);
+            int faceCount = 0;
+            for (String user : users) {
+                IRecognizable[] faces = userManagement.getFacesOfUser(user);
+                GalleryFormat.writeUser(output, user, faces);
+                faceCount += faces.length;
+            }
+            output.flush();
+            return faceCount;
+        })).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_READ)).compose(traceCall("exportGallery"));
+    }
+
+    /**
+     * Import faces from a gallery exported by {@link #exportGallery(OutputStream)}
+     * <p>The gallery is read one user at a time and each user's faces are assigned in a single user store call. Imported faces are added to the faces users already have.
+     * The input stream is not closed.</p>
+     * @param inputStream Stream from which to read the gallery
+     * @return Single whose value is the number of imported faces
+     * @since 1.11.0
+     */
+    public Single<Integer> importGallery(InputStream inputStream) {
+        return getVerID()
+                .flatMap(verID -> importGallery(verID, inputStream))
+                .compose(traceCall("importGallery"));
+    }
+
+    /**
+     * Import faces from a gallery exported by {@link #exportGallery(VerID, OutputStream)}
+     * <p>The gallery is read one user at a time and each user's faces are assigned in a single user store call. Imported faces are added to the faces users already have.
+     * The input stream is not closed.</p>
+     * @param verID Ver-ID instance
+     * @param inputStream Stream from which to read the gallery
+     * @return Single whose value is the number of imported faces
+     * @since 1.11.0
+     */
+    public Single<Integer> importGallery(VerID verID, InputStream inputStream) {
+        return flushUserManagementWrites()
+                .andThen(Single.fromCallable(() -> importGalleryRecords(verID, new DataInputStream(new BufferedInputStream(inputStream, GALLERY_BUFFER_SIZE)), null)))
+                .subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE))
+                .compose(traceCall("importGallery"));
+    }
+
+    /**
+     * Import faces from a gallery file exported by {@link #exportGallery(OutputStream)}
+     * <p>The file is memory-mapped in windows of 64 MB, so files larger than 2 GB can be imported, and read one user at a time. Each user's faces are assigned in a single user store call. Imported faces are added to the faces users already have.</p>
+     * <p>Each template's recognition data is copied out of the mapped file into its own array because the user store may keep the faces after the file is unmapped.</p>
+     * @param file Gallery file
+     * @return Single whose value is the number of imported faces
+     * @since 1.11.0
+     */
+    public Single<Integer> importGallery(File file) {
+        return getVerID()
+                .flatMap(verID -> importGallery(verID, file))
+                .compose(traceCall("importGallery"));
+    }
+
+    /**
+     * Import faces from a gallery file exported by {@link #exportGallery(VerID, OutputStream)}
+     * <p>The file is memory-mapped in windows of 64 MB, so files larger than 2 GB can be imported, and read one user at a time. Each user's faces are assigned in a single user store call. Imported faces are added to the faces users already have.</p>
+     * <p>Each template's recognition data is copied out of the mapped file into its own array because the user store may keep the faces after the file is unmapped.</p>
+     * @param verID Ver-ID instance
+     * @param file Gallery file
+     * @return Single whose value is the number of imported faces
+     * @since 1.11.0
+     */
+    public Single<Integer> importGallery(VerID verID, File file) {
+        return flushUserManagementWrites().andThen(Single.fromCallable(() -> {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+                GalleryFormat.MappedFileInputStream mappedInput = new GalleryFormat.MappedFileInputStream(channel, GALLERY_MAP_WINDOW_SIZE);
+                return importGalleryRecords(verID, new DataInputStream(mappedInput), mappedInput);
+            }
+        })).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE)).compose(traceCall("importGallery"));
+    }
+
+    /**
+     * Import the gallery records that follow the header
+     * @param mappedInput Mapped file from which {@literal input} reads, used to bound the sizes read from the records, or {@literal null} if the input's size isn't known
+     */
+    private int importGalleryRecords(VerID verID, DataInput input, @Nullable GalleryFormat.MappedFileInputStream mappedInput) throws Exception {
+        IUserManagement userManagement = verID.getUserManagement();
+        int userCount = GalleryFormat.readHeader(input);
+        int faceCount = 0;
+        try {
+            for (int i = 0; i < userCount; i++) {
+                Pair<String,IRecognizable[]> record = GalleryFormat.readUser(input, mappedInput != null ? mappedInput.remaining() : Long.MAX_VALUE);
+                if (record.getValue1().length > 0) {
+                    userManagement.assignFacesToUser(record.getValue1(), record.getValue0());
+                    faceCount += record.getValue1().length;
+                }
+            }
+        } finally {
+            // Rebuilding the derived indices once is cheaper than updating them for every imported user
+            onGalleryReloaded();
+        }
+        return faceCount;
+    }
+
+    /**
+     * Changes to the user gallery
+     * <p>The observable is hot – it emits the changes made through this instance after subscription, i.e., by {@link #assignFacesToUser(IRecognizable[], String) assignFacesToUser}, {@link #assignFaceToUser(IRecognizable, String) assignFaceToUser}, {@link #deleteUser(String) deleteUser} and gallery imports.
+     * Changes written directly to the Ver-ID user management bypass the feed. The changes of each user are numbered in the order in which they were written to the user store.
+     * They're emitted one at a time and in sequence order on the io scheduler, not on the thread that wrote them, so a slow subscriber doesn't hold up user store writes. Subscribers that do heavy work should still move it to another scheduler using {@link Observable#observeOn(io.reactivex.Scheduler) observeOn} so that later changes aren't delayed.</p>
+     * @return Observable of gallery changes
+     * @since 1.11.0
+     */
+    public Observable<GalleryChange> galleryChanges() {
+        return galleryChangeFeed.changes();
+    }
+
+    /**
+     * Changes to the user gallery following a sequence number
+     * <p>Emits the recent changes following {@literal afterSequence} and then continues with live changes like {@link #galleryChanges()}. Use it to resume after falling behind or after resubscribing.</p>
+     * @param afterSequence Sequence number of the last change the subscriber has processed
+     * @return Observable of gallery changes that fails with {@link java.util.NoSuchElementException} if some of the changes following {@literal afterSequence} are no longer kept, in which case re-read the gallery
+     * @since 1.11.0
+     */
+    public Observable<GalleryChange> galleryChanges(long afterSequence) {
+        return galleryChangeFeed.changes(afterSequence);
+    }
+
+    /**
+     * Sequence number of the last published gallery change
+     * <p>Read the sequence number before reading the gallery and then subscribe to {@link #galleryChanges(long)} to keep up to date without missing changes.</p>
+     * @return Sequence number or {@literal 0} if no changes have been published
+     * @since 1.11.0
+     */
+    public long getLastGalleryChangeSequence() {
+        return galleryChangeFeed.getLastSequence();
+    }
+
+    /**
+     * Write to the user store and update the derived indices while holding the user's write lock
+     * <p>Holding the lock orders the changes recorded in the gallery change feed for a user the same way as the writes to the user store.</p>
+     * @param user User to write
+     * @param write Write to the user store followed by the update of the derived indices
+     * @throws Exception If the write fails
+     * @since 1.11.0
+     */
+    private void writeUser(String user, UserWriteLocks.Write write) throws Exception {
+        if (userWriteLocks != null) {
+            userWriteLocks.write(user, write);
+        } else {
+            write.run();
+        }
+    }
+
+    /**
+     * Update indices derived from the user store after faces have been assigned to a user
+     * @param verID Ver-ID instance whose user store has been updated
+     * @param user User whose faces changed
+     * @param faces Faces assigned to the user
+     * @since 1.11.0
+     */
+    private void onFacesAssignedToUser(VerID verID, String user, IRecognizable[] faces) {
+        if (userIndex != null) {
+            userIndex.addUser(user);
+        }
+        if (userTemplateCache != null) {
+            userTemplateCache.invalidate(user);
+        }
+        if (centroidIndex != null) {
+            try {
+                centroidIndex.updateUser(verID.getUserManagement(), user, facesOfUser(verID.getUserManagement(), user), verID.getFaceRecognition());
+            } catch (Exception e) {
+                centroidIndex.invalidate();
+            }
+        }
+        if (galleryChangeFeed != null) {
+            galleryChangeFeed.publish(GalleryChange.TYPE_FACES_ADDED, user, faces);
+        }
+    }
+
+    /**
+     * Update indices derived from the user store after some of a user's faces have been deleted
+     * @param verID Ver-ID instance whose user store has been updated
+     * @param user User whose faces changed
+     * @param faces Faces removed from the user
+     * @since 1.11.0
+     */
+    private void onFacesRemovedFromUser(VerID verID, String user, IRecognizable[] faces) {
+        if (userTemplateCache != null) {
+            userTemplateCache.invalidate(user);
+        }
+        if (centroidIndex != null) {
+            try {
+                centroidIndex.updateUser(verID.getUserManagement(), user, facesOfUser(verID.getUserManagement(), user), verID.getFaceRecognition());
+            } catch (Exception e) {
+                centroidIndex.invalidate();
+            }
+        }
+        if (galleryChangeFeed != null) {
+            galleryChangeFeed.publish(GalleryChange.TYPE_FACES_REMOVED, user, faces);
+        }
+    }
+
+    /**
+     * Update indices derived from the user store after a user has been deleted
+     * @param user Deleted user
+     * @since 1.11.0
+     */
+    private void onUserDeleted(String user) {
+        if (userIndex != null) {
+            userIndex.removeUser(user);
+        }
+        if (userTemplateCache != null) {
+            userTemplateCache.invalidate(user);
+        }
+        if (centroidIndex != null) {
+            centroidIndex.removeUser(user);
+        }
+        if (galleryChangeFeed != null) {
+            galleryChangeFeed.publish(GalleryChange.TYPE_USER_DELETED, user, new IRecognizable[0]);
+        }
+    }
+
+    /**
+     * Discard indices derived from the user store so that they're reloaded on next use
+     * <p>Called after a gallery has been imported or when it's unknown which writes to the user store were applied.</p>
+     * @since 1.11.0
+     */
+    private void onGalleryReloaded() {
+        invalidateDerivedIndices();
+        if (galleryChangeFeed != null) {
+            galleryChangeFeed.publish(GalleryChange.TYPE_GALLERY_RELOADED, null, new IRecognizable[0]);
+        }
+    }
+
+    /**
+     * Discard the indices and caches derived from the user store so that they're reloaded on next use
+     * @since 1.11.0
+     */
+    private void invalidateDerivedIndices() {
+        if (userIndex != null) {
+            userIndex.invalidate();
+        }
+        if (userTemplateCache != null) {
+            userTemplateCache.invalidateAll();
+        }
+        if (centroidIndex != null) {
+            centroidIndex.invalidate();
+        }
+    }
+
+    /**
+     * Context with which the memory trim callbacks are registered
+     * <p>The application context is used when available so that the callbacks don't keep an activity alive.</p>
+     * @return Context
+     * @since 1.11.0
+     */
+    private Context getMemoryTrimContext() {
+        Context applicationContext = context.getApplicationContext();
+        return applicationContext != null ? applicationContext : context;
+    }
+
+    /**
+     * Read faces of a user through the template cache if the cache is enabled
+     * @param userManagement User management
+     * @param user User whose faces to read
+     * @return Faces of the user
+     * @throws Exception If the faces cannot be read
+     * @since 1.11.0
+     */
+    private IRecognizable[] facesOfUser(IUserManagement userManagement, String user) throws Exception {
+        if (userTemplateCache != null) {
+            return userTemplateCache.getFacesOfUser(userManagement, user);
+        }
+        return userManagement.getFacesOfUser(user);
     }
 
     // endregion
@@ -1277,7 +2731,8 @@ public class RxVerID {
      */
     public Single<Boolean> authenticateUserInFaces(String user, RecognizableFace[] faces) {
         return getVerID()
-                .flatMap(verID -> authenticateUserInFaces(verID, user, faces));
+                .flatMap(verID -> authenticateUserInFaces(verID, user, faces))
+                .compose(traceCall("authenticateUserInFaces"));
     }
 
     /**
@@ -1291,13 +2746,13 @@ public class RxVerID {
     public Single<Boolean> authenticateUserInFaces(VerID verID, String user, RecognizableFace[] faces) {
         return Single.<Boolean>create(emitter -> {
             try {
-                IRecognizable[] userFaces = verID.getUserManagement().getFacesOfUser(user);
+                IRecognizable[] userFaces = facesOfUser(verID.getUserManagement(), user);
                 float score = verID.getFaceRecognition().compareSubjectFacesToFaces(userFaces, faces);
                 emitter.onSuccess(score >= verID.getFaceRecognition().getAuthenticationThreshold());
             } catch (Exception e) {
                 emitter.onError(e);
             }
-        }).subscribeOn(Schedulers.io());
+        }).subscribeOn(Schedulers.io()).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_AUTHENTICATION)).compose(traceCall("authenticateUserInFaces"));
     }
 
     /**
@@ -1309,7 +2764,8 @@ public class RxVerID {
      */
     public Single<Boolean> authenticateUserInFace(String user, RecognizableFace face) {
         return getVerID()
-                .flatMap(verID -> authenticateUserInFace(verID, user, face));
+                .flatMap(verID -> authenticateUserInFace(verID, user, face))
+                .compose(traceCall("authenticateUserInFace"));
     }
 
     /**
@@ -1321,7 +2777,64 @@ public class RxVerID {
      * @since 1.6.0
      */
     public Single<Boolean> authenticateUserInFace(VerID verID, String user, RecognizableFace face) {
-        return authenticateUserInFaces(verID, user, new RecognizableFace[]{face});
+        return authenticateUserInFaces(verID, user, new RecognizableFace[]{face}).compose(traceCall("authenticateUserInFace"));
+    }
+
+    /**
+     * Authenticate many users in faces
+     * @param requests Flowable whose values are pairs of user and face in which to authenticate the user
+     * @return Flowable whose values are triplets of user, face and a boolean indicating whether the user was authenticated in the face
+     * @since 1.11.0
+     * @see #authenticateBatch(VerID, Flowable)
+     */
+    public Flowable<Triplet<String,RecognizableFace,Boolean>> authenticateBatch(Flowable<Pair<String,RecognizableFace>> requests) {
+        return getVerID()
+                .flatMapPublisher(verID -> authenticateBatch(verID, requests))
+                .compose(traceCall("authenticateBatch"));
+    }
+
+    /**
+     * Authenticate many users in faces
+     * <p>The requests are authenticated in chunks on the computation scheduler. Each user's faces are read from the user store at most once per batch while the user remains among the 1024 most recently authenticated users of the batch.
+     * Chunks that need the faces of the same user at the same time wait for one read instead of each reading the user store.
+     * The results are emitted as the chunks complete and not necessarily in the order of the requests.</p>
+     * <p>The batch keeps its own cache of user faces and doesn't use the cache set by {@link Builder#setUserTemplateCacheSize(int)}, so a large batch doesn't evict the faces of interactively authenticated users or count towards that cache's hits and misses.
+     * Faces assigned to a user after the batch has read the user's faces may not be used by the batch's later requests for that user.</p>
+     * @param verID Ver-ID instance
+     * @param requests Flowable whose values are pairs of user and face in which to authenticate the user
+     * @return Flowable whose values are triplets of user, face and a boolean indicating whether the user was authenticated in the face
+     * @since 1.11.0
+     */
+    public Flowable<Triplet<String,RecognizableFace,Boolean>> authenticateBatch(VerID verID, Flowable<Pair<String,RecognizableFace>> requests) {
+        return Flowable.defer(() -> {
+            UserTemplateCache batchCache = new UserTemplateCache(AUTHENTICATION_BATCH_USER_CACHE_SIZE);
+            return requests
+                    .buffer(AUTHENTICATION_BATCH_CHUNK_SIZE)
+                    .parallel()
+                    .runOn(Schedulers.computation())
+                    .map(chunk -> authenticateBatchChunk(verID, batchCache, chunk))
+                    .sequential()
+                    .flatMapIterable(results -> results);
+        }).compose(instrumentStage(RxVerIDMetrics.STAGE_USER_AUTHENTICATION)).compose(traceCall("authenticateBatch"));
+    }
+
+    private static List<Triplet<String,RecognizableFace,Boolean>> authenticateBatchChunk(VerID verID, UserTemplateCache cache, List<Pair<String,RecognizableFace>> chunk) throws Exception {
+        IUserManagement userManagement = verID.getUserManagement();
+        IFaceRecognition faceRecognition = verID.getFaceRecognition();
+        float threshold = faceRecognition.getAuthenticationThreshold();
+        HashMap<String,IRecognizable[]> chunkFaces = new HashMap<>();
+        ArrayList<Triplet<String,RecognizableFace,Boolean>> results = new ArrayList<>(chunk.size());
+        for (Pair<String,RecognizableFace> request : chunk) {
+            String user = request.getValue0();
+            IRecognizable[] userFaces = chunkFaces.get(user);
+            if (userFaces == null) {
+                userFaces = cache.getFacesOfUser(userManagement, user);
+                chunkFaces.put(user, userFaces);
+            }
+            float score = faceRecognition.compareSubjectFacesToFaces(userFaces, new IRecognizable[]{request.getValue1()});
+            results.add(new Triplet<>(user, request.getValue1(), score >= threshold));
+        }
+        return results;
     }
 
     /**
@@ -1333,7 +2846,8 @@ public class RxVerID {
      */
     public Single<Boolean> authenticateUserInImage(String user, Uri image) {
         return getVerID()
-                .flatMap(verID -> authenticateUserInImage(verID, user, image));
+                .flatMap(verID -> authenticateUserInImage(verID, user, image))
+                .compose(traceCall("authenticateUserInImage"));
     }
 
     /**
@@ -1345,10 +2859,9 @@ public class RxVerID {
      * @since 1.6.0
      */
     public Single<Boolean> authenticateUserInImage(VerID verID, String user, Uri image) {
-        return detectRecognizableFacesInImage(verID, image, 4)
-                .flatMap(face -> authenticateUserInFace(verID, user, face).toObservable())
-                .filter(authenticated -> authenticated)
-                .first(false);
+        return convertUriToVerIDImage(image)
+                .flatMap(verIDImage -> authenticateUserInImage(verID, user, verIDImage))
+                .compose(traceCall("authenticateUserInImage"));
     }
 
     /**
@@ -1360,22 +2873,63 @@ public class RxVerID {
      */
     public Single<Boolean> authenticateUserInImage(String user, VerIDImage image) {
         return getVerID()
-                .flatMap(verID -> authenticateUserInImage(verID, user, image));
+                .flatMap(verID -> authenticateUserInImage(verID, user, image))
+                .compose(traceCall("authenticateUserInImage"));
     }
 
     /**
      * Authenticate user in image
+     * <p>Up to 4 faces are detected in the image and authenticated starting with the largest face. Faces are only converted to recognizable faces when they're about to be authenticated and the authentication stops at the first face that authenticates the user.</p>
      * @param verID Ver-ID instance
      * @param user User to authenticate
      * @param image Image in which to authenticate the user
      * @return Single whose return value indicates whether the user was authenticated {@literal true} or not {@literal false}
      * @since 1.6.0
+     * @see Builder#setParallelFaceAuthentication(boolean)
      */
     public Single<Boolean> authenticateUserInImage(VerID verID, String user, VerIDImage image) {
-        return detectRecognizableFacesInImage(verID, image, 4)
-                .flatMap(face -> authenticateUserInFace(verID, user, face).toObservable())
+        Single<IRecognizable[]> userFaces = Single.fromCallable(() -> facesOfUser(verID.getUserManagement(), user)).cache();
+        Observable<Face> faces = detectFacesInImage(verID, image, AUTHENTICATION_FACE_LIMIT)
+                .toSortedList(RxVerID::compareFaceProminence)
+                .flattenAsObservable(sortedFaces -> sortedFaces);
+        Function<Face,Observable<Boolean>> authenticateFace = face -> convertFaceToRecognizableFace(verID, image, face)
+                .flatMapSingle(recognizableFace -> userFaces.map(subjectFaces -> {
+                    IFaceRecognition faceRecognition = verID.getFaceRecognition();
+                    return faceRecognition.compareSubjectFacesToFaces(subjectFaces, new IRecognizable[]{recognizableFace}) >= faceRecognition.getAuthenticationThreshold();
+                }));
+        Observable<Boolean> results;
+        if (parallelFaceAuthentication) {
+            results = faces.flatMap(authenticateFace);
+        } else {
+            results = faces.concatMap(authenticateFace);
+        }
+        return results
                 .filter(authenticated -> authenticated)
-                .first(false);
+                .first(false)
+                .compose(instrumentStage(RxVerIDMetrics.STAGE_USER_AUTHENTICATION))
+                .compose(traceCall("authenticateUserInImage"));
+    }
+
+    /**
+     * Order faces by prominence: larger faces first, faces of the same size by descending quality
+     * @param face1 First face
+     * @param face2 Second face
+     * @return Comparison result
+     * @since 1.11.0
+     */
+    static int compareFaceProminence(Face face1, Face face2) {
+        int result = Float.compare(faceArea(face2), faceArea(face1));
+        if (result == 0) {
+            result = Float.compare(face2.getQuality(), face1.getQuality());
+        }
+        return result;
+    }
+
+    private static float faceArea(Face face) {
+        if (face.getBounds() == null) {
+            return 0;
+        }
+        return face.getBounds().width() * face.getBounds().height();
     }
 
     /**
@@ -1387,7 +2941,8 @@ public class RxVerID {
      */
     public Single<Boolean> authenticateUserInImage(String user, Bitmap image) {
         return getVerID()
-                .flatMap(verID -> authenticateUserInImage(verID, user, image));
+                .flatMap(verID -> authenticateUserInImage(verID, user, image))
+                .compose(traceCall("authenticateUserInImage"));
     }
 
     /**
@@ -1399,7 +2954,7 @@ public class RxVerID {
      * @since 1.6.0
      */
     public Single<Boolean> authenticateUserInImage(VerID verID, String user, Bitmap image) {
-        return authenticateUserInImage(verID, user, image, ExifInterface.ORIENTATION_NORMAL);
+        return authenticateUserInImage(verID, user, image, ExifInterface.ORIENTATION_NORMAL).compose(traceCall("authenticateUserInImage"));
     }
 
     /**
@@ -1412,7 +2967,8 @@ public class RxVerID {
      */
     public Single<Boolean> authenticateUserInImage(String user, Bitmap image, @ExifOrientation int exifOrientation) {
         return getVerID()
-                .flatMap(verID -> authenticateUserInImage(verID, user, image, exifOrientation));
+                .flatMap(verID -> authenticateUserInImage(verID, user, image, exifOrientation))
+                .compose(traceCall("authenticateUserInImage"));
     }
 
     /**
@@ -1425,10 +2981,9 @@ public class RxVerID {
      * @since 1.6.0
      */
     public Single<Boolean> authenticateUserInImage(VerID verID, String user, Bitmap image, @ExifOrientation int exifOrientation) {
-        return detectRecognizableFacesInImage(verID, image, exifOrientation,4)
-                .flatMap(face -> authenticateUserInFace(verID, user, face).toObservable())
-                .filter(authenticated -> authenticated)
-                .first(false);
+        return convertBitmapToVerIDImage(image, exifOrientation)
+                .flatMap(verIDImage -> authenticateUserInImage(verID, user, verIDImage))
+                .compose(traceCall("authenticateUserInImage"));
     }
 
     // endregion
@@ -1442,7 +2997,7 @@ public class RxVerID {
      * @since 1.2.0
      */
     public Single<VerIDSessionResult> getSessionResultFromIntent(Intent intent) {
-        return Single.create(emitter -> {
+        return Single.<VerIDSessionResult>create(emitter -> {
             if (intent == null) {
                 emitter.onError(new NullPointerException());
                 return;
@@ -1457,7 +3012,7 @@ public class RxVerID {
                 return;
             }
             emitter.onSuccess(result);
-        });
+        }).compose(instrumentStage(RxVerIDMetrics.STAGE_SESSION_PARSING)).compose(traceCall("getSessionResultFromIntent"));
     }
 
     /**
@@ -1467,7 +3022,7 @@ public class RxVerID {
      * @since 1.2.0
      */
     public Observable<Triplet<Uri, Face, Bearing>> getImageUriFaceAndBearingFromSessionResult(VerIDSessionResult result) {
-        return Observable.create(emitter -> {
+        return Observable.<Triplet<Uri, Face, Bearing>>create(emitter -> {
             if (result.getError() != null) {
                 emitter.onError(result.getError());
                 return;
@@ -1478,7 +3033,7 @@ public class RxVerID {
                 }
             }
             emitter.onComplete();
-        });
+        }).compose(instrumentStage(RxVerIDMetrics.STAGE_SESSION_PARSING)).compose(traceCall("getImageUriFaceAndBearingFromSessionResult"));
     }
 
     /**
@@ -1489,7 +3044,7 @@ public class RxVerID {
      * @since 1.3.0
      */
     public Observable<DetectedFace> getFacesAndImageUrisFromSessionResult(VerIDSessionResult result, @Nullable Bearing bearing) {
-        return Observable.create(emitter -> {
+        return Observable.<DetectedFace>create(emitter -> {
             if (result.getError() != null) {
                 emitter.onError(result.getError());
                 return;
@@ -1500,7 +3055,7 @@ public class RxVerID {
                 }
             }
             emitter.onComplete();
-        });
+        }).compose(instrumentStage(RxVerIDMetrics.STAGE_SESSION_PARSING)).compose(traceCall("getFacesAndImageUrisFromSessionResult"));
     }
 
     /**
@@ -1510,7 +3065,7 @@ public class RxVerID {
      * @since 1.3.0
      */
     public Observable<DetectedFace> getFacesAndImageUrisFromSessionResult(VerIDSessionResult result) {
-        return getFacesAndImageUrisFromSessionResult(result, null);
+        return getFacesAndImageUrisFromSessionResult(result, null).compose(traceCall("getFacesAndImageUrisFromSessionResult"));
     }
 
     /**
@@ -1521,7 +3076,7 @@ public class RxVerID {
      * @since 1.3.0
      */
     public Observable<RecognizableFace> getRecognizableFacesFromSessionResult(VerIDSessionResult result, @Nullable Bearing bearing) {
-        return Observable.create(emitter -> {
+        return Observable.<RecognizableFace>create(emitter -> {
             if (result.getError() != null) {
                 emitter.onError(result.getError());
                 return;
@@ -1532,7 +3087,7 @@ public class RxVerID {
                 }
             }
             emitter.onComplete();
-        });
+        }).compose(instrumentStage(RxVerIDMetrics.STAGE_SESSION_PARSING)).compose(traceCall("getRecognizableFacesFromSessionResult"));
     }
 
     /**
@@ -1542,7 +3097,67 @@ public class RxVerID {
      * @since 1.3.0
      */
     public Observable<RecognizableFace> getRecognizableFacesFromSessionResult(VerIDSessionResult result) {
-        return getRecognizableFacesFromSessionResult(result, null);
+        return getRecognizableFacesFromSessionResult(result, null).compose(traceCall("getRecognizableFacesFromSessionResult"));
+    }
+
+    /**
+     * Reduce the faces of a session result to a few representative faces for enrollment
+     * @param result Session result
+     * @param bearing Bearing of the faces to use or {@literal null} to use faces of all bearings
+     * @return Single whose value is an array of up to 3 representative faces
+     * @since 1.11.0
+     * @see #fuseSessionTemplates(VerID, VerIDSessionResult, Bearing, int)
+     */
+    public Single<RecognizableFace[]> fuseSessionTemplates(VerIDSessionResult result, @Nullable Bearing bearing) {
+        return fuseSessionTemplates(result, bearing, SESSION_FUSION_MAX_TEMPLATES).compose(traceCall("fuseSessionTemplates"));
+    }
+
+    /**
+     * Reduce the faces of a session result to a few representative faces for enrollment
+     * @param result Session result
+     * @param bearing Bearing of the faces to use or {@literal null} to use faces of all bearings
+     * @param maxTemplates Maximum number of faces to return, at least {@literal 1}
+     * @return Single whose value is an array of representative faces. The single fails with {@link IllegalArgumentException} if {@literal maxTemplates} is less than {@literal 1}.
+     * @since 1.11.0
+     * @see #fuseSessionTemplates(VerID, VerIDSessionResult, Bearing, int)
+     */
+    public Single<RecognizableFace[]> fuseSessionTemplates(VerIDSessionResult result, @Nullable Bearing bearing, int maxTemplates) {
+        return getVerID()
+                .flatMap(verID -> fuseSessionTemplates(verID, result, bearing, maxTemplates))
+                .compose(traceCall("fuseSessionTemplates"));
+    }
+
+    /**
+     * Reduce the faces of a session result to a few representative faces for enrollment
+     * <p>The session's recognizable faces are compared to each other. Faces whose mean similarity to the other faces is an outlier, e.g., a frame with motion blur or a different person stepping in, are rejected.
+     * From the remaining faces the method picks the face most similar to the others and then repeatedly the face least similar to the faces already picked so the result covers the variation in the session without near-duplicates.</p>
+     * @param verID Ver-ID instance
+     * @param result Session result
+     * @param bearing Bearing of the faces to use or {@literal null} to use faces of all bearings
+     * @param maxTemplates Maximum number of faces to return, at least {@literal 1}
+     * @return Single whose value is an array of representative faces, empty if the session has no recognizable faces. The single fails with {@link IllegalArgumentException} if {@literal maxTemplates} is less than {@literal 1}.
+     * @since 1.11.0
+     */
+    public Single<RecognizableFace[]> fuseSessionTemplates(VerID verID, VerIDSessionResult result, @Nullable Bearing bearing, int maxTemplates) {
+        if (maxTemplates < 1) {
+            return Single.error(new IllegalArgumentException("At least one template must be returned"));
+        }
+        return getRecognizableFacesFromSessionResult(result, bearing)
+                .toList()
+                .map(faceList -> {
+                    RecognizableFace[] faces = faceList.toArray(new RecognizableFace[0]);
+                    float[][] similarities = TemplateSelection.similarityMatrix(faces, verID.getFaceRecognition());
+                    int[] inliers = TemplateSelection.rejectOutliers(similarities, TEMPLATE_OUTLIER_MAD_MULTIPLIER);
+                    int[] selected = TemplateSelection.selectDiverse(similarities, inliers, maxTemplates);
+                    RecognizableFace[] fused = new RecognizableFace[selected.length];
+                    for (int i = 0; i < selected.length; i++) {
+                        fused[i] = faces[selected[i]];
+                    }
+                    return fused;
+                })
+                .subscribeOn(Schedulers.computation())
+                .compose(instrumentStage(RxVerIDMetrics.STAGE_FACE_COMPARISON))
+                .compose(traceCall("fuseSessionTemplates"));
     }
 
     /**
@@ -1553,7 +3168,7 @@ public class RxVerID {
      * @since 1.3.0
      */
     public Observable<Uri> getImageUrisFromSessionResult(VerIDSessionResult result, @Nullable Bearing bearing) {
-        return Observable.create(emitter -> {
+        return Observable.<Uri>create(emitter -> {
             if (result.getError() != null) {
                 emitter.onError(result.getError());
                 return;
@@ -1564,7 +3179,7 @@ public class RxVerID {
                 }
             }
             emitter.onComplete();
-        });
+        }).compose(instrumentStage(RxVerIDMetrics.STAGE_SESSION_PARSING)).compose(traceCall("getImageUrisFromSessionResult"));
     }
 
     /**
@@ -1574,7 +3189,7 @@ public class RxVerID {
      * @since 1.3.0
      */
     public Observable<Uri> getImageUrisFromSessionResult(VerIDSessionResult result) {
-        return getImageUrisFromSessionResult(result, null);
+        return getImageUrisFromSessionResult(result, null).compose(traceCall("getImageUrisFromSessionResult"));
     }
 
     // endregion
@@ -0,0 +1,156 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Receiver of timings of the stages of RxVerID operations
+ * <p>Register an implementation using {@link RxVerID.Builder#setMetrics(RxVerIDMetrics)}. Every subscription to an instrumented stage calls {@link #onStageStarted(String)} when it's subscribed and {@link #onStageFinished(String, int, long, long)} exactly once when it succeeds, fails or is disposed.
+ * Stages nest: for example, {@link RxVerID#identifyUsersInImage(android.net.Uri) identifyUsersInImage} reports {@link #STAGE_IMAGE_FETCH}, {@link #STAGE_IMAGE_DECODE}, {@link #STAGE_IMAGE_EXIF}, {@link #STAGE_FACE_DETECTION}, {@link #STAGE_TEMPLATE_EXTRACTION} and {@link #STAGE_USER_IDENTIFICATION}.</p>
+ * <p>The phases of {@link #STAGE_VERID_LOAD} are reported together once the Ver-ID instance has been created; see {@link VerIDStartupReport}.</p>
+ * <p>The methods are called on the threads on which the stages run and must be thread-safe and fast. See {@link PrometheusTextFileMetrics} for a built-in implementation.</p>
+ * @since 1.11.0
+ */
+public interface RxVerIDMetrics {
+
+    /**
+     * Creating the Ver-ID instance
+     * @since 1.11.0
+     */
+    String STAGE_VERID_LOAD = "verid_load";
+    /**
+     * Constructing and configuring the Ver-ID factory, part of {@link #STAGE_VERID_LOAD}
+     * @since 1.11.0
+     */
+    String STAGE_VERID_FACTORY_CONSTRUCTION = "verid_factory_construction";
+    /**
+     * Verifying the Ver-ID identity and licence, part of {@link #STAGE_VERID_LOAD}
+     * @since 1.11.0
+     */
+    String STAGE_VERID_IDENTITY_VERIFICATION = "verid_identity_verification";
+    /**
+     * Creating the face detection and loading its models, part of {@link #STAGE_VERID_LOAD}
+     * @since 1.11.0
+     */
+    String STAGE_FACE_DETECTION_LOAD = "face_detection_load";
+    /**
+     * Creating the face recognition and loading its models, part of {@link #STAGE_VERID_LOAD}
+     * @since 1.11.0
+     */
+    String STAGE_FACE_RECOGNITION_LOAD = "face_recognition_load";
+    /**
+     * Opening the user store, part of {@link #STAGE_VERID_LOAD}
+     * @since 1.11.0
+     */
+    String STAGE_USER_STORE_OPEN = "user_store_open";
+    /**
+     * Releasing the Ver-ID instance, e.g., because the system asked to trim memory
+     * @since 1.11.0
+     */
+    String STAGE_VERID_RELEASE = "verid_release";
+    /**
+     * Creating the Ver-ID instance again after it was released, reported in addition to {@link #STAGE_VERID_LOAD}
+     * @since 1.11.0
+     */
+    String STAGE_VERID_RECREATION = "verid_recreation";
+    /**
+     * Reading image data from a URI
+     * @since 1.11.0
+     */
+    String STAGE_IMAGE_FETCH = "image_fetch";
+    /**
+     * Decoding image data to a bitmap
+     * @since 1.11.0
+     */
+    String STAGE_IMAGE_DECODE = "image_decode";
+    /**
+     * Reading EXIF tags from image data
+     * @since 1.11.0
+     */
+    String STAGE_IMAGE_EXIF = "image_exif";
+    /**
+     * Rotating a bitmap upright and cropping it to a face
+     * @since 1.11.0
+     */
+    String STAGE_IMAGE_TRANSFORM = "image_transform";
+    /**
+     * Detecting faces in an image
+     * @since 1.11.0
+     */
+    String STAGE_FACE_DETECTION = "face_detection";
+    /**
+     * Extracting face recognition templates from detected faces
+     * @since 1.11.0
+     */
+    String STAGE_TEMPLATE_EXTRACTION = "template_extraction";
+    /**
+     * Comparing faces to faces
+     * @since 1.11.0
+     */
+    String STAGE_FACE_COMPARISON = "face_comparison";
+    /**
+     * Identifying users in a face
+     * @since 1.11.0
+     */
+    String STAGE_USER_IDENTIFICATION = "user_identification";
+    /**
+     * Authenticating users in faces
+     * @since 1.11.0
+     */
+    String STAGE_USER_AUTHENTICATION = "user_authentication";
+    /**
+     * Reading users and faces from the user store
+     * @since 1.11.0
+     */
+    String STAGE_USER_MANAGEMENT_READ = "user_management_read";
+    /**
+     * Writing users and faces to the user store
+     * @since 1.11.0
+     */
+    String STAGE_USER_MANAGEMENT_WRITE = "user_management_write";
+    /**
+     * Extracting faces and images from a Ver-ID session result
+     * @since 1.11.0
+     */
+    String STAGE_SESSION_PARSING = "session_parsing";
+
+    /**
+     * Stage succeeded
+     * @since 1.11.0
+     */
+    int OUTCOME_SUCCESS = 1;
+    /**
+     * Stage failed with an error
+     * @since 1.11.0
+     */
+    int OUTCOME_ERROR = 2;
+    /**
+     * Stage was disposed before it finished, e.g., because the subscriber only needed the first value
+     * @since 1.11.0
+     */
+    int OUTCOME_CANCELLED = 3;
+
+    @IntDef({OUTCOME_SUCCESS, OUTCOME_ERROR, OUTCOME_CANCELLED})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface Outcome{};
+
+    /**
+     * Called when a stage is subscribed
+     * @param stage One of the {@code STAGE_} constants
+     * @since 1.11.0
+     */
+    void onStageStarted(@NonNull String stage);
+
+    /**
+     * Called when a stage succeeds, fails or is disposed
+     * @param stage One of the {@code STAGE_} constants
+     * @param outcome {@link #OUTCOME_SUCCESS}, {@link #OUTCOME_ERROR} or {@link #OUTCOME_CANCELLED}
+     * @param durationNanos Time from the subscription to the end of the stage in nanoseconds
+     * @param itemCount Number of values the stage emitted
+     * @since 1.11.0
+     */
+    void onStageFinished(@NonNull String stage, @Outcome int outcome, long durationNanos, long itemCount);
+}
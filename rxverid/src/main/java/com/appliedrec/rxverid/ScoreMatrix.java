@@ -0,0 +1,87 @@
+package com.appliedrec.rxverid;
+
+/**
+ * Dense matrix of face comparison scores
+ * <p>Row {@literal i} holds the scores of subject {@literal i} compared to each of the target faces. The scores are stored in a single row-major float array.</p>
+ * @since 1.11.0
+ */
+public class ScoreMatrix {
+
+    private final int rowCount;
+    private final int columnCount;
+    private final float[] scores;
+
+    /**
+     * Constructor
+     * @param rowCount Number of rows (subjects)
+     * @param columnCount Number of columns (targets)
+     * @throws IllegalArgumentException If a count is negative or the matrix has more than {@link Integer#MAX_VALUE} scores
+     * @since 1.11.0
+     */
+    public ScoreMatrix(int rowCount, int columnCount) {
+        if (rowCount < 0 || columnCount < 0) {
+            throw new IllegalArgumentException("Row and column counts must not be negative");
+        }
+        long size = (long) rowCount * columnCount;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Matrix of "+rowCount+" x "+columnCount+" scores is too large, use compareFacesMatrixRows to stream the rows instead");
+        }
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.scores = new float[(int) size];
+    }
+
+    /**
+     * Number of rows
+     * @return Number of subjects compared
+     * @since 1.11.0
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Number of columns
+     * @return Number of targets compared
+     * @since 1.11.0
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Get score
+     * @param row Index of the subject
+     * @param column Index of the target
+     * @return Score of the subject compared to the target
+     * @since 1.11.0
+     */
+    public float getScore(int row, int column) {
+        return scores[row * columnCount + column];
+    }
+
+    /**
+     * Get row
+     * @param row Index of the subject
+     * @return Copy of the scores of the subject compared to every target
+     * @since 1.11.0
+     */
+    public float[] getRow(int row) {
+        float[] rowScores = new float[columnCount];
+        System.arraycopy(scores, row * columnCount, rowScores, 0, columnCount);
+        return rowScores;
+    }
+
+    /**
+     * Get all scores
+     * @return Row-major array backing the matrix
+     * @since 1.11.0
+     */
+    public float[] getScores() {
+        return scores;
+    }
+
+    void setRow(int row, float[] rowScores) {
+        System.arraycopy(rowScores, 0, scores, row * columnCount, columnCount);
+    }
+}
@@ -0,0 +1,201 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IFaceDetection;
+import com.appliedrec.verid.core.IFaceDetectionFactory;
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IFaceRecognitionFactory;
+import com.appliedrec.verid.core.VerIDFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+
+/**
+ * Process-wide registry of face detection and face recognition instances shared by Ver-ID instances
+ * <p>RxVerID instances with {@link RxVerID.Builder#setSharedModels(boolean) shared models} get their face detection and face recognition from the registry. Instances made by the same factory, or by the default factory, are created once and shared, so configurations that differ only in their user store or settings load the models once.</p>
+ * <p>Each component is loaded once under its own lock, so loading one component doesn't hold up the configurations that use other components.</p>
+ * <p>The registry counts the Ver-ID instances using each shared component. When the last of them is released the registry drops the component so that its models can be freed, and the next Ver-ID instance loads it again.</p>
+ * @since 1.11.0
+ */
+class SharedModelRegistry {
+
+    /**
+     * Key of the components made by the Ver-ID factory's default factories
+     */
+    static final Object DEFAULT_FACTORY = new Object();
+
+    private static final String FACE_DETECTION = "face_detection";
+    private static final String FACE_RECOGNITION = "face_recognition";
+
+    private static class Key {
+
+        private final String component;
+        private final Object factory;
+
+        Key(String component, Object factory) {
+            this.component = component;
+            this.factory = factory;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return component.equals(other.component) && factory == other.factory;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * component.hashCode() + System.identityHashCode(factory);
+        }
+    }
+
+    /**
+     * Shared component, loaded by the first Ver-ID instance that needs it
+     */
+    private static class Entry {
+        private Object component;
+        // Guarded by SharedModelRegistry.class
+        private int referenceCount;
+
+        synchronized Object get(Callable<?> loader) throws Exception {
+            // Concurrent callers wait for the first load instead of loading the models again
+            if (component == null) {
+                component = loader.call();
+            }
+            return component;
+        }
+    }
+
+    /**
+     * Reference to a shared component held by one Ver-ID instance
+     */
+    static class Lease {
+
+        private final Key key;
+        private final Entry entry;
+        private boolean released = false;
+
+        private Lease(Key key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        void release() {
+            synchronized (SharedModelRegistry.class) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                dereference(key, entry);
+            }
+        }
+    }
+
+    /**
+     * Leases held by one Ver-ID instance
+     * <p>Components loaded after the leases were released, e.g., by a lazy component used by a call that was in progress, are released straight away.</p>
+     */
+    static class Leases {
+
+        private final ArrayList<Lease> leases = new ArrayList<>();
+        private boolean released = false;
+
+        void add(Lease lease) {
+            boolean releaseLease;
+            synchronized (this) {
+                releaseLease = released;
+                if (!released) {
+                    leases.add(lease);
+                }
+            }
+            if (releaseLease) {
+                lease.release();
+            }
+        }
+
+        void releaseAll() {
+            ArrayList<Lease> toRelease;
+            synchronized (this) {
+                released = true;
+                toRelease = new ArrayList<>(leases);
+                leases.clear();
+            }
+            for (Lease lease : toRelease) {
+                lease.release();
+            }
+        }
+    }
+
+    private static final HashMap<Key,Entry> entries = new HashMap<>();
+
+    private SharedModelRegistry() {
+    }
+
+    /**
+     * Replace the face detection and face recognition factories of a Ver-ID factory with factories that share their components through the registry
+     * @param verIDFactory Configured Ver-ID factory
+     * @param faceDetectionKey Factory configured by the app or {@link #DEFAULT_FACTORY}
+     * @param faceRecognitionKey Factory configured by the app or {@link #DEFAULT_FACTORY}
+     * @param leases Leases of the Ver-ID instance that's being created
+     */
+    static void apply(VerIDFactory verIDFactory, Object faceDetectionKey, Object faceRecognitionKey, Leases leases) {
+        IFaceDetectionFactory faceDetectionFactory = verIDFactory.getFaceDetectionFactory();
+        if (faceDetectionFactory != null) {
+            Key key = new Key(FACE_DETECTION, faceDetectionKey);
+            verIDFactory.setFaceDetectionFactory(() -> acquire(key, faceDetectionFactory::makeFaceDetection, leases));
+        }
+        IFaceRecognitionFactory faceRecognitionFactory = verIDFactory.getFaceRecognitionFactory();
+        if (faceRecognitionFactory != null) {
+            Key key = new Key(FACE_RECOGNITION, faceRecognitionKey);
+            verIDFactory.setFaceRecognitionFactory(() -> acquire(key, faceRecognitionFactory::makeFaceRecognition, leases));
+        }
+    }
+
+    static IFaceDetection acquireFaceDetection(Object factoryKey, Callable<IFaceDetection> loader, Leases leases) throws Exception {
+        return acquire(new Key(FACE_DETECTION, factoryKey), loader, leases);
+    }
+
+    static IFaceRecognition acquireFaceRecognition(Object factoryKey, Callable<IFaceRecognition> loader, Leases leases) throws Exception {
+        return acquire(new Key(FACE_RECOGNITION, factoryKey), loader, leases);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T acquire(Key key, Callable<T> loader, Leases leases) throws Exception {
+        Entry entry;
+        synchronized (SharedModelRegistry.class) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+            }
+            // Referenced before loading so that the entry isn't dropped while it loads
+            entry.referenceCount++;
+        }
+        T component;
+        try {
+            component = (T) entry.get(loader);
+        } catch (Exception e) {
+            synchronized (SharedModelRegistry.class) {
+                dereference(key, entry);
+            }
+            throw e;
+        }
+        leases.add(new Lease(key, entry));
+        return component;
+    }
+
+    private static void dereference(Key key, Entry entry) {
+        // The key may already map to a newer entry if this one was dropped and the component loaded again
+        if (--entry.referenceCount == 0 && entries.get(key) == entry) {
+            entries.remove(key);
+        }
+    }
+
+    static synchronized int getReferenceCount(Object factoryKey, boolean faceDetection) {
+        Entry entry = entries.get(new Key(faceDetection ? FACE_DETECTION : FACE_RECOGNITION, factoryKey));
+        return entry != null ? entry.referenceCount : 0;
+    }
+}
@@ -0,0 +1,163 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.appliedrec.verid.core.IUserManagement;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Sorted index of the users in the user store
+ * <p>The index is loaded from the user store the first time it's used and then kept up to date by RxVerID as users are added and deleted.
+ * Pages are read directly from the sorted set so listing a page doesn't copy or sort the user names.</p>
+ * @since 1.11.0
+ */
+class SortedUserIndex {
+
+    private final ConcurrentSkipListSet<String> users = new ConcurrentSkipListSet<>();
+    private IUserManagement loadedUserManagement;
+
+    /**
+     * Load the users from the user store unless the index has already been loaded from the same user store
+     * @param userManagement User management from which to read the users
+     * @throws Exception If the users cannot be read
+     * @since 1.11.0
+     */
+    synchronized void loadIfNeeded(IUserManagement userManagement) throws Exception {
+        if (loadedUserManagement == userManagement) {
+            return;
+        }
+        users.clear();
+        users.addAll(Arrays.asList(userManagement.getUsers()));
+        loadedUserManagement = userManagement;
+    }
+
+    synchronized boolean isLoaded() {
+        return loadedUserManagement != null;
+    }
+
+    int size() {
+        return users.size();
+    }
+
+    /**
+     * Add a user who has been assigned faces
+     * <p>Ignored if the index hasn't been loaded yet – the user will be picked up when the index loads.</p>
+     * @param user User
+     * @since 1.11.0
+     */
+    synchronized void addUser(String user) {
+        if (loadedUserManagement != null) {
+            users.add(user);
+        }
+    }
+
+    /**
+     * Remove a deleted user
+     * <p>Synchronized with {@link #loadIfNeeded(IUserManagement)} so that a user deleted while the index loads cannot be re-added from the loaded snapshot.</p>
+     * @param user User
+     * @since 1.11.0
+     */
+    synchronized void removeUser(String user) {
+        users.remove(user);
+    }
+
+    /**
+     * Discard the index so that it's reloaded on next use
+     * @since 1.11.0
+     */
+    synchronized void invalidate() {
+        users.clear();
+        loadedUserManagement = null;
+    }
+
+    /**
+     * Get a page of users in ascending order
+     * <p>The returned iterable is a live view of the index. Users are read from the index as the iterator advances.
+     * The skipped users are stepped over one by one so the cost of a page grows with the offset; use {@link #pageAfter(String, int, String)} to read deep pages.</p>
+     * @param offset Number of matching users to skip
+     * @param limit Maximum number of users in the page
+     * @param prefix Prefix the user names must start with or {@literal null} to list all users
+     * @return Iterable of user names
+     * @since 1.11.0
+     */
+    @NonNull
+    Iterable<String> page(int offset, int limit, @Nullable String prefix) {
+        NavigableSet<String> range = prefix == null || prefix.isEmpty() ? users : users.tailSet(prefix, true);
+        return () -> new PageIterator(range.iterator(), offset, limit, prefix);
+    }
+
+    /**
+     * Get a page of users in ascending order that follow a given user
+     * <p>The page starts with a lookup of the given user in the sorted set, so its cost doesn't depend on how many users precede it.</p>
+     * @param afterUser Last user of the previous page or {@literal null} to start with the first user
+     * @param limit Maximum number of users in the page
+     * @param prefix Prefix the user names must start with or {@literal null} to list all users
+     * @return Iterable of user names
+     * @since 1.11.0
+     */
+    @NonNull
+    Iterable<String> pageAfter(@Nullable String afterUser, int limit, @Nullable String prefix) {
+        boolean hasPrefix = prefix != null && !prefix.isEmpty();
+        NavigableSet<String> range;
+        if (afterUser != null && (!hasPrefix || afterUser.compareTo(prefix) >= 0)) {
+            range = users.tailSet(afterUser, false);
+        } else if (hasPrefix) {
+            range = users.tailSet(prefix, true);
+        } else {
+            range = users;
+        }
+        return () -> new PageIterator(range.iterator(), 0, limit, prefix);
+    }
+
+    private static class PageIterator implements Iterator<String> {
+
+        private final Iterator<String> source;
+        private final String prefix;
+        private int remaining;
+        private String next;
+
+        PageIterator(Iterator<String> source, int offset, int limit, @Nullable String prefix) {
+            this.source = source;
+            this.prefix = prefix == null || prefix.isEmpty() ? null : prefix;
+            this.remaining = limit;
+            for (int i = 0; i < offset && advance() != null; i++) {
+                next = null;
+            }
+        }
+
+        private String advance() {
+            if (next == null && remaining > 0 && source.hasNext()) {
+                String user = source.next();
+                // The range starts at the prefix so the first user that doesn't match ends the page
+                if (prefix == null || user.startsWith(prefix)) {
+                    next = user;
+                } else {
+                    remaining = 0;
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return advance() != null;
+        }
+
+        @Override
+        public String next() {
+            if (advance() == null) {
+                throw new NoSuchElementException();
+            }
+            String user = next;
+            next = null;
+            remaining--;
+            return user;
+        }
+    }
+}
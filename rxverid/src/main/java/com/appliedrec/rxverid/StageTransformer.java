@@ -0,0 +1,149 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.Nullable;
+
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableSource;
+import io.reactivex.CompletableTransformer;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Maybe;
+import io.reactivex.MaybeSource;
+import io.reactivex.MaybeTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Single;
+import io.reactivex.SingleSource;
+import io.reactivex.SingleTransformer;
+
+/**
+ * Transformer that reports the duration, outcome and number of emitted values of every subscription of a stage to {@link RxVerIDMetrics} and traces it as a {@link TraceSpan}
+ * <p>The transformer returns the upstream unchanged when neither the metrics nor the trace sink are set.</p>
+ * @param <T> Type
+ * @since 1.11.0
+ */
+class StageTransformer<T> implements ObservableTransformer<T,T>, SingleTransformer<T,T>, FlowableTransformer<T,T>, MaybeTransformer<T,T>, CompletableTransformer {
+
+    private final RxVerIDMetrics metrics;
+    private final TracingTransformer<T> tracing;
+    private final String stage;
+
+    /**
+     * Constructor
+     * @param metrics Metrics to which to report the stage or {@literal null} to leave the stage unmeasured
+     * @param traceSink Sink to which to report the stage spans or {@literal null} to leave the stage untraced
+     * @param stage Stage name
+     * @since 1.11.0
+     */
+    StageTransformer(@Nullable RxVerIDMetrics metrics, @Nullable TraceSink traceSink, String stage) {
+        this.metrics = metrics;
+        this.tracing = traceSink != null ? new TracingTransformer<>(traceSink, stage) : null;
+        this.stage = stage;
+    }
+
+    /**
+     * Measurement of a single subscription
+     */
+    private class Measurement {
+
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private final AtomicLong itemCount = new AtomicLong();
+        private volatile long startNanos;
+
+        void start() {
+            startNanos = System.nanoTime();
+            metrics.onStageStarted(stage);
+        }
+
+        void item() {
+            itemCount.incrementAndGet();
+        }
+
+        void finish(@RxVerIDMetrics.Outcome int outcome) {
+            // A subscription can be disposed after it terminated – only the first outcome counts
+            if (finished.compareAndSet(false, true)) {
+                metrics.onStageFinished(stage, outcome, System.nanoTime() - startNanos, itemCount.get());
+            }
+        }
+    }
+
+    @Override
+    public CompletableSource apply(Completable upstream) {
+        Completable measured = metrics == null ? upstream : Completable.defer(() -> {
+            Measurement measurement = new Measurement();
+            return upstream
+                    .doOnSubscribe(disposable -> measurement.start())
+                    .doOnComplete(() -> measurement.finish(RxVerIDMetrics.OUTCOME_SUCCESS))
+                    .doOnError(error -> measurement.finish(RxVerIDMetrics.OUTCOME_ERROR))
+                    .doOnDispose(() -> measurement.finish(RxVerIDMetrics.OUTCOME_CANCELLED));
+        });
+        return tracing != null ? tracing.apply(measured) : measured;
+    }
+
+    @Override
+    public Publisher<T> apply(Flowable<T> upstream) {
+        Flowable<T> measured = metrics == null ? upstream : Flowable.defer(() -> {
+            Measurement measurement = new Measurement();
+            return upstream
+                    .doOnSubscribe(subscription -> measurement.start())
+                    .doOnNext(value -> measurement.item())
+                    .doOnComplete(() -> measurement.finish(RxVerIDMetrics.OUTCOME_SUCCESS))
+                    .doOnError(error -> measurement.finish(RxVerIDMetrics.OUTCOME_ERROR))
+                    .doOnCancel(() -> measurement.finish(RxVerIDMetrics.OUTCOME_CANCELLED));
+        });
+        return tracing != null ? tracing.apply(measured) : measured;
+    }
+
+    @Override
+    public MaybeSource<T> apply(Maybe<T> upstream) {
+        Maybe<T> measured = metrics == null ? upstream : Maybe.defer(() -> {
+            Measurement measurement = new Measurement();
+            return upstream
+                    .doOnSubscribe(disposable -> measurement.start())
+                    .doOnSuccess(value -> {
+                        measurement.item();
+                        measurement.finish(RxVerIDMetrics.OUTCOME_SUCCESS);
+                    })
+                    .doOnComplete(() -> measurement.finish(RxVerIDMetrics.OUTCOME_SUCCESS))
+                    .doOnError(error -> measurement.finish(RxVerIDMetrics.OUTCOME_ERROR))
+                    .doOnDispose(() -> measurement.finish(RxVerIDMetrics.OUTCOME_CANCELLED));
+        });
+        return tracing != null ? tracing.apply(measured) : measured;
+    }
+
+    @Override
+    public ObservableSource<T> apply(Observable<T> upstream) {
+        Observable<T> measured = metrics == null ? upstream : Observable.defer(() -> {
+            Measurement measurement = new Measurement();
+            return upstream
+                    .doOnSubscribe(disposable -> measurement.start())
+                    .doOnNext(value -> measurement.item())
+                    .doOnComplete(() -> measurement.finish(RxVerIDMetrics.OUTCOME_SUCCESS))
+                    .doOnError(error -> measurement.finish(RxVerIDMetrics.OUTCOME_ERROR))
+                    .doOnDispose(() -> measurement.finish(RxVerIDMetrics.OUTCOME_CANCELLED));
+        });
+        return tracing != null ? tracing.apply(measured) : measured;
+    }
+
+    @Override
+    public SingleSource<T> apply(Single<T> upstream) {
+        Single<T> measured = metrics == null ? upstream : Single.defer(() -> {
+            Measurement measurement = new Measurement();
+            return upstream
+                    .doOnSubscribe(disposable -> measurement.start())
+                    .doOnSuccess(value -> {
+                        measurement.item();
+                        measurement.finish(RxVerIDMetrics.OUTCOME_SUCCESS);
+                    })
+                    .doOnError(error -> measurement.finish(RxVerIDMetrics.OUTCOME_ERROR))
+                    .doOnDispose(() -> measurement.finish(RxVerIDMetrics.OUTCOME_CANCELLED));
+        });
+        return tracing != null ? tracing.apply(measured) : measured;
+    }
+}
@@ -0,0 +1,176 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * User store partitioned into stripes by user identifier hash
+ * <p>Writes hold the lock of the user's stripe only. Each stripe keeps a snapshot of the faces of its users in a {@link ConcurrentHashMap} so reads never take a lock or touch the stripe's user store.</p>
+ * @since 1.11.0
+ */
+class StripedUserManagement implements IUserManagement {
+
+    private static class Stripe {
+
+        final IUserManagement userManagement;
+        final Object writeLock = new Object();
+        final ConcurrentHashMap<String,IRecognizable[]> faces = new ConcurrentHashMap<>();
+
+        Stripe(IUserManagement userManagement) {
+            this.userManagement = userManagement;
+        }
+    }
+
+    private final Stripe[] stripes;
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor
+     * <p>Loads the faces of all users from the stripes' user stores.</p>
+     * @param stripeUserManagements User stores backing the stripes
+     * @throws Exception If the faces cannot be loaded or if a user is stored in the wrong stripe, e.g., because the number of stripes changed
+     * @since 1.11.0
+     */
+    StripedUserManagement(@NonNull IUserManagement[] stripeUserManagements) throws Exception {
+        stripes = new Stripe[stripeUserManagements.length];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(stripeUserManagements[i]);
+            for (String user : stripeUserManagements[i].getUsers()) {
+                if (stripeIndex(user) != i) {
+                    throw new IOException("User "+user+" is stored in the wrong stripe");
+                }
+                stripes[i].faces.put(user, stripeUserManagements[i].getFacesOfUser(user));
+            }
+        }
+    }
+
+    int stripeIndex(String user) {
+        return (user.hashCode() & 0x7fffffff) % stripes.length;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private Stripe stripeOf(String user) {
+        return stripes[stripeIndex(user)];
+    }
+
+    @Override
+    public void assignFacesToUser(IRecognizable[] faces, String user) throws Exception {
+        Stripe stripe = stripeOf(user);
+        synchronized (stripe.writeLock) {
+            stripe.userManagement.assignFacesToUser(faces, user);
+            stripe.faces.put(user, stripe.userManagement.getFacesOfUser(user));
+        }
+    }
+
+    @Override
+    public void deleteFaces(IRecognizable[] faces) throws Exception {
+        // Faces don't carry their user so every stripe that holds one of the faces is updated
+        for (Stripe stripe : stripes) {
+            synchronized (stripe.writeLock) {
+                ArrayList<String> affectedUsers = new ArrayList<>();
+                for (Map.Entry<String,IRecognizable[]> entry : stripe.faces.entrySet()) {
+                    if (containsAnyFace(entry.getValue(), faces)) {
+                        affectedUsers.add(entry.getKey());
+                    }
+                }
+                if (affectedUsers.isEmpty()) {
+                    continue;
+                }
+                stripe.userManagement.deleteFaces(faces);
+                for (String user : affectedUsers) {
+                    IRecognizable[] userFaces = stripe.userManagement.getFacesOfUser(user);
+                    if (userFaces == null || userFaces.length == 0) {
+                        stripe.faces.remove(user);
+                    } else {
+                        stripe.faces.put(user, userFaces);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void deleteUsers(String[] users) throws Exception {
+        ArrayList<ArrayList<String>> usersByStripe = new ArrayList<>(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            usersByStripe.add(new ArrayList<>());
+        }
+        for (String user : users) {
+            usersByStripe.get(stripeIndex(user)).add(user);
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            ArrayList<String> stripeUsers = usersByStripe.get(i);
+            if (stripeUsers.isEmpty()) {
+                continue;
+            }
+            Stripe stripe = stripes[i];
+            synchronized (stripe.writeLock) {
+                stripe.userManagement.deleteUsers(stripeUsers.toArray(new String[0]));
+                for (String user : stripeUsers) {
+                    stripe.faces.remove(user);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String[] getUsers() {
+        ArrayList<String> users = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            users.addAll(stripe.faces.keySet());
+        }
+        return users.toArray(new String[0]);
+    }
+
+    @Override
+    public IRecognizable[] getFacesOfUser(String user) {
+        IRecognizable[] faces = stripeOf(user).faces.get(user);
+        return faces != null ? faces.clone() : new IRecognizable[0];
+    }
+
+    @Override
+    public IRecognizable[] getFaces() {
+        ArrayList<IRecognizable> faces = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            for (IRecognizable[] userFaces : stripe.faces.values()) {
+                faces.addAll(Arrays.asList(userFaces));
+            }
+        }
+        return faces.toArray(new IRecognizable[0]);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe.writeLock) {
+                try {
+                    stripe.userManagement.close();
+                } catch (Exception ignore) {
+                }
+            }
+        }
+    }
+
+    private static boolean containsAnyFace(IRecognizable[] userFaces, IRecognizable[] faces) {
+        for (IRecognizable userFace : userFaces) {
+            for (IRecognizable face : faces) {
+                if (userFace == face || (userFace.getVersion() == face.getVersion() && Arrays.equals(userFace.getRecognitionData(), face.getRecognitionData()))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+import com.appliedrec.verid.core.IUserManagement;
+import com.appliedrec.verid.core.IUserManagementFactory;
+
+import java.io.File;
+
+/**
+ * Factory of a user store partitioned into stripes by user identifier hash
+ * <p>Each stripe is a separate user store made by its own factory. Writes to users in different stripes proceed in parallel and reads are served without locking from a snapshot of the faces that's updated after every write.</p>
+ * <p>The number of stripes must not change once users have been added because the stripe of a user is derived from the hash of the user identifier.</p>
+ * @since 1.11.0
+ */
+public class StripedUserManagementFactory implements IUserManagementFactory {
+
+    private final IUserManagementFactory[] stripeFactories;
+    private StripedUserManagement userManagement;
+
+    /**
+     * Constructor
+     * @param stripeFactories Factories of the user stores backing the stripes, one per stripe
+     * @since 1.11.0
+     */
+    public StripedUserManagementFactory(@NonNull IUserManagementFactory[] stripeFactories) {
+        if (stripeFactories.length == 0) {
+            throw new IllegalArgumentException("At least one stripe is required");
+        }
+        this.stripeFactories = stripeFactories;
+    }
+
+    /**
+     * Create a factory of a striped user store whose stripes are memory-mapped user stores
+     * @param directory Directory in which to keep the stripes
+     * @param stripeCount Number of stripes
+     * @return Factory
+     * @since 1.11.0
+     * @see MappedUserManagementFactory
+     */
+    public static StripedUserManagementFactory mapped(@NonNull File directory, int stripeCount) {
+        IUserManagementFactory[] stripeFactories = new IUserManagementFactory[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripeFactories[i] = new MappedUserManagementFactory(new File(directory, "stripe-"+i));
+        }
+        return new StripedUserManagementFactory(stripeFactories);
+    }
+
+    /**
+     * Number of stripes
+     * @return Stripe count
+     * @since 1.11.0
+     */
+    public int getStripeCount() {
+        return stripeFactories.length;
+    }
+
+    @Override
+    public synchronized IUserManagement makeUserManagement() throws Exception {
+        if (userManagement == null || userManagement.isClosed()) {
+            IUserManagement[] stripes = new IUserManagement[stripeFactories.length];
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = stripeFactories[i].makeUserManagement();
+            }
+            userManagement = new StripedUserManagement(stripes);
+        }
+        return userManagement;
+    }
+}
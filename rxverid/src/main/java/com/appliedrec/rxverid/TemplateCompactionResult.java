@@ -0,0 +1,77 @@
+package com.appliedrec.rxverid;
+
+/**
+ * Result of compacting the face templates of a user
+ * @since 1.11.0
+ * @see RxVerID#compactUserTemplates(String, int)
+ */
+public class TemplateCompactionResult {
+
+    private final String user;
+    private final int originalTemplateCount;
+    private final int compactedTemplateCount;
+    private final long compareNanosBefore;
+    private final long compareNanosAfter;
+
+    TemplateCompactionResult(String user, int originalTemplateCount, int compactedTemplateCount, long compareNanosBefore, long compareNanosAfter) {
+        this.user = user;
+        this.originalTemplateCount = originalTemplateCount;
+        this.compactedTemplateCount = compactedTemplateCount;
+        this.compareNanosBefore = compareNanosBefore;
+        this.compareNanosAfter = compareNanosAfter;
+    }
+
+    /**
+     * User whose templates were compacted
+     * @return User identifier
+     * @since 1.11.0
+     */
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * Number of templates the user had before compaction
+     * @return Template count
+     * @since 1.11.0
+     */
+    public int getOriginalTemplateCount() {
+        return originalTemplateCount;
+    }
+
+    /**
+     * Number of templates the user has after compaction
+     * @return Template count
+     * @since 1.11.0
+     */
+    public int getCompactedTemplateCount() {
+        return compactedTemplateCount;
+    }
+
+    /**
+     * Number of templates removed by the compaction
+     * @return Template count
+     * @since 1.11.0
+     */
+    public int getRemovedTemplateCount() {
+        return originalTemplateCount - compactedTemplateCount;
+    }
+
+    /**
+     * Mean time it took to compare a face to all of the user's templates before compaction
+     * @return Time in nanoseconds
+     * @since 1.11.0
+     */
+    public long getCompareNanosBefore() {
+        return compareNanosBefore;
+    }
+
+    /**
+     * Mean time it took to compare a face to the user's templates after compaction
+     * @return Time in nanoseconds
+     * @since 1.11.0
+     */
+    public long getCompareNanosAfter() {
+        return compareNanosAfter;
+    }
+}
@@ -0,0 +1,180 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IRecognizable;
+
+import java.util.Arrays;
+
+/**
+ * Selection of a small, diverse subset of a user's face templates
+ * <p>The selection starts with the medoid (the face most similar to all the other faces) and then repeatedly adds the face least similar to the faces already selected.
+ * Near-duplicate faces are therefore dropped first while faces that cover a different pose or appearance are kept.</p>
+ * <p>Face templates are opaque to RxVerID: they can be compared but not averaged or hashed. Representative templates, here as well as in {@link CentroidIndex} and {@link PivotBlocking}, are therefore always picked from the existing faces.</p>
+ * @since 1.11.0
+ */
+class TemplateSelection {
+
+    private TemplateSelection() {
+    }
+
+    /**
+     * Compare every pair of faces
+     * @param faces Faces
+     * @param faceRecognition Face recognition used to compare the faces
+     * @return Symmetric matrix of scores with zeros on the diagonal
+     * @throws Exception If the faces cannot be compared
+     * @since 1.11.0
+     */
+    @NonNull
+    static float[][] similarityMatrix(IRecognizable[] faces, IFaceRecognition faceRecognition) throws Exception {
+        float[][] scores = new float[faces.length][faces.length];
+        for (int i = 0; i < faces.length; i++) {
+            for (int j = i + 1; j < faces.length; j++) {
+                float score = faceRecognition.compareSubjectFacesToFaces(new IRecognizable[]{faces[i]}, new IRecognizable[]{faces[j]});
+                scores[i][j] = score;
+                scores[j][i] = score;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Select a diverse subset of faces
+     * @param similarities Similarity matrix returned by {@link #similarityMatrix(IRecognizable[], IFaceRecognition)}
+     * @param candidates Indices of the faces to select from
+     * @param maxCount Maximum number of faces to select
+     * @return Indices of the selected faces in order of selection
+     * @since 1.11.0
+     */
+    @NonNull
+    static int[] selectDiverse(float[][] similarities, int[] candidates, int maxCount) {
+        int count = Math.min(maxCount, candidates.length);
+        int[] selected = new int[count];
+        if (count == 0) {
+            return selected;
+        }
+        int medoid = candidates[0];
+        float bestTotal = Float.NEGATIVE_INFINITY;
+        for (int candidate : candidates) {
+            float total = 0;
+            for (int other : candidates) {
+                total += similarities[candidate][other];
+            }
+            if (total > bestTotal) {
+                bestTotal = total;
+                medoid = candidate;
+            }
+        }
+        selected[0] = medoid;
+        // maxSimilarity[i] = highest similarity of candidate i to any selected face
+        float[] maxSimilarity = new float[candidates.length];
+        boolean[] isSelected = new boolean[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            if (candidates[i] == medoid) {
+                isSelected[i] = true;
+            }
+            maxSimilarity[i] = similarities[candidates[i]][medoid];
+        }
+        for (int s = 1; s < count; s++) {
+            int next = -1;
+            for (int i = 0; i < candidates.length; i++) {
+                if (!isSelected[i] && (next == -1 || maxSimilarity[i] < maxSimilarity[next])) {
+                    next = i;
+                }
+            }
+            isSelected[next] = true;
+            selected[s] = candidates[next];
+            for (int i = 0; i < candidates.length; i++) {
+                maxSimilarity[i] = Math.max(maxSimilarity[i], similarities[candidates[i]][candidates[next]]);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Find the faces that agree with the majority of the faces
+     * <p>A face is an outlier if its mean similarity to the other faces is lower than the median of the mean similarities by more than {@literal madMultiplier} median absolute deviations.
+     * If the median absolute deviation is zero, i.e., more than half of the faces have the same mean similarity, the spread of the faces cannot be estimated and no face is rejected.</p>
+     * @param similarities Similarity matrix returned by {@link #similarityMatrix(IRecognizable[], IFaceRecognition)}
+     * @param madMultiplier Number of median absolute deviations below the median at which a face is rejected
+     * @return Indices of the faces that aren't outliers
+     * @since 1.11.0
+     */
+    @NonNull
+    static int[] rejectOutliers(float[][] similarities, float madMultiplier) {
+        int count = similarities.length;
+        if (count < 3) {
+            return allIndices(count);
+        }
+        float[] means = new float[count];
+        for (int i = 0; i < count; i++) {
+            float total = 0;
+            for (int j = 0; j < count; j++) {
+                total += similarities[i][j];
+            }
+            means[i] = total / (count - 1);
+        }
+        float median = median(means);
+        float[] deviations = new float[count];
+        for (int i = 0; i < count; i++) {
+            deviations[i] = Math.abs(means[i] - median);
+        }
+        float mad = median(deviations);
+        if (mad == 0) {
+            // A zero deviation would reject every face that differs from the median at all
+            return allIndices(count);
+        }
+        float cutoff = median - madMultiplier * mad;
+        int inlierCount = 0;
+        for (float mean : means) {
+            if (mean >= cutoff) {
+                inlierCount++;
+            }
+        }
+        int[] inliers = new int[inlierCount];
+        for (int i = 0, n = 0; i < count; i++) {
+            if (means[i] >= cutoff) {
+                inliers[n++] = i;
+            }
+        }
+        return inliers;
+    }
+
+    private static int[] allIndices(int count) {
+        int[] all = new int[count];
+        for (int i = 0; i < count; i++) {
+            all[i] = i;
+        }
+        return all;
+    }
+
+    private static float median(float[] values) {
+        float[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * Select a diverse subset of faces
+     * @param faces Faces to select from
+     * @param maxCount Maximum number of faces to select
+     * @param faceRecognition Face recognition used to compare the faces
+     * @return Indices of the selected faces in order of selection
+     * @throws Exception If the faces cannot be compared
+     * @since 1.11.0
+     */
+    @NonNull
+    static int[] selectDiverse(IRecognizable[] faces, int maxCount, IFaceRecognition faceRecognition) throws Exception {
+        int[] candidates = new int[faces.length];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = i;
+        }
+        if (faces.length <= maxCount) {
+            return candidates;
+        }
+        return selectDiverse(similarityMatrix(faces, faceRecognition), candidates, maxCount);
+    }
+}
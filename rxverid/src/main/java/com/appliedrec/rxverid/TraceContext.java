@@ -0,0 +1,76 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.Nullable;
+
+import io.reactivex.functions.Function;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Span of the call running on the current thread
+ * <p>The span is carried to the threads of RxJava schedulers by a schedule handler that captures the current span when a task is scheduled and restores it while the task runs.</p>
+ * @since 1.11.0
+ */
+class TraceContext {
+
+    private static final ThreadLocal<TraceSpan> currentSpan = new ThreadLocal<>();
+    private static Function<Runnable,Runnable> scheduleHandler;
+
+    private TraceContext() {
+    }
+
+    @Nullable
+    static TraceSpan current() {
+        return currentSpan.get();
+    }
+
+    /**
+     * Make a span current on this thread
+     * @param span Span to make current or {@literal null} to clear the current span
+     * @return Span that was current before the call
+     * @since 1.11.0
+     */
+    @Nullable
+    static TraceSpan swap(@Nullable TraceSpan span) {
+        TraceSpan previous = currentSpan.get();
+        if (span == null) {
+            currentSpan.remove();
+        } else {
+            currentSpan.set(span);
+        }
+        return previous;
+    }
+
+    /**
+     * Install the schedule handler that carries the current span across scheduler hops
+     * <p>The handler wraps the schedule handler that was installed before it. If the RxJava plugins are locked down the span isn't carried across threads.</p>
+     * @since 1.11.0
+     */
+    static synchronized void install() {
+        Function<? super Runnable, ? extends Runnable> previousHandler = RxJavaPlugins.getScheduleHandler();
+        // The handler is installed again if the plugins were reset since it was installed
+        if (previousHandler != null && previousHandler == scheduleHandler) {
+            return;
+        }
+        Function<Runnable,Runnable> handler = runnable -> wrap(previousHandler != null ? previousHandler.apply(runnable) : runnable);
+        try {
+            RxJavaPlugins.setScheduleHandler(handler);
+            scheduleHandler = handler;
+        } catch (IllegalStateException ignore) {
+        }
+    }
+
+    static Runnable wrap(Runnable runnable) {
+        TraceSpan span = currentSpan.get();
+        if (span == null) {
+            return runnable;
+        }
+        return () -> {
+            TraceSpan previous = swap(span);
+            try {
+                runnable.run();
+            } finally {
+                swap(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Receiver of the tracing spans of RxVerID calls
+ * <p>Register an implementation using {@link RxVerID.Builder#setTraceSink(TraceSink)}. The sink is called on the thread on which the span finished and must be thread-safe.</p>
+ * @since 1.11.0
+ */
+public interface TraceSink {
+
+    /**
+     * Called when a span succeeds, fails or is disposed
+     * @param span Finished span
+     * @since 1.11.0
+     */
+    void onSpanFinished(@NonNull TraceSpan span);
+}
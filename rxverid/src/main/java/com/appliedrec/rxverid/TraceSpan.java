@@ -0,0 +1,166 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Timed section of an RxVerID call
+ * <p>Every public RxVerID call opens a span named after the method and every stage of the call, e.g., {@link RxVerIDMetrics#STAGE_FACE_DETECTION face detection}, opens a child span named after the stage.
+ * All spans opened while serving a call share the call's trace identifier, including spans that run on other threads after {@code subscribeOn} or {@code observeOn}.</p>
+ * <p>Use {@link #current()} to tag log lines with the trace identifier of the call that's running on the current thread.</p>
+ * @since 1.11.0
+ */
+public class TraceSpan {
+
+    private final String name;
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final long startTimeMillis;
+    private final long startNanos;
+    private final String threadName;
+    private long durationNanos;
+    private int outcome;
+    private Throwable error;
+
+    private TraceSpan(String name, String traceId, String spanId, String parentSpanId) {
+        this.name = name;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.startTimeMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.threadName = Thread.currentThread().getName();
+    }
+
+    /**
+     * Start a span
+     * @param name Span name
+     * @param parent Parent span or {@literal null} to start a new trace
+     * @return Started span
+     * @since 1.11.0
+     */
+    static TraceSpan start(String name, @Nullable TraceSpan parent) {
+        if (parent == null) {
+            return new TraceSpan(name, newId()+newId(), newId(), null);
+        }
+        return new TraceSpan(name, parent.getTraceId(), newId(), parent.getSpanId());
+    }
+
+    private static String newId() {
+        return String.format(Locale.ROOT, "%016x", ThreadLocalRandom.current().nextLong());
+    }
+
+    void finish(@RxVerIDMetrics.Outcome int outcome, @Nullable Throwable error) {
+        this.durationNanos = System.nanoTime() - startNanos;
+        this.outcome = outcome;
+        this.error = error;
+    }
+
+    /**
+     * Span running on the current thread
+     * @return Innermost span of the RxVerID call running on the current thread or {@literal null} if the thread isn't serving a traced call
+     * @since 1.11.0
+     */
+    @Nullable
+    public static TraceSpan current() {
+        return TraceContext.current();
+    }
+
+    /**
+     * Name of the span
+     * @return Name of the public method or of the stage
+     * @since 1.11.0
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Identifier of the trace shared by all the spans of a call
+     * @return 32 hexadecimal digits
+     * @since 1.11.0
+     */
+    @NonNull
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Identifier of the span
+     * @return 16 hexadecimal digits
+     * @since 1.11.0
+     */
+    @NonNull
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * Identifier of the parent span
+     * @return 16 hexadecimal digits or {@literal null} if the span is the root of the trace
+     * @since 1.11.0
+     */
+    @Nullable
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    /**
+     * Wall clock time at which the span started
+     * @return Milliseconds since the epoch
+     * @since 1.11.0
+     */
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    /**
+     * Duration of the span
+     * @return Nanoseconds from the subscription to the end of the span or {@literal 0} if the span hasn't finished
+     * @since 1.11.0
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Outcome of the span
+     * @return {@link RxVerIDMetrics#OUTCOME_SUCCESS}, {@link RxVerIDMetrics#OUTCOME_ERROR}, {@link RxVerIDMetrics#OUTCOME_CANCELLED} or {@literal 0} if the span hasn't finished
+     * @since 1.11.0
+     */
+    @RxVerIDMetrics.Outcome
+    public int getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Error with which the span failed
+     * @return Error or {@literal null} if the span didn't fail
+     * @since 1.11.0
+     */
+    @Nullable
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Name of the thread on which the span started
+     * @return Thread name
+     * @since 1.11.0
+     */
+    @NonNull
+    public String getThreadName() {
+        return threadName;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "TraceSpan{name="+name+", traceId="+traceId+", spanId="+spanId+", parentSpanId="+parentSpanId+", durationNanos="+durationNanos+", outcome="+outcome+"}";
+    }
+}
@@ -0,0 +1,497 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.Nullable;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableObserver;
+import io.reactivex.CompletableSource;
+import io.reactivex.CompletableTransformer;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableSubscriber;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Maybe;
+import io.reactivex.MaybeObserver;
+import io.reactivex.MaybeSource;
+import io.reactivex.MaybeTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Observer;
+import io.reactivex.Single;
+import io.reactivex.SingleObserver;
+import io.reactivex.SingleSource;
+import io.reactivex.SingleTransformer;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Transformer that opens a {@link TraceSpan} for every subscription and reports it to a {@link TraceSink} when it finishes
+ * <p>The span is the current span while the upstream is subscribed so the spans of stages subscribed by the upstream, on this thread or after a scheduler hop, become its children.
+ * Values and terminal events are delivered downstream with the parent span current again. A subscription made while a span of the same name is current, e.g., by an overload delegating to another overload, joins that span instead of opening a new one.</p>
+ * @param <T> Type
+ * @since 1.11.0
+ */
+class TracingTransformer<T> implements ObservableTransformer<T,T>, SingleTransformer<T,T>, FlowableTransformer<T,T>, MaybeTransformer<T,T>, CompletableTransformer {
+
+    private final TraceSink sink;
+    private final String name;
+
+    /**
+     * Constructor
+     * @param sink Sink to which to report the spans or {@literal null} to leave the upstream untraced
+     * @param name Span name
+     * @since 1.11.0
+     */
+    TracingTransformer(@Nullable TraceSink sink, String name) {
+        this.sink = sink;
+        this.name = name;
+    }
+
+    /**
+     * Overloads of a public method that delegate to each other are traced as a single span
+     * @return {@literal true} if the current span has the name of this transformer
+     */
+    private boolean isRecursive() {
+        TraceSpan current = TraceContext.current();
+        return current != null && current.getName().equals(name);
+    }
+
+    /**
+     * Span of a single subscription
+     */
+    private static class Scope {
+
+        private final TraceSink sink;
+        private final TraceSpan span;
+        private final TraceSpan parent;
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+
+        Scope(TraceSink sink, String name) {
+            this.sink = sink;
+            this.parent = TraceContext.current();
+            this.span = TraceSpan.start(name, parent);
+        }
+
+        void finish(@RxVerIDMetrics.Outcome int outcome, @Nullable Throwable error) {
+            // A subscription can be disposed after it terminated – only the first outcome counts
+            if (finished.compareAndSet(false, true)) {
+                span.finish(outcome, error);
+                sink.onSpanFinished(span);
+            }
+        }
+
+        TraceSpan enter() {
+            return TraceContext.swap(span);
+        }
+
+        TraceSpan exitToParent() {
+            return TraceContext.swap(parent);
+        }
+    }
+
+    @Override
+    public CompletableSource apply(Completable upstream) {
+        if (sink == null) {
+            return upstream;
+        }
+        return new Completable() {
+            @Override
+            protected void subscribeActual(CompletableObserver observer) {
+                if (isRecursive()) {
+                    upstream.subscribe(observer);
+                    return;
+                }
+                Scope scope = new Scope(sink, name);
+                TraceSpan previous = scope.enter();
+                try {
+                    upstream.subscribe(new TracingCompletableObserver(observer, scope));
+                } finally {
+                    TraceContext.swap(previous);
+                }
+            }
+        };
+    }
+
+    @Override
+    public Publisher<T> apply(Flowable<T> upstream) {
+        if (sink == null) {
+            return upstream;
+        }
+        return new Flowable<T>() {
+            @Override
+            protected void subscribeActual(Subscriber<? super T> subscriber) {
+                if (isRecursive()) {
+                    upstream.subscribe(subscriber);
+                    return;
+                }
+                Scope scope = new Scope(sink, name);
+                TraceSpan previous = scope.enter();
+                try {
+                    upstream.subscribe(new TracingSubscriber<>(subscriber, scope));
+                } finally {
+                    TraceContext.swap(previous);
+                }
+            }
+        };
+    }
+
+    @Override
+    public MaybeSource<T> apply(Maybe<T> upstream) {
+        if (sink == null) {
+            return upstream;
+        }
+        return new Maybe<T>() {
+            @Override
+            protected void subscribeActual(MaybeObserver<? super T> observer) {
+                if (isRecursive()) {
+                    upstream.subscribe(observer);
+                    return;
+                }
+                Scope scope = new Scope(sink, name);
+                TraceSpan previous = scope.enter();
+                try {
+                    upstream.subscribe(new TracingMaybeObserver<>(observer, scope));
+                } finally {
+                    TraceContext.swap(previous);
+                }
+            }
+        };
+    }
+
+    @Override
+    public ObservableSource<T> apply(Observable<T> upstream) {
+        if (sink == null) {
+            return upstream;
+        }
+        return new Observable<T>() {
+            @Override
+            protected void subscribeActual(Observer<? super T> observer) {
+                if (isRecursive()) {
+                    upstream.subscribe(observer);
+                    return;
+                }
+                Scope scope = new Scope(sink, name);
+                TraceSpan previous = scope.enter();
+                try {
+                    upstream.subscribe(new TracingObserver<>(observer, scope));
+                } finally {
+                    TraceContext.swap(previous);
+                }
+            }
+        };
+    }
+
+    @Override
+    public SingleSource<T> apply(Single<T> upstream) {
+        if (sink == null) {
+            return upstream;
+        }
+        return new Single<T>() {
+            @Override
+            protected void subscribeActual(SingleObserver<? super T> observer) {
+                if (isRecursive()) {
+                    upstream.subscribe(observer);
+                    return;
+                }
+                Scope scope = new Scope(sink, name);
+                TraceSpan previous = scope.enter();
+                try {
+                    upstream.subscribe(new TracingSingleObserver<>(observer, scope));
+                } finally {
+                    TraceContext.swap(previous);
+                }
+            }
+        };
+    }
+
+    private static class TracingObserver<T> implements Observer<T>, Disposable {
+
+        private final Observer<? super T> downstream;
+        private final Scope scope;
+        private Disposable upstream;
+
+        TracingObserver(Observer<? super T> downstream, Scope scope) {
+            this.downstream = downstream;
+            this.scope = scope;
+        }
+
+        @Override
+        public void onSubscribe(Disposable disposable) {
+            upstream = disposable;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T value) {
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onNext(value);
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            scope.finish(RxVerIDMetrics.OUTCOME_ERROR, error);
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onError(error);
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            scope.finish(RxVerIDMetrics.OUTCOME_SUCCESS, null);
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onComplete();
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            scope.finish(RxVerIDMetrics.OUTCOME_CANCELLED, null);
+            upstream.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return upstream.isDisposed();
+        }
+    }
+
+    private static class TracingSingleObserver<T> implements SingleObserver<T>, Disposable {
+
+        private final SingleObserver<? super T> downstream;
+        private final Scope scope;
+        private Disposable upstream;
+
+        TracingSingleObserver(SingleObserver<? super T> downstream, Scope scope) {
+            this.downstream = downstream;
+            this.scope = scope;
+        }
+
+        @Override
+        public void onSubscribe(Disposable disposable) {
+            upstream = disposable;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onSuccess(T value) {
+            scope.finish(RxVerIDMetrics.OUTCOME_SUCCESS, null);
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onSuccess(value);
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            scope.finish(RxVerIDMetrics.OUTCOME_ERROR, error);
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onError(error);
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            scope.finish(RxVerIDMetrics.OUTCOME_CANCELLED, null);
+            upstream.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return upstream.isDisposed();
+        }
+    }
+
+    private static class TracingMaybeObserver<T> implements MaybeObserver<T>, Disposable {
+
+        private final MaybeObserver<? super T> downstream;
+        private final Scope scope;
+        private Disposable upstream;
+
+        TracingMaybeObserver(MaybeObserver<? super T> downstream, Scope scope) {
+            this.downstream = downstream;
+            this.scope = scope;
+        }
+
+        @Override
+        public void onSubscribe(Disposable disposable) {
+            upstream = disposable;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onSuccess(T value) {
+            scope.finish(RxVerIDMetrics.OUTCOME_SUCCESS, null);
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onSuccess(value);
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            scope.finish(RxVerIDMetrics.OUTCOME_ERROR, error);
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onError(error);
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            scope.finish(RxVerIDMetrics.OUTCOME_SUCCESS, null);
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onComplete();
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            scope.finish(RxVerIDMetrics.OUTCOME_CANCELLED, null);
+            upstream.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return upstream.isDisposed();
+        }
+    }
+
+    private static class TracingCompletableObserver implements CompletableObserver, Disposable {
+
+        private final CompletableObserver downstream;
+        private final Scope scope;
+        private Disposable upstream;
+
+        TracingCompletableObserver(CompletableObserver downstream, Scope scope) {
+            this.downstream = downstream;
+            this.scope = scope;
+        }
+
+        @Override
+        public void onSubscribe(Disposable disposable) {
+            upstream = disposable;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onComplete() {
+            scope.finish(RxVerIDMetrics.OUTCOME_SUCCESS, null);
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onComplete();
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            scope.finish(RxVerIDMetrics.OUTCOME_ERROR, error);
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onError(error);
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            scope.finish(RxVerIDMetrics.OUTCOME_CANCELLED, null);
+            upstream.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return upstream.isDisposed();
+        }
+    }
+
+    private static class TracingSubscriber<T> implements FlowableSubscriber<T>, Subscription {
+
+        private final Subscriber<? super T> downstream;
+        private final Scope scope;
+        private Subscription upstream;
+
+        TracingSubscriber(Subscriber<? super T> downstream, Scope scope) {
+            this.downstream = downstream;
+            this.scope = scope;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T value) {
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onNext(value);
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            scope.finish(RxVerIDMetrics.OUTCOME_ERROR, error);
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onError(error);
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            scope.finish(RxVerIDMetrics.OUTCOME_SUCCESS, null);
+            TraceSpan previous = scope.exitToParent();
+            try {
+                downstream.onComplete();
+            } finally {
+                TraceContext.swap(previous);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            scope.finish(RxVerIDMetrics.OUTCOME_CANCELLED, null);
+            upstream.cancel();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+import com.appliedrec.verid.core.VerID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+import io.reactivex.subjects.CompletableSubject;
+
+/**
+ * Queue that coalesces user management writes issued within a short window into batched user store calls
+ * <p>Within a batch all user deletions are written in a single {@link IUserManagement#deleteUsers(String[])} call followed by one {@link IUserManagement#assignFacesToUser(IRecognizable[], String)} call per user.
+ * Deleting a user discards the user's assignments queued before the deletion so the outcome for each user is the same as if the writes were applied one by one in the order they were queued.</p>
+ * <p>Each caller gets the outcome of the writes to its own user. If the combined deletion fails the users are deleted one by one; a failed write to one user doesn't fail or skip the writes to the other users in the batch.</p>
+ * @since 1.11.0
+ */
+class UserManagementWriteQueue {
+
+    /**
+     * Listener notified after a batch has been written to the user store
+     * @since 1.11.0
+     */
+    interface Listener {
+
+        void onFacesAssignedToUser(VerID verID, String user, IRecognizable[] faces);
+
+        void onUserDeleted(String user);
+
+        /**
+         * Called after a batch in which some writes failed and may have been applied in part
+         */
+        void onBatchFailed();
+    }
+
+    private static class Batch {
+
+        private final VerID verID;
+        private final LinkedHashSet<String> deletions = new LinkedHashSet<>();
+        private final LinkedHashMap<String,ArrayList<IRecognizable>> assignments = new LinkedHashMap<>();
+        private final LinkedHashMap<String,ArrayList<CompletableSubject>> completions = new LinkedHashMap<>();
+
+        Batch(VerID verID) {
+            this.verID = verID;
+        }
+    }
+
+    private final long windowMillis;
+    private final Scheduler scheduler;
+    private final Listener listener;
+    private final UserWriteLocks userWriteLocks;
+    private final Object flushLock = new Object();
+    private IdentityHashMap<VerID,Batch> pending = new IdentityHashMap<>();
+    private boolean flushScheduled = false;
+
+    /**
+     * Constructor
+     * @param windowMillis Time in milliseconds for which writes are collected before they're written to the user store
+     * @param scheduler Scheduler on which the batches are written
+     * @param listener Listener notified after the batches are written
+     * @since 1.11.0
+     */
+    UserManagementWriteQueue(long windowMillis, Scheduler scheduler, Listener listener) {
+        this(windowMillis, scheduler, listener, new UserWriteLocks(1));
+    }
+
+    /**
+     * Constructor
+     * @param windowMillis Time in milliseconds for which writes are collected before they're written to the user store
+     * @param scheduler Scheduler on which the batches are written
+     * @param listener Listener notified after the batches are written
+     * @param userWriteLocks Locks held while a user is written and the listener is notified
+     * @since 1.11.0
+     */
+    UserManagementWriteQueue(long windowMillis, Scheduler scheduler, Listener listener, UserWriteLocks userWriteLocks) {
+        this.windowMillis = windowMillis;
+        this.scheduler = scheduler;
+        this.listener = listener;
+        this.userWriteLocks = userWriteLocks;
+    }
+
+    long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * Queue assignment of faces to user
+     * @param verID Ver-ID instance whose user store will be updated
+     * @param faces Faces to assign to the user
+     * @param user User to whom the faces should be assigned
+     * @return Completable that completes when the batch containing the assignment has been written or fails if a write to the user failed
+     * @since 1.11.0
+     */
+    Completable assignFacesToUser(VerID verID, IRecognizable[] faces, String user) {
+        return Completable.defer(() -> enqueue(verID, user, batch -> {
+            ArrayList<IRecognizable> userFaces = batch.assignments.get(user);
+            if (userFaces == null) {
+                userFaces = new ArrayList<>();
+                batch.assignments.put(user, userFaces);
+            }
+            userFaces.addAll(Arrays.asList(faces));
+        }));
+    }
+
+    /**
+     * Queue deletion of user
+     * @param verID Ver-ID instance whose user store will be updated
+     * @param user User to delete
+     * @return Completable that completes when the batch containing the deletion has been written or fails if a write to the user failed
+     * @since 1.11.0
+     */
+    Completable deleteUser(VerID verID, String user) {
+        return Completable.defer(() -> enqueue(verID, user, batch -> {
+            batch.assignments.remove(user);
+            batch.deletions.add(user);
+        }));
+    }
+
+    /**
+     * Write all queued writes without waiting for the window to elapse
+     * @return Completable that completes when the queued writes have been written
+     * @since 1.11.0
+     */
+    Completable flush() {
+        return Completable.fromAction(this::flushPending).subscribeOn(scheduler);
+    }
+
+    private interface BatchOperation {
+        void apply(Batch batch);
+    }
+
+    private synchronized CompletableSubject enqueue(VerID verID, String user, BatchOperation operation) {
+        Batch batch = pending.get(verID);
+        if (batch == null) {
+            batch = new Batch(verID);
+            pending.put(verID, batch);
+        }
+        operation.apply(batch);
+        CompletableSubject completion = CompletableSubject.create();
+        ArrayList<CompletableSubject> userCompletions = batch.completions.get(user);
+        if (userCompletions == null) {
+            userCompletions = new ArrayList<>();
+            batch.completions.put(user, userCompletions);
+        }
+        userCompletions.add(completion);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.scheduleDirect(this::flushPending, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return completion;
+    }
+
+    private void flushPending() {
+        // Batches are written one at a time so that writes to the same user are applied in the order they were queued
+        synchronized (flushLock) {
+            IdentityHashMap<VerID,Batch> batches;
+            synchronized (this) {
+                batches = pending;
+                pending = new IdentityHashMap<>();
+                flushScheduled = false;
+            }
+            for (Map.Entry<VerID,Batch> entry : batches.entrySet()) {
+                writeBatch(entry.getValue());
+            }
+        }
+    }
+
+    private void writeBatch(Batch batch) {
+        HashMap<String,Exception> errors = new HashMap<>();
+        IUserManagement userManagement;
+        try {
+            userManagement = batch.verID.getUserManagement();
+        } catch (Exception e) {
+            // Nothing has been written
+            completeBatch(batch, user -> e);
+            return;
+        }
+        if (!batch.deletions.isEmpty()) {
+            try {
+                userWriteLocks.write(batch.deletions, () -> {
+                    userManagement.deleteUsers(batch.deletions.toArray(new String[0]));
+                    for (String user : batch.deletions) {
+                        listener.onUserDeleted(user);
+                    }
+                });
+            } catch (Exception e) {
+                // The combined deletion may have been applied in part, delete the users one by one so that each caller gets the outcome of its own write
+                for (String user : batch.deletions) {
+                    try {
+                        userWriteLocks.write(user, () -> {
+                            userManagement.deleteUsers(new String[]{user});
+                            listener.onUserDeleted(user);
+                        });
+                    } catch (Exception userError) {
+                        errors.put(user, userError);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String,ArrayList<IRecognizable>> assignment : batch.assignments.entrySet()) {
+            String user = assignment.getKey();
+            if (errors.containsKey(user)) {
+                // The assignment was queued after the user's failed deletion
+                continue;
+            }
+            IRecognizable[] faces = assignment.getValue().toArray(new IRecognizable[0]);
+            try {
+                userWriteLocks.write(user, () -> {
+                    userManagement.assignFacesToUser(faces, user);
+                    listener.onFacesAssignedToUser(batch.verID, user, faces);
+                });
+            } catch (Exception e) {
+                errors.put(user, e);
+            }
+        }
+        if (!errors.isEmpty()) {
+            // The failed writes may have been applied in part
+            listener.onBatchFailed();
+        }
+        completeBatch(batch, errors::get);
+    }
+
+    private interface ErrorOfUser {
+        Exception get(String user);
+    }
+
+    private static void completeBatch(Batch batch, ErrorOfUser errorOfUser) {
+        for (Map.Entry<String,ArrayList<CompletableSubject>> userCompletions : batch.completions.entrySet()) {
+            Exception error = errorOfUser.get(userCompletions.getKey());
+            for (CompletableSubject completion : userCompletions.getValue()) {
+                if (error != null) {
+                    completion.onError(error);
+                } else {
+                    completion.onComplete();
+                }
+            }
+        }
+    }
+}
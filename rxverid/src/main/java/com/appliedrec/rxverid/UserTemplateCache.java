@@ -0,0 +1,214 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of face templates of users
+ * <p>Enable the cache using {@link RxVerID.Builder#setUserTemplateCacheSize(int)}. RxVerID invalidates the cached faces of a user when faces are assigned to the user or when the user is deleted.
+ * Invalidating a user only affects that user: faces of other users that are loading at the same time are still cached.</p>
+ * <p>Concurrent misses on the same user wait for one load from the user store instead of each reading the user's faces.</p>
+ * <p>The cache holds the faces of one user store at a time. Reading the faces of a user from another user store empties the cache.</p>
+ * @since 1.11.0
+ */
+public class UserTemplateCache {
+
+    private final int maxSize;
+    private final LinkedHashMap<String,IRecognizable[]> templates;
+    // Loads in progress by user; a load whose entry was removed in the meantime isn't cached
+    private final HashMap<String,Load> loads = new HashMap<>();
+    private IUserManagement userManagement;
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+    private long invalidationCount = 0;
+
+    /**
+     * Load of the faces of a user that concurrent callers wait for
+     */
+    private static class Load {
+
+        private IRecognizable[] faces;
+        private Exception error;
+        private boolean done = false;
+
+        synchronized void complete(IRecognizable[] faces, Exception error) {
+            this.faces = faces;
+            this.error = error;
+            done = true;
+            notifyAll();
+        }
+
+        synchronized IRecognizable[] await() throws Exception {
+            while (!done) {
+                wait();
+            }
+            if (error != null) {
+                throw error;
+            }
+            return faces;
+        }
+    }
+
+    /**
+     * Constructor
+     * @param maxSize Maximum number of users whose faces are kept in the cache
+     * @since 1.11.0
+     */
+    UserTemplateCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.templates = new LinkedHashMap<String, IRecognizable[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IRecognizable[]> eldest) {
+                if (size() > UserTemplateCache.this.maxSize) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get faces of user from the cache or load them from the user store if they're not cached
+     * @param userManagement User management from which to load the faces on a cache miss
+     * @param user User whose faces to get
+     * @return Faces of the user
+     * @throws Exception If the faces cannot be loaded
+     * @since 1.11.0
+     */
+    @NonNull
+    IRecognizable[] getFacesOfUser(IUserManagement userManagement, String user) throws Exception {
+        Load pendingLoad;
+        Load load = null;
+        synchronized (this) {
+            if (this.userManagement != userManagement) {
+                // Cached faces belong to another user store
+                templates.clear();
+                loads.clear();
+                this.userManagement = userManagement;
+            }
+            IRecognizable[] faces = templates.get(user);
+            if (faces != null) {
+                hitCount++;
+                return faces;
+            }
+            pendingLoad = loads.get(user);
+            if (pendingLoad != null) {
+                // Served by the load in progress without reading the user store again
+                hitCount++;
+            } else {
+                missCount++;
+                load = new Load();
+                loads.put(user, load);
+            }
+        }
+        if (pendingLoad != null) {
+            return pendingLoad.await();
+        }
+        IRecognizable[] faces;
+        try {
+            faces = userManagement.getFacesOfUser(user);
+        } catch (Exception e) {
+            synchronized (this) {
+                if (loads.get(user) == load) {
+                    loads.remove(user);
+                }
+            }
+            load.complete(null, e);
+            throw e;
+        }
+        synchronized (this) {
+            // Don't cache the faces if the user was invalidated while the faces were loading
+            if (loads.get(user) == load) {
+                loads.remove(user);
+                if (faces != null) {
+                    templates.put(user, faces);
+                }
+            }
+        }
+        load.complete(faces, null);
+        return faces;
+    }
+
+    /**
+     * Remove the faces of the user from the cache
+     * @param user User whose faces changed
+     * @since 1.11.0
+     */
+    synchronized void invalidate(String user) {
+        invalidationCount++;
+        templates.remove(user);
+        loads.remove(user);
+    }
+
+    /**
+     * Remove all faces from the cache
+     * @since 1.11.0
+     */
+    synchronized void invalidateAll() {
+        invalidationCount++;
+        templates.clear();
+        loads.clear();
+    }
+
+    /**
+     * Maximum number of users whose faces are kept in the cache
+     * @return Cache size
+     * @since 1.11.0
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Number of users whose faces are currently in the cache
+     * @return Number of cached users
+     * @since 1.11.0
+     */
+    public synchronized int getSize() {
+        return templates.size();
+    }
+
+    /**
+     * Number of requests served from the cache
+     * @return Hit count
+     * @since 1.11.0
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Number of requests that had to load faces from the user store
+     * @return Miss count
+     * @since 1.11.0
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Number of users evicted from the cache to make room for other users
+     * @return Eviction count
+     * @since 1.11.0
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Number of times cached faces were invalidated by changes to the user store
+     * @return Invalidation count
+     * @since 1.11.0
+     */
+    public synchronized long getInvalidationCount() {
+        return invalidationCount;
+    }
+}
@@ -0,0 +1,75 @@
+package com.appliedrec.rxverid;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+/**
+ * Striped locks that order the user store writes to a user with the changes recorded for them
+ * <p>A write to the user store and the updates of the derived indices and the {@link GalleryChangeFeed gallery change feed} that follow it are done while holding the user's lock.
+ * Concurrent writes to the same user are therefore recorded in the order in which they were applied to the user store. Writes to users in different stripes don't wait for each other.</p>
+ * @since 1.11.0
+ */
+class UserWriteLocks {
+
+    interface Write {
+        void run() throws Exception;
+    }
+
+    private final Object[] stripes;
+
+    /**
+     * Constructor
+     * @param stripeCount Number of locks the users are spread over
+     * @since 1.11.0
+     */
+    UserWriteLocks(int stripeCount) {
+        stripes = new Object[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Run a write to a user while holding the user's lock
+     * @param user User
+     * @param write Write
+     * @throws Exception If the write fails
+     * @since 1.11.0
+     */
+    void write(String user, Write write) throws Exception {
+        synchronized (stripes[stripeOf(user)]) {
+            write.run();
+        }
+    }
+
+    /**
+     * Run a write to several users while holding the locks of all of them
+     * <p>The locks are acquired in stripe order so that writes to overlapping sets of users cannot deadlock.</p>
+     * @param users Users
+     * @param write Write
+     * @throws Exception If the write fails
+     * @since 1.11.0
+     */
+    void write(Collection<String> users, Write write) throws Exception {
+        TreeSet<Integer> stripeIndices = new TreeSet<>();
+        for (String user : users) {
+            stripeIndices.add(stripeOf(user));
+        }
+        writeLocked(stripeIndices.iterator(), write);
+    }
+
+    private void writeLocked(Iterator<Integer> stripeIndices, Write write) throws Exception {
+        if (!stripeIndices.hasNext()) {
+            write.run();
+            return;
+        }
+        synchronized (stripes[stripeIndices.next()]) {
+            writeLocked(stripeIndices, write);
+        }
+    }
+
+    private int stripeOf(String user) {
+        return (user.hashCode() & 0x7fffffff) % stripes.length;
+    }
+}
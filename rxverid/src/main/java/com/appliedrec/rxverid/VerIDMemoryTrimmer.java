@@ -0,0 +1,38 @@
+package com.appliedrec.rxverid;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Releases the Ver-ID instance of RxVerID when the system asks the app to trim its memory
+ * <p>Registered with the application context by RxVerID when it loads a Ver-ID instance, if a trim level is set using {@link RxVerID.Builder#setMemoryTrimLevel(int)}, and unregistered when the instance is released.</p>
+ * @since 1.11.0
+ */
+class VerIDMemoryTrimmer implements ComponentCallbacks2 {
+
+    private final RxVerID rxVerID;
+    private final int trimLevel;
+
+    VerIDMemoryTrimmer(RxVerID rxVerID, int trimLevel) {
+        this.rxVerID = rxVerID;
+        this.trimLevel = trimLevel;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= trimLevel) {
+            rxVerID.releaseVerID();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        rxVerID.releaseVerID();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IFaceDetection;
+import com.appliedrec.verid.core.IFaceDetectionFactory;
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IFaceRecognitionFactory;
+import com.appliedrec.verid.core.IUserManagement;
+import com.appliedrec.verid.core.IUserManagementFactory;
+import com.appliedrec.verid.core.VerIDFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times the phases of creating a Ver-ID instance
+ * <p>The component factories of the Ver-ID factory are replaced by wrappers that time the calls to the wrapped factories.</p>
+ * @since 1.11.0
+ */
+class VerIDStartupProfiler {
+
+    private final long startTimeMillis = System.currentTimeMillis();
+    private final long startTimeNanos = System.nanoTime();
+    private final AtomicLong faceDetectionLoadNanos = new AtomicLong();
+    private final AtomicLong faceRecognitionLoadNanos = new AtomicLong();
+    private final AtomicLong userStoreOpenNanos = new AtomicLong();
+    private long factoryConstructionNanos;
+
+    /**
+     * Wrap the component factories of a Ver-ID factory and end the factory construction phase
+     * @param verIDFactory Configured Ver-ID factory
+     */
+    void instrument(VerIDFactory verIDFactory) {
+        IFaceDetectionFactory faceDetectionFactory = verIDFactory.getFaceDetectionFactory();
+        if (faceDetectionFactory != null) {
+            verIDFactory.setFaceDetectionFactory(new TimedFaceDetectionFactory(faceDetectionFactory, faceDetectionLoadNanos));
+        }
+        IFaceRecognitionFactory faceRecognitionFactory = verIDFactory.getFaceRecognitionFactory();
+        if (faceRecognitionFactory != null) {
+            verIDFactory.setFaceRecognitionFactory(new TimedFaceRecognitionFactory(faceRecognitionFactory, faceRecognitionLoadNanos));
+        }
+        IUserManagementFactory userManagementFactory = verIDFactory.getUserManagementFactory();
+        if (userManagementFactory != null) {
+            verIDFactory.setUserManagementFactory(new TimedUserManagementFactory(userManagementFactory, userStoreOpenNanos));
+        }
+        factoryConstructionNanos = System.nanoTime() - startTimeNanos;
+    }
+
+    /**
+     * Create the report once the Ver-ID instance has been created
+     * @return Report
+     */
+    VerIDStartupReport createReport() {
+        long totalNanos = System.nanoTime() - startTimeNanos;
+        long componentNanos = faceDetectionLoadNanos.get() + faceRecognitionLoadNanos.get() + userStoreOpenNanos.get();
+        // The components may be created in parallel, in which case their times overlap
+        long identityVerificationNanos = Math.max(0, totalNanos - factoryConstructionNanos - componentNanos);
+        return new VerIDStartupReport(startTimeMillis, factoryConstructionNanos, identityVerificationNanos, faceDetectionLoadNanos.get(), faceRecognitionLoadNanos.get(), userStoreOpenNanos.get(), totalNanos);
+    }
+
+    /**
+     * Report the phases to metrics as stages
+     * @param report Startup report
+     * @param metrics Metrics
+     */
+    static void reportToMetrics(VerIDStartupReport report, RxVerIDMetrics metrics) {
+        reportStage(metrics, RxVerIDMetrics.STAGE_VERID_FACTORY_CONSTRUCTION, report.getFactoryConstructionNanos());
+        reportStage(metrics, RxVerIDMetrics.STAGE_VERID_IDENTITY_VERIFICATION, report.getIdentityVerificationNanos());
+        reportStage(metrics, RxVerIDMetrics.STAGE_FACE_DETECTION_LOAD, report.getFaceDetectionLoadNanos());
+        reportStage(metrics, RxVerIDMetrics.STAGE_FACE_RECOGNITION_LOAD, report.getFaceRecognitionLoadNanos());
+        reportStage(metrics, RxVerIDMetrics.STAGE_USER_STORE_OPEN, report.getUserStoreOpenNanos());
+    }
+
+    private static void reportStage(RxVerIDMetrics metrics, String stage, long durationNanos) {
+        metrics.onStageStarted(stage);
+        metrics.onStageFinished(stage, RxVerIDMetrics.OUTCOME_SUCCESS, durationNanos, 1);
+    }
+
+    static class TimedFaceDetectionFactory implements IFaceDetectionFactory {
+
+        private final IFaceDetectionFactory factory;
+        private final AtomicLong durationNanos;
+
+        TimedFaceDetectionFactory(IFaceDetectionFactory factory, AtomicLong durationNanos) {
+            this.factory = factory;
+            this.durationNanos = durationNanos;
+        }
+
+        @Override
+        public IFaceDetection makeFaceDetection() throws Exception {
+            long startTime = System.nanoTime();
+            try {
+                return factory.makeFaceDetection();
+            } finally {
+                durationNanos.addAndGet(System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    static class TimedFaceRecognitionFactory implements IFaceRecognitionFactory {
+
+        private final IFaceRecognitionFactory factory;
+        private final AtomicLong durationNanos;
+
+        TimedFaceRecognitionFactory(IFaceRecognitionFactory factory, AtomicLong durationNanos) {
+            this.factory = factory;
+            this.durationNanos = durationNanos;
+        }
+
+        @Override
+        public IFaceRecognition makeFaceRecognition() throws Exception {
+            long startTime = System.nanoTime();
+            try {
+                return factory.makeFaceRecognition();
+            } finally {
+                durationNanos.addAndGet(System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    static class TimedUserManagementFactory implements IUserManagementFactory {
+
+        private final IUserManagementFactory factory;
+        private final AtomicLong durationNanos;
+
+        TimedUserManagementFactory(IUserManagementFactory factory, AtomicLong durationNanos) {
+            this.factory = factory;
+            this.durationNanos = durationNanos;
+        }
+
+        @Override
+        public IUserManagement makeUserManagement() throws Exception {
+            long startTime = System.nanoTime();
+            try {
+                return factory.makeUserManagement();
+            } finally {
+                durationNanos.addAndGet(System.nanoTime() - startTime);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.appliedrec.rxverid;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Breakdown of the time it took to create a Ver-ID instance
+ * <p>Get the report of the last Ver-ID instance created by RxVerID using {@link RxVerID#getStartupReport()}.
+ * The model load and user store times are measured around the calls to the face detection, face recognition and user management factories. The identity verification time is the rest of the time spent creating the Ver-ID instance, which is dominated by the verification of the identity and licence.
+ * With {@link RxVerID.Builder#setLazyComponentLoading(boolean) lazy component loading} the components that weren't used while the Ver-ID instance was created report zero load times.</p>
+ * @since 1.11.0
+ */
+public class VerIDStartupReport {
+
+    private final long startTimeMillis;
+    private final long factoryConstructionNanos;
+    private final long identityVerificationNanos;
+    private final long faceDetectionLoadNanos;
+    private final long faceRecognitionLoadNanos;
+    private final long userStoreOpenNanos;
+    private final long totalNanos;
+
+    VerIDStartupReport(long startTimeMillis, long factoryConstructionNanos, long identityVerificationNanos, long faceDetectionLoadNanos, long faceRecognitionLoadNanos, long userStoreOpenNanos, long totalNanos) {
+        this.startTimeMillis = startTimeMillis;
+        this.factoryConstructionNanos = factoryConstructionNanos;
+        this.identityVerificationNanos = identityVerificationNanos;
+        this.faceDetectionLoadNanos = faceDetectionLoadNanos;
+        this.faceRecognitionLoadNanos = faceRecognitionLoadNanos;
+        this.userStoreOpenNanos = userStoreOpenNanos;
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * Time the creation started
+     * @return Milliseconds since the epoch
+     * @since 1.11.0
+     */
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    /**
+     * Time spent constructing and configuring the Ver-ID factory
+     * @return Nanoseconds
+     * @since 1.11.0
+     */
+    public long getFactoryConstructionNanos() {
+        return factoryConstructionNanos;
+    }
+
+    /**
+     * Time spent creating the Ver-ID instance outside of the component factories, mostly verifying the identity and licence
+     * @return Nanoseconds
+     * @since 1.11.0
+     */
+    public long getIdentityVerificationNanos() {
+        return identityVerificationNanos;
+    }
+
+    /**
+     * Time spent creating the face detection, including loading its models
+     * @return Nanoseconds
+     * @since 1.11.0
+     */
+    public long getFaceDetectionLoadNanos() {
+        return faceDetectionLoadNanos;
+    }
+
+    /**
+     * Time spent creating the face recognition, including loading its models
+     * @return Nanoseconds
+     * @since 1.11.0
+     */
+    public long getFaceRecognitionLoadNanos() {
+        return faceRecognitionLoadNanos;
+    }
+
+    /**
+     * Time spent opening the user store
+     * @return Nanoseconds
+     * @since 1.11.0
+     */
+    public long getUserStoreOpenNanos() {
+        return userStoreOpenNanos;
+    }
+
+    /**
+     * Time from the start of the creation until the Ver-ID instance was ready
+     * @return Nanoseconds
+     * @since 1.11.0
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "factory_construction=%.1fms identity_verification=%.1fms face_detection_load=%.1fms face_recognition_load=%.1fms user_store_open=%.1fms total=%.1fms",
+                factoryConstructionNanos / 1e6, identityVerificationNanos / 1e6, faceDetectionLoadNanos / 1e6, faceRecognitionLoadNanos / 1e6, userStoreOpenNanos / 1e6, totalNanos / 1e6);
+    }
+}
@@ -0,0 +1,191 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CentroidIndexTest {
+
+    /**
+     * Face recognition whose comparison score is the product of the "weights" of the compared faces
+     */
+    private IFaceRecognition createFaceRecognition(HashMap<IRecognizable,Float> weights) throws Exception {
+        IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+        when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenAnswer(invocation -> {
+            IRecognizable[] subjects = invocation.getArgument(0);
+            IRecognizable[] faces = invocation.getArgument(1);
+            return weights.get(subjects[0]) * weights.get(faces[0]);
+        });
+        return faceRecognition;
+    }
+
+    @Test
+    public void test_computeCentroidOfNoFaces_returnsNull() throws Exception {
+        IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+
+        assertNull(CentroidIndex.computeCentroid(new IRecognizable[0], faceRecognition));
+        verify(faceRecognition, never()).compareSubjectFacesToFaces(any(), any());
+    }
+
+    @Test
+    public void test_computeCentroid_returnsMedoid() throws Exception {
+        IRecognizable face1 = mock(IRecognizable.class);
+        IRecognizable face2 = mock(IRecognizable.class);
+        IRecognizable face3 = mock(IRecognizable.class);
+        HashMap<IRecognizable,Float> weights = new HashMap<>();
+        weights.put(face1, 1f);
+        weights.put(face2, 3f);
+        weights.put(face3, 2f);
+
+        IRecognizable centroid = CentroidIndex.computeCentroid(new IRecognizable[]{face1, face2, face3}, createFaceRecognition(weights));
+
+        assertEquals(face2, centroid);
+    }
+
+    @Test
+    public void test_shortlist_returnsBestUsers() throws Exception {
+        IRecognizable face1 = mock(IRecognizable.class);
+        IRecognizable face2 = mock(IRecognizable.class);
+        IRecognizable face3 = mock(IRecognizable.class);
+        IRecognizable probe = mock(IRecognizable.class);
+        HashMap<IRecognizable,Float> weights = new HashMap<>();
+        weights.put(face1, 1f);
+        weights.put(face2, 3f);
+        weights.put(face3, 2f);
+        weights.put(probe, 1f);
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getUsers()).thenReturn(new String[]{"user1", "user2", "user3"});
+        when(userManagement.getFacesOfUser("user1")).thenReturn(new IRecognizable[]{face1});
+        when(userManagement.getFacesOfUser("user2")).thenReturn(new IRecognizable[]{face2});
+        when(userManagement.getFacesOfUser("user3")).thenReturn(new IRecognizable[]{face3});
+        IFaceRecognition faceRecognition = createFaceRecognition(weights);
+        CentroidIndex index = new CentroidIndex(2);
+
+        index.loadIfNeeded(userManagement, faceRecognition);
+        List<String> shortlist = index.shortlist(userManagement, probe, faceRecognition);
+
+        assertTrue(index.isLoaded());
+        assertEquals(3, index.size());
+        assertEquals(Arrays.asList("user2", "user3"), shortlist);
+    }
+
+    @Test
+    public void test_shortlistExcludingUser_fillsShortlistWithOtherUsers() throws Exception {
+        IRecognizable face1 = mock(IRecognizable.class);
+        IRecognizable face2 = mock(IRecognizable.class);
+        IRecognizable face3 = mock(IRecognizable.class);
+        IRecognizable probe = mock(IRecognizable.class);
+        HashMap<IRecognizable,Float> weights = new HashMap<>();
+        weights.put(face1, 1f);
+        weights.put(face2, 3f);
+        weights.put(face3, 2f);
+        weights.put(probe, 1f);
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getUsers()).thenReturn(new String[]{"user1", "user2", "user3"});
+        when(userManagement.getFacesOfUser("user1")).thenReturn(new IRecognizable[]{face1});
+        when(userManagement.getFacesOfUser("user2")).thenReturn(new IRecognizable[]{face2});
+        when(userManagement.getFacesOfUser("user3")).thenReturn(new IRecognizable[]{face3});
+        CentroidIndex index = new CentroidIndex(2);
+
+        List<String> shortlist = index.shortlist(userManagement, probe, createFaceRecognition(weights), "user2");
+
+        assertEquals(Arrays.asList("user3", "user1"), shortlist);
+    }
+
+    @Test
+    public void test_updateUserBeforeLoad_isIgnored() throws Exception {
+        IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+        CentroidIndex index = new CentroidIndex(1);
+
+        index.updateUser(mock(IUserManagement.class), "user", new IRecognizable[]{mock(IRecognizable.class)}, faceRecognition);
+
+        assertFalse(index.isLoaded());
+        assertNull(index.getCentroidOfUser("user"));
+    }
+
+    @Test
+    public void test_updateAndRemoveUser_maintainsIndex() throws Exception {
+        IRecognizable face = mock(IRecognizable.class);
+        IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getUsers()).thenReturn(new String[0]);
+        CentroidIndex index = new CentroidIndex(1);
+        index.loadIfNeeded(userManagement, faceRecognition);
+
+        index.updateUser(userManagement, "user", new IRecognizable[]{face}, faceRecognition);
+        assertEquals(face, index.getCentroidOfUser("user"));
+
+        index.removeUser("user");
+        assertNull(index.getCentroidOfUser("user"));
+    }
+
+    @Test
+    public void test_shortlistAfterUpdate_usesNewCentroids() throws Exception {
+        IRecognizable face1 = mock(IRecognizable.class);
+        IRecognizable face2 = mock(IRecognizable.class);
+        IRecognizable probe = mock(IRecognizable.class);
+        HashMap<IRecognizable,Float> weights = new HashMap<>();
+        weights.put(face1, 1f);
+        weights.put(face2, 2f);
+        weights.put(probe, 1f);
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getUsers()).thenReturn(new String[]{"user1"});
+        when(userManagement.getFacesOfUser("user1")).thenReturn(new IRecognizable[]{face1});
+        IFaceRecognition faceRecognition = createFaceRecognition(weights);
+        CentroidIndex index = new CentroidIndex(1);
+        assertEquals(Arrays.asList("user1"), index.shortlist(userManagement, probe, faceRecognition));
+
+        index.updateUser(userManagement, "user2", new IRecognizable[]{face2}, faceRecognition);
+        assertEquals(Arrays.asList("user2"), index.shortlist(userManagement, probe, faceRecognition));
+
+        index.removeUser("user2");
+        assertEquals(Arrays.asList("user1"), index.shortlist(userManagement, probe, faceRecognition));
+    }
+
+    @Test
+    public void test_shortlistFromAnotherUserStore_reloadsIndex() throws Exception {
+        IRecognizable face1 = mock(IRecognizable.class);
+        IRecognizable face2 = mock(IRecognizable.class);
+        IRecognizable probe = mock(IRecognizable.class);
+        HashMap<IRecognizable,Float> weights = new HashMap<>();
+        weights.put(face1, 1f);
+        weights.put(face2, 1f);
+        weights.put(probe, 1f);
+        IUserManagement userManagement1 = mock(IUserManagement.class);
+        when(userManagement1.getUsers()).thenReturn(new String[]{"user1"});
+        when(userManagement1.getFacesOfUser("user1")).thenReturn(new IRecognizable[]{face1});
+        IUserManagement userManagement2 = mock(IUserManagement.class);
+        when(userManagement2.getUsers()).thenReturn(new String[]{"user2"});
+        when(userManagement2.getFacesOfUser("user2")).thenReturn(new IRecognizable[]{face2});
+        IFaceRecognition faceRecognition = createFaceRecognition(weights);
+        CentroidIndex index = new CentroidIndex(5);
+
+        assertEquals(Arrays.asList("user1"), index.shortlist(userManagement1, probe, faceRecognition));
+        assertEquals(Arrays.asList("user2"), index.shortlist(userManagement2, probe, faceRecognition));
+        // Changes to a user store the index isn't loaded from are ignored
+        index.updateUser(userManagement1, "user3", new IRecognizable[]{face1}, faceRecognition);
+
+        assertNull(index.getCentroidOfUser("user1"));
+        assertNull(index.getCentroidOfUser("user3"));
+        assertEquals(face2, index.getCentroidOfUser("user2"));
+    }
+}
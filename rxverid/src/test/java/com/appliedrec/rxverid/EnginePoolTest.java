@@ -0,0 +1,123 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IFaceDetection;
+import com.appliedrec.verid.core.IFaceDetectionFactory;
+import com.appliedrec.verid.core.VerID;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EnginePoolTest {
+
+    @Test
+    public void test_withFaceDetection_leasesAtMostPoolSizeInstances() throws Exception {
+        IFaceDetection ownFaceDetection = mock(IFaceDetection.class);
+        VerID verID = mock(VerID.class);
+        when(verID.getFaceDetection()).thenReturn(ownFaceDetection);
+        IFaceDetectionFactory factory = mock(IFaceDetectionFactory.class);
+        when(factory.makeFaceDetection()).thenAnswer(invocation -> mock(IFaceDetection.class));
+        EnginePool pool = new EnginePool(2, factory, null);
+        Set<IFaceDetection> inUse = Collections.synchronizedSet(new HashSet<>());
+        Set<IFaceDetection> used = Collections.synchronizedSet(new HashSet<>());
+        AtomicInteger maxInUse = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> pool.withFaceDetection(verID, faceDetection -> {
+                    assertTrue("Instance leased twice", inUse.add(faceDetection));
+                    used.add(faceDetection);
+                    synchronized (maxInUse) {
+                        maxInUse.set(Math.max(maxInUse.get(), inUse.size()));
+                    }
+                    started.countDown();
+                    // Hold the instance until two calls run at the same time
+                    started.await(5, TimeUnit.SECONDS);
+                    inUse.remove(faceDetection);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, maxInUse.get());
+        assertEquals(2, used.size());
+        // The Ver-ID instance's own component stays free for calls outside the pool
+        assertFalse(used.contains(ownFaceDetection));
+        verify(factory, times(2)).makeFaceDetection();
+    }
+
+    @Test
+    public void test_clear_discardsCreatedMembers() throws Exception {
+        VerID verID = mock(VerID.class);
+        when(verID.getFaceDetection()).thenReturn(mock(IFaceDetection.class));
+        IFaceDetectionFactory factory = mock(IFaceDetectionFactory.class);
+        when(factory.makeFaceDetection()).thenAnswer(invocation -> mock(IFaceDetection.class));
+        EnginePool pool = new EnginePool(2, factory, null);
+        IFaceDetection[] leased = new IFaceDetection[2];
+        pool.withFaceDetection(verID, outer -> pool.withFaceDetection(verID, inner -> leased[0] = inner));
+
+        pool.clear();
+        pool.withFaceDetection(verID, outer -> pool.withFaceDetection(verID, inner -> leased[1] = inner));
+
+        assertTrue(leased[0] != leased[1]);
+        verify(factory, times(4)).makeFaceDetection();
+    }
+
+    @Test
+    public void test_withFaceDetection_withoutFactory_usesVerIDComponent() throws Exception {
+        IFaceDetection ownFaceDetection = mock(IFaceDetection.class);
+        VerID verID = mock(VerID.class);
+        when(verID.getFaceDetection()).thenReturn(ownFaceDetection);
+        EnginePool pool = new EnginePool(4, null, null);
+
+        IFaceDetection leased = pool.withFaceDetection(verID, faceDetection -> faceDetection);
+
+        assertSame(ownFaceDetection, leased);
+    }
+
+    @Test
+    public void test_setDefaultFactories_keepsConfiguredFactory() throws Exception {
+        IFaceDetectionFactory configuredFactory = mock(IFaceDetectionFactory.class);
+        IFaceDetectionFactory defaultFactory = mock(IFaceDetectionFactory.class);
+        when(configuredFactory.makeFaceDetection()).thenAnswer(invocation -> mock(IFaceDetection.class));
+        VerID verID = mock(VerID.class);
+        when(verID.getFaceDetection()).thenReturn(mock(IFaceDetection.class));
+        EnginePool pool = new EnginePool(2, configuredFactory, null);
+        pool.setDefaultFactories(defaultFactory, null);
+        CountDownLatch bothLeased = new CountDownLatch(1);
+
+        pool.withFaceDetection(verID, outer -> pool.withFaceDetection(verID, inner -> {
+            bothLeased.countDown();
+            return null;
+        }));
+
+        assertEquals(0, bothLeased.getCount());
+        verify(configuredFactory, times(2)).makeFaceDetection();
+        verify(defaultFactory, never()).makeFaceDetection();
+    }
+}
@@ -0,0 +1,116 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IRecognizable;
+
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+
+public class GalleryChangeFeedTest {
+
+    private static final IRecognizable[] NO_FACES = new IRecognizable[0];
+
+    @Test
+    public void test_publish_emitsChangesInSequence() {
+        GalleryChangeFeed feed = new GalleryChangeFeed(10, Schedulers.trampoline());
+        TestObserver<GalleryChange> testObserver = feed.changes().test();
+
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user1", NO_FACES);
+        feed.publish(GalleryChange.TYPE_USER_DELETED, "user1", NO_FACES);
+
+        testObserver.assertValueCount(2)
+                .assertValueAt(0, change -> change.getSequence() == 1 && change.getType() == GalleryChange.TYPE_FACES_ADDED)
+                .assertValueAt(1, change -> change.getSequence() == 2 && change.getType() == GalleryChange.TYPE_USER_DELETED && "user1".equals(change.getUser()));
+        assertEquals(2, feed.getLastSequence());
+    }
+
+    @Test
+    public void test_changesAfterSequence_replaysMissedChangesThenLiveChanges() {
+        GalleryChangeFeed feed = new GalleryChangeFeed(10, Schedulers.trampoline());
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user1", NO_FACES);
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user2", NO_FACES);
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user3", NO_FACES);
+
+        TestObserver<GalleryChange> testObserver = feed.changes(1).test();
+        feed.publish(GalleryChange.TYPE_USER_DELETED, "user1", NO_FACES);
+
+        testObserver.assertNoErrors()
+                .assertValueCount(3)
+                .assertValueAt(0, change -> change.getSequence() == 2)
+                .assertValueAt(1, change -> change.getSequence() == 3)
+                .assertValueAt(2, change -> change.getSequence() == 4);
+    }
+
+    @Test
+    public void test_changesAfterEvictedSequence_fails() {
+        GalleryChangeFeed feed = new GalleryChangeFeed(2, Schedulers.trampoline());
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user1", NO_FACES);
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user2", NO_FACES);
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user3", NO_FACES);
+
+        feed.changes(0).test().assertError(NoSuchElementException.class);
+        feed.changes(1).test().assertNoErrors().assertValueCount(2);
+    }
+
+    @Test
+    public void test_publish_emitsOnSchedulerOutsideWriter() {
+        TestScheduler scheduler = new TestScheduler();
+        GalleryChangeFeed feed = new GalleryChangeFeed(10, scheduler);
+        TestObserver<GalleryChange> testObserver = feed.changes().test();
+
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user1", NO_FACES);
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user2", NO_FACES);
+
+        // Recorded but not yet emitted
+        assertEquals(2, feed.getLastSequence());
+        testObserver.assertNoValues();
+
+        scheduler.triggerActions();
+
+        testObserver.assertValueCount(2)
+                .assertValueAt(0, change -> change.getSequence() == 1)
+                .assertValueAt(1, change -> change.getSequence() == 2);
+    }
+
+    @Test
+    public void test_changesAfterSequence_skipsReplayedChangesWaitingToBeEmitted() {
+        TestScheduler scheduler = new TestScheduler();
+        GalleryChangeFeed feed = new GalleryChangeFeed(10, scheduler);
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user1", NO_FACES);
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user2", NO_FACES);
+
+        TestObserver<GalleryChange> testObserver = feed.changes(0).test();
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user3", NO_FACES);
+        scheduler.triggerActions();
+
+        testObserver.assertNoErrors()
+                .assertValueCount(3)
+                .assertValueAt(0, change -> change.getSequence() == 1)
+                .assertValueAt(1, change -> change.getSequence() == 2)
+                .assertValueAt(2, change -> change.getSequence() == 3);
+    }
+
+    @Test
+    public void test_subscriberCallingBackIntoFeed_doesNotDeadlock() {
+        GalleryChangeFeed feed = new GalleryChangeFeed(10, Schedulers.trampoline());
+        TestObserver<GalleryChange> testObserver = feed.changes()
+                .doOnNext(change -> {
+                    if (change.getSequence() == 1) {
+                        feed.publish(GalleryChange.TYPE_USER_DELETED, "user1", NO_FACES);
+                    }
+                })
+                .test();
+
+        feed.publish(GalleryChange.TYPE_FACES_ADDED, "user1", NO_FACES);
+
+        testObserver.assertValueCount(2)
+                .assertValueAt(0, change -> change.getSequence() == 1)
+                .assertValueAt(1, change -> change.getSequence() == 2);
+    }
+}
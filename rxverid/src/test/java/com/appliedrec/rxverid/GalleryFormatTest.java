@@ -0,0 +1,132 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IRecognizable;
+
+import org.javatuples.Pair;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class GalleryFormatTest {
+
+    private static byte[] writeGallery(String user, IRecognizable[] faces) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(outputStream);
+        GalleryFormat.writeHeader(output, 1);
+        GalleryFormat.writeUser(output, user, faces);
+        output.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    public void test_writeAndRead_roundTrips() throws Exception {
+        IRecognizable[] faces = new IRecognizable[]{new FaceTemplate(new byte[]{1, 2, 3}, 2), new FaceTemplate(new byte[0], 3)};
+        byte[] gallery = writeGallery("user", faces);
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(gallery));
+        assertEquals(1, GalleryFormat.readHeader(input));
+        Pair<String,IRecognizable[]> record = GalleryFormat.readUser(input);
+
+        assertEquals("user", record.getValue0());
+        assertArrayEquals(faces, record.getValue1());
+        assertEquals(-1, input.read());
+    }
+
+    @Test
+    public void test_readHeaderOfUnsupportedVersion_fails() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(GalleryFormat.MAGIC);
+        output.writeInt(GalleryFormat.FORMAT_VERSION + 1);
+        output.writeInt(0);
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        assertThrows(IOException.class, () -> GalleryFormat.readHeader(input));
+    }
+
+    @Test
+    public void test_readTruncatedUser_fails() throws Exception {
+        byte[] gallery = writeGallery("user", new IRecognizable[]{new FaceTemplate(new byte[]{1, 2, 3}, 1)});
+        byte[] truncated = new byte[gallery.length - 1];
+        System.arraycopy(gallery, 0, truncated, 0, truncated.length);
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(truncated));
+        GalleryFormat.readHeader(input);
+
+        assertThrows(IOException.class, () -> GalleryFormat.readUser(input));
+    }
+
+    private static byte[] writeUserRecord(int faceCount, int templateLength) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeUTF("user");
+        output.writeInt(faceCount);
+        output.writeInt(1);
+        output.writeInt(templateLength);
+        output.write(new byte[]{1, 2, 3});
+        output.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    public void test_readUserWithFaceCountExceedingInput_fails() throws Exception {
+        byte[] record = writeUserRecord(Integer.MAX_VALUE, 3);
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+
+        assertThrows(IOException.class, () -> GalleryFormat.readUser(input, record.length));
+    }
+
+    @Test
+    public void test_readUserWithTemplateLengthExceedingInput_fails() throws Exception {
+        byte[] record = writeUserRecord(1, 1000);
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+
+        assertThrows(IOException.class, () -> GalleryFormat.readUser(input, record.length));
+    }
+
+    @Test
+    public void test_readUserWithOversizedTemplateFromInputOfUnknownSize_fails() throws Exception {
+        byte[] record = writeUserRecord(1, GalleryFormat.MAX_TEMPLATE_LENGTH + 1);
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+
+        assertThrows(IOException.class, () -> GalleryFormat.readUser(input));
+    }
+
+    @Test
+    public void test_readFromFileMappedInWindows_roundTrips() throws Exception {
+        IRecognizable[] faces = new IRecognizable[]{new FaceTemplate(new byte[]{1, 2, 3, 4, 5, 6, 7}, 2), new FaceTemplate(new byte[]{8, 9}, 3)};
+        byte[] gallery = writeGallery("user", faces);
+        File file = File.createTempFile("gallery", ".bin");
+        try {
+            try (FileOutputStream outputStream = new FileOutputStream(file)) {
+                outputStream.write(gallery);
+            }
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+                // Records span several windows
+                DataInputStream input = new DataInputStream(new GalleryFormat.MappedFileInputStream(channel, 5));
+                assertEquals(1, GalleryFormat.readHeader(input));
+                Pair<String,IRecognizable[]> record = GalleryFormat.readUser(input);
+
+                assertEquals("user", record.getValue0());
+                assertArrayEquals(faces, record.getValue1());
+                assertEquals(-1, input.read());
+            }
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+}
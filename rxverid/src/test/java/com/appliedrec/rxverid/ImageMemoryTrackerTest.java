@@ -0,0 +1,85 @@
+package com.appliedrec.rxverid;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ImageMemoryTrackerTest {
+
+    @Test
+    public void test_track_reportsTotalsPerOperation() {
+        ImageMemoryTracker tracker = new ImageMemoryTracker();
+        byte[] buffer1 = new byte[100];
+        byte[] buffer2 = new byte[300];
+        byte[] buffer3 = new byte[50];
+
+        tracker.trackBuffer(ImageMemoryTracker.OPERATION_BUFFER_STREAM, buffer1);
+        tracker.trackBuffer(ImageMemoryTracker.OPERATION_BUFFER_STREAM, buffer2);
+        tracker.track(ImageMemoryTracker.OPERATION_CROP_TO_FACE, buffer3, buffer3.length);
+
+        ImageMemoryTracker.OperationStatistics buffered = tracker.getOperationStatistics(ImageMemoryTracker.OPERATION_BUFFER_STREAM);
+        assertEquals(2, buffered.getAllocationCount());
+        assertEquals(400, buffered.getAllocatedBytes());
+        assertEquals(300, buffered.getLargestAllocationBytes());
+        assertEquals(50, tracker.getOperationStatistics(ImageMemoryTracker.OPERATION_CROP_TO_FACE).getAllocatedBytes());
+        assertEquals(0, tracker.getOperationStatistics(ImageMemoryTracker.OPERATION_DECODE_BITMAP).getAllocationCount());
+        assertEquals(2, tracker.getOperationStatistics().size());
+        assertEquals(450, tracker.getLiveBytes());
+        assertEquals(450, tracker.getHighWaterMarkBytes());
+    }
+
+    @Test
+    public void test_recycledBitmap_isReleasedAndHighWaterMarkKept() {
+        ImageMemoryTracker tracker = new ImageMemoryTracker();
+        Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getAllocationByteCount()).thenReturn(4000);
+        byte[] buffer = new byte[1000];
+
+        tracker.trackBuffer(ImageMemoryTracker.OPERATION_BUFFER_STREAM, buffer);
+        tracker.trackBitmap(ImageMemoryTracker.OPERATION_DECODE_BITMAP, bitmap);
+        assertEquals(5000, tracker.getLiveBytes());
+
+        when(bitmap.isRecycled()).thenReturn(true);
+
+        assertEquals(1000, tracker.getLiveBytes());
+        assertEquals(5000, tracker.getHighWaterMarkBytes());
+        assertEquals(4000, tracker.getOperationStatistics(ImageMemoryTracker.OPERATION_DECODE_BITMAP).getAllocatedBytes());
+    }
+
+    @Test
+    public void test_exceedingBudget_notifiesListenerOncePerCrossing() {
+        ArrayList<Long> notifications = new ArrayList<>();
+        ImageMemoryTracker tracker = new ImageMemoryTracker(1000, (operation, liveBytes, budgetBytes) -> {
+            assertEquals(ImageMemoryTracker.OPERATION_DECODE_BITMAP, operation);
+            assertEquals(1000, budgetBytes);
+            notifications.add(liveBytes);
+        });
+        Bitmap bitmap1 = mock(Bitmap.class);
+        when(bitmap1.getAllocationByteCount()).thenReturn(800);
+        Bitmap bitmap2 = mock(Bitmap.class);
+        when(bitmap2.getAllocationByteCount()).thenReturn(400);
+        Bitmap bitmap3 = mock(Bitmap.class);
+        when(bitmap3.getAllocationByteCount()).thenReturn(100);
+        Bitmap bitmap4 = mock(Bitmap.class);
+        when(bitmap4.getAllocationByteCount()).thenReturn(1000);
+
+        tracker.trackBitmap(ImageMemoryTracker.OPERATION_DECODE_BITMAP, bitmap1);
+        tracker.trackBitmap(ImageMemoryTracker.OPERATION_DECODE_BITMAP, bitmap2);
+        tracker.trackBitmap(ImageMemoryTracker.OPERATION_DECODE_BITMAP, bitmap3);
+        assertEquals(1, notifications.size());
+        assertEquals(1200L, (long) notifications.get(0));
+
+        when(bitmap1.isRecycled()).thenReturn(true);
+        when(bitmap2.isRecycled()).thenReturn(true);
+        tracker.trackBitmap(ImageMemoryTracker.OPERATION_DECODE_BITMAP, bitmap4);
+
+        assertEquals(2, notifications.size());
+        assertEquals(1100L, (long) notifications.get(1));
+    }
+}
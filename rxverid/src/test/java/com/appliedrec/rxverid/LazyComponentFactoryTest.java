@@ -0,0 +1,80 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.Face;
+import com.appliedrec.verid.core.IFaceDetection;
+import com.appliedrec.verid.core.IFaceDetectionFactory;
+import com.appliedrec.verid.core.IUserManagement;
+import com.appliedrec.verid.core.IUserManagementFactory;
+import com.appliedrec.verid.core.VerIDImage;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LazyComponentFactoryTest {
+
+    @Test
+    public void test_component_isLoadedOnFirstUseOnly() throws Exception {
+        VerIDImage image = mock(VerIDImage.class);
+        Face[] faces = new Face[]{mock(Face.class)};
+        IFaceDetection faceDetection = mock(IFaceDetection.class);
+        when(faceDetection.detectFacesInImage(image, 1, 0)).thenReturn(faces);
+        IFaceDetectionFactory factory = mock(IFaceDetectionFactory.class);
+        when(factory.makeFaceDetection()).thenReturn(faceDetection);
+        ArrayList<String> loadedStages = new ArrayList<>();
+
+        IFaceDetection lazyFaceDetection = LazyComponentFactory.faceDetection(factory, (stage, success, durationNanos) -> {
+            assertTrue(success);
+            loadedStages.add(stage);
+        }).makeFaceDetection();
+
+        verify(factory, never()).makeFaceDetection();
+        assertSame(faces, lazyFaceDetection.detectFacesInImage(image, 1, 0));
+        assertSame(faces, lazyFaceDetection.detectFacesInImage(image, 1, 0));
+        verify(factory, times(1)).makeFaceDetection();
+        verify(faceDetection, times(2)).detectFacesInImage(image, 1, 0);
+        assertEquals(1, loadedStages.size());
+        assertEquals(RxVerIDMetrics.STAGE_FACE_DETECTION_LOAD, loadedStages.get(0));
+    }
+
+    @Test
+    public void test_closingUnusedComponent_doesNotLoadIt() throws Exception {
+        IUserManagementFactory factory = mock(IUserManagementFactory.class);
+
+        IUserManagement lazyUserManagement = LazyComponentFactory.userManagement(factory, null).makeUserManagement();
+        lazyUserManagement.close();
+
+        assertFalse(lazyUserManagement.isClosed());
+        verify(factory, never()).makeUserManagement();
+    }
+
+    @Test
+    public void test_failedLoad_throwsAndIsReported() throws Exception {
+        Exception exception = new Exception("Failed to open user store");
+        IUserManagementFactory factory = mock(IUserManagementFactory.class);
+        when(factory.makeUserManagement()).thenThrow(exception);
+        ArrayList<Boolean> results = new ArrayList<>();
+
+        IUserManagement lazyUserManagement = LazyComponentFactory.userManagement(factory, (stage, success, durationNanos) -> results.add(success)).makeUserManagement();
+
+        try {
+            lazyUserManagement.getUsers();
+            fail();
+        } catch (Exception e) {
+            assertSame(exception, e);
+        }
+        assertEquals(1, results.size());
+        assertFalse(results.get(0));
+    }
+}
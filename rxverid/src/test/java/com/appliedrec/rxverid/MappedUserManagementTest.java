@@ -0,0 +1,197 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IRecognizable;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MappedUserManagementTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static FaceTemplate createFace(int seed) {
+        byte[] data = new byte[32];
+        Arrays.fill(data, (byte) seed);
+        return new FaceTemplate(data, 1);
+    }
+
+    private static void assertFaces(IRecognizable[] expected, IRecognizable[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i].getRecognitionData(), actual[i].getRecognitionData());
+            assertEquals(expected[i].getVersion(), actual[i].getVersion());
+        }
+    }
+
+    @Test
+    public void test_assignAndDelete_updatesStore() throws Exception {
+        MappedUserManagement userManagement = new MappedUserManagement(temporaryFolder.getRoot(), 1024, Long.MAX_VALUE);
+        FaceTemplate face1 = createFace(1);
+        FaceTemplate face2 = createFace(2);
+        FaceTemplate face3 = createFace(3);
+
+        userManagement.assignFacesToUser(new IRecognizable[]{face1, face2}, "user1");
+        userManagement.assignFacesToUser(new IRecognizable[]{face3}, "user2");
+        assertEquals(new HashSet<>(Arrays.asList("user1", "user2")), new HashSet<>(Arrays.asList(userManagement.getUsers())));
+        assertFaces(new IRecognizable[]{face1, face2}, userManagement.getFacesOfUser("user1"));
+        assertEquals(3, userManagement.getFaces().length);
+
+        userManagement.deleteFaces(new IRecognizable[]{face1});
+        assertFaces(new IRecognizable[]{face2}, userManagement.getFacesOfUser("user1"));
+
+        userManagement.deleteUsers(new String[]{"user2"});
+        assertArrayEquals(new String[]{"user1"}, userManagement.getUsers());
+        assertEquals(0, userManagement.getFacesOfUser("user2").length);
+        userManagement.close();
+    }
+
+    @Test
+    public void test_deleteFaceReadFromStore_keepsByteIdenticalFaces() throws Exception {
+        MappedUserManagement userManagement = new MappedUserManagement(temporaryFolder.getRoot(), 1024, Long.MAX_VALUE);
+        FaceTemplate face = createFace(1);
+        userManagement.assignFacesToUser(new IRecognizable[]{face, face}, "user1");
+        userManagement.assignFacesToUser(new IRecognizable[]{face}, "user2");
+
+        IRecognizable storedFace = userManagement.getFacesOfUser("user1")[1];
+        userManagement.deleteFaces(new IRecognizable[]{storedFace, storedFace});
+
+        assertFaces(new IRecognizable[]{face}, userManagement.getFacesOfUser("user1"));
+        assertFaces(new IRecognizable[]{face}, userManagement.getFacesOfUser("user2"));
+        userManagement.close();
+    }
+
+    @Test
+    public void test_deleteFaceNotReadFromStore_deletesOneCopy() throws Exception {
+        MappedUserManagement userManagement = new MappedUserManagement(temporaryFolder.getRoot(), 1024, Long.MAX_VALUE);
+        FaceTemplate face = createFace(1);
+        userManagement.assignFacesToUser(new IRecognizable[]{face, face}, "user");
+
+        userManagement.deleteFaces(new IRecognizable[]{createFace(1)});
+
+        assertFaces(new IRecognizable[]{face}, userManagement.getFacesOfUser("user"));
+        userManagement.close();
+    }
+
+    @Test
+    public void test_deleteFaceReadBeforeCompaction_deletesFace() throws Exception {
+        MappedUserManagement userManagement = new MappedUserManagement(temporaryFolder.getRoot(), 1024, Long.MAX_VALUE);
+        FaceTemplate face1 = createFace(1);
+        FaceTemplate face2 = createFace(2);
+        userManagement.assignFacesToUser(new IRecognizable[]{createFace(3)}, "user1");
+        userManagement.assignFacesToUser(new IRecognizable[]{face1, face2}, "user2");
+        IRecognizable storedFace = userManagement.getFacesOfUser("user2")[0];
+        userManagement.deleteUsers(new String[]{"user1"});
+        userManagement.compact();
+
+        userManagement.deleteFaces(new IRecognizable[]{storedFace});
+
+        assertFaces(new IRecognizable[]{face2}, userManagement.getFacesOfUser("user2"));
+        userManagement.close();
+    }
+
+    @Test
+    public void test_appendWithinMapping_keepsMapping() throws Exception {
+        MappedUserManagement userManagement = new MappedUserManagement(temporaryFolder.getRoot(), 1024, Long.MAX_VALUE);
+        FaceTemplate face1 = createFace(1);
+        userManagement.assignFacesToUser(new IRecognizable[]{face1}, "user");
+        long mappedLength = userManagement.getMappedLength();
+        IRecognizable storedFace = userManagement.getFacesOfUser("user")[0];
+
+        for (int i = 2; i < 12; i++) {
+            userManagement.assignFacesToUser(new IRecognizable[]{createFace(i)}, "user");
+        }
+
+        assertTrue(userManagement.getLogLength() < mappedLength);
+        assertEquals(mappedLength, userManagement.getMappedLength());
+        assertArrayEquals(face1.getRecognitionData(), storedFace.getRecognitionData());
+        assertEquals(11, userManagement.getFacesOfUser("user").length);
+        userManagement.close();
+    }
+
+    @Test
+    public void test_reopenWithoutCheckpoint_replaysLog() throws Exception {
+        File directory = temporaryFolder.getRoot();
+        MappedUserManagement userManagement = new MappedUserManagement(directory, 1024, Long.MAX_VALUE);
+        FaceTemplate face1 = createFace(1);
+        FaceTemplate face2 = createFace(2);
+        userManagement.assignFacesToUser(new IRecognizable[]{face1, face2}, "user");
+        userManagement.deleteFaces(new IRecognizable[]{face2});
+        // Simulate a crash: the store isn't closed so no checkpoint is written
+
+        MappedUserManagement reopened = new MappedUserManagement(directory, 1024, Long.MAX_VALUE);
+
+        assertFaces(new IRecognizable[]{face1}, reopened.getFacesOfUser("user"));
+        reopened.close();
+    }
+
+    @Test
+    public void test_reopenAfterClose_loadsCheckpointAndReplaysTail() throws Exception {
+        File directory = temporaryFolder.getRoot();
+        FaceTemplate face1 = createFace(1);
+        FaceTemplate face2 = createFace(2);
+        MappedUserManagement userManagement = new MappedUserManagement(directory, 1024, Long.MAX_VALUE);
+        userManagement.assignFacesToUser(new IRecognizable[]{face1}, "user");
+        userManagement.close();
+        userManagement = new MappedUserManagement(directory, 1024, Long.MAX_VALUE);
+        userManagement.assignFacesToUser(new IRecognizable[]{face2}, "user");
+
+        MappedUserManagement reopened = new MappedUserManagement(directory, 1024, Long.MAX_VALUE);
+
+        assertTrue(new File(directory, MappedUserManagement.INDEX_FILE_NAME).isFile());
+        assertFaces(new IRecognizable[]{face1, face2}, reopened.getFacesOfUser("user"));
+        reopened.close();
+    }
+
+    @Test
+    public void test_tornRecord_isTruncated() throws Exception {
+        File directory = temporaryFolder.getRoot();
+        FaceTemplate face1 = createFace(1);
+        MappedUserManagement userManagement = new MappedUserManagement(directory, 1024, Long.MAX_VALUE);
+        userManagement.assignFacesToUser(new IRecognizable[]{face1}, "user1");
+        long validLength = userManagement.getLogLength();
+        userManagement.assignFacesToUser(new IRecognizable[]{createFace(2)}, "user2");
+        try (RandomAccessFile log = new RandomAccessFile(new File(directory, MappedUserManagement.LOG_FILE_NAME), "rw")) {
+            // The file extends past the log into the mapped headroom
+            log.setLength(userManagement.getLogLength() - 5);
+        }
+
+        MappedUserManagement reopened = new MappedUserManagement(directory, 1024, Long.MAX_VALUE);
+
+        assertEquals(validLength, reopened.getLogLength());
+        assertArrayEquals(new String[]{"user1"}, reopened.getUsers());
+        assertFaces(new IRecognizable[]{face1}, reopened.getFacesOfUser("user1"));
+        reopened.close();
+    }
+
+    @Test
+    public void test_deletingMostOfLog_compactsLog() throws Exception {
+        File directory = temporaryFolder.getRoot();
+        FaceTemplate face = createFace(1);
+        MappedUserManagement userManagement = new MappedUserManagement(directory, 1024, 1);
+        userManagement.assignFacesToUser(new IRecognizable[]{createFace(2), createFace(3), createFace(4)}, "user1");
+        userManagement.assignFacesToUser(new IRecognizable[]{face}, "user2");
+        long uncompactedLength = userManagement.getLogLength();
+
+        userManagement.deleteUsers(new String[]{"user1"});
+
+        assertEquals(0, userManagement.getDeadBytes());
+        assertTrue(userManagement.getLogLength() < uncompactedLength);
+        assertFaces(new IRecognizable[]{face}, userManagement.getFacesOfUser("user2"));
+        userManagement.close();
+        MappedUserManagement reopened = new MappedUserManagement(directory, 1024, 1);
+        assertArrayEquals(new String[]{"user2"}, reopened.getUsers());
+        assertFaces(new IRecognizable[]{face}, reopened.getFacesOfUser("user2"));
+        reopened.close();
+    }
+}
@@ -0,0 +1,122 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IRecognizable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PivotBlockingTest {
+
+    /**
+     * Face recognition that places faces on a line and scores them by their distance
+     */
+    private IFaceRecognition createFaceRecognition(HashMap<IRecognizable,Float> positions) throws Exception {
+        IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+        when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenAnswer(invocation -> {
+            IRecognizable[] subjects = invocation.getArgument(0);
+            IRecognizable[] faces = invocation.getArgument(1);
+            return 1f - Math.abs(positions.get(subjects[0]) - positions.get(faces[0]));
+        });
+        return faceRecognition;
+    }
+
+    private static boolean isInSameBlock(List<int[]> blocks, int user1, int user2) {
+        for (int[] block : blocks) {
+            boolean hasUser1 = false;
+            boolean hasUser2 = false;
+            for (int user : block) {
+                hasUser1 |= user == user1;
+                hasUser2 |= user == user2;
+            }
+            if (hasUser1 && hasUser2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void test_pivotCount_isSquareRootOfUserCount() {
+        assertEquals(1, PivotBlocking.pivotCountForUserCount(0));
+        assertEquals(1, PivotBlocking.pivotCountForUserCount(1));
+        assertEquals(10, PivotBlocking.pivotCountForUserCount(100));
+        assertEquals(11, PivotBlocking.pivotCountForUserCount(101));
+    }
+
+    @Test
+    public void test_singlePivot_returnsOneBlockOfAllUsers() throws Exception {
+        IRecognizable[] templates = new IRecognizable[]{mock(IRecognizable.class), mock(IRecognizable.class), mock(IRecognizable.class)};
+
+        List<int[]> blocks = PivotBlocking.blocks(templates, 1, 2, mock(IFaceRecognition.class)).getMembers();
+
+        assertEquals(1, blocks.size());
+        assertArrayEquals(new int[]{0, 1, 2}, blocks.get(0));
+    }
+
+    @Test
+    public void test_blocks_placeMatchingUsersInSameBlock() throws Exception {
+        int userCount = 100;
+        IRecognizable[] templates = new IRecognizable[userCount];
+        HashMap<IRecognizable,Float> positions = new HashMap<>();
+        for (int i = 0; i < userCount; i++) {
+            templates[i] = mock(IRecognizable.class);
+            // Users 40 and 77 are the same person
+            int identity = i == 77 ? 40 : i;
+            positions.put(templates[i], (float) (identity * 7 % userCount) / userCount);
+        }
+
+        List<int[]> blocks = PivotBlocking.blocks(templates, PivotBlocking.pivotCountForUserCount(userCount), 2, createFaceRecognition(positions)).getMembers();
+
+        assertTrue(isInSameBlock(blocks, 40, 77));
+        int pairCount = 0;
+        for (int[] block : blocks) {
+            pairCount += block.length * (block.length - 1) / 2;
+        }
+        assertTrue(pairCount < userCount * (userCount - 1) / 2);
+    }
+
+    @Test
+    public void test_ownsPair_assignsEachSharedPairToOneBlock() throws Exception {
+        int userCount = 100;
+        IRecognizable[] templates = new IRecognizable[userCount];
+        HashMap<IRecognizable,Float> positions = new HashMap<>();
+        for (int i = 0; i < userCount; i++) {
+            templates[i] = mock(IRecognizable.class);
+            positions.put(templates[i], (float) (i * 7 % userCount) / userCount);
+        }
+
+        PivotBlocking.Blocks blocks = PivotBlocking.blocks(templates, PivotBlocking.pivotCountForUserCount(userCount), 2, createFaceRecognition(positions));
+
+        HashMap<Long,Integer> owners = new HashMap<>();
+        HashMap<Long,Integer> sharedBlocks = new HashMap<>();
+        for (int b = 0; b < blocks.getMembers().size(); b++) {
+            int[] block = blocks.getMembers().get(b);
+            for (int i = 0; i < block.length; i++) {
+                for (int j = i + 1; j < block.length; j++) {
+                    long pair = (long) Math.min(block[i], block[j]) * userCount + Math.max(block[i], block[j]);
+                    sharedBlocks.merge(pair, 1, Integer::sum);
+                    if (blocks.ownsPair(b, block[i], block[j])) {
+                        owners.merge(pair, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        assertEquals(sharedBlocks.keySet(), owners.keySet());
+        for (int count : owners.values()) {
+            assertEquals(1, count);
+        }
+    }
+}
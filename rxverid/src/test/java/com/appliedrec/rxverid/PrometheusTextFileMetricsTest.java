@@ -0,0 +1,59 @@
+package com.appliedrec.rxverid;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrometheusTextFileMetricsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void test_getSnapshot_reportsHistogramCountersAndGauge() {
+        PrometheusTextFileMetrics metrics = new PrometheusTextFileMetrics(new File(temporaryFolder.getRoot(), "rxverid.prom"));
+        metrics.onStageStarted(RxVerIDMetrics.STAGE_FACE_DETECTION);
+        metrics.onStageStarted(RxVerIDMetrics.STAGE_FACE_DETECTION);
+        metrics.onStageStarted(RxVerIDMetrics.STAGE_FACE_DETECTION);
+        metrics.onStageFinished(RxVerIDMetrics.STAGE_FACE_DETECTION, RxVerIDMetrics.OUTCOME_SUCCESS, 2_000_000L, 2);
+        metrics.onStageFinished(RxVerIDMetrics.STAGE_FACE_DETECTION, RxVerIDMetrics.OUTCOME_ERROR, 20_000_000_000L, 0);
+
+        String snapshot = metrics.getSnapshot();
+
+        assertTrue(snapshot.contains("# TYPE rxverid_stage_duration_seconds histogram\n"));
+        assertTrue(snapshot.contains("rxverid_stage_duration_seconds_bucket{stage=\"face_detection\",le=\"0.001\"} 0\n"));
+        assertTrue(snapshot.contains("rxverid_stage_duration_seconds_bucket{stage=\"face_detection\",le=\"0.0025\"} 1\n"));
+        assertTrue(snapshot.contains("rxverid_stage_duration_seconds_bucket{stage=\"face_detection\",le=\"10\"} 1\n"));
+        assertTrue(snapshot.contains("rxverid_stage_duration_seconds_bucket{stage=\"face_detection\",le=\"+Inf\"} 2\n"));
+        assertTrue(snapshot.contains("rxverid_stage_duration_seconds_sum{stage=\"face_detection\"} 20.002\n"));
+        assertTrue(snapshot.contains("rxverid_stage_duration_seconds_count{stage=\"face_detection\"} 2\n"));
+        assertTrue(snapshot.contains("rxverid_stage_calls_total{stage=\"face_detection\",outcome=\"success\"} 1\n"));
+        assertTrue(snapshot.contains("rxverid_stage_calls_total{stage=\"face_detection\",outcome=\"error\"} 1\n"));
+        assertTrue(snapshot.contains("rxverid_stage_items_total{stage=\"face_detection\"} 2\n"));
+        assertTrue(snapshot.contains("rxverid_stage_in_flight{stage=\"face_detection\"} 1\n"));
+    }
+
+    @Test
+    public void test_writeSnapshot_replacesFile() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "rxverid.prom");
+        PrometheusTextFileMetrics metrics = new PrometheusTextFileMetrics(file);
+        metrics.writeSnapshot();
+        metrics.onStageStarted(RxVerIDMetrics.STAGE_SESSION_PARSING);
+        metrics.onStageFinished(RxVerIDMetrics.STAGE_SESSION_PARSING, RxVerIDMetrics.OUTCOME_SUCCESS, 1000L, 5);
+
+        metrics.writeSnapshot();
+
+        String contents = new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+        assertEquals(metrics.getSnapshot(), contents);
+        assertTrue(contents.contains("rxverid_stage_items_total{stage=\"session_parsing\"} 5\n"));
+        assertFalse(new File(temporaryFolder.getRoot(), "rxverid.prom.tmp").exists());
+    }
+}
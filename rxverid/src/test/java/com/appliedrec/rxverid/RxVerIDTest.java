@@ -36,13 +36,18 @@ import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.ConnectException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.Scheduler;
 import io.reactivex.Single;
@@ -51,6 +56,7 @@ import io.reactivex.disposables.Disposable;
 import io.reactivex.internal.schedulers.ExecutorScheduler;
 import io.reactivex.observers.TestObserver;
 import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.subscribers.TestSubscriber;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -58,6 +64,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyFloat;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -66,6 +73,8 @@ import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -593,6 +602,44 @@ public class RxVerIDTest {
         }
     }
 
+    @Test
+    public void test_identifyUsersInFaceUsingCentroids_comparesShortlistedUsers() {
+        try {
+            String testUserId = "testUserId";
+            String testUserId2 = "testUserId2";
+            IRecognizable userFace = mock(IRecognizable.class);
+            IRecognizable userFace2 = mock(IRecognizable.class);
+            RecognizableFace face = mock(RecognizableFace.class);
+            IUserManagement userManagement = mock(IUserManagement.class);
+            when(userManagement.getUsers()).thenReturn(new String[]{testUserId, testUserId2});
+            when(userManagement.getFacesOfUser(eq(testUserId))).thenReturn(new IRecognizable[]{userFace});
+            when(userManagement.getFacesOfUser(eq(testUserId2))).thenReturn(new IRecognizable[]{userFace2});
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenAnswer(invocation -> {
+                IRecognizable[] subjects = invocation.getArgument(0);
+                return subjects[0] == userFace ? 5.0f : 1.0f;
+            });
+            when(faceRecognition.getAuthenticationThreshold()).thenReturn(4.5f);
+            VerID verID = mock(VerID.class);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = new RxVerID.Builder(mock(Context.class)).setIdentificationShortlistSize(1).build();
+
+            TestObserver<Pair<String,Float>> testObserver = rxVerID.identifyUsersInFace(verID, face).test();
+
+            testObserver
+                    .assertSubscribed()
+                    .assertNoErrors()
+                    .assertValue(new Pair<>(testUserId, 5.0f))
+                    .assertComplete();
+            verify(userManagement).getUsers();
+            verify(userManagement, times(2)).getFacesOfUser(eq(testUserId));
+            verify(userManagement).getFacesOfUser(eq(testUserId2));
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
     @Test
     public void test_cropImageUriToFace_succeeds() {
         try {
@@ -909,6 +956,56 @@ public class RxVerIDTest {
         }
     }
 
+    @Test
+    public void test_compareFacesMatrix_succeeds() {
+        try {
+            float score = 4.5f;
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenReturn(score);
+            VerID verID = mock(VerID.class);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = mock(RxVerID.class);
+            when(rxVerID.compareFacesMatrix(any(), any(), any())).thenCallRealMethod();
+            when(rxVerID.compareFacesMatrixRows(any(), any(), any())).thenCallRealMethod();
+            IRecognizable[] subjects = new IRecognizable[]{mock(IRecognizable.class), mock(IRecognizable.class)};
+            IRecognizable[] targets = new IRecognizable[]{mock(IRecognizable.class), mock(IRecognizable.class), mock(IRecognizable.class)};
+
+            TestObserver<ScoreMatrix> testObserver = rxVerID.compareFacesMatrix(verID, subjects, targets).test();
+
+            testObserver
+                    .assertSubscribed()
+                    .assertNoErrors()
+                    .assertValue(matrix -> matrix.getRowCount() == 2 && matrix.getColumnCount() == 3 && matrix.getScore(1, 2) == score)
+                    .assertComplete();
+            verify(faceRecognition, times(6)).compareSubjectFacesToFaces(any(), any());
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_compareFacesMatrix_comparisonFails() {
+        try {
+            String errorMessage = "Test error message";
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenThrow(new Exception(errorMessage));
+            VerID verID = mock(VerID.class);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = mock(RxVerID.class);
+            when(rxVerID.compareFacesMatrix(any(), any(), any())).thenCallRealMethod();
+            when(rxVerID.compareFacesMatrixRows(any(), any(), any())).thenCallRealMethod();
+
+            TestObserver<ScoreMatrix> testObserver = rxVerID.compareFacesMatrix(verID, new IRecognizable[]{mock(IRecognizable.class)}, new IRecognizable[]{mock(IRecognizable.class)}).test();
+
+            testObserver
+                    .assertSubscribed()
+                    .assertErrorMessage(errorMessage)
+                    .assertTerminated();
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
     @Test
     public void test_assignFacesToUser_succeeds() {
         try {
@@ -1235,6 +1332,441 @@ public class RxVerIDTest {
         }
     }
 
+    @Test
+    public void test_authenticateUserInFacesWithTemplateCache_readsUserFacesOnce() {
+        try {
+            String user = "test";
+            IRecognizable face = mock(IRecognizable.class);
+            IUserManagement userManagement = mock(IUserManagement.class);
+            when(userManagement.getFacesOfUser(anyString())).thenReturn(new IRecognizable[]{face});
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenReturn(4.5f);
+            when(faceRecognition.getAuthenticationThreshold()).thenReturn(4.0f);
+            VerID verID = mock(VerID.class);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = new RxVerID.Builder(mock(Context.class)).setUserTemplateCacheSize(10).build();
+            RecognizableFace[] faces = new RecognizableFace[]{mock(RecognizableFace.class)};
+
+            rxVerID.authenticateUserInFaces(verID, user, faces).test().assertValue(true);
+            rxVerID.authenticateUserInFaces(verID, user, faces).test().assertValue(true);
+            rxVerID.deleteUser(verID, user).test().assertComplete();
+            rxVerID.authenticateUserInFaces(verID, user, faces).test().assertValue(true);
+
+            verify(userManagement, times(2)).getFacesOfUser(eq(user));
+            assertEquals(1, rxVerID.getUserTemplateCache().getHitCount());
+            assertEquals(2, rxVerID.getUserTemplateCache().getMissCount());
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_authenticateUserInImage_stopsAtFirstAuthenticatedFace() {
+        try {
+            String user = "test";
+            Face smallFace = mock(Face.class);
+            when(smallFace.getQuality()).thenReturn(5.0f);
+            Face largeFace = mock(Face.class);
+            when(largeFace.getQuality()).thenReturn(9.0f);
+            RecognizableFace recognizableFace = mock(RecognizableFace.class);
+            IFaceDetection faceDetection = mock(IFaceDetection.class);
+            when(faceDetection.detectFacesInImage(any(), anyInt(), anyInt())).thenReturn(new Face[]{smallFace, largeFace});
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.createRecognizableFacesFromFaces(any(), any())).thenReturn(new RecognizableFace[]{recognizableFace});
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenReturn(4.5f);
+            when(faceRecognition.getAuthenticationThreshold()).thenReturn(4.0f);
+            IUserManagement userManagement = mock(IUserManagement.class);
+            when(userManagement.getFacesOfUser(eq(user))).thenReturn(new IRecognizable[]{mock(IRecognizable.class)});
+            VerID verID = mock(VerID.class);
+            when(verID.getFaceDetection()).thenReturn(faceDetection);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            RxVerID rxVerID = mock(RxVerID.class);
+            when(rxVerID.authenticateUserInImage(any(VerID.class), anyString(), any(VerIDImage.class))).thenCallRealMethod();
+            when(rxVerID.detectFacesInImage(any(VerID.class), any(VerIDImage.class), anyInt())).thenCallRealMethod();
+            when(rxVerID.convertFaceToRecognizableFace(any(VerID.class), any(), any())).thenCallRealMethod();
+
+            TestObserver<Boolean> testObserver = rxVerID.authenticateUserInImage(verID, user, mock(VerIDImage.class)).test();
+
+            testObserver
+                    .assertSubscribed()
+                    .assertNoErrors()
+                    .assertValue(true)
+                    .assertComplete();
+            verify(faceRecognition, times(1)).createRecognizableFacesFromFaces(eq(new Face[]{largeFace}), any());
+            verify(faceRecognition, times(1)).compareSubjectFacesToFaces(any(), any());
+            verify(userManagement, times(1)).getFacesOfUser(eq(user));
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_authenticateUserInImage_noFaceAuthenticated() {
+        try {
+            String user = "test";
+            IFaceDetection faceDetection = mock(IFaceDetection.class);
+            when(faceDetection.detectFacesInImage(any(), anyInt(), anyInt())).thenReturn(new Face[]{mock(Face.class), mock(Face.class)});
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.createRecognizableFacesFromFaces(any(), any())).thenReturn(new RecognizableFace[]{mock(RecognizableFace.class)});
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenReturn(3.5f);
+            when(faceRecognition.getAuthenticationThreshold()).thenReturn(4.0f);
+            IUserManagement userManagement = mock(IUserManagement.class);
+            when(userManagement.getFacesOfUser(eq(user))).thenReturn(new IRecognizable[]{mock(IRecognizable.class)});
+            VerID verID = mock(VerID.class);
+            when(verID.getFaceDetection()).thenReturn(faceDetection);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            RxVerID rxVerID = mock(RxVerID.class);
+            when(rxVerID.authenticateUserInImage(any(VerID.class), anyString(), any(VerIDImage.class))).thenCallRealMethod();
+            when(rxVerID.detectFacesInImage(any(VerID.class), any(VerIDImage.class), anyInt())).thenCallRealMethod();
+            when(rxVerID.convertFaceToRecognizableFace(any(VerID.class), any(), any())).thenCallRealMethod();
+
+            TestObserver<Boolean> testObserver = rxVerID.authenticateUserInImage(verID, user, mock(VerIDImage.class)).test();
+
+            testObserver
+                    .assertSubscribed()
+                    .assertNoErrors()
+                    .assertValue(false)
+                    .assertComplete();
+            verify(faceRecognition, times(2)).createRecognizableFacesFromFaces(any(), any());
+            verify(userManagement, times(1)).getFacesOfUser(eq(user));
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_authenticateBatch_readsFacesOfEachUserOnce() {
+        try {
+            RecognizableFace face1 = mock(RecognizableFace.class);
+            RecognizableFace face2 = mock(RecognizableFace.class);
+            RecognizableFace face3 = mock(RecognizableFace.class);
+            IUserManagement userManagement = mock(IUserManagement.class);
+            when(userManagement.getFacesOfUser(anyString())).thenReturn(new IRecognizable[]{mock(IRecognizable.class)});
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenReturn(4.5f, 3.5f, 4.5f);
+            when(faceRecognition.getAuthenticationThreshold()).thenReturn(4.0f);
+            VerID verID = mock(VerID.class);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = mock(RxVerID.class);
+            when(rxVerID.authenticateBatch(any(VerID.class), any())).thenCallRealMethod();
+            Flowable<Pair<String,RecognizableFace>> requests = Flowable.just(new Pair<>("user1", face1), new Pair<>("user2", face2), new Pair<>("user1", face3));
+
+            TestSubscriber<Triplet<String,RecognizableFace,Boolean>> testSubscriber = rxVerID.authenticateBatch(verID, requests).test();
+
+            testSubscriber
+                    .awaitDone(5, TimeUnit.SECONDS)
+                    .assertNoErrors()
+                    .assertValues(new Triplet<>("user1", face1, true), new Triplet<>("user2", face2, false), new Triplet<>("user1", face3, true))
+                    .assertComplete();
+            verify(userManagement, times(1)).getFacesOfUser(eq("user1"));
+            verify(userManagement, times(1)).getFacesOfUser(eq("user2"));
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_authenticateBatchOfManyChunks_readsFacesOfEachUserOnce() {
+        try {
+            IUserManagement userManagement = mock(IUserManagement.class);
+            when(userManagement.getFacesOfUser(anyString())).thenAnswer(invocation -> {
+                // Slow reads make the chunks running in parallel miss on the same users at the same time
+                Thread.sleep(20);
+                return new IRecognizable[]{mock(IRecognizable.class)};
+            });
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenReturn(4.5f);
+            when(faceRecognition.getAuthenticationThreshold()).thenReturn(4.0f);
+            VerID verID = mock(VerID.class);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = mock(RxVerID.class);
+            when(rxVerID.authenticateBatch(any(VerID.class), any())).thenCallRealMethod();
+            RecognizableFace face = mock(RecognizableFace.class);
+            int userCount = 5;
+            int requestCount = 640;
+            Flowable<Pair<String,RecognizableFace>> requests = Flowable.range(0, requestCount).map(i -> new Pair<>("user" + (i % userCount), face));
+
+            TestSubscriber<Triplet<String,RecognizableFace,Boolean>> testSubscriber = rxVerID.authenticateBatch(verID, requests).test();
+
+            testSubscriber
+                    .awaitDone(10, TimeUnit.SECONDS)
+                    .assertNoErrors()
+                    .assertValueCount(requestCount)
+                    .assertComplete();
+            for (int i = 0; i < userCount; i++) {
+                verify(userManagement, times(1)).getFacesOfUser(eq("user" + i));
+            }
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_auditDuplicates_emitsMatchingPairs() {
+        try {
+            IRecognizable face1 = mock(IRecognizable.class);
+            IRecognizable face2 = mock(IRecognizable.class);
+            IRecognizable face3 = mock(IRecognizable.class);
+            IUserManagement userManagement = mock(IUserManagement.class);
+            when(userManagement.getUsers()).thenReturn(new String[]{"user3", "user1", "user2"});
+            when(userManagement.getFacesOfUser(eq("user1"))).thenReturn(new IRecognizable[]{face1});
+            when(userManagement.getFacesOfUser(eq("user2"))).thenReturn(new IRecognizable[]{face2});
+            when(userManagement.getFacesOfUser(eq("user3"))).thenReturn(new IRecognizable[]{face3});
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenAnswer(invocation -> {
+                IRecognizable subject = invocation.<IRecognizable[]>getArgument(0)[0];
+                IRecognizable face = invocation.<IRecognizable[]>getArgument(1)[0];
+                return subject != face3 && face != face3 ? 4.5f : 1.0f;
+            });
+            VerID verID = mock(VerID.class);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = mock(RxVerID.class);
+            when(rxVerID.auditDuplicates(any(VerID.class), anyFloat(), any())).thenCallRealMethod();
+            ArrayList<Float> progress = new ArrayList<>();
+
+            TestSubscriber<Triplet<String,String,Float>> testSubscriber = rxVerID.auditDuplicates(verID, 4.0f, progress::add).test();
+
+            testSubscriber
+                    .assertSubscribed()
+                    .assertNoErrors()
+                    .assertValue(new Triplet<>("user1", "user2", 4.5f))
+                    .assertComplete();
+            assertEquals(1.0f, progress.get(progress.size() - 1), 0.0001f);
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_enrollIfUnique_rejectsDuplicate() {
+        try {
+            IRecognizable existingFace = mock(IRecognizable.class);
+            IRecognizable[] faces = new IRecognizable[]{mock(IRecognizable.class)};
+            IUserManagement userManagement = mock(IUserManagement.class);
+            when(userManagement.getUsers()).thenReturn(new String[]{"existingUser"});
+            when(userManagement.getFacesOfUser(eq("existingUser"))).thenReturn(new IRecognizable[]{existingFace});
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenReturn(4.5f);
+            VerID verID = mock(VerID.class);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = new RxVerID.Builder(mock(Context.class)).build();
+
+            TestObserver<Void> testObserver = rxVerID.enrollIfUnique(verID, faces, "newUser", 4.0f).test();
+
+            testObserver
+                    .assertSubscribed()
+                    .assertError(error -> error instanceof DuplicateEnrollmentException && "existingUser".equals(((DuplicateEnrollmentException) error).getExistingUser()));
+            verify(userManagement, never()).assignFacesToUser(any(), anyString());
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_enrollIfUnique_assignsUniqueFaces() {
+        try {
+            IRecognizable[] faces = new IRecognizable[]{mock(IRecognizable.class)};
+            IUserManagement userManagement = mock(IUserManagement.class);
+            when(userManagement.getUsers()).thenReturn(new String[]{"existingUser", "newUser"});
+            when(userManagement.getFacesOfUser(eq("existingUser"))).thenReturn(new IRecognizable[]{mock(IRecognizable.class)});
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenReturn(2.0f);
+            VerID verID = mock(VerID.class);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = new RxVerID.Builder(mock(Context.class)).build();
+
+            TestObserver<Void> testObserver = rxVerID.enrollIfUnique(verID, faces, "newUser", 4.0f).test();
+
+            testObserver
+                    .assertSubscribed()
+                    .assertNoErrors()
+                    .assertComplete();
+            verify(userManagement).assignFacesToUser(eq(faces), eq("newUser"));
+            verify(userManagement, never()).getFacesOfUser(eq("newUser"));
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_compactUserTemplates_deletesRedundantFaces() {
+        try {
+            IRecognizable face1 = new FaceTemplate(new byte[]{1}, 1);
+            IRecognizable face2 = new FaceTemplate(new byte[]{2}, 1);
+            IRecognizable face3 = new FaceTemplate(new byte[]{3}, 1);
+            IUserManagement userManagement = mock(IUserManagement.class);
+            when(userManagement.getFacesOfUser(eq("user"))).thenReturn(new IRecognizable[]{face1, face2, face3}, new IRecognizable[]{face1, face3});
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            // Faces 1 and 2 are near-identical
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenAnswer(invocation -> {
+                IRecognizable[] subjects = invocation.getArgument(0);
+                IRecognizable[] faces = invocation.getArgument(1);
+                if (subjects.length > 1 || faces.length > 1) {
+                    return 4.0f;
+                }
+                return subjects[0] != face3 && faces[0] != face3 ? 4.9f : 3.0f;
+            });
+            VerID verID = mock(VerID.class);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = new RxVerID.Builder(mock(Context.class)).build();
+
+            TestObserver<TemplateCompactionResult> testObserver = rxVerID.compactUserTemplates(verID, "user", 2).test();
+
+            testObserver
+                    .assertSubscribed()
+                    .assertNoErrors()
+                    .assertValue(result -> result.getOriginalTemplateCount() == 3 && result.getCompactedTemplateCount() == 2 && result.getRemovedTemplateCount() == 1)
+                    .assertComplete();
+            verify(userManagement).deleteFaces(eq(new IRecognizable[]{face2}));
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_compactUserTemplates_dropsOutliers() {
+        try {
+            IRecognizable[] faces = new IRecognizable[4];
+            for (int i = 0; i < faces.length; i++) {
+                faces[i] = new FaceTemplate(new byte[]{(byte) i}, 1);
+            }
+            IUserManagement userManagement = mock(IUserManagement.class);
+            when(userManagement.getFacesOfUser(eq("user"))).thenReturn(faces, new IRecognizable[]{faces[1], faces[2]});
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            // Faces 0, 1 and 2 are similar, face 3 is of another person
+            float[] positions = new float[]{0.5f, 0.52f, 0.55f, 3f};
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenAnswer(invocation -> {
+                IRecognizable[] subjects = invocation.getArgument(0);
+                IRecognizable[] targets = invocation.getArgument(1);
+                if (subjects.length > 1 || targets.length > 1) {
+                    return 4.0f;
+                }
+                return 5f - Math.abs(positions[Arrays.asList(faces).indexOf(subjects[0])] - positions[Arrays.asList(faces).indexOf(targets[0])]);
+            });
+            VerID verID = mock(VerID.class);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = new RxVerID.Builder(mock(Context.class)).build();
+
+            TestObserver<TemplateCompactionResult> testObserver = rxVerID.compactUserTemplates(verID, "user", 2).test();
+
+            testObserver
+                    .assertSubscribed()
+                    .assertNoErrors()
+                    .assertValue(result -> result.getOriginalTemplateCount() == 4 && result.getCompactedTemplateCount() == 2)
+                    .assertComplete();
+            // Without outlier rejection face 3 would be kept as the face least like the medoid
+            verify(userManagement).deleteFaces(eq(new IRecognizable[]{faces[0], faces[3]}));
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_compactUserTemplatesWithDuplicates_keepsCopiesOfKeptFacesAndReportsStoredCount() {
+        try {
+            IRecognizable face1 = new FaceTemplate(new byte[]{1}, 1);
+            IRecognizable face1Copy = new FaceTemplate(new byte[]{1}, 1);
+            IRecognizable face2 = new FaceTemplate(new byte[]{2}, 1);
+            IRecognizable face3 = new FaceTemplate(new byte[]{3}, 1);
+            IUserManagement userManagement = mock(IUserManagement.class);
+            // The gallery was imported twice so face 1 is stored twice
+            when(userManagement.getFacesOfUser(eq("user"))).thenReturn(new IRecognizable[]{face1, face1Copy, face2, face3}, new IRecognizable[]{face1, face1Copy, face3});
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenAnswer(invocation -> {
+                IRecognizable[] subjects = invocation.getArgument(0);
+                IRecognizable[] faces = invocation.getArgument(1);
+                if (subjects.length > 1 || faces.length > 1) {
+                    return 4.0f;
+                }
+                return subjects[0] != face3 && faces[0] != face3 ? 4.9f : 3.0f;
+            });
+            VerID verID = mock(VerID.class);
+            when(verID.getUserManagement()).thenReturn(userManagement);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            RxVerID rxVerID = new RxVerID.Builder(mock(Context.class)).build();
+
+            TestObserver<TemplateCompactionResult> testObserver = rxVerID.compactUserTemplates(verID, "user", 2).test();
+
+            testObserver
+                    .assertSubscribed()
+                    .assertNoErrors()
+                    .assertValue(result -> result.getOriginalTemplateCount() == 4 && result.getCompactedTemplateCount() == 3)
+                    .assertComplete();
+            verify(userManagement).deleteFaces(eq(new IRecognizable[]{face2}));
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_compactUserTemplatesWithoutTemplatesToKeep_fails() {
+        try {
+            VerID verID = mock(VerID.class);
+            RxVerID rxVerID = new RxVerID.Builder(mock(Context.class)).build();
+
+            rxVerID.compactUserTemplates(verID, "user", 0).test().assertError(IllegalArgumentException.class);
+            verify(verID, never()).getUserManagement();
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_exportAndImportGallery_restoresFaces() {
+        try {
+            FaceTemplate face1 = new FaceTemplate(new byte[]{1, 2, 3}, 1);
+            FaceTemplate face2 = new FaceTemplate(new byte[]{4, 5}, 1);
+            IUserManagement exportingUserManagement = mock(IUserManagement.class);
+            when(exportingUserManagement.getUsers()).thenReturn(new String[]{"user1", "user2"});
+            when(exportingUserManagement.getFacesOfUser(eq("user1"))).thenReturn(new IRecognizable[]{face1, face2});
+            when(exportingUserManagement.getFacesOfUser(eq("user2"))).thenReturn(new IRecognizable[]{face2});
+            VerID exportingVerID = mock(VerID.class);
+            when(exportingVerID.getUserManagement()).thenReturn(exportingUserManagement);
+            IUserManagement importingUserManagement = mock(IUserManagement.class);
+            VerID importingVerID = mock(VerID.class);
+            when(importingVerID.getUserManagement()).thenReturn(importingUserManagement);
+            RxVerID rxVerID = mock(RxVerID.class);
+            when(rxVerID.flushUserManagementWrites()).thenCallRealMethod();
+            when(rxVerID.exportGallery(any(VerID.class), any(OutputStream.class))).thenCallRealMethod();
+            when(rxVerID.importGallery(any(VerID.class), any(InputStream.class))).thenCallRealMethod();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            rxVerID.exportGallery(exportingVerID, outputStream).test()
+                    .assertNoErrors()
+                    .assertValue(3)
+                    .assertComplete();
+            rxVerID.importGallery(importingVerID, new ByteArrayInputStream(outputStream.toByteArray())).test()
+                    .assertNoErrors()
+                    .assertValue(3)
+                    .assertComplete();
+
+            verify(importingUserManagement).assignFacesToUser(eq(new IRecognizable[]{face1, face2}), eq("user1"));
+            verify(importingUserManagement).assignFacesToUser(eq(new IRecognizable[]{face2}), eq("user2"));
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_importGallery_invalidInput() {
+        RxVerID rxVerID = mock(RxVerID.class);
+        when(rxVerID.flushUserManagementWrites()).thenCallRealMethod();
+        when(rxVerID.importGallery(any(VerID.class), any(InputStream.class))).thenCallRealMethod();
+
+        rxVerID.importGallery(mock(VerID.class), new ByteArrayInputStream(new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11})).test()
+                .assertError(java.io.IOException.class);
+    }
+
     @Test
     public void test_getSessionResultFromIntent_succeeds() {
         RxVerID rxVerID = mock(RxVerID.class);
@@ -1402,6 +1934,56 @@ public class RxVerIDTest {
                 .assertComplete();
     }
 
+    @Test
+    public void test_fuseSessionTemplates_rejectsOutlier() {
+        try {
+            RecognizableFace[] faces = new RecognizableFace[4];
+            DetectedFace[] detectedFaces = new DetectedFace[faces.length];
+            for (int i = 0; i < faces.length; i++) {
+                faces[i] = mock(RecognizableFace.class);
+                detectedFaces[i] = mock(DetectedFace.class);
+                when(detectedFaces[i].getFace()).thenReturn(faces[i]);
+            }
+            RecognizableFace outlier = faces[3];
+            IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+            when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenAnswer(invocation -> {
+                IRecognizable subject = invocation.<IRecognizable[]>getArgument(0)[0];
+                IRecognizable face = invocation.<IRecognizable[]>getArgument(1)[0];
+                return subject == outlier || face == outlier ? 1.0f : 4.5f;
+            });
+            VerID verID = mock(VerID.class);
+            when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+            VerIDSessionResult result = mock(VerIDSessionResult.class);
+            when(result.getAttachments()).thenReturn(detectedFaces);
+            when(result.getError()).thenReturn(null);
+            RxVerID rxVerID = mock(RxVerID.class);
+            when(rxVerID.getRecognizableFacesFromSessionResult(any(), any())).thenCallRealMethod();
+            when(rxVerID.fuseSessionTemplates(any(VerID.class), any(), any(), anyInt())).thenCallRealMethod();
+
+            TestObserver<RecognizableFace[]> testObserver = rxVerID.fuseSessionTemplates(verID, result, null, 2).test();
+
+            testObserver
+                    .assertSubscribed()
+                    .assertNoErrors()
+                    .assertValue(fused -> fused.length == 2 && !Arrays.asList(fused).contains(outlier))
+                    .assertComplete();
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void test_fuseSessionTemplatesWithoutTemplatesToReturn_fails() {
+        VerID verID = mock(VerID.class);
+        VerIDSessionResult result = mock(VerIDSessionResult.class);
+        RxVerID rxVerID = mock(RxVerID.class);
+        when(rxVerID.fuseSessionTemplates(any(VerID.class), any(), any(), anyInt())).thenCallRealMethod();
+
+        rxVerID.fuseSessionTemplates(verID, result, null, 0).test().assertError(IllegalArgumentException.class);
+        verify(rxVerID, never()).getRecognizableFacesFromSessionResult(any(), any());
+        verify(verID, never()).getFaceRecognition();
+    }
+
     @Test
     public void test_getRecognizableFacesFromFailedSessionResult_fails() {
         RxVerID rxVerID = mock(RxVerID.class);
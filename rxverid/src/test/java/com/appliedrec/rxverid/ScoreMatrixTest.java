@@ -0,0 +1,28 @@
+package com.appliedrec.rxverid;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ScoreMatrixTest {
+
+    @Test
+    public void test_setRow_storesScoresRowMajor() {
+        ScoreMatrix matrix = new ScoreMatrix(2, 3);
+
+        matrix.setRow(1, new float[]{1f, 2f, 3f});
+
+        assertEquals(2, matrix.getRowCount());
+        assertEquals(3, matrix.getColumnCount());
+        assertEquals(2f, matrix.getScore(1, 1), 0f);
+        assertArrayEquals(new float[]{0f, 0f, 0f}, matrix.getRow(0), 0f);
+        assertArrayEquals(new float[]{1f, 2f, 3f}, matrix.getRow(1), 0f);
+        assertArrayEquals(new float[]{0f, 0f, 0f, 1f, 2f, 3f}, matrix.getScores(), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_createMatrixLargerThanArray_throws() {
+        new ScoreMatrix(100000, 100000);
+    }
+}
@@ -0,0 +1,140 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IFaceDetection;
+import com.appliedrec.verid.core.IFaceRecognition;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class SharedModelRegistryTest {
+
+    @Test
+    public void test_acquireWithSameFactory_loadsOnce() throws Exception {
+        Object factory = new Object();
+        AtomicInteger loadCount = new AtomicInteger();
+        SharedModelRegistry.Leases leases1 = new SharedModelRegistry.Leases();
+        SharedModelRegistry.Leases leases2 = new SharedModelRegistry.Leases();
+
+        IFaceDetection faceDetection1 = SharedModelRegistry.acquireFaceDetection(factory, () -> {
+            loadCount.incrementAndGet();
+            return mock(IFaceDetection.class);
+        }, leases1);
+        IFaceDetection faceDetection2 = SharedModelRegistry.acquireFaceDetection(factory, () -> {
+            loadCount.incrementAndGet();
+            return mock(IFaceDetection.class);
+        }, leases2);
+
+        assertSame(faceDetection1, faceDetection2);
+        assertEquals(1, loadCount.get());
+        assertEquals(2, SharedModelRegistry.getReferenceCount(factory, true));
+        leases1.releaseAll();
+        leases2.releaseAll();
+    }
+
+    @Test
+    public void test_releaseLastLease_reloadsOnNextAcquire() throws Exception {
+        Object factory = new Object();
+        SharedModelRegistry.Leases leases1 = new SharedModelRegistry.Leases();
+        SharedModelRegistry.Leases leases2 = new SharedModelRegistry.Leases();
+        IFaceRecognition faceRecognition1 = SharedModelRegistry.acquireFaceRecognition(factory, () -> mock(IFaceRecognition.class), leases1);
+        SharedModelRegistry.acquireFaceRecognition(factory, () -> mock(IFaceRecognition.class), leases2);
+
+        leases1.releaseAll();
+        // Releasing twice doesn't drop another instance's reference
+        leases1.releaseAll();
+        assertEquals(1, SharedModelRegistry.getReferenceCount(factory, false));
+        leases2.releaseAll();
+        assertEquals(0, SharedModelRegistry.getReferenceCount(factory, false));
+
+        SharedModelRegistry.Leases leases3 = new SharedModelRegistry.Leases();
+        IFaceRecognition faceRecognition3 = SharedModelRegistry.acquireFaceRecognition(factory, () -> mock(IFaceRecognition.class), leases3);
+        assertNotSame(faceRecognition1, faceRecognition3);
+        leases3.releaseAll();
+    }
+
+    @Test
+    public void test_acquireWithDifferentFactories_loadsSeparately() throws Exception {
+        Object factory1 = new Object();
+        Object factory2 = new Object();
+        SharedModelRegistry.Leases leases = new SharedModelRegistry.Leases();
+
+        IFaceDetection faceDetection1 = SharedModelRegistry.acquireFaceDetection(factory1, () -> mock(IFaceDetection.class), leases);
+        IFaceDetection faceDetection2 = SharedModelRegistry.acquireFaceDetection(factory2, () -> mock(IFaceDetection.class), leases);
+
+        assertNotSame(faceDetection1, faceDetection2);
+        assertEquals(1, SharedModelRegistry.getReferenceCount(factory1, true));
+        assertEquals(1, SharedModelRegistry.getReferenceCount(factory2, true));
+        leases.releaseAll();
+    }
+
+    @Test
+    public void test_acquireAfterRelease_releasesImmediately() throws Exception {
+        Object factory = new Object();
+        SharedModelRegistry.Leases leases = new SharedModelRegistry.Leases();
+        leases.releaseAll();
+
+        SharedModelRegistry.acquireFaceDetection(factory, () -> mock(IFaceDetection.class), leases);
+
+        assertEquals(0, SharedModelRegistry.getReferenceCount(factory, true));
+    }
+
+    @Test
+    public void test_acquireWhileAnotherComponentLoads_doesNotWait() throws Exception {
+        Object factory1 = new Object();
+        Object factory2 = new Object();
+        SharedModelRegistry.Leases leases1 = new SharedModelRegistry.Leases();
+        SharedModelRegistry.Leases leases2 = new SharedModelRegistry.Leases();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch finishLoading = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<IFaceDetection> slowLoad = executor.submit(() -> SharedModelRegistry.acquireFaceDetection(factory1, () -> {
+                loading.countDown();
+                finishLoading.await(5, TimeUnit.SECONDS);
+                return mock(IFaceDetection.class);
+            }, leases1));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            SharedModelRegistry.acquireFaceDetection(factory2, () -> mock(IFaceDetection.class), leases2);
+
+            assertFalse(slowLoad.isDone());
+            finishLoading.countDown();
+            slowLoad.get(5, TimeUnit.SECONDS);
+        } finally {
+            finishLoading.countDown();
+            executor.shutdownNow();
+            leases1.releaseAll();
+            leases2.releaseAll();
+        }
+    }
+
+    @Test
+    public void test_failedLoad_dropsReference() throws Exception {
+        Object factory = new Object();
+        SharedModelRegistry.Leases leases = new SharedModelRegistry.Leases();
+
+        try {
+            SharedModelRegistry.acquireFaceRecognition(factory, () -> {
+                throw new Exception("Test error message");
+            }, leases);
+            fail();
+        } catch (Exception ignore) {
+        }
+
+        assertEquals(0, SharedModelRegistry.getReferenceCount(factory, false));
+    }
+}
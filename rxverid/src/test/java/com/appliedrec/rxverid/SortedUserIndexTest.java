@@ -0,0 +1,107 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IUserManagement;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SortedUserIndexTest {
+
+    private static List<String> toList(Iterable<String> iterable) {
+        ArrayList<String> list = new ArrayList<>();
+        for (String item : iterable) {
+            list.add(item);
+        }
+        return list;
+    }
+
+    private SortedUserIndex createLoadedIndex(String... users) throws Exception {
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getUsers()).thenReturn(users);
+        SortedUserIndex index = new SortedUserIndex();
+        index.loadIfNeeded(userManagement);
+        return index;
+    }
+
+    @Test
+    public void test_loadIfNeeded_readsUsersOnce() throws Exception {
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getUsers()).thenReturn(new String[]{"b", "a"});
+        SortedUserIndex index = new SortedUserIndex();
+
+        index.loadIfNeeded(userManagement);
+        index.loadIfNeeded(userManagement);
+
+        assertTrue(index.isLoaded());
+        assertEquals(2, index.size());
+        verify(userManagement, times(1)).getUsers();
+    }
+
+    @Test
+    public void test_page_returnsSortedUsers() throws Exception {
+        SortedUserIndex index = createLoadedIndex("d", "b", "a", "c");
+
+        assertEquals(Arrays.asList("a", "b", "c", "d"), toList(index.page(0, Integer.MAX_VALUE, null)));
+        assertEquals(Arrays.asList("b", "c"), toList(index.page(1, 2, null)));
+        assertEquals(Collections.singletonList("d"), toList(index.page(3, 10, null)));
+        assertEquals(Collections.emptyList(), toList(index.page(4, 10, null)));
+        assertEquals(Collections.emptyList(), toList(index.page(0, 0, null)));
+    }
+
+    @Test
+    public void test_pageWithPrefix_returnsMatchingUsers() throws Exception {
+        SortedUserIndex index = createLoadedIndex("alice", "bob", "bill", "billy", "carol");
+
+        assertEquals(Arrays.asList("bill", "billy", "bob"), toList(index.page(0, 10, "b")));
+        assertEquals(Arrays.asList("billy", "bob"), toList(index.page(1, 10, "b")));
+        assertEquals(Arrays.asList("bill", "billy"), toList(index.page(0, 10, "bil")));
+        assertEquals(Collections.emptyList(), toList(index.page(0, 10, "dave")));
+    }
+
+    @Test
+    public void test_pageAfter_startsAfterUser() throws Exception {
+        SortedUserIndex index = createLoadedIndex("alice", "bob", "bill", "billy", "carol");
+
+        assertEquals(Arrays.asList("alice", "bill"), toList(index.pageAfter(null, 2, null)));
+        assertEquals(Arrays.asList("billy", "bob"), toList(index.pageAfter("bill", 2, null)));
+        assertEquals(Collections.singletonList("carol"), toList(index.pageAfter("bob", 2, null)));
+        assertEquals(Arrays.asList("bill", "billy"), toList(index.pageAfter(null, 2, "b")));
+        assertEquals(Collections.singletonList("bob"), toList(index.pageAfter("billy", 2, "b")));
+        assertEquals(Arrays.asList("bill", "billy", "bob"), toList(index.pageAfter("alice", 10, "b")));
+    }
+
+    @Test
+    public void test_addAndRemoveUser_maintainsIndex() throws Exception {
+        SortedUserIndex index = createLoadedIndex("a", "c");
+
+        index.addUser("b");
+        index.removeUser("c");
+
+        assertEquals(Arrays.asList("a", "b"), toList(index.page(0, 10, null)));
+    }
+
+    @Test
+    public void test_addUserBeforeLoad_isIgnored() {
+        SortedUserIndex index = new SortedUserIndex();
+
+        index.addUser("a");
+
+        assertFalse(index.isLoaded());
+        assertEquals(0, index.size());
+    }
+}
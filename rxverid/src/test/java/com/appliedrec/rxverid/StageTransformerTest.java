@@ -0,0 +1,73 @@
+package com.appliedrec.rxverid;
+
+import org.junit.Test;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class StageTransformerTest {
+
+    @Test
+    public void test_observableCompletes_reportsSuccessAndItemCount() {
+        RxVerIDMetrics metrics = mock(RxVerIDMetrics.class);
+
+        Observable.just(1, 2, 3).compose(new StageTransformer<>(metrics, null, RxVerIDMetrics.STAGE_FACE_DETECTION)).test().assertValueCount(3);
+
+        verify(metrics).onStageStarted(RxVerIDMetrics.STAGE_FACE_DETECTION);
+        verify(metrics).onStageFinished(eq(RxVerIDMetrics.STAGE_FACE_DETECTION), eq(RxVerIDMetrics.OUTCOME_SUCCESS), anyLong(), eq(3L));
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    public void test_singleFails_reportsError() {
+        RxVerIDMetrics metrics = mock(RxVerIDMetrics.class);
+
+        Single.error(new Exception()).compose(new StageTransformer<>(metrics, null, RxVerIDMetrics.STAGE_IMAGE_DECODE)).test().assertError(Exception.class);
+
+        verify(metrics).onStageStarted(RxVerIDMetrics.STAGE_IMAGE_DECODE);
+        verify(metrics).onStageFinished(eq(RxVerIDMetrics.STAGE_IMAGE_DECODE), eq(RxVerIDMetrics.OUTCOME_ERROR), anyLong(), eq(0L));
+    }
+
+    @Test
+    public void test_disposeAfterFirstValue_reportsCancelledOnce() {
+        RxVerIDMetrics metrics = mock(RxVerIDMetrics.class);
+        PublishSubject<Integer> subject = PublishSubject.create();
+
+        subject.compose(new StageTransformer<>(metrics, null, RxVerIDMetrics.STAGE_USER_IDENTIFICATION)).firstOrError().test();
+        subject.onNext(1);
+        subject.onComplete();
+
+        verify(metrics).onStageFinished(eq(RxVerIDMetrics.STAGE_USER_IDENTIFICATION), eq(RxVerIDMetrics.OUTCOME_CANCELLED), anyLong(), eq(1L));
+        verify(metrics, times(1)).onStageFinished(eq(RxVerIDMetrics.STAGE_USER_IDENTIFICATION), eq(RxVerIDMetrics.OUTCOME_CANCELLED), anyLong(), anyLong());
+    }
+
+    @Test
+    public void test_eachSubscription_isMeasured() {
+        RxVerIDMetrics metrics = mock(RxVerIDMetrics.class);
+        Completable completable = Completable.complete().compose(new StageTransformer<>(metrics, null, RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE));
+
+        completable.test().assertComplete();
+        completable.test().assertComplete();
+
+        verify(metrics, times(2)).onStageStarted(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE);
+        verify(metrics, times(2)).onStageFinished(eq(RxVerIDMetrics.STAGE_USER_MANAGEMENT_WRITE), eq(RxVerIDMetrics.OUTCOME_SUCCESS), anyLong(), eq(0L));
+    }
+
+    @Test
+    public void test_nullMetrics_returnsUpstream() {
+        Single<Integer> single = Single.just(1);
+
+        assertSame(single, new StageTransformer<Integer>(null, null, RxVerIDMetrics.STAGE_FACE_COMPARISON).apply(single));
+    }
+}
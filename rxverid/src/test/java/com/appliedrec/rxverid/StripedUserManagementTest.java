@@ -0,0 +1,94 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StripedUserManagementTest {
+
+    private static IUserManagement createEmptyStripe() throws Exception {
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getUsers()).thenReturn(new String[0]);
+        return userManagement;
+    }
+
+    @Test
+    public void test_assignFacesToUser_writesToStripeOfUser() throws Exception {
+        IUserManagement stripe0 = createEmptyStripe();
+        IUserManagement stripe1 = createEmptyStripe();
+        StripedUserManagement userManagement = new StripedUserManagement(new IUserManagement[]{stripe0, stripe1});
+        String user = "user";
+        IUserManagement userStripe = userManagement.stripeIndex(user) == 0 ? stripe0 : stripe1;
+        IUserManagement otherStripe = userStripe == stripe0 ? stripe1 : stripe0;
+        IRecognizable[] faces = new IRecognizable[]{mock(IRecognizable.class)};
+        when(userStripe.getFacesOfUser(eq(user))).thenReturn(faces);
+
+        userManagement.assignFacesToUser(faces, user);
+
+        verify(userStripe).assignFacesToUser(eq(faces), eq(user));
+        verify(otherStripe, never()).assignFacesToUser(any(), anyString());
+        assertArrayEquals(new String[]{user}, userManagement.getUsers());
+        assertArrayEquals(faces, userManagement.getFacesOfUser(user));
+    }
+
+    @Test
+    public void test_getFacesOfUser_readsFromSnapshot() throws Exception {
+        IRecognizable face = mock(IRecognizable.class);
+        IUserManagement stripe = mock(IUserManagement.class);
+        when(stripe.getUsers()).thenReturn(new String[]{"user1", "user2"});
+        when(stripe.getFacesOfUser(anyString())).thenReturn(new IRecognizable[]{face});
+        StripedUserManagement userManagement = new StripedUserManagement(new IUserManagement[]{stripe});
+
+        userManagement.getFacesOfUser("user1");
+        userManagement.getFacesOfUser("user1");
+
+        assertEquals(new HashSet<>(Arrays.asList("user1", "user2")), new HashSet<>(Arrays.asList(userManagement.getUsers())));
+        assertEquals(2, userManagement.getFaces().length);
+        verify(stripe, times(1)).getFacesOfUser(eq("user1"));
+        assertEquals(0, userManagement.getFacesOfUser("user3").length);
+    }
+
+    @Test
+    public void test_deleteUsers_removesUsersFromSnapshot() throws Exception {
+        IUserManagement stripe = mock(IUserManagement.class);
+        when(stripe.getUsers()).thenReturn(new String[]{"user1", "user2"});
+        when(stripe.getFacesOfUser(anyString())).thenReturn(new IRecognizable[]{mock(IRecognizable.class)});
+        StripedUserManagement userManagement = new StripedUserManagement(new IUserManagement[]{stripe});
+
+        userManagement.deleteUsers(new String[]{"user1"});
+
+        verify(stripe).deleteUsers(eq(new String[]{"user1"}));
+        assertArrayEquals(new String[]{"user2"}, userManagement.getUsers());
+    }
+
+    @Test
+    public void test_userInWrongStripe_failsToOpen() throws Exception {
+        IUserManagement stripe0 = createEmptyStripe();
+        IUserManagement stripe1 = createEmptyStripe();
+        StripedUserManagement probe = new StripedUserManagement(new IUserManagement[]{stripe0, stripe1});
+        String user = "user";
+        IUserManagement wrongStripe = probe.stripeIndex(user) == 0 ? stripe1 : stripe0;
+        when(wrongStripe.getUsers()).thenReturn(new String[]{user});
+
+        assertThrows(Exception.class, () -> new StripedUserManagement(new IUserManagement[]{stripe0, stripe1}));
+    }
+}
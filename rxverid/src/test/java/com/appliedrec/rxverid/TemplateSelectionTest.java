@@ -0,0 +1,78 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IRecognizable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TemplateSelectionTest {
+
+    @Test
+    public void test_selectFromFewerFacesThanMax_keepsAllFaces() throws Exception {
+        IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+
+        int[] selected = TemplateSelection.selectDiverse(new IRecognizable[]{mock(IRecognizable.class), mock(IRecognizable.class)}, 3, faceRecognition);
+
+        assertArrayEquals(new int[]{0, 1}, selected);
+        verify(faceRecognition, never()).compareSubjectFacesToFaces(any(), any());
+    }
+
+    @Test
+    public void test_rejectOutliers_rejectsFaceUnlikeOthers() {
+        float[][] similarities = new float[][]{
+                {0, 0.9f, 0.85f, 0.2f},
+                {0.9f, 0, 0.88f, 0.25f},
+                {0.85f, 0.88f, 0, 0.2f},
+                {0.2f, 0.25f, 0.2f, 0}
+        };
+
+        assertArrayEquals(new int[]{0, 1, 2}, TemplateSelection.rejectOutliers(similarities, 3f));
+    }
+
+    @Test
+    public void test_rejectOutliersWithZeroDeviation_keepsAllFaces() {
+        // Faces 0, 1 and 2 have the same mean similarity so the median absolute deviation is zero
+        float[][] similarities = new float[][]{
+                {0, 0.9f, 0.9f, 0.8f},
+                {0.9f, 0, 0.9f, 0.8f},
+                {0.9f, 0.9f, 0, 0.8f},
+                {0.8f, 0.8f, 0.8f, 0}
+        };
+
+        assertArrayEquals(new int[]{0, 1, 2, 3}, TemplateSelection.rejectOutliers(similarities, 3f));
+    }
+
+    @Test
+    public void test_selectDiverse_dropsNearDuplicates() throws Exception {
+        // Faces 0, 1 and 2 are near-identical, faces 3 and 4 are a different pose
+        float[] positions = new float[]{0.50f, 0.51f, 0.52f, 0.9f, 0.95f};
+        IRecognizable[] faces = new IRecognizable[positions.length];
+        HashMap<IRecognizable,Float> positionOfFace = new HashMap<>();
+        for (int i = 0; i < faces.length; i++) {
+            faces[i] = mock(IRecognizable.class);
+            positionOfFace.put(faces[i], positions[i]);
+        }
+        IFaceRecognition faceRecognition = mock(IFaceRecognition.class);
+        when(faceRecognition.compareSubjectFacesToFaces(any(), any())).thenAnswer(invocation -> {
+            IRecognizable[] subjects = invocation.getArgument(0);
+            IRecognizable[] targets = invocation.getArgument(1);
+            return 1f - Math.abs(positionOfFace.get(subjects[0]) - positionOfFace.get(targets[0]));
+        });
+
+        int[] selected = TemplateSelection.selectDiverse(faces, 2, faceRecognition);
+
+        assertArrayEquals(new int[]{2, 4}, selected);
+    }
+}
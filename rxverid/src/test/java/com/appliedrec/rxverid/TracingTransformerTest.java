@@ -0,0 +1,124 @@
+package com.appliedrec.rxverid;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TracingTransformerTest {
+
+    private final List<TraceSpan> spans = new ArrayList<>();
+    private final TraceSink sink = span -> {
+        synchronized (spans) {
+            spans.add(span);
+        }
+    };
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        TraceContext.install();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        RxJavaPlugins.reset();
+    }
+
+    @Test
+    public void test_stageAfterSchedulerHop_isChildOfCall() throws Exception {
+        Scheduler scheduler = Schedulers.from(executor);
+        Single<String> stage = Single.fromCallable(() -> TraceSpan.current().getName()).compose(new TracingTransformer<>(sink, "stage"));
+        Single<String> call = Single.just(0).subscribeOn(scheduler).flatMap(value -> stage).compose(new TracingTransformer<>(sink, "call"));
+
+        call.test().await().assertValue("stage");
+
+        assertEquals(2, spans.size());
+        TraceSpan stageSpan = spans.get(0);
+        TraceSpan callSpan = spans.get(1);
+        assertEquals("stage", stageSpan.getName());
+        assertEquals("call", callSpan.getName());
+        assertNull(callSpan.getParentSpanId());
+        assertEquals(callSpan.getSpanId(), stageSpan.getParentSpanId());
+        assertEquals(callSpan.getTraceId(), stageSpan.getTraceId());
+        assertNotEquals(Thread.currentThread().getName(), stageSpan.getThreadName());
+        assertEquals(RxVerIDMetrics.OUTCOME_SUCCESS, callSpan.getOutcome());
+        assertNull(TraceSpan.current());
+    }
+
+    @Test
+    public void test_separateCalls_haveSeparateTraces() {
+        Single<Integer> call = Single.just(1).compose(new TracingTransformer<>(sink, "call"));
+
+        call.test().assertValue(1);
+        call.test().assertValue(1);
+
+        assertEquals(2, spans.size());
+        assertNotEquals(spans.get(0).getTraceId(), spans.get(1).getTraceId());
+    }
+
+    @Test
+    public void test_delegatingOverloads_shareSpan() {
+        Single.just(1).compose(new TracingTransformer<>(sink, "call")).compose(new TracingTransformer<>(sink, "call")).test().assertValue(1);
+
+        assertEquals(1, spans.size());
+    }
+
+    @Test
+    public void test_failure_recordsError() {
+        Exception error = new Exception();
+
+        Single.error(error).compose(new TracingTransformer<>(sink, "call")).test().assertError(error);
+
+        assertEquals(1, spans.size());
+        assertEquals(RxVerIDMetrics.OUTCOME_ERROR, spans.get(0).getOutcome());
+        assertSame(error, spans.get(0).getError());
+    }
+
+    @Test
+    public void test_dispose_recordsCancellation() {
+        PublishSubject<Integer> subject = PublishSubject.create();
+
+        subject.compose(new TracingTransformer<>(sink, "call")).test().dispose();
+        subject.onComplete();
+
+        assertEquals(1, spans.size());
+        assertEquals(RxVerIDMetrics.OUTCOME_CANCELLED, spans.get(0).getOutcome());
+    }
+
+    @Test
+    public void test_valuesAreDeliveredInParentSpan() {
+        List<TraceSpan> spansAtValues = new ArrayList<>();
+
+        Observable.just(1, 2).compose(new TracingTransformer<>(sink, "call")).subscribe(value -> spansAtValues.add(TraceSpan.current()));
+
+        assertEquals(2, spansAtValues.size());
+        assertNull(spansAtValues.get(0));
+        assertNull(spansAtValues.get(1));
+    }
+
+    @Test
+    public void test_nullSink_returnsUpstream() {
+        Single<Integer> single = Single.just(1);
+
+        assertSame(single, new TracingTransformer<Integer>(null, "call").apply(single));
+    }
+}
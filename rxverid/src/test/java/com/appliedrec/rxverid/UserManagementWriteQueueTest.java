@@ -0,0 +1,154 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+import com.appliedrec.verid.core.VerID;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserManagementWriteQueueTest {
+
+    @Test
+    public void test_writesWithinWindow_areCoalesced() throws Exception {
+        IRecognizable face1 = mock(IRecognizable.class);
+        IRecognizable face2 = mock(IRecognizable.class);
+        IUserManagement userManagement = mock(IUserManagement.class);
+        VerID verID = mock(VerID.class);
+        when(verID.getUserManagement()).thenReturn(userManagement);
+        UserManagementWriteQueue.Listener listener = mock(UserManagementWriteQueue.Listener.class);
+        TestScheduler scheduler = new TestScheduler();
+        UserManagementWriteQueue queue = new UserManagementWriteQueue(100, scheduler, listener);
+
+        TestObserver<Void> assignment1 = queue.assignFacesToUser(verID, new IRecognizable[]{face1}, "user1").test();
+        TestObserver<Void> assignment2 = queue.assignFacesToUser(verID, new IRecognizable[]{face2}, "user1").test();
+        TestObserver<Void> deletion1 = queue.deleteUser(verID, "user2").test();
+        TestObserver<Void> deletion2 = queue.deleteUser(verID, "user3").test();
+
+        assignment1.assertNotComplete();
+        verify(userManagement, never()).assignFacesToUser(any(), anyString());
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        assignment1.assertComplete();
+        assignment2.assertComplete();
+        deletion1.assertComplete();
+        deletion2.assertComplete();
+        verify(userManagement, times(1)).assignFacesToUser(eq(new IRecognizable[]{face1, face2}), eq("user1"));
+        verify(userManagement, times(1)).deleteUsers(eq(new String[]{"user2", "user3"}));
+        verify(listener).onFacesAssignedToUser(eq(verID), eq("user1"), eq(new IRecognizable[]{face1, face2}));
+        verify(listener).onUserDeleted(eq("user2"));
+        verify(listener).onUserDeleted(eq("user3"));
+    }
+
+    @Test
+    public void test_deletionBetweenAssignments_keepsOrderOfUser() throws Exception {
+        IRecognizable face1 = mock(IRecognizable.class);
+        IRecognizable face2 = mock(IRecognizable.class);
+        IUserManagement userManagement = mock(IUserManagement.class);
+        VerID verID = mock(VerID.class);
+        when(verID.getUserManagement()).thenReturn(userManagement);
+        TestScheduler scheduler = new TestScheduler();
+        UserManagementWriteQueue queue = new UserManagementWriteQueue(100, scheduler, mock(UserManagementWriteQueue.Listener.class));
+
+        queue.assignFacesToUser(verID, new IRecognizable[]{face1}, "user").subscribe();
+        queue.deleteUser(verID, "user").subscribe();
+        queue.assignFacesToUser(verID, new IRecognizable[]{face2}, "user").subscribe();
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        InOrder inOrder = inOrder(userManagement);
+        inOrder.verify(userManagement).deleteUsers(eq(new String[]{"user"}));
+        inOrder.verify(userManagement).assignFacesToUser(eq(new IRecognizable[]{face2}), eq("user"));
+        verify(userManagement, never()).assignFacesToUser(eq(new IRecognizable[]{face1}), anyString());
+    }
+
+    @Test
+    public void test_flush_writesBeforeWindowElapses() throws Exception {
+        IUserManagement userManagement = mock(IUserManagement.class);
+        VerID verID = mock(VerID.class);
+        when(verID.getUserManagement()).thenReturn(userManagement);
+        TestScheduler scheduler = new TestScheduler();
+        UserManagementWriteQueue queue = new UserManagementWriteQueue(1000, scheduler, mock(UserManagementWriteQueue.Listener.class));
+
+        TestObserver<Void> deletion = queue.deleteUser(verID, "user").test();
+        TestObserver<Void> flush = queue.flush().test();
+        scheduler.triggerActions();
+
+        deletion.assertComplete();
+        flush.assertComplete();
+        verify(userManagement).deleteUsers(eq(new String[]{"user"}));
+    }
+
+    @Test
+    public void test_failedDeletion_failsOnlyWritesToThatUser() throws Exception {
+        String errorMessage = "Test error message";
+        IRecognizable face = mock(IRecognizable.class);
+        IUserManagement userManagement = mock(IUserManagement.class);
+        doThrow(new Exception(errorMessage)).when(userManagement).deleteUsers(eq(new String[]{"user2", "user3"}));
+        doThrow(new Exception(errorMessage)).when(userManagement).deleteUsers(eq(new String[]{"user2"}));
+        VerID verID = mock(VerID.class);
+        when(verID.getUserManagement()).thenReturn(userManagement);
+        TestScheduler scheduler = new TestScheduler();
+        UserManagementWriteQueue.Listener listener = mock(UserManagementWriteQueue.Listener.class);
+        UserManagementWriteQueue queue = new UserManagementWriteQueue(100, scheduler, listener);
+
+        TestObserver<Void> assignment1 = queue.assignFacesToUser(verID, new IRecognizable[]{face}, "user1").test();
+        TestObserver<Void> deletion2 = queue.deleteUser(verID, "user2").test();
+        TestObserver<Void> assignment2 = queue.assignFacesToUser(verID, new IRecognizable[]{face}, "user2").test();
+        TestObserver<Void> deletion3 = queue.deleteUser(verID, "user3").test();
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        assignment1.assertComplete();
+        deletion3.assertComplete();
+        deletion2.assertErrorMessage(errorMessage);
+        // The assignment queued after the failed deletion isn't attempted
+        assignment2.assertErrorMessage(errorMessage);
+        verify(userManagement).deleteUsers(eq(new String[]{"user3"}));
+        verify(userManagement).assignFacesToUser(any(), eq("user1"));
+        verify(userManagement, never()).assignFacesToUser(any(), eq("user2"));
+        verify(listener).onUserDeleted(eq("user3"));
+        verify(listener, never()).onUserDeleted(eq("user2"));
+        verify(listener).onBatchFailed();
+    }
+
+    @Test
+    public void test_failedAssignment_doesNotSkipLaterWrites() throws Exception {
+        String errorMessage = "Test error message";
+        IRecognizable face = mock(IRecognizable.class);
+        IUserManagement userManagement = mock(IUserManagement.class);
+        doThrow(new Exception(errorMessage)).when(userManagement).assignFacesToUser(any(), eq("user1"));
+        VerID verID = mock(VerID.class);
+        when(verID.getUserManagement()).thenReturn(userManagement);
+        TestScheduler scheduler = new TestScheduler();
+        UserManagementWriteQueue.Listener listener = mock(UserManagementWriteQueue.Listener.class);
+        UserManagementWriteQueue queue = new UserManagementWriteQueue(100, scheduler, listener);
+
+        TestObserver<Void> assignment1 = queue.assignFacesToUser(verID, new IRecognizable[]{face}, "user1").test();
+        TestObserver<Void> assignment2 = queue.assignFacesToUser(verID, new IRecognizable[]{face}, "user2").test();
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        assignment1.assertErrorMessage(errorMessage);
+        assignment2.assertComplete();
+        verify(listener).onFacesAssignedToUser(eq(verID), eq("user2"), any());
+        verify(listener).onBatchFailed();
+    }
+}
@@ -0,0 +1,121 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserTemplateCacheTest {
+
+    @Test
+    public void test_getFacesOfUser_loadsOnce() throws Exception {
+        IRecognizable[] faces = new IRecognizable[]{mock(IRecognizable.class)};
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getFacesOfUser(eq("user"))).thenReturn(faces);
+        UserTemplateCache cache = new UserTemplateCache(2);
+
+        assertArrayEquals(faces, cache.getFacesOfUser(userManagement, "user"));
+        assertArrayEquals(faces, cache.getFacesOfUser(userManagement, "user"));
+
+        verify(userManagement, times(1)).getFacesOfUser(eq("user"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void test_invalidate_reloadsFaces() throws Exception {
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getFacesOfUser(eq("user"))).thenReturn(new IRecognizable[]{mock(IRecognizable.class)});
+        UserTemplateCache cache = new UserTemplateCache(2);
+
+        cache.getFacesOfUser(userManagement, "user");
+        cache.invalidate("user");
+        cache.getFacesOfUser(userManagement, "user");
+
+        verify(userManagement, times(2)).getFacesOfUser(eq("user"));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void test_getFacesOfUser_evictsLeastRecentlyUsedUser() throws Exception {
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getFacesOfUser(anyString())).thenReturn(new IRecognizable[]{mock(IRecognizable.class)});
+        UserTemplateCache cache = new UserTemplateCache(2);
+
+        cache.getFacesOfUser(userManagement, "user1");
+        cache.getFacesOfUser(userManagement, "user2");
+        cache.getFacesOfUser(userManagement, "user1");
+        cache.getFacesOfUser(userManagement, "user3");
+        cache.getFacesOfUser(userManagement, "user1");
+        cache.getFacesOfUser(userManagement, "user2");
+
+        assertEquals(2, cache.getSize());
+        assertEquals(2, cache.getEvictionCount());
+        verify(userManagement, times(1)).getFacesOfUser(eq("user1"));
+        verify(userManagement, times(2)).getFacesOfUser(eq("user2"));
+    }
+
+    @Test
+    public void test_invalidateWhileLoading_doesNotCacheStaleFaces() throws Exception {
+        UserTemplateCache cache = new UserTemplateCache(2);
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getFacesOfUser(eq("user"))).thenAnswer(invocation -> {
+            cache.invalidate("user");
+            return new IRecognizable[]{mock(IRecognizable.class)};
+        });
+
+        cache.getFacesOfUser(userManagement, "user");
+
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void test_invalidateOtherUserWhileLoading_cachesFaces() throws Exception {
+        UserTemplateCache cache = new UserTemplateCache(2);
+        IUserManagement userManagement = mock(IUserManagement.class);
+        when(userManagement.getFacesOfUser(eq("user1"))).thenAnswer(invocation -> {
+            cache.invalidate("user2");
+            return new IRecognizable[]{mock(IRecognizable.class)};
+        });
+
+        cache.getFacesOfUser(userManagement, "user1");
+        cache.getFacesOfUser(userManagement, "user1");
+
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getHitCount());
+        verify(userManagement, times(1)).getFacesOfUser(eq("user1"));
+    }
+
+    @Test
+    public void test_getFacesFromAnotherUserStore_doesNotServeCachedFaces() throws Exception {
+        IRecognizable[] faces1 = new IRecognizable[]{mock(IRecognizable.class)};
+        IRecognizable[] faces2 = new IRecognizable[]{mock(IRecognizable.class)};
+        IUserManagement userManagement1 = mock(IUserManagement.class);
+        when(userManagement1.getFacesOfUser(eq("user"))).thenReturn(faces1);
+        IUserManagement userManagement2 = mock(IUserManagement.class);
+        when(userManagement2.getFacesOfUser(eq("user"))).thenReturn(faces2);
+        UserTemplateCache cache = new UserTemplateCache(2);
+
+        assertArrayEquals(faces1, cache.getFacesOfUser(userManagement1, "user"));
+        assertArrayEquals(faces2, cache.getFacesOfUser(userManagement2, "user"));
+        assertArrayEquals(faces2, cache.getFacesOfUser(userManagement2, "user"));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+}
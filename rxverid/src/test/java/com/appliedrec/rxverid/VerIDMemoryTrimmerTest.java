@@ -0,0 +1,100 @@
+package com.appliedrec.rxverid;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+
+import com.appliedrec.verid.core.IFaceDetectionFactory;
+import com.appliedrec.verid.core.VerID;
+import com.appliedrec.verid.core.VerIDFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class VerIDMemoryTrimmerTest {
+
+    private RxVerID rxVerID;
+    private VerIDFactory verIDFactory;
+    private VerID verID1;
+    private VerID verID2;
+
+    @Before
+    public void setup() throws Exception {
+        verID1 = mock(VerID.class);
+        verID2 = mock(VerID.class);
+        verIDFactory = mock(VerIDFactory.class);
+        when(verIDFactory.createVerIDSync()).thenReturn(verID1, verID2);
+        rxVerID = spy(new RxVerID.Builder(mock(Context.class)).build());
+        doReturn(verIDFactory).when(rxVerID).createVerIDFactory();
+    }
+
+    @Test
+    public void test_loadAndRelease_registersAndUnregistersTrimmer() throws Exception {
+        Context context = mock(Context.class);
+        Context applicationContext = mock(Context.class);
+        when(context.getApplicationContext()).thenReturn(applicationContext);
+        RxVerID trimmedRxVerID = spy(new RxVerID.Builder(context).setMemoryTrimLevel(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND).build());
+        doReturn(verIDFactory).when(trimmedRxVerID).createVerIDFactory();
+
+        verify(applicationContext, never()).registerComponentCallbacks(any());
+        trimmedRxVerID.getVerID().blockingGet();
+        trimmedRxVerID.releaseVerID();
+        trimmedRxVerID.getVerID().blockingGet();
+
+        verify(applicationContext, times(2)).registerComponentCallbacks(any(VerIDMemoryTrimmer.class));
+        verify(applicationContext, times(1)).unregisterComponentCallbacks(any(VerIDMemoryTrimmer.class));
+        verify(context, never()).registerComponentCallbacks(any());
+    }
+
+    @Test
+    public void test_buildTwiceWithSameConfiguration_returnsSameInstance() {
+        Context context = mock(Context.class);
+        IFaceDetectionFactory faceDetectionFactory = mock(IFaceDetectionFactory.class);
+
+        RxVerID first = new RxVerID.Builder(context).setFaceDetectionFactory(faceDetectionFactory).setMemoryTrimLevel(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND).build();
+        RxVerID second = new RxVerID.Builder(context).setFaceDetectionFactory(faceDetectionFactory).setMemoryTrimLevel(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND).build();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void test_trimBelowLevel_keepsVerID() throws Exception {
+        VerIDMemoryTrimmer trimmer = new VerIDMemoryTrimmer(rxVerID, ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertSame(verID1, rxVerID.getVerID().blockingGet());
+
+        trimmer.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        assertSame(verID1, rxVerID.getVerID().blockingGet());
+        assertEquals(0, rxVerID.getVerIDReleaseCount());
+        verify(verIDFactory, times(1)).createVerIDSync();
+    }
+
+    @Test
+    public void test_trimAtLevel_releasesAndRecreatesVerID() throws Exception {
+        VerIDMemoryTrimmer trimmer = new VerIDMemoryTrimmer(rxVerID, ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertSame(verID1, rxVerID.getVerID().blockingGet());
+
+        trimmer.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        // Releasing again before Ver-ID is recreated doesn't count
+        trimmer.onLowMemory();
+
+        assertEquals(1, rxVerID.getVerIDReleaseCount());
+        assertEquals(0, rxVerID.getVerIDRecreationCount());
+        VerID recreated = rxVerID.getVerID().blockingGet();
+        assertNotSame(verID1, recreated);
+        assertSame(verID2, recreated);
+        assertEquals(1, rxVerID.getVerIDRecreationCount());
+        verify(verIDFactory, times(2)).createVerIDSync();
+    }
+}
@@ -0,0 +1,87 @@
+package com.appliedrec.rxverid;
+
+import com.appliedrec.verid.core.IFaceDetection;
+import com.appliedrec.verid.core.IFaceDetectionFactory;
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IFaceRecognitionFactory;
+import com.appliedrec.verid.core.IUserManagement;
+import com.appliedrec.verid.core.IUserManagementFactory;
+import com.appliedrec.verid.core.VerIDFactory;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class VerIDStartupProfilerTest {
+
+    private static final long DETECTION_MILLIS = 20;
+    private static final long RECOGNITION_MILLIS = 30;
+    private static final long USER_STORE_MILLIS = 10;
+
+    @Test
+    public void test_createReport_breaksDownComponentFactories() throws Exception {
+        IFaceDetection faceDetection = mock(IFaceDetection.class);
+        IFaceDetectionFactory faceDetectionFactory = mock(IFaceDetectionFactory.class);
+        when(faceDetectionFactory.makeFaceDetection()).thenAnswer(invocation -> {
+            Thread.sleep(DETECTION_MILLIS);
+            return faceDetection;
+        });
+        IFaceRecognitionFactory faceRecognitionFactory = mock(IFaceRecognitionFactory.class);
+        when(faceRecognitionFactory.makeFaceRecognition()).thenAnswer(invocation -> {
+            Thread.sleep(RECOGNITION_MILLIS);
+            return mock(IFaceRecognition.class);
+        });
+        IUserManagementFactory userManagementFactory = mock(IUserManagementFactory.class);
+        when(userManagementFactory.makeUserManagement()).thenAnswer(invocation -> {
+            Thread.sleep(USER_STORE_MILLIS);
+            return mock(IUserManagement.class);
+        });
+        VerIDFactory verIDFactory = mock(VerIDFactory.class);
+        when(verIDFactory.getFaceDetectionFactory()).thenReturn(faceDetectionFactory);
+        when(verIDFactory.getFaceRecognitionFactory()).thenReturn(faceRecognitionFactory);
+        when(verIDFactory.getUserManagementFactory()).thenReturn(userManagementFactory);
+        VerIDStartupProfiler profiler = new VerIDStartupProfiler();
+
+        profiler.instrument(verIDFactory);
+
+        ArgumentCaptor<IFaceDetectionFactory> detectionCaptor = ArgumentCaptor.forClass(IFaceDetectionFactory.class);
+        ArgumentCaptor<IFaceRecognitionFactory> recognitionCaptor = ArgumentCaptor.forClass(IFaceRecognitionFactory.class);
+        ArgumentCaptor<IUserManagementFactory> userManagementCaptor = ArgumentCaptor.forClass(IUserManagementFactory.class);
+        verify(verIDFactory).setFaceDetectionFactory(detectionCaptor.capture());
+        verify(verIDFactory).setFaceRecognitionFactory(recognitionCaptor.capture());
+        verify(verIDFactory).setUserManagementFactory(userManagementCaptor.capture());
+        // Simulate createVerIDSync
+        assertSame(faceDetection, detectionCaptor.getValue().makeFaceDetection());
+        recognitionCaptor.getValue().makeFaceRecognition();
+        userManagementCaptor.getValue().makeUserManagement();
+        VerIDStartupReport report = profiler.createReport();
+
+        assertTrue(report.getFaceDetectionLoadNanos() >= TimeUnit.MILLISECONDS.toNanos(DETECTION_MILLIS));
+        assertTrue(report.getFaceRecognitionLoadNanos() >= TimeUnit.MILLISECONDS.toNanos(RECOGNITION_MILLIS));
+        assertTrue(report.getUserStoreOpenNanos() >= TimeUnit.MILLISECONDS.toNanos(USER_STORE_MILLIS));
+        assertTrue(report.getIdentityVerificationNanos() >= 0);
+        assertEquals(report.getTotalNanos(), report.getFactoryConstructionNanos() + report.getIdentityVerificationNanos() + report.getFaceDetectionLoadNanos() + report.getFaceRecognitionLoadNanos() + report.getUserStoreOpenNanos());
+    }
+
+    @Test
+    public void test_reportToMetrics_reportsEveryPhase() {
+        VerIDStartupReport report = new VerIDStartupReport(0, 1, 2, 3, 4, 5, 15);
+        RxVerIDMetrics metrics = mock(RxVerIDMetrics.class);
+
+        VerIDStartupProfiler.reportToMetrics(report, metrics);
+
+        verify(metrics).onStageFinished(RxVerIDMetrics.STAGE_VERID_FACTORY_CONSTRUCTION, RxVerIDMetrics.OUTCOME_SUCCESS, 1, 1);
+        verify(metrics).onStageFinished(RxVerIDMetrics.STAGE_VERID_IDENTITY_VERIFICATION, RxVerIDMetrics.OUTCOME_SUCCESS, 2, 1);
+        verify(metrics).onStageFinished(RxVerIDMetrics.STAGE_FACE_DETECTION_LOAD, RxVerIDMetrics.OUTCOME_SUCCESS, 3, 1);
+        verify(metrics).onStageFinished(RxVerIDMetrics.STAGE_FACE_RECOGNITION_LOAD, RxVerIDMetrics.OUTCOME_SUCCESS, 4, 1);
+        verify(metrics).onStageFinished(RxVerIDMetrics.STAGE_USER_STORE_OPEN, RxVerIDMetrics.OUTCOME_SUCCESS, 5, 1);
+    }
+}
@@ -0,0 +1,83 @@
+package com.appliedrec.rxverid.benchmark;
+
+import android.content.Context;
+
+import com.appliedrec.rxverid.RxVerID;
+import com.appliedrec.verid.core.VerID;
+import com.appliedrec.verid.core.VerIDImage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Latency of authenticating a user in an image with several people, where the user is the most prominent face
+ * <p>The faces are detected and authenticated by the {@link FakeVerIDEngine fake engine} so that no Mockito stubbing runs in the measured calls.</p>
+ * <p>{@code eagerAuthentication} reproduces the previous behaviour: a template is extracted for every detected face before the faces are authenticated.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AuthenticateUserInImageBenchmark {
+
+    // The engine's image face 0 is the most prominent face and belongs to user0
+    private static final String USER = "user0";
+
+    @Param({"1", "4"})
+    public int faceCount;
+
+    @Param({"500"})
+    public long templateExtractionLatencyMicros;
+
+    private RxVerID rxVerID;
+    private RxVerID parallelRxVerID;
+    private VerID verID;
+    private VerIDImage image;
+
+    @Setup
+    public void setup() {
+        FakeVerIDEngine engine = new FakeVerIDEngine.Builder()
+                .setUserCount(faceCount)
+                .setImageFaceCount(faceCount)
+                .setTemplateExtractionLatencyMicros(templateExtractionLatencyMicros)
+                .build();
+        verID = engine.getVerID();
+        image = engine.getImage();
+        rxVerID = new RxVerID.Builder(mock(Context.class)).build();
+        parallelRxVerID = new RxVerID.Builder(mock(Context.class)).setParallelFaceAuthentication(true).build();
+    }
+
+    @Benchmark
+    public boolean sequentialAuthentication() {
+        return rxVerID.authenticateUserInImage(verID, USER, image).blockingGet();
+    }
+
+    @Benchmark
+    public boolean parallelAuthentication() {
+        return parallelRxVerID.authenticateUserInImage(verID, USER, image).blockingGet();
+    }
+
+    @Benchmark
+    public boolean eagerAuthentication() {
+        return rxVerID.detectRecognizableFacesInImage(verID, image, 4)
+                .flatMap(face -> rxVerID.authenticateUserInFace(verID, USER, face).toObservable())
+                .filter(authenticated -> authenticated)
+                .first(false)
+                .blockingGet();
+    }
+}
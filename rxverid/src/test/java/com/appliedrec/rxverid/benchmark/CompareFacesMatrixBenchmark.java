@@ -0,0 +1,78 @@
+package com.appliedrec.rxverid.benchmark;
+
+import android.content.Context;
+
+import com.appliedrec.rxverid.RxVerID;
+import com.appliedrec.rxverid.ScoreMatrix;
+import com.appliedrec.verid.core.RecognizableFace;
+import com.appliedrec.verid.core.VerID;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares {@link RxVerID#compareFacesMatrix(VerID, com.appliedrec.verid.core.IRecognizable[], com.appliedrec.verid.core.IRecognizable[])} to a loop of {@link RxVerID#compareFaceToFaces(VerID, com.appliedrec.verid.core.IRecognizable, RecognizableFace[])} calls
+ * <p>The faces are compared by the {@link FakeVerIDEngine fake engine} so that no Mockito stubbing runs in the measured calls.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompareFacesMatrixBenchmark {
+
+    @Param({"16", "128"})
+    public int faceCount;
+
+    @Param({"10"})
+    public long comparisonLatencyMicros;
+
+    private RxVerID rxVerID;
+    private VerID verID;
+    private RecognizableFace[] faces;
+
+    @Setup
+    public void setup() {
+        FakeVerIDEngine engine = new FakeVerIDEngine.Builder()
+                .setUserCount(0)
+                .setImageFaceCount(faceCount)
+                .setComparisonLatencyMicros(comparisonLatencyMicros)
+                .build();
+        verID = engine.getVerID();
+        faces = new RecognizableFace[faceCount];
+        for (int i = 0; i < faceCount; i++) {
+            faces[i] = engine.getRecognizableImageFace(i);
+        }
+        rxVerID = new RxVerID.Builder(mock(Context.class)).build();
+    }
+
+    @Benchmark
+    public ScoreMatrix compareFacesMatrix() {
+        return rxVerID.compareFacesMatrix(verID, faces, faces).blockingGet();
+    }
+
+    @Benchmark
+    public float[][] compareFaceToFacesLoop() {
+        float[][] scores = new float[faces.length][faces.length];
+        for (int i = 0; i < faces.length; i++) {
+            for (int j = 0; j < faces.length; j++) {
+                scores[i][j] = rxVerID.compareFaceToFaces(verID, faces[i], new RecognizableFace[]{faces[j]}).blockingGet();
+            }
+        }
+        return scores;
+    }
+}
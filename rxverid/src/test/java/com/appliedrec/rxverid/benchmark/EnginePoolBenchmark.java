@@ -0,0 +1,79 @@
+package com.appliedrec.rxverid.benchmark;
+
+import android.content.Context;
+
+import com.appliedrec.rxverid.RxVerID;
+import com.appliedrec.verid.core.Face;
+import com.appliedrec.verid.core.RecognizableFace;
+import com.appliedrec.verid.core.VerID;
+import com.appliedrec.verid.core.VerIDImage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Throughput of face detection and template extraction from 8 threads against the size of the {@link RxVerID.Builder#setEnginePoolSize(int) engine pool}
+ * <p>Every face detection and face recognition instance of the fake engine runs one call at a time. With a pool size of 1 the calls queue for the Ver-ID instance's components; larger pools let them run in parallel until the pool size or the number of CPU cores is reached.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(8)
+@Fork(1)
+public class EnginePoolBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int poolSize;
+
+    @Param({"1000"})
+    public long engineLatencyMicros;
+
+    private RxVerID rxVerID;
+    private VerID verID;
+    private VerIDImage image;
+    private Face face;
+
+    @Setup
+    public void setup() throws Exception {
+        FakeVerIDEngine engine = new FakeVerIDEngine.Builder()
+                .setSerialized(true)
+                .setDetectionLatencyMicros(engineLatencyMicros)
+                .setTemplateExtractionLatencyMicros(engineLatencyMicros)
+                .build();
+        verID = engine.getVerID();
+        image = engine.getImage();
+        face = engine.getFaceDetection().detectFacesInImage(image, 1, 0)[0];
+        rxVerID = new RxVerID.Builder(mock(Context.class))
+                .setFaceDetectionFactory(engine.createFaceDetectionFactory())
+                .setFaceRecognitionFactory(engine.createFaceRecognitionFactory())
+                .setEnginePoolSize(poolSize)
+                .build();
+    }
+
+    @Benchmark
+    public List<Face> detectFacesInImage() {
+        return rxVerID.detectFacesInImage(verID, image, 1).toList().blockingGet();
+    }
+
+    @Benchmark
+    public RecognizableFace convertFaceToRecognizableFace() {
+        return rxVerID.convertFaceToRecognizableFace(verID, image, face).blockingFirst();
+    }
+}
@@ -0,0 +1,419 @@
+package com.appliedrec.rxverid.benchmark;
+
+import android.graphics.RectF;
+
+import com.appliedrec.rxverid.FaceTemplate;
+import com.appliedrec.verid.core.Face;
+import com.appliedrec.verid.core.IFaceDetection;
+import com.appliedrec.verid.core.IFaceDetectionFactory;
+import com.appliedrec.verid.core.IFaceRecognition;
+import com.appliedrec.verid.core.IFaceRecognitionFactory;
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+import com.appliedrec.verid.core.RecognizableFace;
+import com.appliedrec.verid.core.VerID;
+import com.appliedrec.verid.core.VerIDImage;
+
+import org.mockito.MockSettings;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Deterministic stand-in for the Ver-ID face detection, face recognition and user management
+ * <p>The engine runs on the local JVM. Every call to the engine spins for a fixed latency and face comparison reads every byte of both templates, so the cost of the engine is the same from run to run and the rest of a measurement is the cost of RxVerID.</p>
+ * <p>The user store holds {@code userCount} users named {@code user0}, {@code user1}, &hellip; with {@code facesPerUser} templates each.
+ * The image contains {@code imageFaceCount} faces ordered by descending quality. Face {@code i} of the image belongs to user {@code i}, so {@code user0} is the most prominent face in the image.</p>
+ * <p>The engine's interfaces are implemented with {@link Proxy dynamic proxies} rather than Mockito stubs to keep the stubbing cost out of the calls that are measured. Only the {@link VerID} container, the image and the faces, which are classes, are Mockito mocks.
+ * They are created up front as {@link MockSettings#stubOnly() stub-only} mocks, which don't record their invocations, so that the heap doesn't grow with every measured call.</p>
+ */
+public class FakeVerIDEngine {
+
+    /**
+     * Authentication threshold of the fake face recognition
+     * <p>Templates of the same user score above 8, templates of different users score below 1.</p>
+     */
+    public static final float AUTHENTICATION_THRESHOLD = 4f;
+    private static final float MAX_SCORE = 10f;
+    // Share of template bytes that differ between the templates of one user
+    private static final int TEMPLATE_VARIATION_DIVISOR = 10;
+
+    public static class Builder {
+
+        private int userCount = 100;
+        private int facesPerUser = 3;
+        private int maxFacesPerUser = Integer.MAX_VALUE;
+        private int imageFaceCount = 1;
+        private int templateSize = 512;
+        private long detectionLatencyMicros = 0;
+        private long templateExtractionLatencyMicros = 0;
+        private long comparisonLatencyMicros = 0;
+        private long userManagementLatencyMicros = 0;
+        private long seed = 0;
+        private boolean serialized = false;
+
+        public Builder setUserCount(int userCount) {
+            this.userCount = userCount;
+            return this;
+        }
+
+        public Builder setFacesPerUser(int facesPerUser) {
+            this.facesPerUser = facesPerUser;
+            return this;
+        }
+
+        /**
+         * Limit the number of templates a user keeps
+         * <p>Assigning a face to a user who has reached the limit drops the user's oldest template, so that a long run of assignments doesn't make the other calls slower over time.</p>
+         */
+        public Builder setMaxFacesPerUser(int maxFacesPerUser) {
+            this.maxFacesPerUser = maxFacesPerUser;
+            return this;
+        }
+
+        public Builder setImageFaceCount(int imageFaceCount) {
+            this.imageFaceCount = imageFaceCount;
+            return this;
+        }
+
+        public Builder setTemplateSize(int templateSize) {
+            this.templateSize = templateSize;
+            return this;
+        }
+
+        public Builder setDetectionLatencyMicros(long detectionLatencyMicros) {
+            this.detectionLatencyMicros = detectionLatencyMicros;
+            return this;
+        }
+
+        public Builder setTemplateExtractionLatencyMicros(long templateExtractionLatencyMicros) {
+            this.templateExtractionLatencyMicros = templateExtractionLatencyMicros;
+            return this;
+        }
+
+        public Builder setComparisonLatencyMicros(long comparisonLatencyMicros) {
+            this.comparisonLatencyMicros = comparisonLatencyMicros;
+            return this;
+        }
+
+        public Builder setUserManagementLatencyMicros(long userManagementLatencyMicros) {
+            this.userManagementLatencyMicros = userManagementLatencyMicros;
+            return this;
+        }
+
+        /**
+         * Make every face detection and face recognition instance run one call at a time, like a native engine that isn't safe for concurrent use
+         */
+        public Builder setSerialized(boolean serialized) {
+            this.serialized = serialized;
+            return this;
+        }
+
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public FakeVerIDEngine build() {
+            return new FakeVerIDEngine(this);
+        }
+    }
+
+    private final long detectionLatencyNanos;
+    private final long templateExtractionLatencyNanos;
+    private final long comparisonLatencyNanos;
+    private final long userManagementLatencyNanos;
+    private final int maxFacesPerUser;
+    private final boolean serialized;
+    private final Face[] imageFaces;
+    private final IdentityHashMap<Face,RecognizableFace> recognizableImageFaces = new IdentityHashMap<>();
+    // Templates of the mocked recognizable faces so that comparisons don't call into Mockito
+    private final IdentityHashMap<IRecognizable,byte[]> templates = new IdentityHashMap<>();
+    private final TreeMap<String,IRecognizable[]> users = new TreeMap<>();
+    private final IFaceDetection faceDetection;
+    private final IFaceRecognition faceRecognition;
+    private final IUserManagement userManagement;
+    private final VerID verID;
+    private final VerIDImage image;
+
+    private FakeVerIDEngine(Builder builder) {
+        detectionLatencyNanos = builder.detectionLatencyMicros * 1000;
+        templateExtractionLatencyNanos = builder.templateExtractionLatencyMicros * 1000;
+        comparisonLatencyNanos = builder.comparisonLatencyMicros * 1000;
+        userManagementLatencyNanos = builder.userManagementLatencyMicros * 1000;
+        maxFacesPerUser = builder.maxFacesPerUser;
+        serialized = builder.serialized;
+        Random random = new Random(builder.seed);
+        byte[][] userTemplates = new byte[Math.max(builder.userCount, builder.imageFaceCount)][];
+        for (int i = 0; i < userTemplates.length; i++) {
+            userTemplates[i] = new byte[builder.templateSize];
+            random.nextBytes(userTemplates[i]);
+        }
+        for (int i = 0; i < builder.userCount; i++) {
+            IRecognizable[] faces = new IRecognizable[builder.facesPerUser];
+            for (int j = 0; j < faces.length; j++) {
+                byte[] data = Arrays.copyOf(userTemplates[i], builder.templateSize);
+                // The first template is identical to the face in the image, the others vary slightly
+                for (int k = 0; j > 0 && k < data.length / TEMPLATE_VARIATION_DIVISOR; k++) {
+                    data[random.nextInt(data.length)] = (byte) random.nextInt();
+                }
+                faces[j] = new FaceTemplate(data, 1);
+            }
+            users.put("user"+i, faces);
+        }
+        imageFaces = new Face[builder.imageFaceCount];
+        for (int i = 0; i < imageFaces.length; i++) {
+            Face face = stubOnlyMock(Face.class);
+            when(face.getQuality()).thenReturn(10f - i);
+            when(face.getBounds()).thenReturn(new RectF());
+            RecognizableFace recognizableFace = stubOnlyMock(RecognizableFace.class);
+            when(recognizableFace.getQuality()).thenReturn(10f - i);
+            when(recognizableFace.getBounds()).thenReturn(new RectF());
+            when(recognizableFace.getRecognitionData()).thenReturn(userTemplates[i]);
+            when(recognizableFace.getVersion()).thenReturn(1);
+            imageFaces[i] = face;
+            recognizableImageFaces.put(face, recognizableFace);
+            templates.put(recognizableFace, userTemplates[i]);
+        }
+        faceDetection = newFaceDetection();
+        faceRecognition = newFaceRecognition();
+        userManagement = proxy(IUserManagement.class, this::invokeUserManagement);
+        verID = stubOnlyMock(VerID.class);
+        when(verID.getFaceDetection()).thenReturn(faceDetection);
+        when(verID.getFaceRecognition()).thenReturn(faceRecognition);
+        when(verID.getUserManagement()).thenReturn(userManagement);
+        image = stubOnlyMock(VerIDImage.class);
+    }
+
+    public VerID getVerID() {
+        return verID;
+    }
+
+    public VerIDImage getImage() {
+        return image;
+    }
+
+    /**
+     * Factory of additional face detection instances that share the engine's image and faces
+     */
+    public IFaceDetectionFactory createFaceDetectionFactory() {
+        return this::newFaceDetection;
+    }
+
+    /**
+     * Factory of additional face recognition instances that share the engine's templates
+     */
+    public IFaceRecognitionFactory createFaceRecognitionFactory() {
+        return this::newFaceRecognition;
+    }
+
+    private IFaceDetection newFaceDetection() {
+        return proxy(IFaceDetection.class, serialize(this::invokeFaceDetection));
+    }
+
+    private IFaceRecognition newFaceRecognition() {
+        return proxy(IFaceRecognition.class, serialize(this::invokeFaceRecognition));
+    }
+
+    private Handler serialize(Handler handler) {
+        if (!serialized) {
+            return handler;
+        }
+        Object lock = new Object();
+        return (method, args) -> {
+            synchronized (lock) {
+                return handler.invoke(method, args);
+            }
+        };
+    }
+
+    public IFaceDetection getFaceDetection() {
+        return faceDetection;
+    }
+
+    public IFaceRecognition getFaceRecognition() {
+        return faceRecognition;
+    }
+
+    public IUserManagement getUserManagement() {
+        return userManagement;
+    }
+
+    /**
+     * Recognizable face of the image that belongs to the given user
+     * @param index Index of the face, which is also the index of the user
+     * @return Recognizable face
+     */
+    public RecognizableFace getRecognizableImageFace(int index) {
+        return recognizableImageFaces.get(imageFaces[index]);
+    }
+
+    /**
+     * Templates of a user as they were when the engine was built
+     * @param index Index of the user
+     * @return Templates
+     */
+    public IRecognizable[] getEnrolledFaces(int index) {
+        synchronized (users) {
+            return users.get("user"+index);
+        }
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+
+    private static <T> T stubOnlyMock(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(handler, args);
+            }
+            Object value = handler.invoke(method.getName(), args);
+            return value != null ? value : defaultValue(method);
+        });
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == char.class) {
+            return (char) 0;
+        }
+        return null;
+    }
+
+    private Object invokeFaceDetection(String method, Object[] args) {
+        if ("detectFacesInImage".equals(method)) {
+            spin(detectionLatencyNanos);
+            int limit = (Integer) args[1];
+            return Arrays.copyOf(imageFaces, Math.min(limit, imageFaces.length));
+        }
+        return null;
+    }
+
+    private Object invokeFaceRecognition(String method, Object[] args) {
+        switch (method) {
+            case "createRecognizableFacesFromFaces": {
+                Face[] faces = (Face[]) args[0];
+                RecognizableFace[] recognizableFaces = new RecognizableFace[faces.length];
+                for (int i = 0; i < faces.length; i++) {
+                    spin(templateExtractionLatencyNanos);
+                    recognizableFaces[i] = recognizableImageFaces.get(faces[i]);
+                }
+                return recognizableFaces;
+            }
+            case "compareSubjectFacesToFaces": {
+                spin(comparisonLatencyNanos);
+                float maxScore = 0;
+                for (IRecognizable subject : (IRecognizable[]) args[0]) {
+                    for (IRecognizable face : (IRecognizable[]) args[1]) {
+                        maxScore = Math.max(maxScore, score(template(subject), template(face)));
+                    }
+                }
+                return maxScore;
+            }
+            case "getAuthenticationThreshold":
+                return AUTHENTICATION_THRESHOLD;
+            default:
+                return null;
+        }
+    }
+
+    private Object invokeUserManagement(String method, Object[] args) {
+        spin(userManagementLatencyNanos);
+        synchronized (users) {
+            switch (method) {
+                case "getUsers":
+                    return users.keySet().toArray(new String[0]);
+                case "getFacesOfUser": {
+                    IRecognizable[] faces = users.get((String) args[0]);
+                    return faces != null ? faces : new IRecognizable[0];
+                }
+                case "assignFacesToUser": {
+                    String user = (String) args[1];
+                    IRecognizable[] faces = users.get(user);
+                    ArrayList<IRecognizable> assigned = new ArrayList<>();
+                    if (faces != null) {
+                        assigned.addAll(Arrays.asList(faces));
+                    }
+                    assigned.addAll(Arrays.asList((IRecognizable[]) args[0]));
+                    if (assigned.size() > maxFacesPerUser) {
+                        assigned.subList(0, assigned.size() - maxFacesPerUser).clear();
+                    }
+                    users.put(user, assigned.toArray(new IRecognizable[0]));
+                    return null;
+                }
+                case "deleteUsers":
+                    for (String user : (String[]) args[0]) {
+                        users.remove(user);
+                    }
+                    return null;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private byte[] template(IRecognizable face) {
+        byte[] template = templates.get(face);
+        return template != null ? template : face.getRecognitionData();
+    }
+
+    private static float score(byte[] template1, byte[] template2) {
+        int length = Math.min(template1.length, template2.length);
+        if (length == 0) {
+            return 0;
+        }
+        int equalCount = 0;
+        for (int i = 0; i < length; i++) {
+            if (template1[i] == template2[i]) {
+                equalCount++;
+            }
+        }
+        return MAX_SCORE * equalCount / length;
+    }
+
+    private static void spin(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        // Busy wait rather than sleep: sleeping overshoots short latencies by an amount that depends on the scheduler
+        long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline) {
+        }
+    }
+}
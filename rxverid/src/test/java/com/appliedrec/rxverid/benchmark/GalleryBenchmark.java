@@ -0,0 +1,164 @@
+package com.appliedrec.rxverid.benchmark;
+
+import android.content.Context;
+
+import com.appliedrec.rxverid.FaceTemplate;
+import com.appliedrec.rxverid.RxVerID;
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+import com.appliedrec.verid.core.VerID;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures gallery export and import of {@link #templateCount} templates against replaying {@link RxVerID#assignFaceToUser(VerID, IRecognizable, String)} for every template
+ * <p>The user store counts assigned faces but doesn't keep them so the numbers reflect the cost of RxVerID and the gallery format.
+ * Every benchmark adds the number of templates it processed to the {@link Templates} counter, so JMH reports the throughput in templates per second as the {@code templates} secondary result next to the calls per second.</p>
+ * <p>The user store mocks are {@link org.mockito.MockSettings#stubOnly() stub-only} so that Mockito doesn't record the hundreds of thousands of calls made in each iteration.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class GalleryBenchmark {
+
+    /**
+     * Number of templates processed by the benchmarks of the thread
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Templates {
+
+        public long templates;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            templates = 0;
+        }
+    }
+
+    @Param({"100000"})
+    public int templateCount;
+
+    @Param({"10"})
+    public int templatesPerUser;
+
+    @Param({"512"})
+    public int templateSize;
+
+    private RxVerID rxVerID;
+    private VerID sourceVerID;
+    private VerID targetVerID;
+    private String[] users;
+    private IRecognizable[][] facesOfUsers;
+    private byte[] gallery;
+    private File galleryFile;
+    private final AtomicInteger assignedFaceCount = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Random random = new Random(0);
+        int userCount = templateCount / templatesPerUser;
+        users = new String[userCount];
+        facesOfUsers = new IRecognizable[userCount][];
+        for (int i = 0; i < userCount; i++) {
+            users[i] = "user"+i;
+            facesOfUsers[i] = new IRecognizable[templatesPerUser];
+            for (int j = 0; j < templatesPerUser; j++) {
+                byte[] data = new byte[templateSize];
+                random.nextBytes(data);
+                facesOfUsers[i][j] = new FaceTemplate(data, 1);
+            }
+        }
+        IUserManagement sourceUserManagement = mock(IUserManagement.class, withSettings().stubOnly());
+        when(sourceUserManagement.getUsers()).thenReturn(users);
+        when(sourceUserManagement.getFacesOfUser(anyString())).thenAnswer(invocation -> facesOfUsers[Integer.parseInt(invocation.<String>getArgument(0).substring(4))]);
+        sourceVerID = mock(VerID.class, withSettings().stubOnly());
+        when(sourceVerID.getUserManagement()).thenReturn(sourceUserManagement);
+        IUserManagement targetUserManagement = mock(IUserManagement.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            assignedFaceCount.addAndGet(invocation.<IRecognizable[]>getArgument(0).length);
+            return null;
+        }).when(targetUserManagement).assignFacesToUser(any(), anyString());
+        targetVerID = mock(VerID.class, withSettings().stubOnly());
+        when(targetVerID.getUserManagement()).thenReturn(targetUserManagement);
+        rxVerID = new RxVerID.Builder(mock(Context.class)).build();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        rxVerID.exportGallery(sourceVerID, outputStream).blockingGet();
+        gallery = outputStream.toByteArray();
+        galleryFile = File.createTempFile("gallery", ".bin");
+        try (FileOutputStream fileOutputStream = new FileOutputStream(galleryFile)) {
+            fileOutputStream.write(gallery);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        galleryFile.delete();
+    }
+
+    @Benchmark
+    public int exportGallery(Templates counter) {
+        int count = rxVerID.exportGallery(sourceVerID, new ByteArrayOutputStream(gallery.length)).blockingGet();
+        counter.templates += count;
+        return count;
+    }
+
+    @Benchmark
+    public int importGalleryFromStream(Templates counter) {
+        int count = rxVerID.importGallery(targetVerID, new ByteArrayInputStream(gallery)).blockingGet();
+        counter.templates += count;
+        return count;
+    }
+
+    @Benchmark
+    public int importGalleryFromMappedFile(Templates counter) {
+        int count = rxVerID.importGallery(targetVerID, galleryFile).blockingGet();
+        counter.templates += count;
+        return count;
+    }
+
+    @Benchmark
+    public int replayAssignFaceToUser(Templates counter) {
+        int start = assignedFaceCount.get();
+        for (int i = 0; i < users.length; i++) {
+            for (IRecognizable face : facesOfUsers[i]) {
+                rxVerID.assignFaceToUser(targetVerID, face, users[i]).blockingAwait();
+            }
+        }
+        int count = assignedFaceCount.get() - start;
+        counter.templates += count;
+        return count;
+    }
+}
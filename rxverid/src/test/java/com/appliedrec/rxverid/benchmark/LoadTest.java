@@ -0,0 +1,297 @@
+package com.appliedrec.rxverid.benchmark;
+
+import android.content.Context;
+
+import com.appliedrec.rxverid.RxVerID;
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.RecognizableFace;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Open-loop load test of a mix of RxVerID calls running on {@link FakeVerIDEngine}
+ * <p>Calls are started at a fixed target rate regardless of how long earlier calls take and run on a pool of {@code concurrency} threads.
+ * The latency of a call is measured from the time it was scheduled to start, so time spent waiting for a free thread counts. This keeps an overloaded system from hiding its queueing delay (coordinated omission).</p>
+ * <p>Run it using the {@code loadTest} Gradle task, e.g.:</p>
+ * <pre>
+ * {@code ./gradlew :rxverid:loadTest -PloadTest.args="--rate 200 --concurrency 4 --mix authenticate=70,identify=25,assign=5"}
+ * </pre>
+ * <p>The summary is printed and written to {@code summary.txt} in the report directory. The full latency histograms are written to {@code histograms.hlog} in the HdrHistogram log format, tagged with the operation name, for comparison between releases, e.g., using HistogramLogAnalyzer.</p>
+ * <p>Options:</p>
+ * <ul>
+ *     <li>{@code --rate} Calls started per second (default 100)</li>
+ *     <li>{@code --concurrency} Threads running the calls (default 4)</li>
+ *     <li>{@code --duration} Measured seconds (default 30)</li>
+ *     <li>{@code --warmup} Seconds of load before the measurement starts (default 5)</li>
+ *     <li>{@code --mix} Relative weights of {@code authenticate}, {@code identify} and {@code assign} (default {@code authenticate=70,identify=25,assign=5})</li>
+ *     <li>{@code --users} Users in the fake user store (default 1000)</li>
+ *     <li>{@code --faces-per-user} Templates per user (default 3)</li>
+ *     <li>{@code --template-size} Template size in bytes (default 512)</li>
+ *     <li>{@code --detection-latency} Latency of face detection in microseconds (default 5000)</li>
+ *     <li>{@code --extraction-latency} Latency of template extraction in microseconds (default 10000)</li>
+ *     <li>{@code --comparison-latency} Latency of a face comparison in microseconds (default 5)</li>
+ *     <li>{@code --seed} Seed of the operation sequence and the fake engine (default 0)</li>
+ *     <li>{@code --report-dir} Directory for the report files (default {@code build/reports/loadtest})</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    enum Operation {
+        AUTHENTICATE("authenticate"),
+        IDENTIFY("identify"),
+        ASSIGN("assign");
+
+        private final String name;
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        static Operation forName(String name) {
+            for (Operation operation : values()) {
+                if (operation.name.equals(name)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation "+name);
+        }
+    }
+
+    private static final int IMAGE_FACE_COUNT = 2;
+
+    private double rate = 100;
+    private int concurrency = 4;
+    private long durationSeconds = 30;
+    private long warmupSeconds = 5;
+    private final int[] weights = {70, 25, 5};
+    private int userCount = 1000;
+    private int facesPerUser = 3;
+    private int templateSize = 512;
+    private long detectionLatencyMicros = 5000;
+    private long extractionLatencyMicros = 10000;
+    private long comparisonLatencyMicros = 5;
+    private long seed = 0;
+    private File reportDir = new File("build/reports/loadtest");
+
+    private final Recorder[] recorders = new Recorder[Operation.values().length];
+    private final AtomicLongArray errorCounts = new AtomicLongArray(Operation.values().length);
+
+    public static void main(String[] args) throws Exception {
+        LoadTest loadTest = new LoadTest();
+        loadTest.parseArguments(args);
+        loadTest.run();
+    }
+
+    void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of "+args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--rate":
+                    rate = Double.parseDouble(value);
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(value);
+                    break;
+                case "--duration":
+                    durationSeconds = Long.parseLong(value);
+                    break;
+                case "--warmup":
+                    warmupSeconds = Long.parseLong(value);
+                    break;
+                case "--mix":
+                    parseMix(value);
+                    break;
+                case "--users":
+                    userCount = Integer.parseInt(value);
+                    break;
+                case "--faces-per-user":
+                    facesPerUser = Integer.parseInt(value);
+                    break;
+                case "--template-size":
+                    templateSize = Integer.parseInt(value);
+                    break;
+                case "--detection-latency":
+                    detectionLatencyMicros = Long.parseLong(value);
+                    break;
+                case "--extraction-latency":
+                    extractionLatencyMicros = Long.parseLong(value);
+                    break;
+                case "--comparison-latency":
+                    comparisonLatencyMicros = Long.parseLong(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--report-dir":
+                    reportDir = new File(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option "+args[i]);
+            }
+        }
+        if (rate <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("Rate and concurrency must be positive");
+        }
+    }
+
+    private void parseMix(String mix) {
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 0;
+        }
+        for (String entry : mix.split(",")) {
+            String[] nameAndWeight = entry.split("=");
+            if (nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry "+entry);
+            }
+            weights[Operation.forName(nameAndWeight[0].trim()).ordinal()] = Integer.parseInt(nameAndWeight[1].trim());
+        }
+    }
+
+    private Operation nextOperation(Random random, int totalWeight) {
+        int value = random.nextInt(totalWeight);
+        for (Operation operation : Operation.values()) {
+            value -= weights[operation.ordinal()];
+            if (value < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    void run() throws Exception {
+        int totalWeight = 0;
+        for (int weight : weights) {
+            totalWeight += weight;
+        }
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("The mix must contain an operation");
+        }
+        FakeVerIDEngine engine = new FakeVerIDEngine.Builder()
+                .setUserCount(userCount)
+                .setFacesPerUser(facesPerUser)
+                .setMaxFacesPerUser(facesPerUser)
+                .setImageFaceCount(IMAGE_FACE_COUNT)
+                .setTemplateSize(templateSize)
+                .setDetectionLatencyMicros(detectionLatencyMicros)
+                .setTemplateExtractionLatencyMicros(extractionLatencyMicros)
+                .setComparisonLatencyMicros(comparisonLatencyMicros)
+                .setSeed(seed)
+                .build();
+        RxVerID rxVerID = new RxVerID.Builder(mock(Context.class)).build();
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new Recorder(3);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        Random random = new Random(seed);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long startTime = System.nanoTime();
+        long measurementStartTime = startTime + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long endTime = measurementStartTime + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long callCount = 0;
+        while (true) {
+            long intendedStartTime = startTime + callCount * intervalNanos;
+            if (intendedStartTime >= endTime) {
+                break;
+            }
+            long delay = intendedStartTime - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = nextOperation(random, totalWeight);
+            String user = "user"+random.nextInt(userCount);
+            RecognizableFace face = engine.getRecognizableImageFace(random.nextInt(IMAGE_FACE_COUNT));
+            // Calls scheduled during the warm-up load the system but aren't recorded
+            boolean measured = intendedStartTime >= measurementStartTime;
+            executor.execute(() -> {
+                try {
+                    switch (operation) {
+                        case AUTHENTICATE:
+                            rxVerID.authenticateUserInImage(engine.getVerID(), user, engine.getImage()).blockingGet();
+                            break;
+                        case IDENTIFY:
+                            rxVerID.identifyUsersInFace(engine.getVerID(), face).toList().blockingGet();
+                            break;
+                        case ASSIGN:
+                            rxVerID.assignFacesToUser(engine.getVerID(), new IRecognizable[]{face}, user).blockingAwait();
+                            break;
+                    }
+                } catch (Exception e) {
+                    if (measured) {
+                        errorCounts.incrementAndGet(operation.ordinal());
+                    }
+                }
+                if (measured) {
+                    recorders[operation.ordinal()].recordValue(System.nanoTime() - intendedStartTime);
+                }
+            });
+            callCount++;
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        long elapsedNanos = System.nanoTime() - measurementStartTime;
+        Histogram[] histograms = new Histogram[recorders.length];
+        for (Operation operation : Operation.values()) {
+            histograms[operation.ordinal()] = recorders[operation.ordinal()].getIntervalHistogram();
+            histograms[operation.ordinal()].setTag(operation.name);
+        }
+        writeReport(histograms, elapsedNanos);
+    }
+
+    private void writeReport(Histogram[] histograms, long elapsedNanos) throws IOException {
+        if (!reportDir.isDirectory() && !reportDir.mkdirs()) {
+            throw new IOException("Failed to create report directory");
+        }
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format(Locale.ROOT, "rate=%.1f/s concurrency=%d duration=%ds warmup=%ds users=%d faces-per-user=%d template-size=%d detection-latency=%dus extraction-latency=%dus comparison-latency=%dus seed=%d%n",
+                rate, concurrency, durationSeconds, warmupSeconds, userCount, facesPerUser, templateSize, detectionLatencyMicros, extractionLatencyMicros, comparisonLatencyMicros, seed));
+        summary.append(String.format(Locale.ROOT, "%-14s %8s %7s %10s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "calls/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms[operation.ordinal()];
+            summary.append(String.format(Locale.ROOT, "%-14s %8d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.name,
+                    histogram.getTotalCount(),
+                    errorCounts.get(operation.ordinal()),
+                    histogram.getTotalCount() * 1e9 / elapsedNanos,
+                    histogram.getValueAtPercentile(50) / 1e6,
+                    histogram.getValueAtPercentile(90) / 1e6,
+                    histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getValueAtPercentile(99.9) / 1e6,
+                    histogram.getMaxValue() / 1e6));
+        }
+        System.out.print(summary);
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(new File(reportDir, "summary.txt")), Charset.forName("UTF-8")))) {
+            writer.print(summary);
+        }
+        try (PrintStream stream = new PrintStream(new FileOutputStream(new File(reportDir, "histograms.hlog")), false, "UTF-8")) {
+            HistogramLogWriter logWriter = new HistogramLogWriter(stream);
+            logWriter.outputComment("RxVerID load test, latencies in nanoseconds");
+            logWriter.outputLogFormatVersion();
+            logWriter.outputLegend();
+            for (Histogram histogram : histograms) {
+                logWriter.outputIntervalHistogram(histogram);
+            }
+        }
+    }
+}
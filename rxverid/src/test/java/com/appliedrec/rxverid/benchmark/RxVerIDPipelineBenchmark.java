@@ -0,0 +1,176 @@
+package com.appliedrec.rxverid.benchmark;
+
+import android.content.Context;
+
+import com.appliedrec.rxverid.RxVerID;
+import com.appliedrec.verid.core.Face;
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.RecognizableFace;
+import com.appliedrec.verid.core.VerID;
+import com.appliedrec.verid.core.VerIDImage;
+
+import org.javatuples.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Latency and throughput of the public RxVerID pipelines running on {@link FakeVerIDEngine}
+ * <p>Each pipeline has a {@code raw} counterpart that makes the same engine calls directly. The difference between the two is the overhead of RxVerID: schedulers, operators and the values it allocates.
+ * With the default zero engine latency the pipelines measure that overhead alone; raise {@link #engineLatencyMicros} to see it relative to a realistic engine.</p>
+ * <p>Run with {@code -Pjmh.include=RxVerIDPipeline -Pjmh.profiler=gc} to report the bytes allocated per call ({@code gc.alloc.rate.norm}).</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RxVerIDPipelineBenchmark {
+
+    private static final String USER = "user0";
+
+    @Param({"0", "100"})
+    public long engineLatencyMicros;
+
+    @Param({"512"})
+    public int templateSize;
+
+    @Param({"100"})
+    public int userCount;
+
+    @Param({"2"})
+    public int imageFaceCount;
+
+    private FakeVerIDEngine engine;
+    private RxVerID rxVerID;
+    private VerID verID;
+    private VerIDImage image;
+    private RecognizableFace face;
+    private RecognizableFace[] enrolledFaces;
+
+    @Setup
+    public void setup() {
+        engine = new FakeVerIDEngine.Builder()
+                .setUserCount(userCount)
+                .setImageFaceCount(imageFaceCount)
+                .setTemplateSize(templateSize)
+                .setDetectionLatencyMicros(engineLatencyMicros)
+                .setTemplateExtractionLatencyMicros(engineLatencyMicros)
+                .setComparisonLatencyMicros(engineLatencyMicros / 100)
+                .build();
+        verID = engine.getVerID();
+        image = engine.getImage();
+        face = engine.getRecognizableImageFace(0);
+        enrolledFaces = new RecognizableFace[imageFaceCount];
+        for (int i = 0; i < imageFaceCount; i++) {
+            enrolledFaces[i] = engine.getRecognizableImageFace(i);
+        }
+        rxVerID = new RxVerID.Builder(mock(Context.class)).build();
+    }
+
+    @Benchmark
+    public List<Face> detectFacesInImage() {
+        return rxVerID.detectFacesInImage(verID, image, imageFaceCount).toList().blockingGet();
+    }
+
+    @Benchmark
+    public Face[] detectFacesInImageRaw() throws Exception {
+        return engine.getFaceDetection().detectFacesInImage(image, imageFaceCount, 0);
+    }
+
+    @Benchmark
+    public List<RecognizableFace> detectRecognizableFacesInImage() {
+        return rxVerID.detectRecognizableFacesInImage(verID, image, imageFaceCount).toList().blockingGet();
+    }
+
+    @Benchmark
+    public RecognizableFace[] detectRecognizableFacesInImageRaw() throws Exception {
+        Face[] faces = engine.getFaceDetection().detectFacesInImage(image, imageFaceCount, 0);
+        RecognizableFace[] recognizableFaces = new RecognizableFace[faces.length];
+        for (int i = 0; i < faces.length; i++) {
+            recognizableFaces[i] = engine.getFaceRecognition().createRecognizableFacesFromFaces(new Face[]{faces[i]}, image)[0];
+        }
+        return recognizableFaces;
+    }
+
+    @Benchmark
+    public List<Pair<String,Float>> identifyUsersInFace() {
+        return rxVerID.identifyUsersInFace(verID, face).toList().blockingGet();
+    }
+
+    @Benchmark
+    public int identifyUsersInFaceRaw() throws Exception {
+        int count = 0;
+        float threshold = engine.getFaceRecognition().getAuthenticationThreshold();
+        for (String user : engine.getUserManagement().getUsers()) {
+            IRecognizable[] faces = engine.getUserManagement().getFacesOfUser(user);
+            if (engine.getFaceRecognition().compareSubjectFacesToFaces(new IRecognizable[]{face}, faces) >= threshold) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public boolean authenticateUserInImage() {
+        return rxVerID.authenticateUserInImage(verID, USER, image).blockingGet();
+    }
+
+    @Benchmark
+    public boolean authenticateUserInImageRaw() throws Exception {
+        Face[] faces = engine.getFaceDetection().detectFacesInImage(image, imageFaceCount, 0);
+        IRecognizable[] userFaces = engine.getUserManagement().getFacesOfUser(USER);
+        float threshold = engine.getFaceRecognition().getAuthenticationThreshold();
+        for (Face detectedFace : faces) {
+            RecognizableFace recognizableFace = engine.getFaceRecognition().createRecognizableFacesFromFaces(new Face[]{detectedFace}, image)[0];
+            if (engine.getFaceRecognition().compareSubjectFacesToFaces(new IRecognizable[]{recognizableFace}, userFaces) >= threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public float compareFaceToFaces() {
+        return rxVerID.compareFaceToFaces(verID, face, enrolledFaces).blockingGet();
+    }
+
+    @Benchmark
+    public float compareFaceToFacesRaw() throws Exception {
+        return engine.getFaceRecognition().compareSubjectFacesToFaces(new IRecognizable[]{face}, enrolledFaces);
+    }
+
+    @Benchmark
+    public List<String> getUsers() {
+        return rxVerID.getUsers(verID).toList().blockingGet();
+    }
+
+    @Benchmark
+    public String[] getUsersRaw() throws Exception {
+        return engine.getUserManagement().getUsers();
+    }
+
+    @Benchmark
+    public List<IRecognizable> getFacesOfUser() {
+        return rxVerID.getFacesOfUser(verID, USER).toList().blockingGet();
+    }
+
+    @Benchmark
+    public IRecognizable[] getFacesOfUserRaw() throws Exception {
+        return engine.getUserManagement().getFacesOfUser(USER);
+    }
+}
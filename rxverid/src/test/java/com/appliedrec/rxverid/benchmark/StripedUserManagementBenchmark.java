@@ -0,0 +1,148 @@
+package com.appliedrec.rxverid.benchmark;
+
+import com.appliedrec.rxverid.FaceTemplate;
+import com.appliedrec.rxverid.StripedUserManagementFactory;
+import com.appliedrec.verid.core.IRecognizable;
+import com.appliedrec.verid.core.IUserManagement;
+import com.appliedrec.verid.core.IUserManagementFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures concurrent enrollment into a striped user store with 1 to {@link #writerThreads} writer threads
+ * <p>Each stripe is backed by a store that serializes its own writes and spends {@link #writeTokens} of CPU work per write. With a single stripe all writers contend for the same store.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StripedUserManagementBenchmark {
+
+    private static final int WRITE_COUNT = 256;
+
+    @Param({"1", "2", "4", "8"})
+    public int writerThreads;
+
+    @Param({"1", "8"})
+    public int stripeCount;
+
+    @Param({"10000"})
+    public long writeTokens;
+
+    private ExecutorService executor;
+    private IUserManagement userManagement;
+    private IRecognizable[] faces;
+    private int round = 0;
+
+    /**
+     * User store whose operations are serialized, like a store backed by a single database connection
+     */
+    private static class SerializedUserManagement implements IUserManagement {
+
+        private final HashMap<String,IRecognizable[]> users = new HashMap<>();
+        private final long writeTokens;
+
+        SerializedUserManagement(long writeTokens) {
+            this.writeTokens = writeTokens;
+        }
+
+        @Override
+        public synchronized void assignFacesToUser(IRecognizable[] faces, String user) {
+            Blackhole.consumeCPU(writeTokens);
+            users.put(user, faces);
+        }
+
+        @Override
+        public synchronized void deleteFaces(IRecognizable[] faces) {
+        }
+
+        @Override
+        public synchronized void deleteUsers(String[] userIds) {
+            for (String user : userIds) {
+                users.remove(user);
+            }
+        }
+
+        @Override
+        public synchronized String[] getUsers() {
+            return users.keySet().toArray(new String[0]);
+        }
+
+        @Override
+        public synchronized IRecognizable[] getFacesOfUser(String user) {
+            IRecognizable[] faces = users.get(user);
+            return faces != null ? faces : new IRecognizable[0];
+        }
+
+        @Override
+        public synchronized IRecognizable[] getFaces() {
+            return new IRecognizable[0];
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        IUserManagementFactory[] stripeFactories = new IUserManagementFactory[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            SerializedUserManagement stripe = new SerializedUserManagement(writeTokens);
+            stripeFactories[i] = () -> stripe;
+        }
+        userManagement = new StripedUserManagementFactory(stripeFactories).makeUserManagement();
+        faces = new IRecognizable[]{new FaceTemplate(new byte[128], 1)};
+        executor = Executors.newFixedThreadPool(writerThreads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        userManagement.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WRITE_COUNT)
+    public void assignFacesToUser() throws Exception {
+        int prefix = round++;
+        List<Callable<Void>> writers = new ArrayList<>(writerThreads);
+        for (int t = 0; t < writerThreads; t++) {
+            int writer = t;
+            writers.add(() -> {
+                for (int i = writer; i < WRITE_COUNT; i += writerThreads) {
+                    userManagement.assignFacesToUser(faces, "user"+prefix+"-"+i);
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(writers)) {
+            future.get();
+        }
+    }
+}